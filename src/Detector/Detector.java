@@ -38,6 +38,8 @@ public class Detector<T extends JGObject> {
     private JGEngineInterface myEng;
     // Because of Erasure, we need to use reflection to help complete the function
     private Class<T> myType;
+    // reused for every query, so detecting does not create a Vector each time
+    private Vector<JGObject> myFound = new Vector<JGObject>();
 
     public Detector (JGEngineInterface eng, Class<T> type) {
         myEng = eng;
@@ -51,27 +53,35 @@ public class Detector<T extends JGObject> {
      * Vector to a nice List.
      * @param centerx : x coordinate of the place to perform the detection
      * @param centery: y coordinate of the place to perform the detection
-     * @param range: the range to detect
+     * @param range: the range to detect, a radius around the center
      * @return List of a type of JGObject 
      */
-    @SuppressWarnings("unchecked")
     public List<T> getTargetsInRange (int centerx, int centery, int range) {
-        Vector<JGObject> v =
-                getObjects(centerx, centery, range, GameEngineConstant.query(myType), null);
         List<T> result = new ArrayList<T>();
-        for (int i = 0; i < v.size(); i++) {
-            result.add((T) v.get(i));
-        }
+        getTargetsInRange(centerx, centery, range, result);
         return result;
     }
-    
-   
 
-   
+    /**
+     * Same as getTargetsInRange, but fills a list given by the caller, so
+     * a tower that detects every frame can reuse the same list. The list
+     * is cleared first.
+     * @param centerx : x coordinate of the place to perform the detection
+     * @param centery: y coordinate of the place to perform the detection
+     * @param range: the range to detect, a radius around the center
+     * @param result: list to put the targets in
+     * @return number of targets found
+     */
     @SuppressWarnings("unchecked")
-    private Vector<JGObject> getObjects (int centerx, int centery, int range, int cid, String prefix) {
-        JGRectangle rect = new JGRectangle(centerx - range, centery - range, 2 * range, 2 * range);
-        return myEng.getObjects(prefix, cid, false, rect);
+    public int getTargetsInRange (int centerx, int centery, int range, List<T> result) {
+        result.clear();
+        myEng.getObjects(myFound, null, GameEngineConstant.query(myType), false,
+                         centerx, centery, range);
+        for (int i = 0; i < myFound.size(); i++) {
+            result.add((T) myFound.get(i));
+        }
+        myFound.clear();
+        return result.size();
     }
 
 }
@@ -1,6 +1,7 @@
 package jgame;
 import jgame.impl.JGEngineInterface;
 import jgame.impl.Animation;
+import jgame.impl.JGameError;
 //import java.awt.*;
 //import java.awt.image.ImageObserver;
 //import java.io.Serializable;
@@ -50,6 +51,9 @@ import jgame.impl.Animation;
  */
 public class JGObject {
 	static int next_id = 0; 
+	/** Get next unique id; synchronised because objects may be created
+	 * from a parallel move. */
+	static synchronized int nextId() { return next_id++; }
 	/** global which might be accessed concurrently */
 	static JGEngineInterface default_engine=null;
 
@@ -127,8 +131,27 @@ public class JGObject {
 	public double xspeed=0, yspeed=0;
 	/** Object direction, is multiplied with speed; default=1 */
 	public int xdir=1,ydir=1;
-	/** Collision ID */
+	/** Collision ID.  When the engine's cid buckets are enabled, use
+	 * setColId to change it, so that the change takes effect immediately. */
 	public int colid;
+	/** The colid under which the engine has bucketed this object. Used by
+	 * the engine, do not change. */
+	public int indexed_colid=0;
+	/** The area in which the engine last drew the object's image, and the
+	 * image, when dirty rectangle repaint is enabled.  Null if not drawn.
+	 * Used by the engine, do not change. */
+	public JGRectangle drawn_rect=null;
+	public String drawn_img=null;
+	/** Alpha with which the object's image is drawn, 0=transparent,
+	 * 1=opaque (default).  Objects with alpha below 1 are drawn by the
+	 * engine's compositor, on platforms that support it. */
+	public float alpha=1f;
+	/** Pool the object is returned to on removal, null = not pooled. */
+	JGObjectPool pool=null;
+	/** Id of a pooled object within its pool, -1 = not pooled. */
+	int pool_id=-1;
+	/** true = object is in its pool's free list */
+	boolean in_pool=false;
 	/** Object's global identifier; may not change during the lifetime of the
 	 * object. */
 	String name;
@@ -141,6 +164,13 @@ public class JGObject {
 	/** If true, object will automatically start() when it is suspended and in
 	 * view.  Default is true. */
 	public boolean resume_in_view=true;
+	/** If true, the object declares that its move() only changes the object
+	 * itself, so that it may be moved in parallel with other objects when
+	 * the engine has parallel move enabled.  Such a move() may create new
+	 * objects and remove itself, but should not change or query other
+	 * objects or the engine.  Default is false.
+	 * @see jgame.impl.JGEngineInterface#setParallelMove(int) */
+	public boolean parallel_move=false;
 
 	private boolean is_alive=true;
 	/** Indicates if object is suspended. */
@@ -149,10 +179,34 @@ public class JGObject {
 	/** Get object's ID */
 	public String getName() { return name; }
 
+	/** Set collision ID, and notify the engine of the change.
+	* @see jgame.impl.JGEngineInterface#setCidBuckets(boolean) */
+	public void setColId(int colid) {
+		this.colid=colid;
+		eng.markColIdChanged(this);
+	}
+
 	/** Get name of current image. */
 	public String getImageName() { return imgname; }
 
+	/** Get the engine's handle of the current image, -1 if there is no
+	* image or it is not defined.  The name is only looked up when the image
+	* changes, which is detected by identity rather than by comparing
+	* strings. */
+	public int getImageHandle() {
+		if (imgname!=handle_name) {
+			img_handle = imgname==null ? -1 : eng.getImageHandle(imgname);
+			// retry next time if not defined yet
+			handle_name = img_handle>=0 ? imgname : null;
+		}
+		return img_handle;
+	}
+
 	String imgname=null;
+	/** handle of the image, for handle_name */
+	int img_handle=-1;
+	/** image name that img_handle was resolved for */
+	String handle_name=null;
 	Animation anim=null; /* will update imgname if set */
 	String animid=null;
 	/** cached value: has to be recomputed when image changes; simply set to
@@ -171,6 +225,9 @@ public class JGObject {
 
 	/* dimensions of last time drawn  */
 	double lastx=0, lasty=0;
+	/* position at the end of the frame before the last, for interpolation */
+	double prevx=0, prevy=0;
+	boolean last_valid=false;
 	/* bbox/tilebbox is copied into these variables each time */
 	JGRectangle lastbbox_copy=new JGRectangle();
 	JGRectangle lasttilebbox_copy=new JGRectangle();
@@ -387,7 +444,7 @@ public class JGObject {
 	public JGObject (String name, boolean unique_id,
 	double x,double y,int collisionid,String gfxname) {
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setPos(x,y);
 		setGraphic(gfxname);
 	}
@@ -398,7 +455,7 @@ public class JGObject {
 	public JGObject (String name, boolean unique_id,
 	double x,double y,int collisionid,String gfxname,int expiry) {
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setPos(x,y);
 		setGraphic(gfxname);
 		this.expiry=expiry;
@@ -413,7 +470,7 @@ public class JGObject {
 	int tilebbox_x,int tilebbox_y, int tilebbox_width,int tilebbox_height) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setTileBBox(tilebbox_x,tilebbox_y,tilebbox_width,tilebbox_height);
 	}
@@ -429,7 +486,7 @@ public class JGObject {
 	int expiry) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setTileBBox(tilebbox_x,tilebbox_y,tilebbox_width,tilebbox_height);
 		this.expiry=expiry;
@@ -445,7 +502,7 @@ public class JGObject {
 	double xspeed, double yspeed) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setSpeedAbs(xspeed,yspeed);
 	}
@@ -460,7 +517,7 @@ public class JGObject {
 	double xspeed, double yspeed, int expiry) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setSpeedAbs(xspeed,yspeed);
 		this.expiry = expiry;
@@ -477,7 +534,7 @@ public class JGObject {
 	double xspeed, double yspeed) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setTileBBox(tilebbox_x,tilebbox_y,tilebbox_width,tilebbox_height);
 		setSpeedAbs(xspeed,yspeed);
@@ -494,7 +551,7 @@ public class JGObject {
 	double xspeed, double yspeed, int expiry) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setTileBBox(tilebbox_x,tilebbox_y,tilebbox_width,tilebbox_height);
 		setSpeedAbs(xspeed,yspeed);
@@ -511,7 +568,7 @@ public class JGObject {
 	int xdir, int ydir, double xspeed, double yspeed, int expiry) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setDirSpeed(xdir,ydir,xspeed,yspeed);
 		this.expiry = expiry;
@@ -529,7 +586,7 @@ public class JGObject {
 	int xdir, int ydir, double xspeed, double yspeed, int expiry) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setTileBBox(tilebbox_x,tilebbox_y,tilebbox_width,tilebbox_height);
 		setDirSpeed(xdir,ydir,xspeed,yspeed);
@@ -549,7 +606,7 @@ public class JGObject {
 	double xspeed,double yspeed) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setTileBBox(tilebbox.x,tilebbox.y,tilebbox.width,tilebbox.height);
 		setSpeedAbs(xspeed,yspeed);
@@ -567,7 +624,7 @@ public class JGObject {
 	int xdir,int ydir) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setDirSpeed(xdir,ydir,xspeed,yspeed);
 		this.expiry = expiry;
@@ -585,13 +642,76 @@ public class JGObject {
 	JGRectangle tilebbox) {
 		setPos(x,y);
 		initObject(default_engine,
-				name + (unique_id ? ""+(next_id++) : "" ), collisionid );
+				name + (unique_id ? ""+nextId() : "" ), collisionid );
 		setGraphic(gfxname);
 		setTileBBox(tilebbox.x,tilebbox.y,tilebbox.width,tilebbox.height);
 		setDirSpeed(xdir,ydir,xspeed,yspeed);
 		this.expiry = expiry;
 	}
 
+	/** Create object that is returned to the pool when it is removed, so
+	* that it can be reused with respawn.  The object is named by the pool's
+	* prefix and an integer id.
+	* @param gfxname  id of animation or image, null = no image */
+	public JGObject (JGObjectPool pool,
+	double x,double y,int collisionid,String gfxname) {
+		this(pool,x,y,collisionid,gfxname,expire_never,0,0);
+	}
+
+	/** Create object with given absolute speed and expiry that is returned
+	* to the pool when it is removed, so that it can be reused with respawn.
+	* The object is named by the pool's prefix and an integer id.
+	* @param gfxname  id of animation or image, null = no image */
+	public JGObject (JGObjectPool pool,
+	double x,double y,int collisionid,String gfxname,
+	int expiry, double xspeed,double yspeed) {
+		this.pool=pool;
+		pool_id=pool.nextId();
+		setPos(x,y);
+		initObject(default_engine, pool.prefix+pool_id, collisionid );
+		setGraphic(gfxname);
+		setSpeedAbs(xspeed,yspeed);
+		this.expiry = expiry;
+	}
+
+	/** Reinitialise a pooled object obtained from JGObjectPool.obtain(), and
+	* add it to the engine again, as if it was newly created with the given
+	* parameters.  The object keeps its name, and settings that are not
+	* passed here, such as its bbox, tile bbox, and resume mode.  Override
+	* to reset the fields of a subclass, and call super.respawn.
+	* @param gfxname  id of animation or image, null = no image */
+	public void respawn(double x,double y,int collisionid,String gfxname,
+	int expiry, double xspeed,double yspeed) {
+		if (pool==null || is_alive || in_pool)
+			throw new JGameError("Object "+name
+				+" cannot be respawned: not pooled, alive, or in pool",true);
+		is_alive=true;
+		is_suspended=false;
+		alpha=1f;
+		xdir=1;
+		ydir=1;
+		indexed_colid=0;
+		drawn_rect=null;
+		drawn_img=null;
+		last_valid=false;
+		this.expiry = expiry;
+		setPos(x,y);
+		setSpeedAbs(xspeed,yspeed);
+		// reuse the animation if it is the same
+		if (anim!=null && gfxname!=null && gfxname.equals(animid)) {
+			anim.reset();
+		} else {
+			setGraphic(gfxname);
+		}
+		initObject(eng, name, collisionid );
+	}
+
+	/** Get the id of a pooled object within its pool, -1 if not pooled. */
+	public int getId() { return pool_id; }
+
+	/** Get the pool of the object, null if not pooled. */
+	public JGObjectPool getPool() { return pool; }
+
 
 	/* Bounding box functions.  Return copies. May return null if
 	 * image is not defined. */
@@ -740,6 +860,24 @@ public class JGObject {
 	/** Get y position of previous frame. Returns 0 if first frame. */
 	public double getLastY() { return lasty; }
 
+	/** Get x position interpolated between the previous and the current
+	* frame, according to the engine's frame alpha.  Used to draw objects
+	* smoothly when the render rate is higher than the frame rate.  Jumps
+	* of more than half the view, such as wraparound, are not interpolated.
+	* @see jgame.impl.JGEngineInterface#setRenderRate(double) */
+	public double getInterpolatedX() {
+		double dx = x - prevx;
+		if (Math.abs(dx) > eng.viewWidth()/2) return x;
+		return x - dx*(1.0-eng.getFrameAlpha());
+	}
+	/** Get y position interpolated between the previous and the current
+	* frame, see getInterpolatedX. */
+	public double getInterpolatedY() {
+		double dy = y - prevy;
+		if (Math.abs(dy) > eng.viewHeight()/2) return y;
+		return y - dy*(1.0-eng.getFrameAlpha());
+	}
+
 
 	/* snap functions */
 
@@ -1131,14 +1269,21 @@ public class JGObject {
 	 * moveObjects; normally it is not necessary to call this.  */
 	public void updateAnimation(double gamespeed) {
 		if (anim!=null) {// && eng.canvas.anim_running) {
-			imgname = anim.animate(gamespeed);
-			imgbbox=null;
+			String frame = anim.animate(gamespeed);
+			// frames are the same String objects every cycle
+			if (frame!=imgname) {
+				imgname = frame;
+				imgbbox=null;
+			}
 		}
 	}
 	/** Signal that a new frame has just been updated; make
 	* snapshot of object state.  Should only be called by the JGEngine
 	* implementation. */
 	public void frameFinished() {
+		prevx = last_valid ? lastx : x;
+		prevy = last_valid ? lasty : y;
+		last_valid=true;
 		lastx=x;
 		lasty=y;
 //		if (getBBox(lastbbox_copy)) {
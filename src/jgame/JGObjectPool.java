@@ -0,0 +1,129 @@
+package jgame;
+
+/** Pool of removed objects, which can be reused instead of creating new
+ * ones.  This avoids the garbage of games that create and remove many
+ * objects per second, such as bullets.  Objects created with a pool are
+ * returned to it by the engine when they are actually removed, and can then
+ * be obtained and reinitialised with respawn():
+
+ * <pre>
+ * Bullet b = (Bullet)bullet_pool.obtain();
+ * if (b==null) new Bullet(bullet_pool,x,y);
+ * else         b.respawn(x,y,BULLET_CID,"bullet",-2,0,-8);
+ * </pre>
+
+ * <p>Pooled objects are named by the pool's prefix followed by an integer
+ * id, which the object gets when it is first created, and keeps when it is
+ * reused.  So, no name is built when an object is reused.
+
+ * <p>Note that a reference to a removed pooled object may later refer to a
+ * reused object, which is alive again.  Do not keep references to pooled
+ * objects after they are removed.  A pool should only hold objects of one
+ * class.
+
+ * <p>obtain and release are synchronized, so pooled objects may be spawned
+ * from a move() that runs in parallel (see JGObject.parallel_move).  Which
+ * of the free objects a parallel move() gets then depends on thread timing.
+ */
+public class JGObjectPool {
+
+	/** name prefix of the pooled objects */
+	public final String prefix;
+	/** max nr of removed objects kept */
+	public final int max_size;
+
+	JGObject [] free;
+	int nr_free=0;
+	int next_id=0;
+
+	long hits=0, misses=0, released=0, discarded=0;
+
+	/** @param prefix  name prefix of the objects; objects are named
+	*                 prefix+id
+	* @param max_size  max nr of removed objects that are kept for reuse */
+	public JGObjectPool(String prefix,int max_size) {
+		this.prefix=prefix;
+		this.max_size=max_size;
+		free = new JGObject[Math.min(max_size,64)];
+	}
+
+	/** Get a removed object for reuse, which should be reinitialised with
+	* respawn.  Returns null if there is none, in which case a new object
+	* should be created. */
+	public synchronized JGObject obtain() {
+		if (nr_free==0) {
+			misses++;
+			return null;
+		}
+		hits++;
+		JGObject obj = free[--nr_free];
+		free[nr_free]=null;
+		obj.in_pool=false;
+		return obj;
+	}
+
+	/** Called by the engine when a pooled object is actually removed. */
+	public synchronized void release(JGObject obj) {
+		if (obj.in_pool) return;
+		released++;
+		if (nr_free>=max_size) {
+			discarded++;
+			return;
+		}
+		if (nr_free>=free.length) {
+			JGObject [] grown = new JGObject[Math.min(max_size,2*free.length)];
+			System.arraycopy(free,0,grown,0,nr_free);
+			free = grown;
+		}
+		obj.in_pool=true;
+		free[nr_free++] = obj;
+	}
+
+	/** Get next object id. */
+	synchronized int nextId() { return next_id++; }
+
+	/** Remove all objects from the pool. */
+	public synchronized void clear() {
+		for (int i=0; i<nr_free; i++) {
+			free[i].in_pool=false;
+			free[i]=null;
+		}
+		nr_free=0;
+	}
+
+	/** Nr of removed objects available for reuse. */
+	public int getNrFree() { return nr_free; }
+
+	/** Nr of objects ever created with this pool. */
+	public int getNrCreated() { return next_id; }
+
+	/** Nr of obtain calls that returned an object. */
+	public long getHits() { return hits; }
+
+	/** Nr of obtain calls that returned null. */
+	public long getMisses() { return misses; }
+
+	/** Nr of removed objects that were not kept because the pool was full.*/
+	public long getDiscarded() { return discarded; }
+
+	/** Fraction of obtain calls that returned an object, 0 if none. */
+	public double getHitRate() {
+		if (hits+misses==0) return 0;
+		return (double)hits/(hits+misses);
+	}
+
+	/** Reset hit, miss, release and discard counts. */
+	public synchronized void resetStats() {
+		hits=0;
+		misses=0;
+		released=0;
+		discarded=0;
+	}
+
+	public String toString() {
+		return "JGObjectPool "+prefix+": "+nr_free+" free, "+next_id
+			+" created, hit rate "+Math.round(getHitRate()*100)+"%, "
+			+discarded+" discarded";
+	}
+
+}
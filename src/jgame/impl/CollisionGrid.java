@@ -0,0 +1,184 @@
+package jgame.impl;
+
+import jgame.JGObject;
+import jgame.JGRectangle;
+import java.util.Arrays;
+
+/** Spatial hash used as broadphase for object-to-object collision and as
+ * index for object region queries.  The
+ * playfield is divided into cells of cellx by celly pixels (normally the tile
+ * size).  Each object is linked into every cell its bounding box overlaps,
+ * so that a query only has to look at the objects in the cells the query
+ * rectangle overlaps, rather than at all objects.
+
+ * <P> The grid does not own any objects.  It indexes an array of objects
+ * supplied to build() (a JGObject array, or the values of a SortedArray of
+ * JGObjects), and query results are indexes into that array.  The
+ * results of a query are sorted in ascending order, so the caller can visit
+ * them in the same order as a linear scan over the array would.
+
+ * <P> All storage is reused between builds, and grows as needed, so a grid
+ * that has reached its working size does not allocate anything.
+
+ * <P> Cells are hashed into a bucket table, so the playfield size does not
+ * matter and negative coordinates are handled.  Different cells may end up
+ * in the same bucket; this only yields some extra candidates, which the
+ * caller filters out with its own bounding box test anyway.  Objects that
+ * span more than max_cells cells are not hashed but kept in a separate list
+ * which is returned with every query.
+ */
+public class CollisionGrid {
+
+	/** Objects spanning more than this number of cells are not hashed. */
+	public static final int max_cells = 64;
+
+	int cellx, celly;
+
+	/** bucket -&gt; first entry, -1 is empty.  Length is a power of 2. */
+	int [] buckets = new int [64];
+	int bucketmask = 63;
+
+	/** entries: object index and next entry in the same bucket. */
+	int [] entry_obj = new int [128];
+	int [] entry_next = new int [128];
+	int nr_entries=0;
+
+	/** objects too large to hash */
+	int [] large = new int [16];
+	int nr_large=0;
+
+	/** per-object stamp of the last query that returned it */
+	int [] stamp = new int [64];
+	int curstamp=0;
+
+	/** number of objects in the current build */
+	int nr_obj=0;
+
+	/** Result of the last query, indexes into the array passed to build(),
+	 * ascending. Only the first query() elements are valid. */
+	public int [] result = new int [64];
+
+	JGRectangle tmprect = new JGRectangle();
+
+	public CollisionGrid(int cellx,int celly) {
+		setCellSize(cellx,celly);
+		Arrays.fill(buckets,-1);
+	}
+
+	/** Set the cell size in pixels. Takes effect at the next build. */
+	public void setCellSize(int cellx,int celly) {
+		this.cellx = cellx > 0 ? cellx : 1;
+		this.celly = celly > 0 ? celly : 1;
+	}
+
+	/** Index the first nr_obj objects of objs.  Objects without a bounding
+	* box are not indexed. */
+	public void build(Object [] objs, int nr_obj) {
+		this.nr_obj = nr_obj;
+		// size bucket table to about twice the number of objects
+		int nrbuckets = buckets.length;
+		if (nrbuckets < 2*nr_obj) {
+			while (nrbuckets < 2*nr_obj) nrbuckets *= 2;
+			buckets = new int [nrbuckets];
+			bucketmask = nrbuckets-1;
+		}
+		Arrays.fill(buckets,-1);
+		if (stamp.length < nr_obj) {
+			stamp = new int [nr_obj+64];
+			curstamp=0;
+		}
+		if (result.length < nr_obj) result = new int [nr_obj+64];
+		nr_entries=0;
+		nr_large=0;
+		JGRectangle r = tmprect;
+		for (int i=0; i<nr_obj; i++) {
+			if (!((JGObject)objs[i]).getBBox(r)) continue;
+			int x1 = divFloor(r.x,cellx);
+			int y1 = divFloor(r.y,celly);
+			int x2 = divFloor(r.x+Math.max(r.width,1)-1,cellx);
+			int y2 = divFloor(r.y+Math.max(r.height,1)-1,celly);
+			if (nrCells(x1,y1,x2,y2) > max_cells) {
+				if (nr_large >= large.length) large = grow(large,nr_large);
+				large[nr_large++] = i;
+				continue;
+			}
+			for (int cy=y1; cy<=y2; cy++) {
+				for (int cx=x1; cx<=x2; cx++) {
+					if (nr_entries >= entry_obj.length) {
+						entry_obj = grow(entry_obj,nr_entries);
+						entry_next = grow(entry_next,nr_entries);
+					}
+					int b = hash(cx,cy);
+					entry_obj[nr_entries] = i;
+					entry_next[nr_entries] = buckets[b];
+					buckets[b] = nr_entries++;
+				}
+			}
+		}
+	}
+
+	/** Find all indexed objects that may overlap r.  The indexes are stored
+	* in result in ascending order, without duplicates.
+	* @return number of indexes in result */
+	public int query(JGRectangle r) {
+		int x1 = divFloor(r.x,cellx);
+		int y1 = divFloor(r.y,celly);
+		int x2 = divFloor(r.x+Math.max(r.width,1)-1,cellx);
+		int y2 = divFloor(r.y+Math.max(r.height,1)-1,celly);
+		if (nrCells(x1,y1,x2,y2) > max_cells) {
+			// query is as large as the large objects: just return everything
+			for (int i=0; i<nr_obj; i++) result[i]=i;
+			return nr_obj;
+		}
+		if (++curstamp == Integer.MAX_VALUE) {
+			Arrays.fill(stamp,0);
+			curstamp=1;
+		}
+		int nr=0;
+		for (int cy=y1; cy<=y2; cy++) {
+			for (int cx=x1; cx<=x2; cx++) {
+				for (int e=buckets[hash(cx,cy)]; e>=0; e=entry_next[e]) {
+					int i = entry_obj[e];
+					if (stamp[i]==curstamp) continue;
+					stamp[i]=curstamp;
+					result[nr++] = i;
+				}
+			}
+		}
+		for (int l=0; l<nr_large; l++) {
+			result[nr++] = large[l];
+		}
+		if (nr > 1) Arrays.sort(result,0,nr);
+		return nr;
+	}
+
+	int hash(int cx,int cy) {
+		return ((cx*73856093) ^ (cy*19349663)) & bucketmask;
+	}
+
+	/** Number of cells in the range x1..x2, y1..y2.  This is computed in
+	* long, as it overflows int for huge bounding boxes.  If x2 or y2
+	* wrapped around because the box end overflowed int, the range is
+	* empty, and it is reported as unbounded. */
+	static long nrCells(int x1,int y1,int x2,int y2) {
+		long w = (long)x2 - x1 + 1;
+		long h = (long)y2 - y1 + 1;
+		if (w <= 0 || h <= 0) return Long.MAX_VALUE;
+		// w,h <= 2^32, so w*h may still overflow long
+		if (w > Integer.MAX_VALUE || h > Integer.MAX_VALUE)
+			return Long.MAX_VALUE;
+		return w*h;
+	}
+
+	static int divFloor(int pos,int div) {
+		if (pos >= 0) return pos/div;
+		return -1 - (-1-pos)/div;
+	}
+
+	static int [] grow(int [] arr,int size) {
+		int [] newarr = new int [arr.length*2];
+		System.arraycopy(arr,0,newarr,0,size);
+		return newarr;
+	}
+
+}
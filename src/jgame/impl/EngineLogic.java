@@ -4,6 +4,15 @@ import java.util.Vector;
 import java.util.Hashtable;
 import java.util.Enumeration;
 import java.util.Random;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -56,6 +65,14 @@ public class EngineLogic {
 
 	public double fps = 35;
 	public double maxframeskip = 4.0; /* max # of frames to skip  */
+	/** frame rate of rendering with interpolation, 0 = render after frame */
+	public double render_fps = 0;
+	/** interpolation alpha of the frame being rendered */
+	public double frame_alpha = 1.0;
+	/** paces the engine thread, and measures frame timings */
+	public FrameScheduler scheduler = new FrameScheduler();
+	/** per-phase frame profiler, null = profiling disabled */
+	public FrameProfiler profiler = null;
 
 	public double gamespeed=1.00000000001;
 
@@ -96,36 +113,52 @@ public class EngineLogic {
 	public Hashtable images_orig = new Hashtable();
 	/** JGPoint sizes of original images */
 	public Hashtable image_orig_size = new Hashtable();
-	/** Strings -&gt; JGImages, screen size, nonexistence indicates image
-	* is not cached and needs to be generated from images_orig */
-	public Hashtable images = new Hashtable();
+	/** The defined images, with their screen size images and bboxes.  It
+	* is replaced as a whole when it changes, so it can be read without
+	* locking.  Screen size images are generated from images_orig on
+	* demand. */
+	public volatile ImageRegistry image_registry = new ImageRegistry();
+	/** held while changing image_registry */
+	final Object image_registry_lock = new Object();
 
-	/** indicates that image is defined even if it has no Image */
-	public Hashtable images_exists= new Hashtable(); 
 	public Hashtable images_transp = new Hashtable(); 
 	/** Hashtable: name to filename. Indicates that image with given name
 	* is loaded from given filename */
 	public Hashtable images_loaded= new Hashtable(); 
 		/* Integers -> Objects, existence indicates transparency */
 	public Hashtable images_tile = new Hashtable(); /* Integers -> Strings */
-	public Hashtable images_bbox = new Hashtable(); /* Strings -> Rectangles */
 	public Hashtable images_tilecid = new Hashtable(); /* Integers -> Integers */
 
 	public Hashtable imagemaps = new Hashtable(); /* Strings->ImageMaps*/
 
+	/** Incremented whenever images are defined, undefined, or rescaled, so
+	* that anything derived from them, such as a SpriteAtlas, can tell it is
+	* out of date. */
+	public int images_version=0;
+
 	public int alpha_thresh=128;
 	public JGColor render_bg_color=null; // null means use bg_color
 
 
 	/* objects */
 
-	/** Note: objects lock is used to synchronise object updating between
+	/** Note: objects_lock is used to synchronise object updating between
 	 * repaint thread and game thread.  The synchronize functions are found in
-	 * Engine.doFrameAll and Canvas.paint */
+	 * Engine.doFrameAll and Canvas.paint.  It is separate from objects
+	 * because setSkipListStore replaces objects. */
+	public final Object objects_lock = new Object();
+	/** Call objects.updateArrays() before reading size, keys, or values
+	 * directly. */
 	public SortedArray objects=new SortedArray(80);    /* String->JGObject */
+	/** If true, objects and cid buckets are SkipListArrays. */
+	boolean use_skip_list_store=false;
+	/* obj_to_remove and obj_to_add are filled with append, and sorted when
+	 * they are flushed. */
 	SortedArray obj_to_remove = new SortedArray(40); /* String */
 	Vector obj_spec_to_remove = new Vector(20,40); /* (String,Int) */
 	SortedArray obj_to_add = new SortedArray(40); /* JGObject */
+	/** pooled objects in obj_to_remove, to be released after removal */
+	Vector<JGObject> pool_release = new Vector<JGObject>(40,40);
 
 
 	/* shared playfield dimensions */
@@ -191,9 +224,12 @@ public class EngineLogic {
 
 	/* background */
 
-	public int [] [] tilemap=null;
-	public int [] [] tilecidmap=null;
+	/** tile ids and tile cids of the playfield */
+	public TileMap tilemap=null;
 	//public boolean [] [] tilechangedmap=null;
+	/** file to map the tile map to, null = keep it on the heap */
+	String tilemap_file=null;
+	boolean tilemap_file_keep=false;
 
 	/** Wrap-around playfield */
 	public boolean pf_wrapx=false,pf_wrapy=false;
@@ -326,7 +362,16 @@ public class EngineLogic {
 
 	/** protected */
 	public boolean existsImage(String imgname) {
-		return images_exists.containsKey(imgname);
+		ImageRegistry reg = image_registry;
+		return reg.isDefined(reg.getHandle(imgname));
+	}
+
+	/** Get handle of image, which can be passed to getImage(int) to get the
+	* image without looking up its name.  A handle stays valid when the image
+	* is redefined.
+	* @return handle, -1 means image was never defined */
+	public int getImageHandle(String imgname) {
+		return image_registry.getHandle(imgname);
 	}
 
 	/** Protected.
@@ -338,8 +383,9 @@ public class EngineLogic {
 		//Integer tileid_obj = new Integer(tileid);
 		String imgid = (String)images_tile.get(tileid);
 		if (imgid==null) return null;
-		if (!is_resizeable) return (JGImage)images.get(imgid);
-		return getImage(imgid);
+		int handle = image_registry.getHandle(imgid);
+		if (!image_registry.isDefined(handle)) return null;
+		return getImage(handle);
 	}
 
 	/** Gets (non-scaled) image's physical size directly. */
@@ -350,42 +396,70 @@ public class EngineLogic {
 	/** Quick version does not scale image on demand, and does not
 	* give an error when image is not defined.  DEPRECATED. */
 	public JGImage getImageQuick(String imgname) {
-		return (JGImage)images.get(imgname);
+		ImageRegistry reg = image_registry;
+		int handle = reg.getHandle(imgname);
+		if (!reg.isDefined(handle) || !reg.isResolved(handle)) return null;
+		return reg.getImage(handle);
 	}
 
 	/** Slow version, (re)scales image on demand if original image is
 	* present. */
 	public JGImage getImage(String imgname) {
-		if (!existsImage(imgname)) throw new JGameError(
+		int handle = image_registry.getHandle(imgname);
+		if (!image_registry.isDefined(handle)) throw new JGameError(
 				"Image '"+imgname+"' not defined.",true );
-		JGImage img = (JGImage)images.get(imgname);
-		if (img==null) {
-			img = (JGImage)images_orig.get(imgname);
-			if (img==null) return null;
-			// convert indexed to display-compatible image
-			JGColor render_bg_col = render_bg_color;
-			if (render_bg_col==null) render_bg_col = bg_color;
-			img = img.toDisplayCompatible(alpha_thresh,
-					render_bg_col, true, make_bitmask);
-			JGPoint size = img.getSize();
-			//BufferedImage img2 = JREImage.createCompatibleImage(
-			//		size.width,size.height, Transparency.TRANSLUCENT );
-			//img2.getGraphics().drawImage(img,0,0,null);
-			//img=img2;
-			if (width>0 && height>0) {
-				if (prescale) {
-					JGPoint scaledpos = scalePos(size.x,size.y,false);
-					img = img.scale(scaledpos.x,scaledpos.y);
-					// convert translucent image to bitmask
-					// not necessary?
-					//img = imageutil.toCompatibleBitmask(img,alpha_thresh,
-					//		render_bg_col,false);
-				} // else skip this part for efficiency, even though scalefac
-				// is 1.0.
-				images.put(imgname,img);
-			} else {
-				throw new JGameError("Image width, height <= 0 !",true);
-			}
+		return getImage(handle);
+	}
+
+	/** Get image by handle, see getImageHandle.  Once the image is scaled,
+	* this does not lock or look up anything. */
+	public JGImage getImage(int handle) {
+		ImageRegistry reg = image_registry;
+		if (reg.isDefined(handle) && reg.isResolved(handle))
+			return reg.getImage(handle);
+		synchronized (image_registry_lock) {
+			reg = image_registry;
+			if (!reg.isDefined(handle)) throw new JGameError(
+					"Image handle "+handle+" not defined.",true );
+			if (reg.isResolved(handle)) return reg.getImage(handle);
+			JGImage img = scaleImage(reg.getName(handle));
+			image_registry = reg.resolve(handle,img);
+			return img;
+		}
+	}
+
+	/** Create screen size image from images_orig, null if there is no
+	* original image. */
+	JGImage scaleImage(String imgname) {
+		return scaleImage((JGImage)images_orig.get(imgname));
+	}
+
+	/** Create screen size image from original image, null if img is null.
+	* May be called from any thread. */
+	JGImage scaleImage(JGImage img) {
+		if (img==null) return null;
+		// convert indexed to display-compatible image
+		JGColor render_bg_col = render_bg_color;
+		if (render_bg_col==null) render_bg_col = bg_color;
+		img = img.toDisplayCompatible(alpha_thresh,
+				render_bg_col, true, make_bitmask);
+		JGPoint size = img.getSize();
+		//BufferedImage img2 = JREImage.createCompatibleImage(
+		//		size.width,size.height, Transparency.TRANSLUCENT );
+		//img2.getGraphics().drawImage(img,0,0,null);
+		//img=img2;
+		if (width>0 && height>0) {
+			if (prescale) {
+				JGPoint scaledpos = scalePos(size.x,size.y,false);
+				img = img.scale(scaledpos.x,scaledpos.y);
+				// convert translucent image to bitmask
+				// not necessary?
+				//img = imageutil.toCompatibleBitmask(img,alpha_thresh,
+				//		render_bg_col,false);
+			} // else skip this part for efficiency, even though scalefac
+			// is 1.0.
+		} else {
+			throw new JGameError("Image width, height <= 0 !",true);
 		}
 		return img;
 	}
@@ -399,6 +473,10 @@ public class EngineLogic {
 		ImageMap imgmap = (ImageMap)imagemaps.get(mapname);
 		if (imgmap == null) throw new JGameError(
 				"Image map '"+mapname+"' not found.",true );
+		return getSubImage(imgmap,imgnr);
+	}
+
+	JGImage getSubImage(ImageMap imgmap,int imgnr) {
 		JGPoint subcoord = imgmap.getImageCoord(imgnr);
 		if (subcoord!=null) {
 			return imgmap.img.crop(subcoord.x,subcoord.y,
@@ -493,6 +571,296 @@ public class EngineLogic {
 		
 	}
 
+	/** Like defineMedia, but the image files are loaded, and the images
+	* are cropped, flipped, rotated, converted and scaled, on a pool of
+	* nr_threads threads.  The calling thread reports progress with
+	* setProgressBar while waiting for the images.  When all are done, the
+	* image maps, images, animations, and audio clips are defined in file
+	* order, and the images are published together, so that other threads
+	* never see a half-loaded table.  Redefined images are replaced without
+	* being undefined in between.
+	* @param nr_threads  nr of threads, 1 or less = same as defineMedia */
+	@SuppressWarnings({"rawtypes","unchecked"})
+	public void defineMedia(final JGEngineInterface eng,String filename,
+	int nr_threads) {
+		if (nr_threads <= 1) {
+			defineMedia(eng,filename);
+			return;
+		}
+		filename = getAbsolutePath(eng,filename);
+		Vector<String []> lines = new Vector<String []>(); // fields per line
+		try {
+			InputStream instr = getClass().getResourceAsStream(filename);
+			if (instr==null) eng.exitEngine("Cannot open `"+filename+"'.");
+			InputStreamReader in = new InputStreamReader(instr);
+			String line;
+			while ( (line = readline(in)) != null) {
+				Vector tokens = tokenizeString(line,'\t');
+				String [] fields = new String[tokens.size()];
+				tokens.copyInto(fields);
+				lines.addElement(fields);
+			}
+		} catch (Exception e) {
+			eng.exitEngine("Error reading "+filename+":\n"
+				+ eng.dbgExceptionToString(e));
+			return;
+		}
+		if (lines.size()==0) eng.exitEngine("Cannot open `"+filename+"'.");
+		ExecutorService pool = Executors.newFixedThreadPool(nr_threads);
+		// tasks are started in the order they are submitted, so a task only
+		// waits for tasks that were started before it, and cannot deadlock
+		Future<?> [] tasks = new Future<?>[lines.size()];
+		Hashtable<String,Future<?>> file_tasks
+			= new Hashtable<String,Future<?>>(); // filename -> Future
+		Hashtable<String,Future<?>> map_tasks
+			= new Hashtable<String,Future<?>>(); // map name -> Future
+		int lnr=0;
+		try {
+			for (lnr=0; lnr<lines.size(); lnr++) {
+				final String [] f = lines.elementAt(lnr);
+				if (f.length==8) {
+					final String imgfile = getAbsolutePath(eng,f[1]);
+					tasks[lnr] = pool.submit(new Callable<Object>() {
+						public Object call() {
+							return new ImageMap(imageutil, imgfile,
+								Integer.parseInt(f[2]), Integer.parseInt(f[3]),
+								Integer.parseInt(f[4]), Integer.parseInt(f[5]),
+								Integer.parseInt(f[6]), Integer.parseInt(f[7]));
+						}
+					} );
+					map_tasks.put(f[0],tasks[lnr]);
+				} else if (f.length==9 || f.length==5) {
+					String imgfile = null;
+					Future<?> load = null;
+					if (!f[3].equals("null")) {
+						imgfile = getAbsolutePath(eng,f[3]);
+						load = file_tasks.get(imgfile);
+						if (load==null) {
+							load = pool.submit(new LoadTask(imgfile));
+							file_tasks.put(imgfile,load);
+						}
+					}
+					tasks[lnr] = pool.submit(new PrepareTask(f,
+						Integer.parseInt(f[2]), f[4], 5, load, imgfile, -1));
+				} else if (f.length==10 || f.length==6) {
+					Future<?> map = map_tasks.get(f[3]);
+					// or a map defined before
+					if (map==null && imagemaps.containsKey(f[3]))
+						map = new Done(imagemaps.get(f[3]));
+					tasks[lnr] = pool.submit(new PrepareTask(f,
+						Integer.parseInt(f[2]), f[5], 6, map, null,
+						Integer.parseInt(f[4]) ));
+				}
+			}
+			// wait for the tasks in order, then define everything in order
+			Object [] results = new Object[lines.size()];
+			for (lnr=0; lnr<lines.size(); lnr++) {
+				eng.setProgressBar((double)(lnr+1) / (double)lines.size());
+				if (tasks[lnr]!=null) results[lnr] = waitFor(tasks[lnr]);
+			}
+			Vector<PreparedImage> prepared
+				= new Vector<PreparedImage>(lines.size());
+			for (lnr=0; lnr<lines.size(); lnr++) {
+				String [] f = lines.elementAt(lnr);
+				Object result = results[lnr];
+				if (result instanceof ImageMap) {
+					imagemaps.put(f[0],result);
+				} else if (result instanceof PreparedImage) {
+					PreparedImage prep = (PreparedImage)result;
+					if (prep.loaded_file!=null) {
+						images_loaded.put(prep.name,prep.loaded_file);
+					} else {
+						images_loaded.remove(prep.name);
+					}
+					prepared.addElement(prep);
+				} else if (f.length==3) {
+					defineAnimation(f[0], splitList(f[1]), 
+						Double.parseDouble(f[2])  );
+				} else if (f.length==4) {
+					defineAnimation(f[0], splitList(f[1]),
+						Double.parseDouble(f[2]),
+						f[3].equals("true"));
+				} else if (f.length==2) {
+					defineAudioClip(eng,f[0], f[1]);
+				}
+			}
+			PreparedImage [] preparr = new PreparedImage[prepared.size()];
+			prepared.copyInto(preparr);
+			registerImages(preparr);
+		} catch (JGameError e) {
+			eng.exitEngine("Error in "+filename+" line "+(lnr+1)+": "+e);
+		} catch (Exception e) {
+			eng.exitEngine("Error in "+filename+" line "+(lnr+1)+":\n"
+				+ eng.dbgExceptionToString(e));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/** Wait for task, and pass on its exception, if any. */
+	static Object waitFor(Future<?> task) {
+		try {
+			return task.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if (cause instanceof Error) throw (Error)cause;
+			throw new JGameError("Error loading media: "+cause);
+		} catch (InterruptedException e) {
+			throw new JGameError("Loading media interrupted");
+		}
+	}
+
+	/** Future of a result that is already known, such as an image map
+	* defined before. */
+	static class Done implements Future<Object> {
+		Object result;
+		Done(Object result) { this.result=result; }
+		public boolean cancel(boolean interrupt) { return false; }
+		public boolean isCancelled() { return false; }
+		public boolean isDone() { return true; }
+		public Object get() { return result; }
+		public Object get(long timeout,java.util.concurrent.TimeUnit unit) {
+			return result;
+		}
+	}
+
+	/** Loads an image file. */
+	class LoadTask implements Callable<Object> {
+		String imgfile;
+		LoadTask(String imgfile) { this.imgfile=imgfile; }
+		public Object call() { return imageutil.loadImage(imgfile); }
+	}
+
+	/** Prepares an image from a table line, from a loaded file or an image
+	* map. */
+	class PrepareTask implements Callable<Object> {
+		String [] f;
+		int collisionid;
+		String img_op;
+		/** index of the bbox fields */
+		int bboxidx;
+		/** loads the file or image map, null = no image */
+		Future<?> source;
+		String imgfile;
+		/** index in image map, -1 = not from map */
+		int mapidx;
+		PrepareTask(String [] f,int collisionid,String img_op,int bboxidx,
+		Future<?> source,String imgfile,int mapidx) {
+			this.f=f;
+			this.collisionid=collisionid;
+			this.img_op=img_op;
+			this.bboxidx=bboxidx;
+			this.source=source;
+			this.imgfile=imgfile;
+			this.mapidx=mapidx;
+		}
+		public Object call() {
+			JGImage img = null;
+			if (mapidx >= 0) {
+				if (source==null) throw new JGameError(
+					"Image map '"+f[3]+"' not found.",true );
+				img = getSubImage((ImageMap)waitFor(source),mapidx);
+			} else if (source!=null) {
+				img = (JGImage)waitFor(source);
+			}
+			int top=-1,left=-1,width=-1,height=-1;
+			if (f.length > bboxidx) {
+				top    = Integer.parseInt(f[bboxidx]);
+				left   = Integer.parseInt(f[bboxidx+1]);
+				width  = Integer.parseInt(f[bboxidx+2]);
+				height = Integer.parseInt(f[bboxidx+3]);
+			}
+			PreparedImage prep = prepareImage(f[0],f[1],collisionid,img,
+				img_op, top,left,width,height);
+			prep.loaded_file = imgfile;
+			return prep;
+		}
+	}
+
+	/** Scale all images that are not scaled yet, such as after the window
+	* was resized, on a pool of nr_threads threads, and publish them
+	* together.  Images that are redefined in the meantime are skipped. */
+	public void preloadImages(JGEngineInterface eng,int nr_threads) {
+		final ImageRegistry reg = image_registry;
+		Vector<Integer> handles = new Vector<Integer>();
+		for (int h=0; h<reg.size(); h++) {
+			if (reg.isDefined(h) && !reg.isResolved(h))
+				handles.addElement(Integer.valueOf(h));
+		}
+		if (handles.size()==0) return;
+		ExecutorService pool = Executors.newFixedThreadPool(
+			Math.max(1,nr_threads) );
+		int [] handlearr = new int[handles.size()];
+		JGImage [] origs = new JGImage[handles.size()];
+		Future<?> [] tasks = new Future<?>[handles.size()];
+		try {
+			for (int i=0; i<handlearr.length; i++) {
+				handlearr[i] = handles.elementAt(i).intValue();
+				origs[i] = (JGImage)images_orig.get(reg.getName(handlearr[i]));
+				final JGImage orig = origs[i];
+				tasks[i] = pool.submit(new Callable<Object>() {
+					public Object call() { return scaleImage(orig); }
+				} );
+			}
+			JGImage [] scaled = new JGImage[handlearr.length];
+			for (int i=0; i<tasks.length; i++) {
+				eng.setProgressBar((double)(i+1) / (double)tasks.length);
+				scaled[i] = (JGImage)waitFor(tasks[i]);
+			}
+			synchronized (image_registry_lock) {
+				ImageRegistry cur = image_registry;
+				// leave out images that changed while we were scaling
+				int nr=0;
+				for (int i=0; i<handlearr.length; i++) {
+					int h = handlearr[i];
+					if (!cur.isDefined(h) || cur.isResolved(h)
+					|| images_orig.get(cur.getName(h))!=origs[i]) continue;
+					handlearr[nr] = h;
+					scaled[nr] = scaled[i];
+					nr++;
+				}
+				int [] h2 = new int[nr];
+				JGImage [] s2 = new JGImage[nr];
+				System.arraycopy(handlearr,0,h2,0,nr);
+				System.arraycopy(scaled,0,s2,0,nr);
+				image_registry = cur.resolve(h2,s2);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/** Replace the screen size images of the given handles by equivalent
+	* images, such as views into a sprite atlas, so that the originals can be
+	* freed.  A handle is skipped if its image is no longer old_imgs[i].
+	* This does not change images_version, as the images look the same.
+	* Protected. */
+	public void replaceImages(int [] handles,JGImage [] old_imgs,
+	JGImage [] new_imgs) {
+		synchronized (image_registry_lock) {
+			ImageRegistry cur = image_registry;
+			int nr=0;
+			int [] h2 = new int[handles.length];
+			JGImage [] i2 = new JGImage[handles.length];
+			for (int i=0; i<handles.length; i++) {
+				int h = handles[i];
+				if (!cur.isDefined(h) || !cur.isResolved(h)
+				|| cur.getImage(h)!=old_imgs[i]) continue;
+				h2[nr] = h;
+				i2[nr] = new_imgs[i];
+				nr++;
+			}
+			if (nr==0) return;
+			int [] h3 = new int[nr];
+			JGImage [] i3 = new JGImage[nr];
+			System.arraycopy(h2,0,h3,0,nr);
+			System.arraycopy(i2,0,i3,0,nr);
+			image_registry = cur.resolve(h3,i3);
+		}
+	}
+
 	/** Split a ';' separated list of words */
 	public static String [] splitList(String liststr) {
 		Vector list = tokenizeString(liststr,';');
@@ -516,11 +884,12 @@ public class EngineLogic {
 		imageutil.purgeImage((String)images_loaded.get(name));
 		images_orig.remove(name);
 		image_orig_size.remove(name);
-		images.remove(name);
-		images_exists.remove(name);
 		images_transp.remove(name);
 		images_loaded.remove(name);
-		images_bbox.remove(name);
+		synchronized (image_registry_lock) {
+			image_registry = image_registry.undefine(name);
+		}
+		images_version++;
 		for (int i=bg_images.size()-1; i>=0; i--) {
 			BGImage bg_image = (BGImage) bg_images.elementAt(i);
 			if (bg_image!=null && bg_image.imgname.equals(name)) {
@@ -540,7 +909,7 @@ public class EngineLogic {
 	public void defineImage(Object pkg_obj,String name, String tilename,
 	int collisionid, String imgfile, String img_op,
 	int top,int left, int width,int height) {
-		if (images_exists.containsKey(name)) {
+		if (existsImage(name)) {
 			undefineImage(name);
 		}
 		JGImage img=null;
@@ -553,11 +922,27 @@ public class EngineLogic {
 			img_op, top,left, width,height);
 	}
 
+	/** Define image from file, scaled to dimx,dimy. */
+	@SuppressWarnings("unchecked")
+	public void defineImage(Object pkg_obj,String name, String tilename,
+	int collisionid, String imgfile, String img_op, int dimx,int dimy) {
+		if (existsImage(name)) {
+			undefineImage(name);
+		}
+		JGImage img=null;
+		if (!imgfile.equals("null")) {
+			imgfile = getAbsolutePath(pkg_obj,imgfile);
+			img = imageutil.loadImage(imgfile).scale(dimx,dimy);
+			images_loaded.put(name,imgfile);
+		}
+		defineImage(name,tilename, collisionid, img, img_op, 0,0,-1,-1);
+	}
+
 	public void defineImageFromData(String name, String tilename,
 	int collisionid, int imgwidth, int imgheight,
 	int[] imgdata, int imgdataofs,int linewidth,
 	String img_op,  int top,int left, int width,int height) {
-		if (images_exists.containsKey(name)) {
+		if (existsImage(name)) {
 			undefineImage(name);
 		}
 		JGImage img = imageutil.createImageFromData(imgwidth,imgheight,imgdata,
@@ -572,6 +957,33 @@ public class EngineLogic {
 	public void defineImage(String name, String tilename, int collisionid,
 	JGImage img, String img_op,
 	int top,int left, int width,int height) {
+		/* pre-load scaled image to prevent hiccups during gameplay*/
+		registerImages(new PreparedImage[] { prepareImage(name,tilename,
+			collisionid, img, img_op, top,left,width,height) } );
+	}
+
+	/** An image definition of which the image work is done: the image
+	* operations, the transparency check, and the scaling.  Prepared by
+	* prepareImage, which may be called from any thread, and then defined by
+	* registerImages. */
+	static class PreparedImage {
+		String name,tilename;
+		int collisionid;
+		/** original image after image ops, and the screen size image */
+		JGImage img,scaled;
+		JGRectangle bbox;
+		boolean transp;
+		/** file the image was loaded from, or null */
+		String loaded_file=null;
+	}
+
+	PreparedImage prepareImage(String name, String tilename, int collisionid,
+	JGImage img, String img_op,
+	int top,int left, int width,int height) {
+		PreparedImage prep = new PreparedImage();
+		prep.name=name;
+		prep.tilename=tilename;
+		prep.collisionid=collisionid;
 		if (img!=null) {
 			/* do image ops */
 			img_op = img_op.toLowerCase();
@@ -585,29 +997,58 @@ public class EngineLogic {
 			if (rot90) { img = img.rotate(90); }
 			else if (rot180) { img = img.rotate(180); }
 			else if (rot270) { img = img.rotate(270); }
-			images_orig.put(name,img);
-			image_orig_size.put(name,img.getSize());
-		}
-		images_exists.put(name, "yes");
-		Integer tileid = new Integer(tileStrToID(tilename));
-		if (img==null || !img.isOpaque(alpha_thresh))
-			images_transp.put(tileid, "yes");
-		images_tile.put(tileid, name);
-		images_tilecid.put(tileid, new Integer(collisionid));
+		}
+		prep.img = img;
+		prep.transp = img==null || !img.isOpaque(alpha_thresh);
 		// width/height < 0 indicate take bounding box from image dims
 		if (width >= 0) {
-			images_bbox.put(name,new JGRectangle(top,left,width,height));
+			prep.bbox = new JGRectangle(top,left,width,height);
 		} else {
 			JGPoint size;
 			if (img==null) size = new JGPoint(0,0);
 			else           size = img.getSize();
-			images_bbox.put(name,new JGRectangle(0,0,size.x,size.y));
+			prep.bbox = new JGRectangle(0,0,size.x,size.y);
+		}
+		prep.scaled = scaleImage(img);
+		return prep;
+	}
+
+	/** Define the prepared images, in order, and publish them together in
+	* one new image registry. */
+	@SuppressWarnings("unchecked")
+	void registerImages(PreparedImage [] prepared) {
+		String [] names = new String[prepared.length];
+		JGRectangle [] bboxes = new JGRectangle[prepared.length];
+		JGImage [] scaled = new JGImage[prepared.length];
+		for (int i=0; i<prepared.length; i++) {
+			PreparedImage prep = prepared[i];
+			if (prep.img!=null) {
+				images_orig.put(prep.name,prep.img);
+				image_orig_size.put(prep.name,prep.img.getSize());
+			} else {
+				images_orig.remove(prep.name);
+				image_orig_size.remove(prep.name);
+			}
+			Integer tileid = Integer.valueOf(tileStrToID(prep.tilename));
+			if (prep.transp) {
+				images_transp.put(tileid, "yes");
+			} else {
+				images_transp.remove(tileid);
+			}
+			images_tile.put(tileid, prep.name);
+			images_tilecid.put(tileid, Integer.valueOf(prep.collisionid));
+			names[i] = prep.name;
+			bboxes[i] = prep.bbox;
+			scaled[i] = prep.scaled;
 		}
-		/* pre-load scaled image to prevent hiccups during gameplay*/
-		getImage(name); 
+		synchronized (image_registry_lock) {
+			image_registry = image_registry.define(names,bboxes,scaled);
+		}
+		images_version++;
 		if (!is_resizeable) {
-			// throw away unscaled image to save memory
-			images_orig.remove(name);
+			// throw away unscaled images to save memory
+			for (int i=0; i<prepared.length; i++)
+				images_orig.remove(prepared[i].name);
 		}
 	}
 
@@ -616,7 +1057,7 @@ public class EngineLogic {
 		//JGImage src = (JGImage)images_orig.get(srcname);
 		//if (src == null) throw new JGameError(
 		//		"Source image '"+srcname+"' not found.",true );
-		if (images_exists.containsKey(name)) {
+		if (existsImage(name)) {
 			undefineImage(name);
 		}
 		String imgfile = (String)images_loaded.get(srcname);
@@ -638,7 +1079,10 @@ public class EngineLogic {
 	}
 
 	public JGRectangle getImageBBox(String imgname) {
-		return (JGRectangle)images_bbox.get(imgname);
+		ImageRegistry reg = image_registry;
+		int handle = reg.getHandle(imgname);
+		if (!reg.isDefined(handle)) return null;
+		return reg.getBBox(handle);
 	}
 
 
@@ -704,6 +1148,7 @@ public class EngineLogic {
 	/** Update all offset-related variables according to given offset.  */
 	void setViewOffset(int xofs,int yofs) {
 		if (bg_defined==null) return;
+		if (xofs!=this.xofs || yofs!=this.yofs) markDirtyFull();
 		this.xofs = xofs;
 		this.yofs = yofs;
 		int oldtilexofs = tilexofs;
@@ -744,7 +1189,14 @@ public class EngineLogic {
 	/*====== objects from canvas ======*/
 
 	public void markAddObject(JGObject obj) {
-		obj_to_add.put(obj.getName(),obj);
+		if (move_pool!=null) {
+			MoveChunk chunk = cur_chunk.get();
+			if (chunk!=null) {
+				chunk.obj_to_add.append(obj.getName(),obj);
+				return;
+			}
+		}
+		obj_to_add.append(obj.getName(),obj);
 	}
 
 	/** Add new object now.  Old object with the same name is replaced
@@ -752,34 +1204,57 @@ public class EngineLogic {
 	 * when skip_actual_add=true.  This is useful if the caller optimises the
 	 * objects.add by adding an entire array at once */
 	void addObject(JGObject obj, boolean skip_actual_add) {
-		int idx = objects.get(obj.getName());
-		if (idx >= 0) {
-			JGObject old_obj = (JGObject)objects.values[idx];
+		JGObject old_obj = (JGObject)objects.getValue(obj.getName());
+		if (old_obj != null) {
+			if (use_cid_buckets) unbucketObject(old_obj.getName());
 			// disable object so it doesn't call engine on removal
 			old_obj.removeDone();
+			markRemovedDirty(old_obj);
 			// ensure any dispose stuff in the object is called
 			old_obj.remove();
+			if (old_obj.getPool()!=null && old_obj!=obj)
+				old_obj.getPool().release(old_obj);
 		}
-		if (!skip_actual_add)
+		if (!skip_actual_add) {
 			objects.put(obj.getName(),obj);
+			if (use_cid_buckets) bucketObject(obj);
+		}
+		object_index_valid=false;
 	}
 
 	/** Mark object for removal. */
 	void markRemoveObject(String index) {
-		int idx = objects.get(index);
-		if (idx<0) return;
-		obj_to_remove.put(index,(JGObject)objects.values[idx]);
+		JGObject obj = (JGObject)objects.getValue(index);
+		if (obj==null) return;
+		markRemoveObject(obj);
 	}
 
 	/** Mark object for removal. */
 	void markRemoveObject(JGObject obj) {
-		obj_to_remove.put(obj.getName(),obj);
+		if (move_pool!=null) {
+			MoveChunk chunk = cur_chunk.get();
+			if (chunk!=null) {
+				chunk.obj_to_remove.append(obj.getName(),obj);
+				return;
+			}
+		}
+		obj_to_remove.append(obj.getName(),obj);
 	}
 
 	/** Actually remove object now */
 	void doRemoveObject(JGObject obj) {
 		obj.removeDone();
+		markRemovedDirty(obj);
+		if (use_cid_buckets) unbucketObject(obj.getName());
+		// a pooled object that is not added yet is released by flushAddList
+		boolean release = obj.getPool()!=null && isInObjects(obj);
 		objects.remove(obj.getName());
+		object_index_valid=false;
+		if (release) obj.getPool().release(obj);
+	}
+
+	boolean isInObjects(JGObject obj) {
+		return objects.getValue(obj.getName())==obj;
 	}
 
 	/** Mark all objects with given spec for removal. */
@@ -795,31 +1270,36 @@ public class EngineLogic {
 	 * objects to remove are just added to obj_to_remove. */
 	void doRemoveObjects(String prefix,int cidmask,boolean suspended_obj,
 	boolean do_remove_list) {
-		int firstidx=getFirstObjectIndex(prefix);
-		int lastidx=getLastObjectIndex(prefix);
+		SortedArray arr = cidBucket(cidmask);
+		int firstidx=getFirstObjectIndex(arr,prefix);
+		int lastidx=getLastObjectIndex(arr,prefix);
 		for (int i=firstidx; i<lastidx; i++) {
-			JGObject o = (JGObject) objects.values[i];
+			JGObject o = (JGObject) arr.values[i];
 			if (cidmask==0 || (o.colid&cidmask)!=0) {
 				if (suspended_obj || !o.is_suspended) {
-					obj_to_remove.put(objects.keys[i],o);
+					obj_to_remove.append(arr.keys[i],o);
 				}
 			}
 		}
 		if (do_remove_list) doRemoveList();
-		// if we enumerate backwards, we can remove elements inline without
-		// consistency problems
+		// sort first, so that replaced objects are not removed twice
+		obj_to_add.sort();
+		// null the matching elements, and remove them in one go afterwards
+		int firstnull=-1;
 		for (int i=obj_to_add.size-1; i>=0; i--) {
 			JGObject o = (JGObject) obj_to_add.values[i];
 			if (prefix==null || obj_to_add.keys[i].startsWith(prefix)) {
 				if (cidmask==0 || (o.colid&cidmask)!=0) {
 					if (suspended_obj || !o.is_suspended) {
-						// Note: remove element inside element enumeration
-						obj_to_add.remove(obj_to_add.keys[i]);
+						obj_to_add.values[i]=null;
+						firstnull=i;
 						o.removeDone();
+						if (o.getPool()!=null) o.getPool().release(o);
 					}
 				}
 			}
 		}
+		if (firstnull>=0) obj_to_add.removeNullValues(firstnull);
 	}
 
 
@@ -832,6 +1312,14 @@ public class EngineLogic {
 		//		doRemoveObject(o);
 		//	}
 		//}
+		// first move objects whose colid changed to their new cid buckets,
+		// so that the object specs below see the new colids
+		if (obj_colid_changed.size()!=0) {
+			for (int i=0; i<obj_colid_changed.size(); i++) {
+				rebucketObject(obj_colid_changed.elementAt(i));
+			}
+			obj_colid_changed.removeAllElements();
+		}
 		// add all query results from object specs to obj_to_remove
 		// don't enumerate when no elements (which is about 90% of the time)
 		if (obj_spec_to_remove.size()!=0) {
@@ -850,16 +1338,47 @@ public class EngineLogic {
 
 	/** Actually remove objects in obj_to_remove. */
 	void doRemoveList() {
+		obj_to_remove.sort();
 		for (int i=0; i<obj_to_remove.size; i++) {
-			((JGObject)obj_to_remove.values[i]).removeDone();
-		}
+			JGObject o = (JGObject)obj_to_remove.values[i];
+			o.removeDone();
+			// a pooled object that is not added yet is released by
+			// flushAddList
+			if (o.getPool()!=null && isInObjects(o)) pool_release.addElement(o);
+		}
+		if (dirty_rect_mode) {
+			for (int i=0; i<obj_to_remove.size; i++)
+				markRemovedDirty((JGObject)obj_to_remove.values[i]);
+		}
+		if (use_cid_buckets && obj_to_remove.size!=0)
+			unbucketObjects(obj_to_remove);
 		objects.remove(obj_to_remove);
+		// only now are the objects out of the engine, and can be reused
+		for (int i=0; i<pool_release.size(); i++) {
+			JGObject o = pool_release.elementAt(i);
+			o.getPool().release(o);
+		}
+		pool_release.removeAllElements();
 		obj_to_remove.clear();
+		object_index_valid=false;
 	}
 
 	/** Add objects marked for addition. Protected.
 	*/
 	public void flushAddList() {
+		// pooled objects removed before they were added are not added, but
+		// returned to their pool
+		int firstnull=-1;
+		for (int i=obj_to_add.size-1; i>=0; i--) {
+			JGObject o = (JGObject)obj_to_add.values[i];
+			if (o.getPool()!=null && !o.isAlive()) {
+				obj_to_add.values[i]=null;
+				firstnull=i;
+				o.getPool().release(o);
+			}
+		}
+		if (firstnull>=0) obj_to_add.removeNullValues(firstnull);
+		obj_to_add.sort();
 		// XXX we have to add one by one because we have to call the dispose
 		// method of the objects that are replaced
 		for (int i=0; i<obj_to_add.size; i++) {
@@ -867,7 +1386,9 @@ public class EngineLogic {
 		}
 		// actually add objects to array in one go for faster performance
 		objects.put(obj_to_add);
+		if (use_cid_buckets && obj_to_add.size!=0) bucketObjects(obj_to_add);
 		obj_to_add.clear();
+		object_index_valid=false;
 	}
 
 	///** Remove objects marked for addition before they can be added.
@@ -885,13 +1406,11 @@ public class EngineLogic {
 	/* public */
 
 	public boolean existsObject(String index) {
-		return objects.get(index) >= 0;
+		return objects.contains(index);
 	}
 
 	public JGObject getObject(String index) {
-		int idx = objects.get(index);
-		if (idx<0) return null;
-		return (JGObject)objects.values[idx];
+		return (JGObject)objects.getValue(index);
 	}
 
 	///** Remove all objects.  All objects are marked for removal, the add
@@ -906,69 +1425,225 @@ public class EngineLogic {
 
 	public void moveObjects(JGEngineInterface eng,String prefix, int cidmask) {
 		if (in_parallel_upd) throw new JGameError("Recursive call",true);
+		if (profiler!=null) profiler.begin(FrameProfiler.MOVE);
 		in_parallel_upd=true;
-		int firstidx=getFirstObjectIndex(prefix);
-		int lastidx=getLastObjectIndex(prefix);
-		for (int i=firstidx; i<lastidx; i++) {
-			JGObject o = (JGObject) objects.values[i];
-			if (cidmask!=0 && (o.colid&cidmask)==0) continue;
-			// first, update suspend mode
-			if (o.is_suspended) {
-				if (o.resume_in_view
-				&&o.isInView(offscreen_margin_x,offscreen_margin_y)) o.resume();
-			} else {
-				if (o.expiry==JGObject.suspend_off_view
-				||  o.expiry==JGObject.suspend_off_view_expire_off_pf) {
-					if (!o.isInView(offscreen_margin_x,offscreen_margin_y))
-						o.suspend();
-				}
+		SortedArray arr = cidBucket(cidmask);
+		int firstidx=getFirstObjectIndex(arr,prefix);
+		int lastidx=getLastObjectIndex(arr,prefix);
+		if (move_pool!=null) {
+			moveObjectsParallel(eng,arr,firstidx,lastidx,cidmask);
+		} else {
+			for (int i=firstidx; i<lastidx; i++) {
+				JGObject o = (JGObject) arr.values[i];
+				if (cidmask!=0 && (o.colid&cidmask)==0) continue;
+				moveObject(eng,o,null);
+			}
+		}
+		object_index_valid=false;
+		flushRemoveList();
+		in_parallel_upd=false;
+		if (profiler!=null) profiler.end(FrameProfiler.MOVE);
+	}
+
+	/** Do suspend/resume, move, animation, and expiry for one object.
+	* Exceptions are passed to chunk if not null, or reported to eng
+	* otherwise. */
+	void moveObject(JGEngineInterface eng,JGObject o,MoveChunk chunk) {
+		// first, update suspend mode
+		if (o.is_suspended) {
+			if (o.resume_in_view
+			&&o.isInView(offscreen_margin_x,offscreen_margin_y)) o.resume();
+		} else {
+			if (o.expiry==JGObject.suspend_off_view
+			||  o.expiry==JGObject.suspend_off_view_expire_off_pf) {
+				if (!o.isInView(offscreen_margin_x,offscreen_margin_y))
+					o.suspend();
 			}
-			// move object
-			// we must ensure modulo is correct when object is suspended so
-			// that it will unsuspend properly
+		}
+		// move object
+		// we must ensure modulo is correct when object is suspended so
+		// that it will unsuspend properly
+		//o.moduloPos(); // is inlined below
+		if (pf_wrapx) o.x = moduloXPos(o.x);
+		if (pf_wrapy) o.y = moduloYPos(o.y);
+		if (!o.is_suspended) {
 			//o.moduloPos(); // is inlined below
 			if (pf_wrapx) o.x = moduloXPos(o.x);
 			if (pf_wrapy) o.y = moduloYPos(o.y);
-			if (!o.is_suspended) {
-				//o.moduloPos(); // is inlined below
-				if (pf_wrapx) o.x = moduloXPos(o.x);
-				if (pf_wrapy) o.y = moduloYPos(o.y);
-				try {
-					o.move();
-				} catch (JGameError ex) {
-					eng.exitEngine(eng.dbgExceptionToString(ex));
-				} catch (Exception ex) {
-					eng.dbgShowException(o.getName(),ex);
+			try {
+				o.move();
+			} catch (JGameError ex) {
+				if (chunk!=null) chunk.addError(o,ex);
+				else eng.exitEngine(eng.dbgExceptionToString(ex));
+			} catch (Exception ex) {
+				if (chunk!=null) chunk.addError(o,ex);
+				else eng.dbgShowException(o.getName(),ex);
+			}
+			o.updateAnimation(gamespeed);
+			o.x += o.xdir*o.xspeed*gamespeed;
+			o.y += o.ydir*o.yspeed*gamespeed;
+			//o.moduloPos(); // is inlined below
+			if (pf_wrapx) o.x = moduloXPos(o.x);
+			if (pf_wrapy) o.y = moduloYPos(o.y);
+		}
+		// check expiry; object should not expire when suspended
+		if (!o.is_suspended) {
+			int expiry = (int) o.expiry;
+			if (expiry >= 0) {
+				o.expiry -= gamespeed;
+				if (o.expiry < 0) o.remove();
+			} else {
+				if (expiry==JGObject.expire_off_pf
+				||  expiry==JGObject.suspend_off_view_expire_off_pf) {
+					if (!o.isOnPF(offscreen_margin_x,offscreen_margin_y))
+						o.remove();
 				}
-				o.updateAnimation(gamespeed);
-				o.x += o.xdir*o.xspeed*gamespeed;
-				o.y += o.ydir*o.yspeed*gamespeed;
-				//o.moduloPos(); // is inlined below
-				if (pf_wrapx) o.x = moduloXPos(o.x);
-				if (pf_wrapy) o.y = moduloYPos(o.y);
-			}
-			// check expiry; object should not expire when suspended
-			if (!o.is_suspended) {
-				int expiry = (int) o.expiry;
-				if (expiry >= 0) {
-					o.expiry -= gamespeed;
-					if (o.expiry < 0) o.remove();
-				} else {
-					if (expiry==JGObject.expire_off_pf
-					||  expiry==JGObject.suspend_off_view_expire_off_pf) {
-						if (!o.isOnPF(offscreen_margin_x,offscreen_margin_y))
-							o.remove();
+				if (expiry==JGObject.expire_off_view
+				&& !o.isInView(offscreen_margin_x,offscreen_margin_y))
+					o.remove();
+			}
+		}
+	}
+
+
+	/* parallel move */
+
+	/** Thread pool for moving objects with parallel_move set, null means
+	 * parallel move is disabled. */
+	ForkJoinPool move_pool=null;
+	/** Minimum number of objects moved by one task. */
+	public static final int min_chunk_size=256;
+	MoveChunk [] move_chunks = new MoveChunk[0];
+	Vector<MoveChunk> move_tasks = new Vector<MoveChunk>(16,16);
+	/** Objects to move in parallel, in name order. */
+	JGObject [] parallel_obj = new JGObject[50];
+	/** The chunk moved by the current thread, if it is a pool thread. */
+	ThreadLocal<MoveChunk> cur_chunk = new ThreadLocal<MoveChunk>();
+
+	/** Range of parallel_obj that is moved by one pool task.  Objects that
+	* are added or removed, and collision ids that are changed during the
+	* move are buffered in the chunk, and merged in chunk order after all
+	* chunks are done, so the result does not depend on thread timing. */
+	class MoveChunk implements Callable<Object> {
+		JGEngineInterface eng;
+		int firstidx,lastidx;
+		SortedArray obj_to_add = new SortedArray(16);
+		SortedArray obj_to_remove = new SortedArray(16);
+		Vector<JGObject> obj_colid_changed = new Vector<JGObject>(8,16);
+		/** (JGObject,Throwable) pairs, reported after the move */
+		Vector<Object> errors = new Vector<Object>(2,8);
+		public Object call() {
+			cur_chunk.set(this);
+			try {
+				for (int i=firstidx; i<lastidx; i++)
+					moveObject(eng,parallel_obj[i],this);
+			} finally {
+				cur_chunk.set(null);
+			}
+			return null;
+		}
+		void addError(JGObject o,Throwable ex) {
+			errors.addElement(o);
+			errors.addElement(ex);
+		}
+	}
+
+	/** Enable or disable parallel move.  nr_threads&lt;=1 disables it.
+	* Default is disabled. */
+	public void setParallelMove(int nr_threads) {
+		if (in_parallel_upd)
+			throw new JGameError("Cannot change parallel move during update",
+				true);
+		if (move_pool!=null) move_pool.shutdown();
+		move_pool=null;
+		move_chunks = new MoveChunk[0];
+		if (nr_threads > 1) {
+			move_pool = new ForkJoinPool(nr_threads);
+			// a few chunks per thread to balance the load
+			move_chunks = new MoveChunk[4*nr_threads];
+			for (int i=0; i<move_chunks.length; i++)
+				move_chunks[i] = new MoveChunk();
+		}
+	}
+
+	/** Move the objects with parallel_move set on move_pool, then the
+	* others in name order on this thread. */
+	void moveObjectsParallel(JGEngineInterface eng,SortedArray arr,
+	int firstidx,int lastidx,int cidmask) {
+		if (lastidx-firstidx > parallel_obj.length)
+			parallel_obj = new JGObject[lastidx-firstidx+50];
+		int nr_parallel=0;
+		for (int i=firstidx; i<lastidx; i++) {
+			JGObject o = (JGObject) arr.values[i];
+			if (cidmask!=0 && (o.colid&cidmask)==0) continue;
+			if (o.parallel_move) parallel_obj[nr_parallel++] = o;
+		}
+		if (nr_parallel > 0) {
+			int nr_chunks = Math.min(move_chunks.length,
+				(nr_parallel+min_chunk_size-1) / min_chunk_size);
+			move_tasks.removeAllElements();
+			for (int c=0; c<nr_chunks; c++) {
+				MoveChunk chunk = move_chunks[c];
+				chunk.eng = eng;
+				chunk.firstidx = (int)((long)nr_parallel*c/nr_chunks);
+				chunk.lastidx = (int)((long)nr_parallel*(c+1)/nr_chunks);
+				move_tasks.addElement(chunk);
+			}
+			if (nr_chunks==1) {
+				move_chunks[0].call();
+			} else {
+				// invokeAll returns only after all tasks are done
+				List<Future<Object>> results = move_pool.invokeAll(move_tasks);
+				// pass on exceptions not caught by moveObject
+				for (int c=0; c<results.size(); c++) {
+					try {
+						results.get(c).get();
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof RuntimeException)
+							throw (RuntimeException)cause;
+						if (cause instanceof Error) throw (Error)cause;
+						throw new JGameError("Error in parallel move: "+cause);
+					} catch (InterruptedException e) {
+						throw new JGameError("Parallel move interrupted");
+					}
+				}
+			}
+			// merge chunk buffers in order
+			for (int c=0; c<nr_chunks; c++) {
+				MoveChunk chunk = move_chunks[c];
+				chunk.eng = null;
+				appendAll(obj_to_add,chunk.obj_to_add);
+				appendAll(obj_to_remove,chunk.obj_to_remove);
+				chunk.obj_to_add.clear();
+				chunk.obj_to_remove.clear();
+				for (int i=0; i<chunk.obj_colid_changed.size(); i++)
+					markColIdChanged(chunk.obj_colid_changed.elementAt(i));
+				chunk.obj_colid_changed.removeAllElements();
+				for (int i=0; i<chunk.errors.size(); i+=2) {
+					JGObject o = (JGObject)chunk.errors.elementAt(i);
+					Throwable ex = (Throwable)chunk.errors.elementAt(i+1);
+					if (ex instanceof JGameError) {
+						eng.exitEngine(eng.dbgExceptionToString(ex));
+					} else {
+						eng.dbgShowException(o.getName(),ex);
 					}
-					if (expiry==JGObject.expire_off_view
-					&& !o.isInView(offscreen_margin_x,offscreen_margin_y))
-						o.remove();
 				}
+				chunk.errors.removeAllElements();
 			}
+			for (int i=0; i<nr_parallel; i++) parallel_obj[i]=null;
+		}
+		// now do the other objects
+		for (int i=firstidx; i<lastidx; i++) {
+			JGObject o = (JGObject) arr.values[i];
+			if (cidmask!=0 && (o.colid&cidmask)==0) continue;
+			if (!o.parallel_move) moveObject(eng,o,null);
 		}
-		flushRemoveList();
-		in_parallel_upd=false;
 	}
 
+	static void appendAll(SortedArray dest,SortedArray src) {
+		for (int i=0; i<src.size; i++) dest.append(src.keys[i],src.values[i]);
+	}
 
 	public void moveObjects(JGEngineInterface eng) {
 		moveObjects(eng,null,0); 
@@ -981,9 +1656,41 @@ public class EngineLogic {
 
 	JGObject [] srcobj = new JGObject[50];
 	JGObject [] dstobj = new JGObject[50];
+
+	/** If true, checkCollision uses collision_grid as broadphase. */
+	boolean use_collision_grid=false;
+	/** Spatial hash with cells of tile size, created on first use. */
+	CollisionGrid collision_grid=null;
+
+	/** If true, objects are also stored in cid_buckets. */
+	boolean use_cid_buckets=false;
+	/** For each collision id bit, the objects (by name) which have that bit
+	 * set in their JGObject.indexed_colid. */
+	SortedArray [] cid_buckets=null;
+	/** Cached unions of cid_buckets for cid masks with multiple bits.  They
+	 * are updated along with the buckets, so they stay valid. */
+	SortedArray [] cid_unions = new SortedArray[8];
+	int [] cid_union_masks = new int[8];
+	int cid_union_next=0;
+	/** Temp arrays for bulk bucket updates, one per bit. */
+	SortedArray [] cid_tmp=null;
+	/** Temp array for bulk union updates. */
+	SortedArray cid_union_tmp = new SortedArray(40);
+	/** Objects whose colid changed during a parallel update. */
+	Vector<JGObject> obj_colid_changed = new Vector<JGObject>(20,40);
+
+	/** If true, region queries use object_index. */
+	boolean use_object_index=false;
+	/** Index of all objects, rebuilt lazily when object_index_valid is
+	 * false. */
+	CollisionGrid object_index=null;
+	boolean object_index_valid=false;
+
 	public void checkCollision(JGEngineInterface eng,int srccid,int dstcid) {
 		if (in_parallel_upd) throw new JGameError("Recursive call",true);
+		if (profiler!=null) profiler.begin(FrameProfiler.COLLISION);
 		in_parallel_upd=true;
+		objects.updateArrays();
 		if (objects.size > srcobj.length) {
 			// grow arrays to make objects fit
 			srcobj = new JGObject[objects.size+50];
@@ -994,38 +1701,117 @@ public class EngineLogic {
 		/* get all matching objects */
 		JGRectangle sr = tmprect1;
 		JGRectangle dr = tmprect2;
-		for (int i=0; i<objects.size; i++) {
-			JGObject o  = (JGObject)objects.values[i];
-			if (o.is_suspended) continue;
-			if (!o.getBBox(sr)) continue;
-			if ((o.colid & srccid) != 0) {
-				srcobj[srcsize++] = o;
-			}
-			if ((o.colid & dstcid) != 0) {
-				dstobj[dstsize++] = o;
+		if (use_cid_buckets) {
+			srcsize = getCollisionObjects(srcobj,srccid,false);
+			dstsize = getCollisionObjects(dstobj,dstcid,false);
+		} else {
+			for (int i=0; i<objects.size; i++) {
+				JGObject o  = (JGObject)objects.values[i];
+				if (o.is_suspended) continue;
+				if (!o.getBBox(sr)) continue;
+				if ((o.colid & srccid) != 0) {
+					srcobj[srcsize++] = o;
+				}
+				if ((o.colid & dstcid) != 0) {
+					dstobj[dstsize++] = o;
+				}
 			}
 		}
 		/* check collision */
+		if (use_collision_grid) {
+			checkCollisionGrid(eng,srcsize,dstsize);
+		} else {
+			checkCollisionAll(eng,srcsize,dstsize);
+		}
+		object_index_valid=false;
+		flushRemoveList();
+		in_parallel_upd=false;
+		if (profiler!=null) profiler.end(FrameProfiler.COLLISION);
+	}
+
+	/** Brute-force version of the collision loop: each src object is tested
+	* against all dst objects.  This is a separate method so that it is
+	* compiled the same way whichever way srcobj and dstobj were filled. */
+	void checkCollisionAll(JGEngineInterface eng,int srcsize,int dstsize) {
+		JGRectangle sr = tmprect1;
+		JGRectangle dr = tmprect2;
 		for (int si=0; si<srcsize; si++) {
 			JGObject srco = srcobj[si];
 			if (!srco.getBBox(sr)) continue;
 			for (int di=0; di<dstsize; di++) {
-				JGObject dsto = dstobj[di];
-				if (dsto == srco) continue;
-				if (!dsto.getBBox(dr)) continue;
-				if (sr.intersects(dr)) {
-					try {
-						dsto.hit(srco);
-					} catch (JGameError ex) {
-						eng.exitEngine(eng.dbgExceptionToString(ex));
-					} catch (Exception ex) {
-						eng.dbgShowException(dsto.getName(),ex);
-					}
-				}
+				checkCollision(eng,srco,dstobj[di],sr,dr);
+			}
+		}
+	}
+
+	/** Broadphase version of the collision loop.  The dst objects are
+	* indexed in collision_grid, and each src object is only tested against
+	* the dst objects in the grid cells it overlaps.  The grid query returns
+	* the dst objects in ascending order, so hit() is called in the same order
+	* as the regular loop.  Note that dst objects are indexed by their
+	* position at the start of the loop; the regular loop also sees dst objects
+	* moved by an earlier hit(). */
+	void checkCollisionGrid(JGEngineInterface eng,int srcsize,int dstsize) {
+		if (collision_grid==null) collision_grid=new CollisionGrid(tilex,tiley);
+		collision_grid.setCellSize(tilex,tiley);
+		collision_grid.build(dstobj,dstsize);
+		JGRectangle sr = tmprect1;
+		JGRectangle dr = tmprect2;
+		for (int si=0; si<srcsize; si++) {
+			JGObject srco = srcobj[si];
+			if (!srco.getBBox(sr)) continue;
+			int nr = collision_grid.query(sr);
+			int [] result = collision_grid.result;
+			for (int i=0; i<nr; i++) {
+				checkCollision(eng,srco,dstobj[result[i]],sr,dr);
+			}
+		}
+	}
+
+	/** Call dsto.hit(srco) if their bboxes overlap.  sr should contain the
+	* bbox of srco, dr is used as temp variable. */
+	void checkCollision(JGEngineInterface eng,JGObject srco,JGObject dsto,
+	JGRectangle sr,JGRectangle dr) {
+		if (dsto == srco) return;
+		if (!dsto.getBBox(dr)) return;
+		if (sr.intersects(dr)) {
+			try {
+				dsto.hit(srco);
+			} catch (JGameError ex) {
+				eng.exitEngine(eng.dbgExceptionToString(ex));
+			} catch (Exception ex) {
+				eng.dbgShowException(dsto.getName(),ex);
 			}
 		}
-		flushRemoveList();
-		in_parallel_upd=false;
+	}
+
+	/** Store the non-suspended objects matching cidmask that have a bbox
+	* (or a tile bbox if tilebbox is true) in dest, in name order.  Uses the
+	* cid buckets if enabled.
+	* @return number of objects stored */
+	int getCollisionObjects(JGObject [] dest,int cidmask,boolean tilebbox) {
+		SortedArray arr = cidBucket(cidmask);
+		JGRectangle r = tmprect1;
+		int size=0;
+		for (int i=0; i<arr.size; i++) {
+			JGObject o  = (JGObject)arr.values[i];
+			if (o.is_suspended) continue;
+			if ((o.colid & cidmask) == 0) continue;
+			if (tilebbox) {
+				if (!o.getTileBBox(r)) continue;
+			} else {
+				if (!o.getBBox(r)) continue;
+			}
+			dest[size++] = o;
+		}
+		return size;
+	}
+
+	/** Enable or disable the spatial hash broadphase in
+	* checkCollision(srccid,dstcid).  Default is disabled. */
+	public void setCollisionGrid(boolean enabled) {
+		use_collision_grid=enabled;
+		if (!enabled) collision_grid=null;
 	}
 
 	public int checkCollision(int cidmask, JGObject obj) {
@@ -1033,8 +1819,9 @@ public class EngineLogic {
 		if (bbox==null) return 0;
 		int retcid=0;
 		JGRectangle obj_bbox = tmprect1;
-		for (int i=0; i<objects.size; i++) {
-			JGObject o  = (JGObject)objects.values[i];
+		SortedArray arr = cidBucket(cidmask);
+		for (int i=0; i<arr.size; i++) {
+			JGObject o  = (JGObject)arr.values[i];
 			if (o==obj) continue;
 			if (!o.is_suspended) {
 				if (cidmask==0 || (o.colid&cidmask)!=0) {
@@ -1056,7 +1843,9 @@ public class EngineLogic {
 
 	public void checkBGCollision(JGEngineInterface eng,int tilecid,int objcid) {
 		if (in_parallel_upd) throw new JGameError("Recursive call",true);
+		if (profiler!=null) profiler.begin(FrameProfiler.BGCOLLISION);
 		in_parallel_upd=true;
+		objects.updateArrays();
 		if (objects.size > srcobj.length) {
 			// grow arrays to make objects fit
 			srcobj = new JGObject[objects.size+50];
@@ -1064,12 +1853,16 @@ public class EngineLogic {
 		int srcsize = 0;
 		JGRectangle r = tmprect1;
 		/* get all matching objects */
-		for (int i=0; i<objects.size; i++) {
-			JGObject o  = (JGObject)objects.values[i];
-			if (o.is_suspended) continue;
-			if (!o.getTileBBox(r)) continue;
-			if ((o.colid & objcid) != 0) {
-				srcobj[srcsize++] = o;
+		if (use_cid_buckets) {
+			srcsize = getCollisionObjects(srcobj,objcid,true);
+		} else {
+			for (int i=0; i<objects.size; i++) {
+				JGObject o  = (JGObject)objects.values[i];
+				if (o.is_suspended) continue;
+				if (!o.getTileBBox(r)) continue;
+				if ((o.colid & objcid) != 0) {
+					srcobj[srcsize++] = o;
+				}
 			}
 		}
 		/* check collision */
@@ -1100,8 +1893,10 @@ public class EngineLogic {
 				}
 			}
 		}
+		object_index_valid=false;
 		flushRemoveList();
 		in_parallel_upd=false;
+		if (profiler!=null) profiler.end(FrameProfiler.BGCOLLISION);
 	}
 
 
@@ -1111,26 +1906,112 @@ public class EngineLogic {
 	public Vector getObjects(String prefix,int cidmask,boolean suspended_obj,
 	JGRectangle bbox) {
 		Vector objects_v = new Vector(50,100);
-		int nr_obj=0;
-		JGRectangle obj_bbox = tmprect1;
-		int firstidx=getFirstObjectIndex(prefix);
-		int lastidx=getLastObjectIndex(prefix);
-		for (int i=firstidx; i<lastidx; i++) {
-			JGObject obj  = (JGObject)objects.values[i];
-			if (cidmask==0 || (obj.colid&cidmask)!=0) {
-				if (suspended_obj || !obj.is_suspended) {
-					if (bbox!=null) {
-						if (!obj.getBBox(obj_bbox)) continue;
-						if (bbox.intersects(obj_bbox)) {
-							objects_v.addElement(obj);
-						}
-					} else {
-						objects_v.addElement(obj);
+		getObjects(objects_v,prefix,cidmask,suspended_obj,bbox);
+		return objects_v;
+	}
+
+	/** Version of getObjects that clears result and stores the matching
+	* objects in it, so the caller can reuse the same Vector.
+	* @return number of objects found */
+	@SuppressWarnings({"rawtypes","unchecked"})
+	public int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj, JGRectangle bbox) {
+		result.removeAllElements();
+		if (bbox==null) {
+			SortedArray arr = cidBucket(cidmask);
+			int firstidx=getFirstObjectIndex(arr,prefix);
+			int lastidx=getLastObjectIndex(arr,prefix);
+			for (int i=firstidx; i<lastidx; i++) {
+				JGObject obj  = (JGObject)arr.values[i];
+				if (cidmask==0 || (obj.colid&cidmask)!=0) {
+					if (suspended_obj || !obj.is_suspended) {
+						result.addElement(obj);
 					}
 				}
 			}
+			return result.size();
+		}
+		return getObjects(result,prefix,cidmask,suspended_obj,bbox,0,0,-1);
+	}
+
+	/** Query for objects whose bbox overlaps the circle with given center
+	* and radius. Clears result and stores the matching objects in it.
+	* @return number of objects found */
+	@SuppressWarnings("rawtypes")
+	public int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj, double x,double y,double radius) {
+		result.removeAllElements();
+		JGRectangle bbox = tmprect2;
+		bbox.x = (int)Math.floor(x-radius);
+		bbox.y = (int)Math.floor(y-radius);
+		bbox.width  = (int)Math.ceil(x+radius) - bbox.x + 1;
+		bbox.height = (int)Math.ceil(y+radius) - bbox.y + 1;
+		return getObjects(result,prefix,cidmask,suspended_obj,bbox,x,y,radius);
+	}
+
+	/** Add objects overlapping bbox to result.  If radius &gt;= 0, objects
+	* should also overlap the circle with given center and radius, and bbox
+	* should enclose the circle. */
+	@SuppressWarnings({"rawtypes","unchecked"})
+	int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj, JGRectangle bbox,
+	double x,double y,double radius) {
+		JGRectangle obj_bbox = tmprect1;
+		// object index refers to objects, otherwise we can use a cid bucket
+		SortedArray arr = use_object_index ? objects : cidBucket(cidmask);
+		int firstidx=getFirstObjectIndex(arr,prefix);
+		int lastidx=getLastObjectIndex(arr,prefix);
+		int [] idx=null;
+		int nr_idx=lastidx-firstidx;
+		if (use_object_index) {
+			updateObjectIndex();
+			nr_idx = object_index.query(bbox);
+			idx = object_index.result;
+		}
+		for (int n=0; n<nr_idx; n++) {
+			int i = idx==null ? firstidx+n : idx[n];
+			if (i<firstidx || i>=lastidx) continue;
+			JGObject obj  = (JGObject)arr.values[i];
+			if (cidmask!=0 && (obj.colid&cidmask)==0) continue;
+			if (!suspended_obj && obj.is_suspended) continue;
+			if (!obj.getBBox(obj_bbox)) continue;
+			if (!bbox.intersects(obj_bbox)) continue;
+			if (radius>=0) {
+				// distance from center to nearest point of bbox
+				double dx = Math.max(obj_bbox.x - x,
+						Math.max(0, x - (obj_bbox.x+obj_bbox.width)) );
+				double dy = Math.max(obj_bbox.y - y,
+						Math.max(0, y - (obj_bbox.y+obj_bbox.height)) );
+				if (dx*dx + dy*dy > radius*radius) continue;
+			}
+			result.addElement(obj);
 		}
-		return objects_v;
+		return result.size();
+	}
+
+	/** Enable or disable the object index used by region queries.
+	* Default is disabled. */
+	public void setObjectIndex(boolean enabled) {
+		use_object_index=enabled;
+		object_index_valid=false;
+		if (!enabled) object_index=null;
+	}
+
+	/** Mark the object index as out of date, so it is rebuilt at the next
+	* region query.  Called by the engine whenever objects may have moved,
+	* been added, or been removed. */
+	public void invalidateObjectIndex() {
+		object_index_valid=false;
+	}
+
+	/** Rebuild object index if it is out of date. */
+	void updateObjectIndex() {
+		if (object_index_valid) return;
+		if (object_index==null) object_index=new CollisionGrid(tilex,tiley);
+		object_index.setCellSize(tilex,tiley);
+		objects.updateArrays();
+		object_index.build(objects.values,objects.size);
+		object_index_valid=true;
 	}
 
 
@@ -1161,10 +2042,11 @@ public class EngineLogic {
 
 	public int countObjects(String prefix,int cidmask,boolean suspended_obj) {
 		int nr_obj=0;
-		int firstidx=getFirstObjectIndex(prefix);
-		int lastidx=getLastObjectIndex(prefix);
+		SortedArray arr = cidBucket(cidmask);
+		int firstidx=getFirstObjectIndex(arr,prefix);
+		int lastidx=getLastObjectIndex(arr,prefix);
 		for (int i=firstidx; i<lastidx; i++) {
-			JGObject obj = (JGObject) objects.values[i];
+			JGObject obj = (JGObject) arr.values[i];
 			if (cidmask==0 || (obj.colid&cidmask)!=0) {
 				if (suspended_obj || !obj.is_suspended) {
 					nr_obj++;
@@ -1176,29 +2058,484 @@ public class EngineLogic {
 
 
 	int getFirstObjectIndex(String prefix) {
+		return getFirstObjectIndex(objects,prefix);
+	}
+
+	int getLastObjectIndex(String prefix) {
+		return getLastObjectIndex(objects,prefix);
+	}
+
+	int getFirstObjectIndex(SortedArray arr,String prefix) {
 		if (prefix==null) return 0;
-		int firstidx = objects.get(prefix);
+		int firstidx = arr.get(prefix);
 		if (firstidx<0) firstidx = -1-firstidx;
 		return firstidx;
 	}
 
-	int getLastObjectIndex(String prefix) {
-		if (prefix==null) return objects.size;
+	int getLastObjectIndex(SortedArray arr,String prefix) {
+		arr.updateArrays();
+		if (prefix==null) return arr.size;
 		// XXX theoretically there may be strings with prefix
 		// lexicographically below this one
-		return -1-objects.get(prefix+'\uffff');
+		return -1-arr.get(prefix+'\uffff');
+	}
+
+
+	/* cid buckets */
+
+	/** Enable or disable cid buckets.  Default is disabled. */
+	public void setCidBuckets(boolean enabled) {
+		use_cid_buckets=enabled;
+		cid_buckets=null;
+		cid_tmp=null;
+		for (int i=0; i<cid_unions.length; i++) cid_unions[i]=null;
+		obj_colid_changed.removeAllElements();
+		if (enabled) {
+			cid_buckets = new SortedArray[32];
+			cid_tmp = new SortedArray[32];
+			for (int b=0; b<32; b++) {
+				cid_buckets[b] = newObjectArray(40);
+				cid_tmp[b] = new SortedArray(40);
+			}
+			objects.updateArrays();
+			bucketObjects(objects);
+		}
+	}
+
+	/** Create an array for storing objects by name, of the type selected
+	* by setSkipListStore. */
+	SortedArray newObjectArray(int initialcapacity) {
+		if (use_skip_list_store) return new SkipListArray(initialcapacity);
+		return new SortedArray(initialcapacity);
+	}
+
+	/** Select the type of array used to store objects, cid buckets and
+	* their unions: SkipListArray if enabled, SortedArray otherwise.
+	* Existing objects are copied to the new array.  Default is disabled. */
+	public void setSkipListStore(boolean enabled) {
+		if (in_parallel_upd)
+			throw new JGameError("Cannot change object store during update",
+				true);
+		use_skip_list_store=enabled;
+		synchronized (objects_lock) {
+			SortedArray newobjects = newObjectArray(80);
+			newobjects.put(objects);
+			objects = newobjects;
+		}
+		// rebuild buckets with the new array type
+		setCidBuckets(use_cid_buckets);
+		object_index_valid=false;
+	}
+
+	/** Called when obj.colid has changed.  Protected. */
+	public void markColIdChanged(JGObject obj) {
+		if (!use_cid_buckets) return;
+		if (move_pool!=null) {
+			MoveChunk chunk = cur_chunk.get();
+			if (chunk!=null) {
+				chunk.obj_colid_changed.addElement(obj);
+				return;
+			}
+		}
+		if (in_parallel_upd) {
+			// buckets may be enumerated, update them when the pass ends
+			obj_colid_changed.addElement(obj);
+		} else {
+			rebucketObject(obj);
+		}
+	}
+
+	/** Get a SortedArray containing at least the objects that match
+	* cidmask, in name order.  This is objects itself if cid buckets are
+	* disabled or cidmask is 0.  For a cidmask with multiple bits, the union
+	* of the buckets is cached, and kept up to date when the buckets
+	* change. */
+	SortedArray cidBucket(int cidmask) {
+		if (!use_cid_buckets || cidmask==0) {
+			objects.updateArrays();
+			return objects;
+		}
+		if ((cidmask & (cidmask-1)) == 0) {
+			SortedArray bucket =
+				cid_buckets[Integer.numberOfTrailingZeros(cidmask)];
+			bucket.updateArrays();
+			return bucket;
+		}
+		for (int i=0; i<cid_unions.length; i++) {
+			if (cid_unions[i]!=null && cid_union_masks[i]==cidmask) {
+				cid_unions[i].updateArrays();
+				return cid_unions[i];
+			}
+		}
+		// replace an entry by a new array rather than reusing it, as the old
+		// one may still be enumerated by the caller of a nested pass
+		SortedArray union = newObjectArray(80);
+		fillCidUnion(union,cidmask);
+		union.updateArrays();
+		int i = cid_union_next;
+		cid_union_next = (cid_union_next+1) % cid_unions.length;
+		cid_unions[i] = union;
+		cid_union_masks[i] = cidmask;
+		return union;
+	}
+
+	void fillCidUnion(SortedArray union,int cidmask) {
+		for (int b=0; b<32; b++) {
+			if ((cidmask & (1<<b)) != 0) union.put(cid_buckets[b]);
+		}
+	}
+
+	/** Add objects in arr to the buckets of their colid. */
+	void bucketObjects(SortedArray arr) {
+		// arr is sorted, so each put appends to the end of a tmp array
+		for (int i=0; i<arr.size; i++) {
+			JGObject o = (JGObject)arr.values[i];
+			o.indexed_colid = o.colid;
+			for (int b=0; b<32; b++) {
+				if ((o.colid & (1<<b)) != 0) cid_tmp[b].put(arr.keys[i],o);
+			}
+		}
+		for (int b=0; b<32; b++) {
+			if (cid_tmp[b].size==0) continue;
+			cid_buckets[b].put(cid_tmp[b]);
+			cid_tmp[b].clear();
+		}
+		for (int u=0; u<cid_unions.length; u++) {
+			if (cid_unions[u]==null) continue;
+			if (!fillUnionTmp(arr,cid_union_masks[u],false)) continue;
+			cid_unions[u].put(cid_union_tmp);
+			cid_union_tmp.clear();
+		}
+	}
+
+	/** Remove the objects with the names in arr from the buckets.  Should be
+	* called before the objects are removed from objects. */
+	void unbucketObjects(SortedArray arr) {
+		for (int i=0; i<arr.size; i++) {
+			JGObject o = (JGObject)objects.getValue(arr.keys[i]);
+			if (o==null) continue;
+			for (int b=0; b<32; b++) {
+				if ((o.indexed_colid & (1<<b)) != 0)
+					cid_tmp[b].put(arr.keys[i],o);
+			}
+		}
+		for (int b=0; b<32; b++) {
+			if (cid_tmp[b].size==0) continue;
+			cid_buckets[b].remove(cid_tmp[b]);
+			cid_tmp[b].clear();
+		}
+		for (int u=0; u<cid_unions.length; u++) {
+			if (cid_unions[u]==null) continue;
+			if (!fillUnionTmp(arr,cid_union_masks[u],true)) continue;
+			cid_unions[u].remove(cid_union_tmp);
+			cid_union_tmp.clear();
+		}
+	}
+
+	/** Store the objects in arr whose colid (or, if indexed is true, the
+	* indexed_colid of the object with the same name in objects) matches
+	* cidmask in cid_union_tmp.
+	* @return true if any object was stored */
+	boolean fillUnionTmp(SortedArray arr,int cidmask,boolean indexed) {
+		for (int i=0; i<arr.size; i++) {
+			JGObject o = (JGObject)arr.values[i];
+			int cid = o.colid;
+			if (indexed) {
+				o = (JGObject)objects.getValue(arr.keys[i]);
+				if (o==null) continue;
+				cid = o.indexed_colid;
+			}
+			if ((cid & cidmask) != 0) cid_union_tmp.put(arr.keys[i],o);
+		}
+		return cid_union_tmp.size!=0;
+	}
+
+	void bucketObject(JGObject obj) {
+		obj.indexed_colid = obj.colid;
+		for (int b=0; b<32; b++) {
+			if ((obj.colid & (1<<b)) != 0)
+				cid_buckets[b].put(obj.getName(),obj);
+		}
+		for (int u=0; u<cid_unions.length; u++) {
+			if (cid_unions[u]!=null && (obj.colid & cid_union_masks[u])!=0)
+				cid_unions[u].put(obj.getName(),obj);
+		}
+	}
+
+	/** Remove the object with the given name from the buckets.  Should be
+	* called before the object is removed from objects. */
+	void unbucketObject(String name) {
+		JGObject o = (JGObject)objects.getValue(name);
+		if (o==null) return;
+		for (int b=0; b<32; b++) {
+			if ((o.indexed_colid & (1<<b)) != 0) cid_buckets[b].remove(name);
+		}
+		for (int u=0; u<cid_unions.length; u++) {
+			if (cid_unions[u]!=null
+			&& (o.indexed_colid & cid_union_masks[u])!=0)
+				cid_unions[u].remove(name);
+		}
+	}
+
+	/** Move object to the buckets of its current colid, if it has changed
+	* and the object is in objects. */
+	void rebucketObject(JGObject obj) {
+		if (obj.colid == obj.indexed_colid) return;
+		// ignore objects not yet added or already removed
+		if (objects.getValue(obj.getName())!=obj) return;
+		int oldcid = obj.indexed_colid;
+		for (int b=0; b<32; b++) {
+			int bit = 1<<b;
+			if ((oldcid & bit) != 0 && (obj.colid & bit) == 0)
+				cid_buckets[b].remove(obj.getName());
+			if ((oldcid & bit) == 0 && (obj.colid & bit) != 0)
+				cid_buckets[b].put(obj.getName(),obj);
+		}
+		for (int u=0; u<cid_unions.length; u++) {
+			if (cid_unions[u]==null) continue;
+			boolean was_in = (oldcid & cid_union_masks[u]) != 0;
+			boolean is_in = (obj.colid & cid_union_masks[u]) != 0;
+			if (was_in && !is_in) cid_unions[u].remove(obj.getName());
+			if (!was_in && is_in) cid_unions[u].put(obj.getName(),obj);
+		}
+		obj.indexed_colid = obj.colid;
 	}
 
 
 
+	/** Do one frame: flush the object lists, tick the timers, do the game
+	* state transition, call doFrame and the doFrame... methods of the game
+	* states, and call frameFinished.  This is the frame sequence shared by
+	* all engines; an engine calls it from its own frame loop, after any
+	* platform-specific administration.  Protected. */
+	@SuppressWarnings({"rawtypes","unchecked"})
+	public void doFrameAll(JGEngineInterface eng) {
+		if (profiler!=null) profiler.begin(FrameProfiler.FRAME);
+		// the first flush is needed to remove any objects that were created
+		// in the main routine after the last moveObjects or checkCollision
+		flushRemoveList();
+		flushAddList();
+		// tick timers before doing state transitions, because timers may
+		// initiate new transitions.
+		tickTimers();
+		flushRemoveList();
+		flushAddList();
+		// the game state transition starts here
+		gamestate = gamestate_nextframe;
+		gamestate_nextframe = new Vector(10,20);
+		gamestate_nextframe.addAll(gamestate);
+		// we assume that state transitions will not initiate new state
+		// transitions!
+		invokeGameStateMethods(eng,"start",gamestate_new);
+		gamestate_new.clear();
+		flushRemoveList();
+		flushAddList();
+		if (profiler!=null) profiler.begin(FrameProfiler.DOFRAME);
+		try {
+			eng.doFrame();
+		} catch (JGameError ex) {
+			eng.exitEngine(eng.dbgExceptionToString(ex));
+		} catch (Exception ex) {
+			eng.dbgShowException("MAIN",ex);
+		}
+		invokeGameStateMethods(eng,"doFrame",gamestate);
+		if (profiler!=null) profiler.end(FrameProfiler.DOFRAME);
+		frameFinished();
+	}
+
+	/** Call the method prefix+state of eng, if it exists, for each of the
+	* given game states.  Exceptions thrown by the methods are handled the
+	* same as those of doFrame.  Protected. */
+	@SuppressWarnings("rawtypes")
+	public void invokeGameStateMethods(JGEngineInterface eng,String prefix,
+	Vector states) {
+		for (Enumeration e=states.elements(); e.hasMoreElements(); ) {
+			String state = (String) e.nextElement();
+			Method met;
+			try {
+				met = eng.getClass().getMethod(prefix+state,new Class[0]);
+			} catch (NoSuchMethodException ex) {
+				continue;
+			}
+			try {
+				met.invoke(eng,new Object[0]);
+			} catch (InvocationTargetException ex) {
+				Throwable ex_t = ex.getTargetException();
+				if (ex_t instanceof JGameError) {
+					eng.exitEngine(eng.dbgExceptionToString(ex_t));
+				} else {
+					eng.dbgShowException("MAIN",ex_t);
+				}
+			} catch (IllegalAccessException ex) {
+				System.err.println("Unexpected exception:");
+				ex.printStackTrace();
+			}
+		}
+	}
+
 	/** Do final update actions on objects after all frame updates finished.
 	* Protected. */
 	public void frameFinished() {
+		for (int i=0; i<particle_systems.size(); i++) {
+			ParticleSystem ps = particle_systems.elementAt(i);
+			ps.update(gamespeed);
+			if (dirty_rect_mode) updateDrawnRect(ps);
+		}
+		objects.updateArrays();
 		for (int i=0; i<objects.size; i++) {
-			((JGObject)objects.values[i]).frameFinished();
+			JGObject o = (JGObject)objects.values[i];
+			o.frameFinished();
+			// pick up colids that were assigned directly
+			if (use_cid_buckets && o.colid!=o.indexed_colid) rebucketObject(o);
+			if (dirty_rect_mode) updateDrawnRect(o);
+		}
+		object_index_valid=false;
+		if (profiler!=null) {
+			profiler.end(FrameProfiler.FRAME);
+			profiler.endFrame(objects.size);
 		}
 	}
 
+	/*====== particles ======*/
+
+	/** Registered particle systems, updated every frame and drawn after
+	* the objects. Protected. */
+	public Vector<ParticleSystem> particle_systems
+		= new Vector<ParticleSystem>(4,4);
+
+	public void addParticleSystem(ParticleSystem ps) {
+		if (!particle_systems.contains(ps)) particle_systems.addElement(ps);
+	}
+
+	public void removeParticleSystem(ParticleSystem ps) {
+		if (particle_systems.removeElement(ps) && ps.drawn_rect!=null) {
+			JGRectangle r = ps.drawn_rect;
+			markDirty(r.x,r.y,r.width,r.height,ps.pf_relative);
+			ps.drawn_rect=null;
+		}
+	}
+
+	/*====== dirty rectangle repaint ======*/
+
+	/** Only repaint the parts of the screen that changed. */
+	public boolean dirty_rect_mode=false;
+	/** Changed areas since the last paint (JGRectangle), in view
+	 * coordinates.  Protected. */
+	public Vector<JGRectangle> dirty_rects = new Vector<JGRectangle>(16,16);
+	/** The whole screen should be repainted.  Protected. */
+	public boolean dirty_full=true;
+	/** With more dirty rectangles, the whole screen is repainted. */
+	public static final int max_dirty_rects=64;
+
+	public void setDirtyRectRepaint(boolean enabled) {
+		dirty_rect_mode=enabled;
+		dirty_rects.removeAllElements();
+		dirty_full=true;
+		if (!enabled) {
+			// so that we start afresh when enabled again
+			for (int i=0; i<objects.size; i++)
+				((JGObject)objects.values[i]).drawn_rect=null;
+		}
+	}
+
+	/** Mark area as changed, so that it is repainted in dirty rectangle
+	* mode.  Does nothing if the whole screen is to be repainted anyway. */
+	public void markDirty(double x,double y,double width,double height,
+	boolean pf_relative) {
+		if (!dirty_rect_mode || dirty_full) return;
+		if (dirty_rects.size() >= max_dirty_rects) {
+			markDirtyFull();
+			return;
+		}
+		if (pf_relative) {
+			x -= xofs;
+			y -= yofs;
+		}
+		// round outwards
+		int x1 = (int)Math.floor(x), y1 = (int)Math.floor(y);
+		dirty_rects.addElement(new JGRectangle(x1,y1,
+			(int)Math.ceil(x+width)-x1, (int)Math.ceil(y+height)-y1) );
+	}
+
+	public void markDirtyFull() {
+		if (!dirty_rect_mode) return;
+		dirty_full=true;
+		dirty_rects.removeAllElements();
+	}
+
+	/** True if anything needs to be repainted in dirty rectangle mode. */
+	public boolean isDirty() {
+		return dirty_full || dirty_rects.size()!=0;
+	}
+
+	/** Mark the area where the object was drawn and where it will be drawn
+	* as dirty, if the object moved or its image changed since the last
+	* frame. */
+	void updateDrawnRect(JGObject o) {
+		String img = o.is_suspended ? null : o.getImageName();
+		JGRectangle r = o.drawn_rect;
+		JGPoint size = img==null ? null : getImageSize(img);
+		if (size==null) {
+			if (r!=null) {
+				markDirty(r.x,r.y,r.width,r.height,true);
+				o.drawn_rect=null;
+				o.drawn_img=null;
+			}
+			return;
+		}
+		int x=(int)o.x, y=(int)o.y;
+		if (r!=null) {
+			if (r.x==x && r.y==y && r.width==size.x && r.height==size.y
+			&& (img==o.drawn_img || img.equals(o.drawn_img)) ) return;
+			markDirty(r.x,r.y,r.width,r.height,true);
+		} else {
+			r = new JGRectangle();
+			o.drawn_rect = r;
+		}
+		r.x=x; r.y=y; r.width=size.x; r.height=size.y;
+		o.drawn_img=img;
+		markDirty(x,y,size.x,size.y,true);
+	}
+
+	/** Mark the area where the particles were drawn and where they will be
+	* drawn as dirty. */
+	void updateDrawnRect(ParticleSystem ps) {
+		JGRectangle r = ps.drawn_rect;
+		if (r!=null) markDirty(r.x,r.y,r.width,r.height,ps.pf_relative);
+		if (ps.size==0) {
+			ps.drawn_rect=null;
+			return;
+		}
+		// particles are drawn centered on their position
+		int w=ps.width, h=ps.height;
+		if (ps.images!=null) {
+			for (int i=0; i<ps.images.length; i++) {
+				JGPoint size = getImageSize(ps.images[i]);
+				if (size==null) continue;
+				if (size.x>w) w=size.x;
+				if (size.y>h) h=size.y;
+			}
+		}
+		if (r==null) {
+			r = new JGRectangle();
+			ps.drawn_rect = r;
+		}
+		r.x = (int)Math.floor(ps.minx) - w/2 - 1;
+		r.y = (int)Math.floor(ps.miny) - h/2 - 1;
+		r.width = (int)Math.ceil(ps.maxx) - r.x + w + 2;
+		r.height = (int)Math.ceil(ps.maxy) - r.y + h + 2;
+		markDirty(r.x,r.y,r.width,r.height,ps.pf_relative);
+	}
+
+	/** Mark the area of a removed object as dirty. */
+	void markRemovedDirty(JGObject o) {
+		JGRectangle r = o.drawn_rect;
+		if (r==null) return;
+		markDirty(r.x,r.y,r.width,r.height,true);
+		o.drawn_rect=null;
+		o.drawn_img=null;
+	}
+
 	/*====== BG/tiles ======*/
 
 	/** Repaint those parts of BG which are undefined according to bg_defined.
@@ -1290,7 +2627,7 @@ public class EngineLogic {
 					if (nrtilesdrawn > maxpredrawtiles) continue;
 					//nrpredrawtilesdrawn++;
 				}
-				eng.drawTile(xi,yi,tilemap[xi_modpf][yi_modpf]);
+				eng.drawTile(xi,yi,tilemap.get(xi_modpf,yi_modpf));
 				nrtilesdrawn++;
 				bg_defined[xi_mod][yi_mod]=true;
 				//tilechangedmap[xi_modpf][yi_modpf]=false;
@@ -1317,8 +2654,7 @@ public class EngineLogic {
 		}
 		while (bg_images.size() < depth+1) bg_images.addElement(null);
 		if (bgimg!=null) {
-			if (!images.containsKey(bgimg) 
-			&&  !images_orig.containsKey(bgimg))
+			if (!existsImage(bgimg) || getImage(bgimg)==null)
 				throw new JGameError("unknown BG image "+bgimg);
 			BGImage newimg = new BGImage(bgimg,wrapx,wrapy);
 			bg_images.setElementAt(newimg,depth);
@@ -1351,16 +2687,27 @@ public class EngineLogic {
 		pfheight = nrtilesy*tiley;
 		pfwidth_half = pfwidth/2;
 		pfheight_half = pfheight/2;
-		tilemap = new int [nrtilesx][nrtilesy];
-		tilecidmap = new int [nrtilesx][nrtilesy];
+		if (tilemap!=null) tilemap.close();
+		boolean kept=false;
+		if (tilemap_file!=null) {
+			MappedTileMap mapped = new MappedTileMap(nrtilesx,nrtilesy,
+				tilemap_file,tilemap_file_keep);
+			kept = mapped.contentsKept();
+			tilemap = mapped;
+		} else {
+			tilemap = new TileMap(nrtilesx,nrtilesy);
+		}
 		//tilechangedmap = new boolean [nrtilesx][nrtilesy];
 		bg_defined = new boolean[viewnrtilesx+3][viewnrtilesy+3];
-		fillBG(filltile);
+		// a kept tile map file already has its tiles; a new or resized
+		// file was cleared, so it still has to be filled
+		if (!kept) fillBG(filltile);
 		setViewOffset(0,0);
 	}
 
 	/** protected */
 	public void invalidateBGTiles() {
+		markDirtyFull();
 		if (bg_defined==null) return;
 		for (int x=0; x<viewnrtilesx+3; x++) {
 			for (int y=0; y<viewnrtilesy+3; y++) {
@@ -1379,11 +2726,15 @@ public class EngineLogic {
 
 
 	public void fillBG(String filltile) {
-		for (int y=0; y<nrtilesy; y++) {
-			for (int x=0; x<nrtilesx; x++) {
-				setTile(x,y,filltile);
-			}
-		}
+		int tileid = tileStrToID(filltile);
+		tilemap.fill(tileid,tileintToCid(tileid),preserve_cids);
+		// all visible tiles have changed
+		invalidateBGTiles();
+	}
+
+	public void setTileMapFile(String filename,boolean keep_contents) {
+		tilemap_file=filename;
+		tilemap_file_keep=keep_contents;
 	}
 
 	public void setTileCid(int x,int y,int and_mask,int or_mask) {
@@ -1398,8 +2749,7 @@ public class EngineLogic {
 		} else {
 			if (y<0 || y>=nrtilesy) return;
 		}
-		tilecidmap[x][y] &= and_mask;
-		tilecidmap[x][y] |= or_mask;
+		tilemap.setCid(x,y,and_mask,or_mask);
 	}
 
 	public void setTile(int x,int y,String tilestr) {
@@ -1416,9 +2766,9 @@ public class EngineLogic {
 			if (y<0 || y>=nrtilesy) return;
 		}
 		int tileid = tileStrToID(tilestr);
-		tilemap[x_mod][y_mod] = tileid;
-		tilecidmap[x_mod][y_mod] &= preserve_cids;
-		tilecidmap[x_mod][y_mod] |= tileintToCid(tileid);
+		tilemap.set(x_mod,y_mod,tileid,
+			(tilemap.getCid(x_mod,y_mod)&preserve_cids) | tileintToCid(tileid));
+		markDirty(x*tilex,y*tiley,tilex,tiley,true);
 		// invalidate tile, to be redrawn later
 		// new method of invalidating tile; the tilechanged flag is picked
 		// up by repaintBG.
@@ -1507,13 +2857,7 @@ public class EngineLogic {
 
 
 	public int countTiles(int tilecidmask) {
-		int count=0;
-		for (int x=0; x<nrtilesx; x++) {
-			for (int y=0; y<nrtilesy; y++) {
-				if ( (tilecidmap[x][y]&tilecidmask) != 0) count++;
-			}
-		}
-		return count;
+		return tilemap.countCid(tilecidmask);
 	}
 
 	public int getTileCid(int xidx,int yidx) {
@@ -1527,7 +2871,7 @@ public class EngineLogic {
 		} else {
 			if (yidx<0 || yidx>=nrtilesy) return out_of_bounds_cid;
 		}
-		return tilecidmap[xidx][yidx];
+		return tilemap.getCid(xidx,yidx);
 	}
 
 	public String getTileStr(int xidx,int yidx) {
@@ -1541,7 +2885,7 @@ public class EngineLogic {
 		} else {
 			if (yidx<0 || yidx>=nrtilesy) return out_of_bounds_tile;
 		}
-		return tileIDToStr(tilemap[xidx][yidx]);
+		return tileIDToStr(tilemap.get(xidx,yidx));
 	}
 
 	public int getTileCid(JGRectangle tiler) {
@@ -1920,7 +3264,10 @@ public class EngineLogic {
 				// clear resized images so that they are reconstructed
 				// from images_orig
 				// XXX maybe pre-load images to prevent hiccups?
-				images = new Hashtable();
+				synchronized (image_registry_lock) {
+					image_registry = image_registry.unresolveAll();
+				}
+				images_version++;
 			}
 		}
 	}
@@ -1974,6 +3321,22 @@ public class EngineLogic {
 	public void setFrameRate(double fps, double maxframeskip) {
 		this.fps = fps;
 		this.maxframeskip = maxframeskip;
+		scheduler.setFrameRate(fps,maxframeskip);
+	}
+
+	/** Enable profiling of the last nr_frames frames, or disable it if
+	* nr_frames is 0. */
+	public void setProfiling(int nr_frames) {
+		if (nr_frames <= 0) {
+			profiler=null;
+		} else if (profiler==null || profiler.capacity!=nr_frames) {
+			profiler = new FrameProfiler(nr_frames);
+		}
+	}
+
+	public void setRenderRate(double render_fps) {
+		this.render_fps = render_fps;
+		if (render_fps <= 0) frame_alpha = 1.0;
 	}
 
 	public void setRenderSettings(int alpha_thresh,JGColor render_bg_col) {
@@ -2002,12 +3365,14 @@ public class EngineLogic {
 
 	/** protected */
 	public void tickTimers() {
+		if (profiler!=null) profiler.begin(FrameProfiler.TIMERS);
 		for (int i=timers.size()-1; i>=0; i--) {
 			JGTimer timer = (JGTimer)timers.elementAt(i);
 			if (timer.tick(gamespeed)) {
 				timers.removeElement(timer);
 			}
 		}
+		if (profiler!=null) profiler.end(FrameProfiler.TIMERS);
 	}
 
 
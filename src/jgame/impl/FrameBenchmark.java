@@ -0,0 +1,345 @@
+package jgame.impl;
+
+import jgame.*;
+import jgame.platform.JGHeadlessEngine;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.Vector;
+
+/** Benchmark for the platform-independent part of the frame loop.  Drives
+ * an EngineLogic without a window, with synthetic object populations,
+ * and reports the time (ns/frame) and, if the JVM supports it, the
+ * allocation rate (bytes/frame) of each phase of the frame: flushing
+ * the add/remove lists, moveObjects, checkCollision, checkBGCollision,
+ * frameFinished, and repaintBG.  After the frames, all objects are removed
+ * one by one with JGObject.remove(), outside of moveObjects, as a game does
+ * when it kills objects in doFrame, and the time and allocation per removed
+ * object are reported.
+
+ * <P> The engine is a JGHeadlessEngine, whose draw methods do nothing, so
+ * drawing is not measured, and repaintBG only measures the tile
+ * bookkeeping.  Like JGEngine, it passes calls on to EngineLogic directly, so
+ * the harness itself adds nothing to the measured allocations.
+
+ * <P> Each scenario is run for a number of warmup frames, followed by the
+ * same number of measured frames.  Scenarios vary the number of objects,
+ * the mix of collision ids, the size of the tile map, and playfield
+ * wraparound.  Usage:
+
+ * <PRE>
+ * java jgame.impl.FrameBenchmark [-n 100,1000,10000] [-frames 100]
+ *     [-grid] [-buckets] [-index] [-skiplist] [-pool]
+ * </PRE>
+
+ * The flags enable the corresponding engine options, so that runs with
+ * and without an option can be compared.  Use -n 100000 together with
+ * -grid, as the default brute-force collision check is quadratic.  -pool
+ * creates the objects with a JGObjectPool, and reuses them when objects are
+ * replaced.
+ */
+public class FrameBenchmark {
+
+	static final String [] phase_names = new String []
+		{"flush","move","collision","bgcollision","frameFinished","repaintBG"};
+
+	static final int PHASE_FLUSH=0;
+	static final int PHASE_MOVE=1;
+	static final int PHASE_COLLISION=2;
+	static final int PHASE_BGCOLLISION=3;
+	static final int PHASE_FRAMEFINISHED=4;
+	static final int PHASE_REPAINTBG=5;
+
+	/* cid mixes */
+	static final int CID_UNIFORM=0;
+	static final int CID_SKEWED=1;
+	static final String [] cid_mix_names = new String [] {"uniform","skewed"};
+
+	/* tile cids */
+	static final int WALL_CID=1;
+
+	boolean use_grid=false;
+	boolean use_buckets=false;
+	boolean use_index=false;
+	boolean use_skiplist=false;
+	boolean use_pool=false;
+
+	EngineLogic el;
+	BenchEngine eng;
+	Random random;
+	int cid_mix;
+	JGObjectPool pool;
+
+	long [] phase_time = new long [phase_names.length];
+	long [] phase_alloc = new long [phase_names.length];
+
+	/** Object that moves in a straight line and bounces off the playfield
+	* edges.  A small fraction of the objects is replaced each frame, so
+	* that the add and remove lists are exercised. */
+	class BenchObject extends JGObject {
+		BenchObject() {
+			super("obj",true,random.nextDouble()*el.pfwidth,
+				random.nextDouble()*el.pfheight,randomCid(),null);
+			setBBox(0,0,el.tilex,el.tiley);
+			setSpeed(random.nextDouble()*4-2,random.nextDouble()*4-2);
+		}
+		BenchObject(JGObjectPool pool) {
+			super(pool,random.nextDouble()*el.pfwidth,
+				random.nextDouble()*el.pfheight,randomCid(),null);
+			setBBox(0,0,el.tilex,el.tiley);
+			setSpeed(random.nextDouble()*4-2,random.nextDouble()*4-2);
+		}
+		public void move() {
+			if (random.nextDouble() < 0.01) {
+				remove();
+				spawnObject();
+				return;
+			}
+			if (!el.pf_wrapx && (x < 0 || x > el.pfwidth)) xspeed = -xspeed;
+			if (!el.pf_wrapy && (y < 0 || y > el.pfheight)) yspeed = -yspeed;
+		}
+		public void hit(JGObject obj) {
+			xspeed = -xspeed;
+		}
+		public void hit_bg(int tilecid) {
+			yspeed = -yspeed;
+		}
+	}
+
+	/** Create a new object, or, if use_pool, reuse a removed one. */
+	void spawnObject() {
+		if (!use_pool) {
+			new BenchObject();
+			return;
+		}
+		BenchObject obj = (BenchObject)pool.obtain();
+		if (obj==null) {
+			new BenchObject(pool);
+			return;
+		}
+		obj.respawn(random.nextDouble()*el.pfwidth,
+			random.nextDouble()*el.pfheight,randomCid(),null,
+			JGObject.expire_never,0,0);
+		obj.setSpeed(random.nextDouble()*4-2,random.nextDouble()*4-2);
+	}
+
+	int randomCid() {
+		if (cid_mix==CID_SKEWED) {
+			// most objects are bullets, few are targets
+			double r = random.nextDouble();
+			if (r < 0.9) return 1;
+			if (r < 0.95) return 2;
+			if (r < 0.98) return 4;
+			return 8;
+		}
+		return 1 << random.nextInt(4);
+	}
+
+	/** Engine without display; the scenario is set up by setup(). */
+	static class BenchEngine extends JGHeadlessEngine {
+		public void initCanvas() {
+			setCanvasSettings(40,30,16,16,null,null,null);
+		}
+		public void initGame() { }
+	}
+
+	@SuppressWarnings("unchecked")
+	void setup(int nr_obj,int cid_mix,int nrtilesx,int nrtilesy,
+	boolean wrap) {
+		this.cid_mix=cid_mix;
+		random = new Random(42);
+		if (eng!=null) eng.destroy();
+		eng = new BenchEngine();
+		eng.initEngineHeadless();
+		el = eng.getEngineLogic();
+		el.images_tilecid.put(Integer.valueOf(el.tileStrToID(".")),
+			Integer.valueOf(0));
+		el.images_tilecid.put(Integer.valueOf(el.tileStrToID("#")),
+			Integer.valueOf(WALL_CID));
+		el.setPFSize(nrtilesx,nrtilesy);
+		el.setPFWrap(wrap,wrap,0,0);
+		el.fillBG(".");
+		for (int i=0; i<nrtilesx*nrtilesy/10; i++) {
+			el.setTile(random.nextInt(nrtilesx),random.nextInt(nrtilesy),"#");
+		}
+		el.setCollisionGrid(use_grid);
+		el.setCidBuckets(use_buckets);
+		el.setObjectIndex(use_index);
+		el.setSkipListStore(use_skiplist);
+		pool = new JGObjectPool("obj",nr_obj);
+		for (int i=0; i<nr_obj; i++) spawnObject();
+		el.flushAddList();
+	}
+
+	/** Do one frame, adding the time and allocations of each phase to
+	* phase_time and phase_alloc if measure is true. */
+	void doFrame(int frame,boolean measure) {
+		for (int phase=0; phase<phase_names.length; phase++) {
+			long alloc = measure ? allocatedBytes() : 0;
+			long start = System.nanoTime();
+			switch (phase) {
+				case PHASE_FLUSH:
+					el.flushRemoveList();
+					el.flushAddList();
+					break;
+				case PHASE_MOVE:
+					el.moveObjects(eng,null,0);
+					break;
+				case PHASE_COLLISION:
+					el.checkCollision(eng,1,2);
+					el.checkCollision(eng,4,8);
+					break;
+				case PHASE_BGCOLLISION:
+					el.checkBGCollision(eng,WALL_CID,2|4);
+					break;
+				case PHASE_FRAMEFINISHED:
+					el.frameFinished();
+					break;
+				case PHASE_REPAINTBG:
+					// scroll diagonally, so new tiles have to be drawn
+					el.setViewOffset(3*frame,2*frame,false);
+					el.updateViewOffset();
+					el.repaintBG(eng);
+					break;
+			}
+			if (measure) {
+				phase_time[phase] += System.nanoTime()-start;
+				phase_alloc[phase] += allocatedBytes()-alloc-alloc_overhead;
+			}
+		}
+	}
+
+	void run(int nr_obj,int cid_mix,int nrtilesx,int nrtilesy,
+	boolean wrap,int frames) {
+		setup(nr_obj,cid_mix,nrtilesx,nrtilesy,wrap);
+		for (int i=0; i<phase_names.length; i++) {
+			phase_time[i]=0;
+			phase_alloc[i]=0;
+		}
+		for (int f=0; f<frames; f++) doFrame(f,false);
+		for (int f=0; f<frames; f++) doFrame(frames+f,true);
+		System.out.println("objects="+nr_obj+" cids="+cid_mix_names[cid_mix]
+			+" map="+nrtilesx+"x"+nrtilesy+" wrap="+wrap);
+		long total_time=0, total_alloc=0;
+		for (int i=0; i<phase_names.length; i++) {
+			printPhase(phase_names[i],phase_time[i]/frames,
+				phase_alloc[i]/frames);
+			total_time += phase_time[i];
+			total_alloc += phase_alloc[i];
+		}
+		printPhase("total",total_time/frames,total_alloc/frames);
+		removeAll();
+	}
+
+	/** Remove all objects one by one in random order, and print the time
+	* and allocation per object. */
+	void removeAll() {
+		el.objects.updateArrays();
+		int nr_obj = el.objects.size;
+		JGObject [] objs = new JGObject [nr_obj];
+		System.arraycopy(el.objects.values,0,objs,0,nr_obj);
+		for (int i=nr_obj-1; i>0; i--) {
+			int j = random.nextInt(i+1);
+			JGObject tmp=objs[i]; objs[i]=objs[j]; objs[j]=tmp;
+		}
+		long alloc = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i=0; i<nr_obj; i++) objs[i].remove();
+		long time = System.nanoTime()-start;
+		alloc = allocatedBytes()-alloc-alloc_overhead;
+		if (nr_obj==0) return;
+		printPhase("removeObject",time/nr_obj,alloc/nr_obj,"object");
+	}
+
+	static void printPhase(String name,long time,long alloc) {
+		printPhase(name,time,alloc,"frame");
+	}
+
+	static void printPhase(String name,long time,long alloc,String unit) {
+		System.out.println("    "+pad(name,14,false)+pad(""+time,12,true)
+			+" ns/"+unit+(alloc_supported
+				? pad(""+alloc,12,true)+" B/"+unit : ""));
+	}
+
+	static String pad(String s,int len,boolean left) {
+		StringBuffer buf = new StringBuffer();
+		if (!left) buf.append(s);
+		for (int i=s.length(); i<len; i++) buf.append(' ');
+		if (left) buf.append(s);
+		return buf.toString();
+	}
+
+	/* allocation counting */
+
+	static boolean alloc_supported=false;
+	static com.sun.management.ThreadMXBean threadbean=null;
+	/** bytes allocated by a call to allocatedBytes itself */
+	static long alloc_overhead=0;
+
+	static {
+		try {
+			java.lang.management.ThreadMXBean bean =
+				ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				threadbean = (com.sun.management.ThreadMXBean)bean;
+				alloc_supported = threadbean.isThreadAllocatedMemorySupported();
+				if (alloc_supported) threadbean.setThreadAllocatedMemoryEnabled(true);
+			}
+		} catch (Throwable e) {
+			// not a HotSpot-like JVM
+			alloc_supported=false;
+		}
+		if (alloc_supported) {
+			long start = allocatedBytes();
+			for (int i=0; i<100; i++) allocatedBytes();
+			alloc_overhead = (allocatedBytes()-start)/101;
+		}
+	}
+
+	/** Number of bytes allocated by this thread so far, or 0 if not
+	* supported. */
+	static long allocatedBytes() {
+		if (!alloc_supported) return 0;
+		return threadbean.getThreadAllocatedBytes(
+			Thread.currentThread().getId());
+	}
+
+	@SuppressWarnings("rawtypes")
+	public static void main(String [] args) {
+		FrameBenchmark bench = new FrameBenchmark();
+		int [] sizes = new int [] {100,1000,10000};
+		int frames=100;
+		for (int i=0; i<args.length; i++) {
+			if (args[i].equals("-n")) {
+				Vector tokens = EngineLogic.tokenizeString(args[++i],',');
+				sizes = new int [tokens.size()];
+				for (int j=0; j<sizes.length; j++)
+					sizes[j] = Integer.parseInt((String)tokens.elementAt(j));
+			} else if (args[i].equals("-frames")) {
+				frames = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-grid")) {
+				bench.use_grid=true;
+			} else if (args[i].equals("-buckets")) {
+				bench.use_buckets=true;
+			} else if (args[i].equals("-index")) {
+				bench.use_index=true;
+			} else if (args[i].equals("-skiplist")) {
+				bench.use_skiplist=true;
+			} else if (args[i].equals("-pool")) {
+				bench.use_pool=true;
+			} else {
+				System.out.println("Unknown option "+args[i]);
+				return;
+			}
+		}
+		if (!alloc_supported)
+			System.out.println("Allocation counting not supported by JVM.");
+		for (int s=0; s<sizes.length; s++) {
+			for (int cid_mix=0; cid_mix<cid_mix_names.length; cid_mix++) {
+				bench.run(sizes[s],cid_mix,40,30,false,frames);
+				bench.run(sizes[s],cid_mix,400,300,false,frames);
+				bench.run(sizes[s],cid_mix,400,300,true,frames);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+package jgame.impl;
+
+import java.lang.management.ManagementFactory;
+
+/** Records per-phase timings of the last N frames in a ring buffer.  The
+ * engine calls begin() and end() around each phase, and endFrame() at the
+ * end of each frame, when profiling is enabled.  When it is disabled, the
+ * engine has no profiler and only tests it for null.
+
+ * <p>Times are summed per frame, so a phase that is done several times per
+ * frame, such as checkCollision, shows up as its total.  Phases may nest:
+ * DOFRAME includes the MOVE and COLLISION that doFrame does.  RENDER and its
+ * subphases are done by the painting thread, and are counted in the frame
+ * that is current when they end.
+
+ * <p>Besides the times, each frame records the number of objects, the bytes
+ * allocated by the engine thread (if the JVM supports counting this, -1
+ * otherwise), and the number of frames done without rendering them.
+ */
+public class FrameProfiler {
+
+	/** whole frame, from start of doFrameAll to frameFinished */
+	public static final int FRAME=0;
+	public static final int TIMERS=1;
+	/** doFrame and the game state doFrame methods */
+	public static final int DOFRAME=2;
+	public static final int MOVE=3;
+	public static final int COLLISION=4;
+	public static final int BGCOLLISION=5;
+	/** whole paint of the canvas */
+	public static final int RENDER=6;
+	public static final int REPAINTBG=7;
+	/** paintFrame and the game state paintFrame methods */
+	public static final int PAINTFRAME=8;
+	public static final int NR_PHASES=9;
+
+	public static final String [] phase_names = new String [] {
+		"frame", "timers", "doFrame", "move", "collision", "bgcollision",
+		"render", "repaintBG", "paintFrame" };
+
+	/** nr of frames in the ring buffer */
+	int capacity;
+	/** [phase][frame], ns */
+	long [][] times;
+	int [] nr_objects;
+	long [] alloc_bytes;
+	int [] skipped;
+	/** next frame to write */
+	int pos=0;
+	/** nr of frames written, max capacity */
+	int size=0;
+
+	/* the frame being recorded */
+	long [] cur = new long[NR_PHASES];
+	long [] start = new long[NR_PHASES];
+	int cur_skipped=0;
+	long last_alloc=-1;
+
+	public FrameProfiler(int nr_frames) {
+		capacity = Math.max(1,nr_frames);
+		times = new long[NR_PHASES][capacity];
+		nr_objects = new int[capacity];
+		alloc_bytes = new long[capacity];
+		skipped = new int[capacity];
+	}
+
+	/** Clear all recorded frames. */
+	public void clear() {
+		pos=0;
+		size=0;
+		for (int p=0; p<NR_PHASES; p++) cur[p]=0;
+		cur_skipped=0;
+		last_alloc=-1;
+	}
+
+	public void begin(int phase) {
+		start[phase] = System.nanoTime();
+	}
+
+	public void end(int phase) {
+		cur[phase] += System.nanoTime() - start[phase];
+	}
+
+	/** Record that nr frames were done without being rendered. */
+	public void addSkipped(int nr) {
+		cur_skipped += nr;
+	}
+
+	/** Store the current frame in the ring buffer and start a new one. Must
+	* be called by the engine thread, because allocation is counted per
+	* thread. */
+	public void endFrame(int nr_obj) {
+		for (int p=0; p<NR_PHASES; p++) {
+			times[p][pos] = cur[p];
+			cur[p]=0;
+		}
+		nr_objects[pos] = nr_obj;
+		long alloc = allocatedBytes();
+		alloc_bytes[pos] = (alloc<0 || last_alloc<0) ? -1 : alloc-last_alloc;
+		last_alloc = alloc;
+		skipped[pos] = cur_skipped;
+		cur_skipped=0;
+		pos = (pos+1) % capacity;
+		if (size < capacity) size++;
+	}
+
+	/** Number of frames recorded, at most the capacity. */
+	public int getNrFrames() { return size; }
+
+	/** ring buffer index of the i-th recorded frame, 0 = oldest */
+	int index(int i) {
+		return (pos - size + i + capacity) % capacity;
+	}
+
+	/** Get time of phase in the i-th recorded frame, 0 = oldest, in ns. */
+	public long getTime(int phase,int i) { return times[phase][index(i)]; }
+
+	public int getNrObjects(int i) { return nr_objects[index(i)]; }
+
+	/** Bytes allocated by the engine thread in a frame, -1 = unknown. */
+	public long getAllocatedBytes(int i) { return alloc_bytes[index(i)]; }
+
+	public int getSkipped(int i) { return skipped[index(i)]; }
+
+	/** Get percentile of the time of phase over the recorded frames, in ns.
+	* @param pct  percentile, 0..100; 50 is the median, 100 the maximum */
+	public long getPercentile(int phase,double pct) {
+		return percentile(times[phase],pct);
+	}
+
+	/** Get percentile of the bytes allocated per frame, -1 = unknown. */
+	public long getAllocPercentile(double pct) {
+		return percentile(alloc_bytes,pct);
+	}
+
+	long percentile(long [] data,double pct) {
+		if (size==0) return 0;
+		long [] sorted = new long[size];
+		for (int i=0; i<size; i++) sorted[i] = data[index(i)];
+		java.util.Arrays.sort(sorted);
+		int idx = (int)Math.ceil(pct/100.0*size) - 1;
+		if (idx < 0) idx=0;
+		if (idx >= size) idx=size-1;
+		return sorted[idx];
+	}
+
+	/** Total number of unrendered frames over the recorded frames. */
+	public int getTotalSkipped() {
+		int total=0;
+		for (int i=0; i<size; i++) total += skipped[index(i)];
+		return total;
+	}
+
+	/** Summary of the recorded frames, one line per phase with the median,
+	* 95th percentile and maximum in ms, followed by objects, allocation and
+	* skipped frames. */
+	public String [] getSummary() {
+		String [] lines = new String[NR_PHASES+1];
+		for (int p=0; p<NR_PHASES; p++) {
+			lines[p] = phase_names[p]+": "+ms(getPercentile(p,50))
+				+" / "+ms(getPercentile(p,95))+" / "+ms(getPercentile(p,100));
+		}
+		String alloc = getAllocPercentile(50)<0 ? "?"
+			: ""+(getAllocPercentile(50)/1024)+"K";
+		lines[NR_PHASES] = "objects "
+			+(size==0 ? 0 : nr_objects[index(size-1)])
+			+" alloc "+alloc+" skipped "+getTotalSkipped()+"/"+size;
+		return lines;
+	}
+
+	public String toString() {
+		String [] lines = getSummary();
+		StringBuffer buf = new StringBuffer("FrameProfiler, p50/p95/max ms:");
+		for (int i=0; i<lines.length; i++) buf.append("\n  "+lines[i]);
+		return buf.toString();
+	}
+
+	static String ms(long ns) {
+		return ""+(Math.round(ns/10000.0)/100.0);
+	}
+
+	/* allocation counting */
+
+	static boolean alloc_supported=false;
+	static com.sun.management.ThreadMXBean threadbean=null;
+
+	static {
+		try {
+			java.lang.management.ThreadMXBean bean =
+				ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				threadbean = (com.sun.management.ThreadMXBean)bean;
+				alloc_supported = threadbean.isThreadAllocatedMemorySupported();
+				if (alloc_supported) threadbean.setThreadAllocatedMemoryEnabled(true);
+			}
+		} catch (Throwable e) {
+			// not a HotSpot-like JVM, or no permission (applet)
+			alloc_supported=false;
+		}
+	}
+
+	/** Bytes allocated by this thread so far, or -1 if not supported. */
+	static long allocatedBytes() {
+		if (!alloc_supported) return -1;
+		return threadbean.getThreadAllocatedBytes(
+			Thread.currentThread().getId());
+	}
+
+}
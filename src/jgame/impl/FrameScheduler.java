@@ -0,0 +1,177 @@
+package jgame.impl;
+
+import java.util.concurrent.locks.LockSupport;
+
+/** Fixed timestep frame scheduler, based on System.nanoTime.  Elapsed time
+ * is added to an accumulator, and each time a full timestep has
+ * accumulated, one logic frame is due.  The game thread asks how many
+ * logic frames are due with stepsDue(), does them, renders once, and then
+ * waits for the next frame with waitForNextFrame().  Logic frames thus run
+ * at a fixed rate regardless of the rendering speed.
+
+ * <p>The fraction of a timestep left in the accumulator after the due
+ * frames are taken is the interpolation alpha.  It tells how far the render
+ * time lies between the last logic frame and the next, and can be used to
+ * draw objects in between their last two positions.
+
+ * <p>The number of logic frames per render is bounded by the catch-up
+ * limit, 1+maxframeskip.  If the game lags further behind, the remaining
+ * time is dropped, so that the game slows down rather than spiralling into
+ * ever more catch-up frames.
+
+ * <p>The scheduler measures the time spent on logic, rendering, and
+ * waiting.  Rendering may be done by another thread, which reports its time
+ * with recordRender().  The times of the last frame and a moving average
+ * can be read with the get... methods or getTimings().
+ */
+public class FrameScheduler {
+
+	/** length of one logic frame in ns */
+	long step_ns;
+	/** max logic frames per render */
+	int max_steps;
+	/** time not yet consumed by logic frames, in ns */
+	long accumulator=0;
+	/** time of last update of the accumulator */
+	long last_time;
+	/** waits shorter than this are done by yielding, because sleeping
+	 * typically overshoots by this much. */
+	public static final long spin_ns = 1000000;
+
+	/* timings of the last frame, in ns */
+	long logic_ns=0, render_ns=0, idle_ns=0;
+	/* moving averages, in ns */
+	double avg_logic_ns=0, avg_render_ns=0, avg_idle_ns=0, avg_steps=0;
+	/** steps taken in the last stepsDue */
+	int steps=0;
+	/** total number of logic frames dropped by the catch-up limit */
+	long steps_dropped=0;
+	/** weight of the last frame in the moving averages */
+	static final double avg_weight = 0.05;
+
+	/** Create scheduler; call start() before use. */
+	public FrameScheduler() {
+		start(35,4);
+	}
+
+	/** (Re)start the scheduler with the given frame rate and max number of
+	* frames to skip.  The accumulator is cleared. */
+	public void start(double fps, double maxframeskip) {
+		step_ns = (long)(1000000000.0/fps);
+		if (step_ns < 1) step_ns = 1;
+		max_steps = 1 + (int)Math.max(0,maxframeskip);
+		accumulator=0;
+		last_time = System.nanoTime();
+	}
+
+	/** Change frame rate without clearing the accumulator. */
+	public void setFrameRate(double fps, double maxframeskip) {
+		long new_step_ns = Math.max(1,(long)(1000000000.0/fps));
+		// keep the same fraction of a frame
+		accumulator = (long)((double)accumulator*new_step_ns/step_ns);
+		step_ns = new_step_ns;
+		max_steps = 1 + (int)Math.max(0,maxframeskip);
+	}
+
+	/** Add the time elapsed since the last call to the accumulator, and take
+	* the logic frames that are due out of it.  Frames exceeding the catch-up
+	* limit are dropped.
+	* @return number of logic frames to do before the next render */
+	public int stepsDue() {
+		long now = System.nanoTime();
+		accumulator += now - last_time;
+		last_time = now;
+		steps = (int)Math.min(accumulator/step_ns, Integer.MAX_VALUE);
+		if (steps > max_steps) {
+			steps_dropped += steps - max_steps;
+			steps = max_steps;
+			// keep only the fraction of a frame
+			accumulator %= step_ns;
+		} else {
+			accumulator -= steps*step_ns;
+		}
+		avg_steps += avg_weight*(steps - avg_steps);
+		return steps;
+	}
+
+	/** Interpolation alpha, between 0 and 1: the fraction of a timestep
+	* elapsed since the last logic frame, as of the last stepsDue. */
+	public double getAlpha() {
+		return (double)accumulator/step_ns;
+	}
+
+	/** Wait until the next logic frame is due.  Sleeps for most of the time,
+	* then yields for the last bit to avoid oversleeping. */
+	public void waitForNextStep() throws InterruptedException {
+		waitForNextFrame(0);
+	}
+
+	/** Wait until the next render is due.  If render_fps is 0, a render is
+	* due when the next logic frame is due.  Otherwise, renders are due
+	* render_fps times per second, counted from the last stepsDue, and the
+	* logic frames that became due in the meantime are done before the
+	* render.
+	* @param render_fps  renders per second, 0 = wait for next logic frame */
+	public void waitForNextFrame(double render_fps)
+	throws InterruptedException {
+		long start = System.nanoTime();
+		long wakeup = last_time + step_ns - accumulator;
+		if (render_fps > 0)
+			wakeup = last_time + (long)(1000000000.0/render_fps);
+		while (true) {
+			long remaining = wakeup - System.nanoTime();
+			if (remaining <= 0) break;
+			if (remaining > 2*spin_ns) {
+				LockSupport.parkNanos(remaining - spin_ns);
+				if (Thread.interrupted()) throw new InterruptedException();
+			} else {
+				Thread.yield();
+			}
+		}
+		recordIdle(System.nanoTime() - start);
+	}
+
+	/** Get current time in ns, for measuring logic and render time. */
+	public long now() { return System.nanoTime(); }
+
+	/** Record time spent on the logic frames of this frame. */
+	public void recordLogic(long ns) {
+		logic_ns = ns;
+		avg_logic_ns += avg_weight*(ns - avg_logic_ns);
+	}
+
+	/** Record time spent rendering a frame.  May be called from the
+	* painting thread. */
+	public void recordRender(long ns) {
+		render_ns = ns;
+		avg_render_ns += avg_weight*(ns - avg_render_ns);
+	}
+
+	void recordIdle(long ns) {
+		idle_ns = ns;
+		avg_idle_ns += avg_weight*(ns - avg_idle_ns);
+	}
+
+	public long getStepNanos() { return step_ns; }
+	public int getLastSteps() { return steps; }
+	public long getStepsDropped() { return steps_dropped; }
+	public long getLastLogicNanos() { return logic_ns; }
+	public long getLastRenderNanos() { return render_ns; }
+	public long getLastIdleNanos() { return idle_ns; }
+	public double getAvgLogicNanos() { return avg_logic_ns; }
+	public double getAvgRenderNanos() { return avg_render_ns; }
+	public double getAvgIdleNanos() { return avg_idle_ns; }
+	public double getAvgSteps() { return avg_steps; }
+
+	/** Averaged timings in ms, as a one-line string. */
+	public String getTimings() {
+		return "logic "+ms(avg_logic_ns)+" render "+ms(avg_render_ns)
+			+" idle "+ms(avg_idle_ns)+" ms, steps "
+			+(Math.round(avg_steps*100)/100.0)+", dropped "+steps_dropped;
+	}
+
+	static String ms(double ns) {
+		return ""+(Math.round(ns/10000.0)/100.0);
+	}
+
+}
@@ -0,0 +1,150 @@
+package jgame.impl;
+
+import java.util.HashMap;
+import jgame.JGImage;
+import jgame.JGRectangle;
+
+/** Immutable table of the defined images, indexed by integer handles.  A
+ * name gets a handle when it is first defined, and keeps it, also when the
+ * image is undefined and defined again, so that handles can be stored (for
+ * example in JGObject) and never go stale.
+ *
+ * <p>The registry is never changed: each change produces a new registry
+ * (copy-on-write), which the engine publishes in a volatile field.  Reading
+ * it therefore needs no locking, which the Hashtables it replaces did.
+ * Changes are only made when images are defined, undefined, or scaled,
+ * which is rare compared to reading.
+ */
+public class ImageRegistry {
+
+	/** String -&gt; Integer, name to handle */
+	final HashMap<String,Integer> handles;
+	final String [] names;
+	final boolean [] defined;
+	/** screen size image; only valid if resolved */
+	final JGImage [] images;
+	/** true = images contains the screen size image, which may be null */
+	final boolean [] resolved;
+	final JGRectangle [] bboxes;
+
+	/** Create empty registry */
+	public ImageRegistry() {
+		this(new HashMap<String,Integer>(),0);
+	}
+
+	ImageRegistry(HashMap<String,Integer> handles,int size) {
+		this.handles=handles;
+		names = new String[size];
+		defined = new boolean[size];
+		images = new JGImage[size];
+		resolved = new boolean[size];
+		bboxes = new JGRectangle[size];
+	}
+
+	ImageRegistry copy(HashMap<String,Integer> handles,int size) {
+		ImageRegistry reg = new ImageRegistry(handles,size);
+		int n = names.length;
+		System.arraycopy(names,0,reg.names,0,n);
+		System.arraycopy(defined,0,reg.defined,0,n);
+		System.arraycopy(images,0,reg.images,0,n);
+		System.arraycopy(resolved,0,reg.resolved,0,n);
+		System.arraycopy(bboxes,0,reg.bboxes,0,n);
+		return reg;
+	}
+
+	/** Get handle of image name, -1 means the name was never defined. */
+	public int getHandle(String name) {
+		Integer handle = handles.get(name);
+		if (handle==null) return -1;
+		return handle.intValue();
+	}
+
+	/** Number of handles, including those of undefined images. */
+	public int size() { return names.length; }
+
+	public String getName(int handle) { return names[handle]; }
+
+	public boolean isDefined(int handle) {
+		return handle>=0 && handle<names.length && defined[handle];
+	}
+
+	/** True if the screen size image is known, which may be null. */
+	public boolean isResolved(int handle) { return resolved[handle]; }
+
+	/** Get screen size image, null if not resolved or if there is no
+	* image. */
+	public JGImage getImage(int handle) { return images[handle]; }
+
+	public JGRectangle getBBox(int handle) { return bboxes[handle]; }
+
+	/** Return new registry in which the image is defined with the given
+	* bbox, and its screen size image is not resolved yet. */
+	public ImageRegistry define(String name,JGRectangle bbox) {
+		return define(new String[] {name}, new JGRectangle[] {bbox}, null);
+	}
+
+	/** Return new registry in which the images are defined with the given
+	* bboxes and screen size images, in one copy.  Later definitions of the
+	* same name override earlier ones.
+	* @param scaled  screen size images, null = not resolved yet */
+	public ImageRegistry define(String [] newnames,JGRectangle [] newbboxes,
+	JGImage [] scaled) {
+		HashMap<String,Integer> newhandles = handles;
+		int size = names.length;
+		for (int i=0; i<newnames.length; i++) {
+			if (newhandles.containsKey(newnames[i])) continue;
+			if (newhandles==handles)
+				newhandles = new HashMap<String,Integer>(handles);
+			newhandles.put(newnames[i],Integer.valueOf(size++));
+		}
+		ImageRegistry reg = copy(newhandles,size);
+		for (int i=0; i<newnames.length; i++) {
+			int handle = reg.getHandle(newnames[i]);
+			reg.names[handle] = newnames[i];
+			reg.defined[handle] = true;
+			reg.images[handle] = scaled==null ? null : scaled[i];
+			reg.resolved[handle] = scaled!=null;
+			reg.bboxes[handle] = newbboxes[i];
+		}
+		return reg;
+	}
+
+	/** Return new registry in which the image is undefined. */
+	public ImageRegistry undefine(String name) {
+		int handle = getHandle(name);
+		if (handle < 0) return this;
+		ImageRegistry reg = copy(handles,names.length);
+		reg.defined[handle] = false;
+		reg.images[handle] = null;
+		reg.resolved[handle] = false;
+		reg.bboxes[handle] = null;
+		return reg;
+	}
+
+	/** Return new registry with the given screen size image. */
+	public ImageRegistry resolve(int handle,JGImage img) {
+		return resolve(new int[] {handle}, new JGImage[] {img});
+	}
+
+	/** Return new registry with the given screen size images, in one
+	* copy. */
+	public ImageRegistry resolve(int [] handles,JGImage [] imgs) {
+		ImageRegistry reg = copy(this.handles,names.length);
+		for (int i=0; i<handles.length; i++) {
+			reg.images[handles[i]] = imgs[i];
+			reg.resolved[handles[i]] = true;
+		}
+		return reg;
+	}
+
+	/** Return new registry in which no screen size images are resolved. */
+	public ImageRegistry unresolveAll() {
+		ImageRegistry reg = copy(handles,names.length);
+		for (int i=0; i<names.length; i++) {
+			reg.images[i] = null;
+			reg.resolved[i] = false;
+		}
+		return reg;
+	}
+
+}
@@ -150,6 +150,12 @@ public interface JGEngineInterface {
 	* null if image is a null image; throws error if image is not defined.  */
 	public JGImage getImage(String imgname);
 
+	/** Get handle of image, which identifies the image without having to
+	* look up its name.  A name keeps its handle when the image is
+	* redefined.  Used by JGObject to resolve its image name once.
+	* @return handle, -1 means image was never defined */
+	public int getImageHandle(String imgname);
+
 	/** Gets (non-scaled) image's physical size directly.  The object returned
 	 * may be a reference to an internal variable, do not change it! */
 	public JGPoint getImageSize(String imgname);
@@ -178,6 +184,18 @@ public interface JGEngineInterface {
 	String imgfile, String img_op,
 	int top,int left, int width,int height);
 
+	/** Define new sprite or tile image from a file, scaled to the given
+	* size.  The collision bounding box is the whole (scaled) image.
+	* @param name  image id
+	* @param tilename  tile id (1-4 characters)
+	* @param collisionid  cid to use for tile collision matching
+	* @param imgfile  filespec in resource path; "null" means no file
+	* @param dimx  width to scale the image to
+	* @param dimy  height to scale the image to
+	*/
+	public void defineImage(String name, String tilename, int collisionid,
+	String imgfile, String img_op, int dimx, int dimy);
+
 	/** Define new image by rotating an already loaded image.  This method
 	 * does not yet work for images defined from image maps! The destination
 	 * image is always a square which is large enough to fit the source image
@@ -240,6 +258,18 @@ public interface JGEngineInterface {
 	/** Gets the collision bounding box of an image. */
 	public JGRectangle getImageBBox(String imgname);
 
+	/** Enable or disable the sprite atlas (default disabled).  When
+	* enabled, all defined images, including rotated images and tiles, are
+	* packed into a few large pages, and drawn as sub-rectangles of these
+	* pages.  This avoids switching between many small images, which is
+	* expensive on accelerated pipelines.  Images are added to the atlas when
+	* they are defined, and the separate images are replaced by views into
+	* the pages, so they do not take extra memory.  Images larger than a
+	* page are drawn as usual.
+	* Has no effect on platforms that do not support it.
+	* @param page_size  width and height of a page, 0 = disable */
+	public void setSpriteAtlas(int page_size);
+
 
 	/*====== image from engine ======*/
 
@@ -316,6 +346,22 @@ public interface JGEngineInterface {
 	**/
 	public void defineMedia(String filename);
 
+	/** Load a table file like defineMedia(String), but load, convert, and
+	* scale the images on nr_threads threads, which is faster on multicore
+	* machines.  Progress is shown with setProgressBar.  The images become
+	* visible to the game all at once when they are done, so this can also be
+	* used to load the media of the next level while the game is running.
+	* @param nr_threads  nr of threads, 1 or less = same as
+	*        defineMedia(filename) */
+	public void defineMedia(String filename,int nr_threads);
+
+	/** Scale all images that are not yet scaled to the current screen size,
+	* on nr_threads threads.  Images are scaled when they are defined, but
+	* must be scaled again when the window size changes.  Otherwise, this
+	* happens when they are first drawn, which may cause hiccups.
+	* @param nr_threads  nr of threads to use */
+	public void preloadImages(int nr_threads);
+
 
 
 	/*====== BG/tiles ======*/
@@ -365,6 +411,10 @@ public interface JGEngineInterface {
 	* constructor.  You should not need to call this directly.*/
 	public void markAddObject(JGObject obj);
 
+	/** Signal that the object's colid has changed, do not call directly.
+	* This method is called by JGObject.setColId. */
+	public void markColIdChanged(JGObject obj);
+
 
 	/** Get object if it exists.
 	*/
@@ -390,6 +440,52 @@ public interface JGEngineInterface {
 	*/
 	public void checkCollision(int srccid,int dstcid);
 
+	/** Enable or disable the collision grid.  When enabled,
+	* checkCollision(int,int) uses a spatial hash with cells of tile size to
+	* find the pairs of objects that may collide, instead of testing every
+	* src object against every dst object.  This is much faster when there
+	* are many objects, and hit() is called in the same order.  The grid is
+	* built from the positions of the dst objects at the start of each
+	* checkCollision.  Default is disabled.
+	*/
+	public void setCollisionGrid(boolean enabled);
+
+	/** Enable or disable cid buckets.  When enabled, the engine keeps a
+	* list of objects for each collision id bit, so that moveObjects,
+	* check*Collision, countObjects, getObjects, and removeObjects with a
+	* cid mask only enumerate the objects that have one of the bits in the
+	* mask, rather than all objects.  This is much faster if most of the
+	* objects do not match the mask.  Objects are moved to other lists when
+	* their colid is changed with JGObject.setColId.  A colid that is
+	* assigned directly is picked up at the end of the frame.  Default is
+	* disabled. */
+	public void setCidBuckets(boolean enabled);
+
+	/** Select how objects are stored.  Normally, objects are stored in
+	* sorted arrays, which makes adding or removing a single object linear
+	* in the number of objects.  When the skip list store is enabled, they
+	* are stored in skip lists, so that single adds and removes take
+	* logarithmic time, and the arrays are updated only when the engine
+	* enumerates the objects.  Enable this when many objects are added or
+	* removed outside of moveObjects and check*Collision, which queue them
+	* anyway.  Objects are still enumerated in name order.  Cannot be
+	* called from within moveObjects or check*Collision.  Default is
+	* disabled. */
+	public void setSkipListStore(boolean enabled);
+
+	/** Enable parallel move with the given number of threads, or disable it
+	* if nr_threads &lt;= 1.  When enabled, moveObjects first moves the
+	* objects that have JGObject.parallel_move set, in parallel, in chunks of
+	* consecutive objects.  Then it moves the other objects one by one as
+	* usual.  Objects created, removed, or given a new colid by
+	* a parallel move() are buffered per chunk and handled in the same
+	* order as when moving the parallel objects one by one, so that the result does not depend on
+	* the number of threads, as long as the parallel objects keep to their
+	* contract.  The only exception is the unique ids of newly created
+	* objects, which depend on thread timing.  Exceptions are reported
+	* after all parallel objects are moved.  Default is disabled. */
+	public void setParallelMove(int nr_threads);
+
 	/** Checks collision of objects with given cid mask with given object. 
 	* Suspended objects are not counted (same as checkCollision(int,int)).
 	* This method should be a more efficient way to check for object overlap
@@ -424,6 +520,41 @@ public interface JGEngineInterface {
 	public Vector getObjects(String prefix,int cidmask,boolean suspended_obj,
 	JGRectangle bbox);
 
+	/** Version of getObjects that stores the objects found in a Vector
+	* supplied by the caller, rather than creating a new one.  The Vector is
+	* cleared first.  The objects are in the same order as getObjects.
+	* @return number of objects found */
+	@SuppressWarnings("rawtypes")
+	public int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj,JGRectangle bbox);
+
+	/** Query the object list for objects matching the given name prefix and
+	* CID mask, of which the bounding box overlaps the circle with the given
+	* center and radius.  The objects found are stored in result, which is
+	* cleared first.
+	* @param cidmask collision id mask, 0 means ignore
+	* @param prefix  ID prefix, null means ignore  
+	* @param suspended_obj  also count suspended objects
+	* @return number of objects found */
+	@SuppressWarnings("rawtypes")
+	public int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj,double x,double y,double radius);
+
+	/** Enable or disable the object index.  When enabled, getObjects with a
+	* bbox or radius looks up objects in a spatial hash with cells of tile
+	* size rather than testing all objects, which is much faster when
+	* queries are done often.  The index is rebuilt at the first query after
+	* the engine moved, added, or removed objects (that is, after
+	* moveObjects, check*Collision, and at each new frame).  If you change an
+	* object's position yourself and want to query it in the same frame,
+	* call invalidateObjectIndex first.  Default is disabled. */
+	public void setObjectIndex(boolean enabled);
+
+	/** Signal that objects were moved outside of moveObjects, so that the
+	* object index has to be rebuilt before the next query.
+	* @see #setObjectIndex(boolean) */
+	public void invalidateObjectIndex();
+
 	/** Remove one particular object. The actual removal is done after the
 	* current moveObjects or check*Collision ends, or immediately if done
 	* from within the main doFrame loop.*/
@@ -617,6 +748,26 @@ public interface JGEngineInterface {
 	 */
 	public void dbgShowMessagesInPf(boolean enabled);
 
+	/** Show a summary of the frame profile in the top left corner of the
+	 * screen: the median, 95th percentile and maximum time of each phase,
+	 * and the number of objects, the bytes allocated per frame, and the
+	 * frames that were not rendered.  Enables profiling of the last 200
+	 * frames if profiling is not enabled.  The debug message font and
+	 * foreground colour are used to draw the text.
+	 * @see #setProfiling(int) */
+	public void dbgShowProfile(boolean enabled);
+
+	/** Enable profiling of the last nr_frames frames, or disable it if
+	 * nr_frames is 0.  For each frame, the time spent in timers, doFrame,
+	 * moveObjects, checkCollision, checkBGCollision, and rendering is
+	 * recorded, along with the number of objects and allocated bytes.  When
+	 * disabled (default), profiling has no cost.
+	 * @see #getProfiler() */
+	public void setProfiling(int nr_frames);
+
+	/** Get the frame profiler, or null if profiling is disabled. */
+	public FrameProfiler getProfiler();
+
 	/** Set the number of frames a debug message of a removed object should
 	 * remain on the playfield. */
 	public void dbgSetMessageExpiry(int ticks);
@@ -847,6 +998,17 @@ public interface JGEngineInterface {
 	* @return  max successive frames to skip */
 	public double getFrameSkip();
 
+	/** Get interpolation alpha of the frame being rendered, between 0 and 1.
+	* This is the fraction of a frame that has passed since the last frame
+	* was done.  Always 1 if the render rate is not set.
+	* @see #setRenderRate(double) */
+	public double getFrameAlpha();
+
+	/** Get the frame timings measured by the engine, averaged over the last
+	* frames: time spent in the frame logic, rendering, and waiting, and the
+	* number of frames done per render. */
+	public String getFrameTimings();
+
 	/**
 	* @return true = video synced mode enabled
 	*/
@@ -903,6 +1065,19 @@ public interface JGEngineInterface {
 	 * @param nrtilesy number of tiles, &gt;= viewTilesY() */
 	public void setPFSize(int nrtilesx,int nrtilesy);
 
+	/** Keep the tiles of the playfield in a memory-mapped file, rather than
+	 * on the heap.  The tiles are stored in chunks of 32x32 tiles, and only
+	 * the chunks that are used are paged into memory, so that very large
+	 * playfields take little memory.  The file is created sparse, so it
+	 * takes no time to create.  Takes effect the next time the playfield
+	 * is created, so call it before setPFSize or setCanvasSettings.
+	 * Without a file (default), the tiles are kept on the heap, also in
+	 * chunks, which are only allocated when tiles are set in them.
+	 * @param filename  file to use, null = keep tiles on the heap
+	 * @param keep_contents  keep the tiles in an existing file of the same
+	 *    playfield size, rather than filling the playfield */
+	public void setTileMapFile(String filename,boolean keep_contents);
+
 	/** Set playfield wraparound setting.  When wraparound is enabled, the
 	 * playfield theoretically behaves as if it is infinitely long or high,
 	 * with tiles and objects repeating periodically, with playfield size
@@ -928,6 +1103,41 @@ public interface JGEngineInterface {
 	 * @param maxframeskip  max successive frames to skip, useful range 0..10*/
 	public void setFrameRate(double fps, double maxframeskip);
 
+	/** Render at a fixed rate, independently of the frame rate, drawing
+	* objects at a position interpolated between their positions in the
+	* last two frames.  This gives smooth motion when the display is faster
+	* than the frame rate.  Only the object images are drawn interpolated;
+	* use getFrameAlpha or JGObject.getInterpolatedX/Y in paint methods to
+	* do the same.  Interpolation delays the displayed positions by up to one
+	* frame.  Set to 0 (default) to render once after each frame or batch of
+	* frames, without interpolation.  Has no effect on platforms that do not
+	* support it.
+	* @param render_fps  renders per second, 0 = disable */
+	public void setRenderRate(double render_fps);
+
+	/** Enable or disable dirty rectangle repaint (default disabled).  When
+	* enabled, only the parts of the screen that changed since the last
+	* frame are redrawn and copied to the screen, and nothing is repainted
+	* if nothing changed.  This greatly reduces the CPU load of games where
+	* little moves, such as turn-based and puzzle games.
+	* <p>The engine keeps track of objects that moved, changed image,
+	* appeared, or disappeared, and tiles that were set with setTile.  A
+	* change of view offset or background, or a wrapping playfield, causes
+	* the whole screen to be repainted.  Other drawing, such as in
+	* paintFrame or in an object's paint method outside its image, is only
+	* updated within the changed areas, so use markDirty to mark the areas
+	* that such drawing changes.  The render rate is ignored in this mode.
+	* Has no effect on platforms that do not support it. */
+	public void setDirtyRectRepaint(boolean enabled);
+
+	/** Mark an area of the screen as changed, so that it is redrawn in
+	* dirty rectangle mode.  Has no effect when dirty rectangle repaint is
+	* disabled.
+	* @param pf_relative  coordinates are playfield coordinates rather than
+	*        view coordinates */
+	public void markDirty(double x,double y,double width,double height,
+	boolean pf_relative);
+
 	/** Enable/disable video synced update (jogl only).
 	 * This method has no effect on non-jogl platforms,
 	 * where it is always disabled.  The game state update becomes synced with
@@ -1107,6 +1317,30 @@ public interface JGEngineInterface {
 	*/
 	public void setBlendMode(int src_func, int dst_func);
 
+	/** Configure the cache of transformed images, used by the extended
+	* drawImage on platforms that transform images in software.  Rotation
+	* angles and scale factors are rounded to the given number of steps, and
+	* the transformed images are kept until they take more than the budget,
+	* after which the least recently used ones are dropped.  The cache is
+	* enabled by default.  Has no effect on platforms that do not use it.
+	* @param budget  max memory used by cached images in bytes, 0 = disable
+	*            the cache, and transform the image each time it is drawn,
+	*            at the exact angle and scale
+	* @param angle_steps  number of rotation steps in a full circle
+	* @param scale_steps  number of scale steps per unit of scale */
+	public void setSpriteCache(long budget, int angle_steps, int scale_steps);
+
+	/** Register a particle system.  From now on, the engine updates it every
+	* frame, after doFrame, and draws its particles after the objects, before
+	* paintFrame.  Particles are much cheaper than objects, and meant for
+	* large numbers of short-lived effects such as sparks and debris.
+	* @see jgame.impl.ParticleSystem */
+	public void addParticleSystem(ParticleSystem ps);
+
+	/** Unregister a particle system, so that it is no longer updated and
+	* drawn. */
+	public void removeParticleSystem(ParticleSystem ps);
+
 	/** Get height of given font in pixels. */
 	public double getFontHeight(JGFont font);
 	/** Get height of given font or current font in pixels. */
@@ -1214,6 +1448,8 @@ public interface JGEngineInterface {
 	/** Extended version of drawImage for OpenGL or Android.
 	 * On platforms without support for accelerated blending, rotation,
 	 * scaling, this call is equivalent to drawImage(x,y,imgname,pf_relative).
+	 * The JRE platform does the blending in software, and caches the
+	 * rotated and scaled images, see setSpriteCache.
 	 *
 	 * rotation and scaling are centered around the image center.
 	 *
@@ -0,0 +1,238 @@
+package jgame.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/** TileMap whose chunks are stored in a memory-mapped file instead of on
+ * the heap.  The operating system pages chunks in when they are accessed
+ * and may page them out again, so that only the chunks that are used, which
+ * are usually those near the view, stay in memory.  The file is created as
+ * a sparse file, so a huge map takes no disk space or time until its
+ * chunks are written.
+
+ * <p>The file starts with a header holding the map size and fill tile,
+ * and a flag per chunk telling whether the chunk was written.  Chunks that
+ * were not written read as the fill tile.  A file can be opened again with
+ * keep_contents set, to continue with a previously generated map.  Ints are
+ * stored in native byte order, so a file is not portable between machines
+ * with a different byte order.
+ */
+public class MappedTileMap extends TileMap {
+
+	static final int MAGIC=0x4a474d31;
+	static final int HEADER_BYTES=32;
+	static final int CHUNK_BYTES=2*CHUNK_AREA*4;
+	/** chunks per mapped segment, which keeps the number of mappings low */
+	static final int SEG_CHUNKS=4096;
+
+	String filename;
+	RandomAccessFile raf;
+	FileChannel channel;
+	/** header, followed by one byte per chunk: nonzero if written */
+	MappedByteBuffer header;
+	long data_start;
+	/** mapped segments, null = not yet mapped */
+	IntBuffer [] segments;
+	/** true if the contents of an existing file were kept */
+	boolean contents_kept=false;
+
+	/** Open or create map file.
+	* @param keep_contents  use the contents of an existing file, which must
+	*        have the same size; otherwise the file is cleared */
+	public MappedTileMap(int nrtilesx,int nrtilesy,String filename,
+	boolean keep_contents) {
+		super(nrtilesx,nrtilesy,false);
+		this.filename=filename;
+		int nrchunks = nrchunksx*nrchunksy;
+		// align data to pages
+		data_start = ((HEADER_BYTES+nrchunks+4095)/4096)*4096;
+		long filesize = data_start + (long)nrchunks*CHUNK_BYTES;
+		segments = new IntBuffer[(nrchunks+SEG_CHUNKS-1)/SEG_CHUNKS];
+		try {
+			raf = new RandomAccessFile(filename,"rw");
+			boolean keep = keep_contents && raf.length()==filesize;
+			if (!keep) {
+				// truncating clears the file, and leaves it sparse
+				raf.setLength(0);
+				raf.setLength(filesize);
+			}
+			channel = raf.getChannel();
+			header = channel.map(FileChannel.MapMode.READ_WRITE,0,data_start);
+			header.order(ByteOrder.nativeOrder());
+			if (keep) {
+				if (header.getInt(0)!=MAGIC || header.getInt(4)!=nrtilesx
+				||  header.getInt(8)!=nrtilesy)
+					throw new JGameError("Tile map file '"+filename
+						+"' does not match playfield size.",true);
+				default_id = header.getInt(12);
+				default_cid = header.getInt(16);
+				for (int ci=0; ci<nrchunks; ci++)
+					if (isStored(ci)) nr_stored++;
+				contents_kept=true;
+			} else {
+				header.putInt(0,MAGIC);
+				header.putInt(4,nrtilesx);
+				header.putInt(8,nrtilesy);
+				writeDefaults();
+			}
+		} catch (IOException e) {
+			throw new JGameError("Cannot open tile map file '"+filename
+				+"': "+e,true);
+		}
+	}
+
+	/** Returns true if the contents of an existing file were kept.  False
+	* if keep_contents was not set, or the file did not exist yet or had a
+	* different size, in which case the map was cleared. */
+	public boolean contentsKept() { return contents_kept; }
+
+	void writeDefaults() {
+		header.putInt(12,default_id);
+		header.putInt(16,default_cid);
+	}
+
+	final boolean isStored(int ci) {
+		return header.get(HEADER_BYTES+ci)!=0;
+	}
+
+	final void setStored(int ci,boolean stored) {
+		header.put(HEADER_BYTES+ci,(byte)(stored ? 1 : 0));
+	}
+
+	/** Get the segment containing chunk ci, mapping it if necessary. */
+	final IntBuffer segment(int ci) {
+		int seg = ci/SEG_CHUNKS;
+		IntBuffer buf = segments[seg];
+		if (buf==null) {
+			int nrchunks = Math.min(SEG_CHUNKS,
+				nrchunksx*nrchunksy - seg*SEG_CHUNKS);
+			try {
+				MappedByteBuffer bytes = channel.map(
+					FileChannel.MapMode.READ_WRITE,
+					data_start + (long)seg*SEG_CHUNKS*CHUNK_BYTES,
+					(long)nrchunks*CHUNK_BYTES);
+				bytes.order(ByteOrder.nativeOrder());
+				buf = bytes.asIntBuffer();
+			} catch (IOException e) {
+				throw new JGameError("Cannot map tile map file '"+filename
+					+"': "+e,true);
+			}
+			segments[seg]=buf;
+		}
+		return buf;
+	}
+
+	/** offset of the tile ids of chunk ci in its segment; the cids follow
+	* after CHUNK_AREA ints. */
+	static final int chunkOffset(int ci) {
+		return (ci%SEG_CHUNKS)*2*CHUNK_AREA;
+	}
+
+	public int get(int x,int y) {
+		int ci = chunkIndex(x,y);
+		if (!isStored(ci)) return default_id;
+		return segment(ci).get(chunkOffset(ci)+tileIndex(x,y));
+	}
+
+	public int getCid(int x,int y) {
+		int ci = chunkIndex(x,y);
+		if (!isStored(ci)) return default_cid;
+		return segment(ci).get(chunkOffset(ci)+CHUNK_AREA+tileIndex(x,y));
+	}
+
+	public void set(int x,int y,int id,int cid) {
+		int ci = chunkIndex(x,y);
+		if (!isStored(ci)) storeChunk(ci);
+		int ofs = chunkOffset(ci)+tileIndex(x,y);
+		IntBuffer buf = segment(ci);
+		buf.put(ofs,id);
+		buf.put(ofs+CHUNK_AREA,cid);
+	}
+
+	public void setCid(int x,int y,int and_mask,int or_mask) {
+		int ci = chunkIndex(x,y);
+		if (!isStored(ci)) storeChunk(ci);
+		int ofs = chunkOffset(ci)+CHUNK_AREA+tileIndex(x,y);
+		IntBuffer buf = segment(ci);
+		buf.put(ofs,(buf.get(ofs)&and_mask) | or_mask);
+	}
+
+	void storeChunk(int ci) {
+		IntBuffer buf = segment(ci);
+		int ofs = chunkOffset(ci);
+		for (int i=0; i<CHUNK_AREA; i++) {
+			buf.put(ofs+i,default_id);
+			buf.put(ofs+CHUNK_AREA+i,default_cid);
+		}
+		setStored(ci,true);
+		nr_stored++;
+	}
+
+	public void fill(int id,int new_cid,int preserve_cids) {
+		int new_default_cid = (default_cid&preserve_cids) | new_cid;
+		for (int ci=0; ci<nrchunksx*nrchunksy; ci++) {
+			if (!isStored(ci)) continue;
+			IntBuffer buf = segment(ci);
+			int ofs = chunkOffset(ci);
+			boolean uniform=true;
+			for (int i=0; i<CHUNK_AREA; i++) {
+				int cid = (buf.get(ofs+CHUNK_AREA+i)&preserve_cids) | new_cid;
+				buf.put(ofs+i,id);
+				buf.put(ofs+CHUNK_AREA+i,cid);
+				if (cid!=new_default_cid) uniform=false;
+			}
+			if (uniform) {
+				setStored(ci,false);
+				nr_stored--;
+			}
+		}
+		default_id = id;
+		default_cid = new_default_cid;
+		writeDefaults();
+	}
+
+	public int countCid(int cidmask) {
+		int count=0;
+		for (int cy=0; cy<nrchunksy; cy++) {
+			for (int cx=0; cx<nrchunksx; cx++) {
+				int ci = cy*nrchunksx+cx;
+				int w = Math.min(CHUNK_SIZE,nrtilesx-(cx<<CHUNK_SHIFT));
+				int h = Math.min(CHUNK_SIZE,nrtilesy-(cy<<CHUNK_SHIFT));
+				if (!isStored(ci)) {
+					if ((default_cid&cidmask)!=0) count += w*h;
+					continue;
+				}
+				IntBuffer buf = segment(ci);
+				int ofs = chunkOffset(ci)+CHUNK_AREA;
+				for (int y=0; y<h; y++) {
+					for (int x=0; x<w; x++) {
+						if ((buf.get(ofs+((y<<CHUNK_SHIFT)|x))&cidmask)!=0)
+							count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/** Flush the map to the file and close it.  The map cannot be used
+	* afterwards. */
+	public void close() {
+		try {
+			header.force();
+			channel.close();
+			raf.close();
+		} catch (IOException e) {
+			throw new JGameError("Cannot close tile map file '"+filename
+				+"': "+e,true);
+		}
+		segments=null;
+		header=null;
+	}
+
+}
@@ -0,0 +1,233 @@
+package jgame.impl;
+
+import java.util.Random;
+import jgame.JGRectangle;
+
+/** Lightweight particles, for sparks, debris, smoke and the like, which
+ * would be too expensive as JGObjects.  The particles of a system are
+ * stored in parallel primitive arrays, which are allocated once, up to the
+ * capacity.  The live particles are always 0..size-1: when a particle dies,
+ * the last one is moved into its place.  Particles have no names, no
+ * collision, and no move() method; they fly in a straight line under the
+ * system's gravity and drag until their lifetime runs out.
+ *
+ * <p>Register the system with the engine's addParticleSystem.  The engine
+ * then updates it once per frame, in frameFinished, and draws it after the
+ * objects, before paintFrame.  A system can draw its particles as
+ * coloured rectangles, or as images, optionally animated.  Particles fade
+ * out by default, and can be drawn with their own blend mode, for example
+ * additive (1,0) for sparks.
+ */
+public class ParticleSystem {
+
+	/** max number of particles */
+	public final int capacity;
+	/** number of live particles, which are stored at 0..size-1 */
+	public int size=0;
+
+	/** position of the particle center */
+	public final float [] x,y;
+	public final float [] xspeed,yspeed;
+	/** remaining and initial lifetime in frames */
+	public final float [] life,max_life;
+	/** colour, as ARGB */
+	public final int [] color;
+	/** animation frame, index into images; fractional part accumulates
+	 * anim_speed */
+	public final float [] frame;
+
+	/** Animation frames; null (default) means particles are drawn as
+	 * coloured rectangles. */
+	public String [] images=null;
+	/** animation frames per game frame */
+	public double anim_speed=0;
+	/** Size of rectangle particles, in pixels. */
+	public int width=2, height=2;
+	/** added to the speed every frame */
+	public double xgravity=0, ygravity=0;
+	/** speed is multiplied by this every frame, 1 = no drag */
+	public double drag=1.0;
+	/** If true, alpha is multiplied by the fraction of lifetime left. */
+	public boolean fade=true;
+	/** Blend mode, see JGEngineInterface.setBlendMode; default (1,-1). */
+	public int blend_src_func=1, blend_dst_func=-1;
+	/** coordinates are relative to playfield, otherwise view */
+	public boolean pf_relative=true;
+
+	/** Bounds of the particle centers after the last update, in pixels.
+	 * Only valid if size&gt;0. */
+	public double minx,miny,maxx,maxy;
+
+	/** nr of particles that could not be emitted because the system was
+	 * full */
+	public int nr_dropped=0;
+
+	/** The area in which the engine last drew the particles, when dirty
+	 * rectangle repaint is enabled.  Null if not drawn.  Used by the engine,
+	 * do not change. */
+	public JGRectangle drawn_rect=null;
+
+	public ParticleSystem(int capacity) {
+		this.capacity=capacity;
+		x = new float[capacity];
+		y = new float[capacity];
+		xspeed = new float[capacity];
+		yspeed = new float[capacity];
+		life = new float[capacity];
+		max_life = new float[capacity];
+		color = new int[capacity];
+		frame = new float[capacity];
+	}
+
+	/** Add a particle.  If the system is full, the particle is dropped.
+	* @param life  lifetime in frames
+	* @param color  ARGB colour; for image particles only alpha is used
+	* @return index of the particle, -1 if dropped */
+	public int emit(double x,double y,double xspeed,double yspeed,
+	double life,int color) {
+		if (size>=capacity) {
+			nr_dropped++;
+			return -1;
+		}
+		int i = size++;
+		this.x[i] = (float)x;
+		this.y[i] = (float)y;
+		this.xspeed[i] = (float)xspeed;
+		this.yspeed[i] = (float)yspeed;
+		this.life[i] = (float)life;
+		max_life[i] = (float)life;
+		this.color[i] = color;
+		frame[i] = 0;
+		return i;
+	}
+
+	/** Add nr particles at x,y flying in random directions, with a speed
+	* between minspeed and maxspeed.
+	* @return nr of particles emitted */
+	public int emitBurst(Random random,int nr,double x,double y,
+	double minspeed,double maxspeed,double life,int color) {
+		int emitted=0;
+		for (int n=0; n<nr && size<capacity; n++) {
+			double angle = random.nextDouble()*2*Math.PI;
+			double speed = minspeed + random.nextDouble()*(maxspeed-minspeed);
+			emit(x,y,speed*Math.cos(angle),speed*Math.sin(angle),
+				life*(0.5+random.nextDouble()),color);
+			emitted++;
+		}
+		nr_dropped += nr-emitted;
+		return emitted;
+	}
+
+	/** Move the particles one frame and remove the dead ones. */
+	public void update(double gamespeed) {
+		float gs = (float)gamespeed;
+		float gx = (float)(xgravity*gamespeed);
+		float gy = (float)(ygravity*gamespeed);
+		float dr = (float)Math.pow(drag,gamespeed);
+		float an = (float)(anim_speed*gamespeed);
+		float x0=Float.MAX_VALUE, y0=Float.MAX_VALUE;
+		float x1=-Float.MAX_VALUE, y1=-Float.MAX_VALUE;
+		int i=0;
+		while (i<size) {
+			float l = life[i] - gs;
+			if (l <= 0) {
+				remove(i);
+				continue;
+			}
+			life[i] = l;
+			float xs = (xspeed[i]+gx)*dr, ys = (yspeed[i]+gy)*dr;
+			xspeed[i] = xs;
+			yspeed[i] = ys;
+			float px = x[i] + xs*gs, py = y[i] + ys*gs;
+			x[i] = px;
+			y[i] = py;
+			frame[i] += an;
+			if (px<x0) x0=px;
+			if (px>x1) x1=px;
+			if (py<y0) y0=py;
+			if (py>y1) y1=py;
+			i++;
+		}
+		minx=x0; miny=y0; maxx=x1; maxy=y1;
+	}
+
+	/** Remove particle i by moving the last particle into its place. */
+	public void remove(int i) {
+		int last = --size;
+		if (i==last) return;
+		x[i]=x[last];
+		y[i]=y[last];
+		xspeed[i]=xspeed[last];
+		yspeed[i]=yspeed[last];
+		life[i]=life[last];
+		max_life[i]=max_life[last];
+		color[i]=color[last];
+		frame[i]=frame[last];
+	}
+
+	/** Remove all particles. */
+	public void clear() { size=0; }
+
+	/** Get alpha of particle i, 0..255, including fade. */
+	public int getAlpha(int i) {
+		int a = color[i]>>>24;
+		if (!fade) return a;
+		return (int)(a*life[i]/max_life[i]);
+	}
+
+	/** Get image of particle i, null if none. */
+	public String getImage(int i) {
+		if (images==null || images.length==0) return null;
+		return images[((int)frame[i]) % images.length];
+	}
+
+
+	/** test method: check the physics and removal, and that updating 100k
+	* particles allocates no memory. */
+	public static void main(String [] args) {
+		System.out.println("Testing ParticleSystem ...");
+		ParticleSystem ps = new ParticleSystem(100000);
+		ps.ygravity=0.5;
+		ps.emit(10,20,1,-2,3,0xff00ff00);
+		ps.update(1);
+		if (ps.x[0]!=11 || ps.y[0]!=18.5f || ps.yspeed[0]!=-1.5f)
+			throw new Error("Assertion failure: motion");
+		if (ps.getAlpha(0)!=170)
+			throw new Error("Assertion failure: fade");
+		ps.update(1);
+		ps.update(1);
+		if (ps.size!=0) throw new Error("Assertion failure: expiry");
+		Random random = new Random();
+		for (int n=0; n<10; n++) {
+			int nr = 1+random.nextInt(1000);
+			for (int i=0; i<nr; i++)
+				ps.emit(i,0,0,0,1+random.nextInt(20),i);
+			for (int t=1; t<=21; t++) {
+				ps.update(1);
+				for (int i=0; i<ps.size; i++) {
+					if (ps.life[i] <= 0) throw new Error("Assertion failure: dead");
+					if (ps.color[i]!=(int)ps.x[i])
+						throw new Error("Assertion failure: swap");
+				}
+			}
+			if (ps.size!=0) throw new Error("Assertion failure: removal");
+		}
+		ps.ygravity=0.01;
+		ps.drag=0.99;
+		ps.emitBurst(random,ps.capacity+10,160,120,1,5,1000000,0xffffffff);
+		if (ps.size!=ps.capacity || ps.nr_dropped!=10)
+			throw new Error("Assertion failure: capacity");
+		for (int t=0; t<10; t++) ps.update(1); // warm up
+		long alloc = FrameProfiler.allocatedBytes();
+		long start = System.nanoTime();
+		for (int t=0; t<100; t++) ps.update(1);
+		long time = System.nanoTime()-start;
+		alloc = FrameProfiler.allocatedBytes() - alloc;
+		if (FrameProfiler.alloc_supported && alloc!=0)
+			throw new Error("Assertion failure: allocated "+alloc+" bytes");
+		System.out.println(ps.size+" particles: "
+			+(time/100000)/1000.0+" ms per update, allocated "
+			+(FrameProfiler.alloc_supported ? ""+alloc : "?")+" bytes");
+	}
+
+}
@@ -0,0 +1,198 @@
+package jgame.impl;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/** SortedArray that stores its elements in a skip list.  Put and remove
+ * take logarithmic time, instead of having to shift the array.  The keys
+ * and values arrays are a sorted snapshot of the skip list, which is
+ * updated by updateArrays() the first time it is needed after the skip list
+ * has changed.  get() does this automatically; code that reads size, keys,
+ * or values directly should call updateArrays() first.  getValue() and
+ * contains() look up the skip list itself, so they do not update the arrays,
+ * and take logarithmic time even right after a change.
+
+ * <P> Because changes only reach the arrays when updateArrays() is called,
+ * enumerating the arrays is stable while elements are put or removed.  Such
+ * changes are seen by the next updateArrays().  The skip list itself is
+ * thread safe, but the arrays are not: updating and enumerating them
+ * should be synchronised by the caller, like for SortedArray.
+
+ * <P> This pays off when many single elements are put or removed between
+ * enumerations, for example when many objects are removed one by one
+ * outside of moveObjects.  Updating the arrays is linear, so it is about as
+ * fast as a bulk put or remove on a SortedArray.
+ */
+public class SkipListArray extends SortedArray {
+
+	ConcurrentSkipListMap<String,Object> map
+		= new ConcurrentSkipListMap<String,Object>();
+
+	/** true if map was changed since the last updateArrays */
+	boolean stale=false;
+
+	public SkipListArray(int initialcapacity) {
+		super(initialcapacity);
+	}
+
+	public void clear() {
+		map.clear();
+		super.clear();
+		stale=false;
+	}
+
+	public void put(SortedArray elem) {
+		elem.updateArrays();
+		for (int i=0; i<elem.size; i++) {
+			map.put(elem.keys[i],elem.values[i]);
+		}
+		if (elem.size > 0) stale=true;
+	}
+
+	public void put(String key,Object value) {
+		map.put(key,value);
+		stale=true;
+	}
+
+	public void append(String key,Object value) {
+		put(key,value);
+	}
+
+	public void sort() {
+		updateArrays();
+	}
+
+	public void remove(String key) {
+		if (map.remove(key)!=null) stale=true;
+	}
+
+	public void remove(SortedArray elem) {
+		elem.updateArrays();
+		for (int i=0; i<elem.size; i++) {
+			if (map.remove(elem.keys[i])!=null) stale=true;
+		}
+	}
+
+	public int get(String key) {
+		updateArrays();
+		return super.get(key);
+	}
+
+	public Object getValue(String key) {
+		return map.get(key);
+	}
+
+	public boolean contains(String key) {
+		return map.containsKey(key);
+	}
+
+	/** Copy the skip list into keys and values, if it was changed. */
+	public void updateArrays() {
+		if (!stale) return;
+		stale=false;
+		int newsize = map.size();
+		if (newsize > capacity) grow(newsize-capacity);
+		int i=0;
+		for (Iterator<Map.Entry<String,Object>> it=map.entrySet().iterator();
+		it.hasNext(); ) {
+			Map.Entry<String,Object> entry = it.next();
+			// the map may have grown since we asked its size
+			if (i >= capacity) grow(1);
+			keys[i] = entry.getKey();
+			values[i++] = entry.getValue();
+		}
+		// clear the elements beyond the new size
+		for (int j=i; j<size; j++) {
+			keys[j]=null;
+			values[j]=null;
+		}
+		size=i;
+	}
+
+	public String toString() {
+		updateArrays();
+		return "SkipList"+super.toString();
+	}
+
+	/** test method: check that a SkipListArray gives the same result as a
+	* SortedArray, and time removing objects one by one. */
+	public static void main(String [] args) {
+		System.out.println("Testing SkipListArray ...");
+		Random random = new Random();
+		for (int n=0; n<200; n++) {
+			SortedArray arr = new SortedArray(20);
+			SkipListArray skip = new SkipListArray(20);
+			SortedArray elem = new SortedArray(20);
+			for (int i=0; i<300; i++) {
+				String key = "key"+(int)(200*random.nextDouble());
+				Object value = Integer.valueOf(i);
+				double op = random.nextDouble();
+				if (op < 0.5) {
+					arr.put(key,value);
+					skip.put(key,value);
+				} else if (op < 0.8) {
+					arr.remove(key);
+					skip.remove(key);
+				} else if (op < 0.9) {
+					elem.put(key,value);
+					arr.put(elem);
+					skip.put(elem);
+				} else {
+					arr.remove(elem);
+					skip.remove(elem);
+					elem.clear();
+				}
+				if (random.nextDouble() < 0.1) compare(arr,skip);
+			}
+			compare(arr,skip);
+		}
+		benchmarkRemove(new SortedArray(80),100000);
+		benchmarkRemove(new SkipListArray(80),100000);
+	}
+
+	static void compare(SortedArray arr,SkipListArray skip) {
+		skip.updateArrays();
+		skip.checkSanity();
+		if (arr.size!=skip.size)
+			throw new Error("Assertion failure: size");
+		for (int i=0; i<arr.size; i++) {
+			if (!arr.keys[i].equals(skip.keys[i])
+			||  arr.values[i]!=skip.values[i])
+				throw new Error("Assertion failure: order");
+			if (skip.get(arr.keys[i])!=i)
+				throw new Error("Assertion failure: get");
+			if (skip.getValue(arr.keys[i])!=arr.getValue(arr.keys[i])
+			||  !skip.contains(arr.keys[i]))
+				throw new Error("Assertion failure: getValue");
+		}
+		if (skip.getValue("nokey")!=null || skip.contains("nokey")
+		||  arr.getValue("nokey")!=null || arr.contains("nokey"))
+			throw new Error("Assertion failure: getValue");
+	}
+
+	/** time filling arr with nr keys, and removing them one by one in
+	* random order */
+	static void benchmarkRemove(SortedArray arr,int nr) {
+		Random random = new Random();
+		String [] keys = new String[nr];
+		for (int i=0; i<nr; i++) {
+			keys[i] = "obj"+i;
+			arr.append(keys[i],keys[i]);
+		}
+		arr.sort();
+		for (int i=nr-1; i>0; i--) {
+			int j = random.nextInt(i+1);
+			String tmp=keys[i]; keys[i]=keys[j]; keys[j]=tmp;
+		}
+		long start = System.currentTimeMillis();
+		for (int i=0; i<nr; i++) arr.remove(keys[i]);
+		arr.updateArrays();
+		System.out.println(nr+" removes from "
+			+(arr instanceof SkipListArray ? "SkipListArray" : "SortedArray")
+			+": "+(System.currentTimeMillis()-start)+" ms");
+		if (arr.size!=0) throw new Error("Assertion failure: remove");
+	}
+
+}
@@ -19,6 +19,12 @@ import java.util.Random;
  * It starts with given initialcapacity and grows with increments
  * initialcapacity each time the capacity is exceeded.
 
+ * <P> When many elements are added in a row, use append() instead of put().
+ * Append just adds the element at the end, and the array is sorted in one
+ * go by sort() afterwards, which is much faster than shifting the array for
+ * every element.  Until sort() is called, the array is unsorted, and only
+ * size, keys, values, and clear() may be used.
+
  */
 public class SortedArray {
 
@@ -29,6 +35,13 @@ public class SortedArray {
 	public String [] keys;
 	public Object [] values;
 
+	/** false if elements were appended since the last sort */
+	boolean sorted=true;
+
+	/** scratch arrays used by sort */
+	String [] tmpkeys=null;
+	Object [] tmpvalues=null;
+
 	public SortedArray(int initialcapacity) {
 		capacity=initialcapacity;
 		growspeed = initialcapacity;
@@ -46,9 +59,16 @@ public class SortedArray {
 			values[i]=null;
 		}
 		size=startidx; 
+		if (size==0) sorted=true;
 	}
 
+	/** Bring size, keys, and values up to date with the stored elements.
+	* Does nothing here, since SortedArray stores its elements in the arrays
+	* directly; subclasses that store them elsewhere override this. */
+	public void updateArrays() {}
+
 	public void put(SortedArray elem) {
+		elem.updateArrays();
 		// go through elem, and
 		// (1) put the elements of which keys are already present
 		// (2) store the indexes of the elements of which keys are not present
@@ -109,6 +129,89 @@ public class SortedArray {
 		//checkSanity();
 	}
 
+	/** Add element at the end, without keeping the array sorted.  Call
+	* sort() before using any method other than clear(). */
+	public void append(String key,Object value) {
+		// grow exponentially, as many elements are usually appended in a row
+		if (size+1 > capacity) grow(capacity);
+		keys[size] = key;
+		values[size++] = value;
+		sorted=false;
+	}
+
+	/** Sort the elements added with append().  Of elements with the same
+	* key, the one appended last is kept, so the result is the same as
+	* that of calling put() for each element in turn.  */
+	public void sort() {
+		if (sorted) return;
+		sorted=true;
+		if (size < 2) return;
+		if (tmpkeys==null || tmpkeys.length < size) {
+			tmpkeys = new String[capacity];
+			tmpvalues = new Object[capacity];
+		}
+		mergeSort(0,size);
+		// remove duplicates, keeping the last of each run of equal keys
+		int newsize=0;
+		for (int i=0; i<size; i++) {
+			if (i+1<size && keys[i].equals(keys[i+1])) continue;
+			keys[newsize] = keys[i];
+			values[newsize++] = values[i];
+		}
+		clear(newsize);
+		// help gc, tmp arrays keep the capacity
+		for (int i=0; i<size; i++) {
+			tmpkeys[i]=null;
+			tmpvalues[i]=null;
+		}
+	}
+
+	/** Stable merge sort of elements lo (inclusive) to hi (exclusive). */
+	void mergeSort(int lo,int hi) {
+		if (hi-lo <= 12) {
+			// insertion sort for small ranges
+			for (int i=lo+1; i<hi; i++) {
+				String key = keys[i];
+				Object value = values[i];
+				int j=i-1;
+				while (j>=lo && keys[j].compareTo(key) > 0) {
+					keys[j+1] = keys[j];
+					values[j+1] = values[j];
+					j--;
+				}
+				keys[j+1] = key;
+				values[j+1] = value;
+			}
+			return;
+		}
+		int mid = (lo+hi) >>> 1;
+		mergeSort(lo,mid);
+		mergeSort(mid,hi);
+		// already in order
+		if (keys[mid-1].compareTo(keys[mid]) <= 0) return;
+		System.arraycopy(keys,lo,tmpkeys,lo,hi-lo);
+		System.arraycopy(values,lo,tmpvalues,lo,hi-lo);
+		int i=lo, j=mid, k=lo;
+		while (i<mid && j<hi) {
+			// take from left half on equal keys to keep the sort stable
+			if (tmpkeys[j].compareTo(tmpkeys[i]) < 0) {
+				keys[k] = tmpkeys[j];
+				values[k++] = tmpvalues[j++];
+			} else {
+				keys[k] = tmpkeys[i];
+				values[k++] = tmpvalues[i++];
+			}
+		}
+		while (i<mid) {
+			keys[k] = tmpkeys[i];
+			values[k++] = tmpvalues[i++];
+		}
+		while (j<hi) {
+			keys[k] = tmpkeys[j];
+			values[k++] = tmpvalues[j++];
+		}
+	}
+
 	void grow(int amount) {
 		capacity += amount+growspeed;
 		String [] newkeys = new String[capacity];
@@ -131,6 +234,7 @@ public class SortedArray {
 	}
 
 	public void remove(SortedArray elem) {
+		elem.updateArrays();
 		int lowidx=size;
 		int oldsize=size;
 		for (int i=elem.size-1; i>=0; i--) {
@@ -211,6 +315,18 @@ public class SortedArray {
 		return -1-low;
    }
 
+	/** Get the value stored under key, or null if there is none. */
+	public Object getValue(String key) {
+		int idx = get(key);
+		if (idx<0) return null;
+		return values[idx];
+	}
+
+	/** Check if there is a value stored under key. */
+	public boolean contains(String key) {
+		return get(key) >= 0;
+	}
+
 	public String toString() {
 		String res="SortedArray";
 		for (int i=0; i<size; i++) {
@@ -233,6 +349,9 @@ public class SortedArray {
 	/** test method */
 	public static void main(String [] args) {
 		System.out.println("Testing SortedArray ...");
+		testAppend();
+		benchmarkAppend(10000);
+		benchmarkAppend(100000);
 		Object dummyobject = "dummy";
 		SortedArray arr_accum = new SortedArray(20);
 		Random random = new Random();
@@ -271,5 +390,55 @@ public class SortedArray {
 		}
 	}
 
+	/** check that append() followed by sort() gives the same result as put()
+	*/
+	static void testAppend() {
+		Random random = new Random();
+		for (int n=0; n<200; n++) {
+			SortedArray arr_put = new SortedArray(20);
+			SortedArray arr_append = new SortedArray(20);
+			int nr = (int)(300*random.nextDouble());
+			for (int i=0; i<nr; i++) {
+				String key = "key"+(int)(200*random.nextDouble());
+				Object value = Integer.valueOf(i);
+				arr_put.put(key,value);
+				arr_append.append(key,value);
+			}
+			arr_append.sort();
+			arr_append.checkSanity();
+			if (arr_put.size!=arr_append.size)
+				throw new Error("Assertion failure: append size");
+			for (int i=0; i<arr_put.size; i++) {
+				if (!arr_put.keys[i].equals(arr_append.keys[i])
+				||  arr_put.values[i]!=arr_append.values[i])
+					throw new Error("Assertion failure: append order");
+			}
+		}
+	}
+
+	/** time adding nr random keys in a frame, with put() and append() */
+	static void benchmarkAppend(int nr) {
+		Random random = new Random();
+		String [] newkeys = new String[nr];
+		for (int i=0; i<nr; i++)
+			newkeys[i] = "obj"+(int)(1000000*random.nextDouble());
+		Object dummyobject = "dummy";
+		long start = System.currentTimeMillis();
+		SortedArray arr = new SortedArray(40);
+		for (int i=0; i<nr; i++) arr.put(newkeys[i],dummyobject);
+		SortedArray dest = new SortedArray(80);
+		dest.put(arr);
+		long time_put = System.currentTimeMillis() - start;
+		start = System.currentTimeMillis();
+		arr = new SortedArray(40);
+		for (int i=0; i<nr; i++) arr.append(newkeys[i],dummyobject);
+		arr.sort();
+		dest = new SortedArray(80);
+		dest.put(arr);
+		long time_append = System.currentTimeMillis() - start;
+		System.out.println(nr+" spawns: put "+time_put+" ms, append "
+			+time_append+" ms");
+	}
+
 }
 
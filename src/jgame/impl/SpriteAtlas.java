@@ -0,0 +1,341 @@
+package jgame.impl;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Random;
+import java.util.Vector;
+
+/** Packs images into a few large pages, so that they can be drawn as
+ * sub-rectangles of the pages.  This class only decides where each image
+ * goes; the platform creates the page images, copies the images into them,
+ * and stores the pages with setPage.
+ *
+ * <p>Images are packed on shelves: rows of images as high as their highest
+ * image.  The images are sorted by height first, which makes the shelves
+ * nearly full.  A new page is started when an image does not fit on any of
+ * the existing pages.  Images larger than a page are not packed, and have to
+ * be drawn separately.
+ *
+ * <p>The atlas is built for one version of the engine's image definitions
+ * (EngineLogic.images_version); when images are (re)defined or rescaled, it
+ * is out of date.  It can then be brought up to date with copy, which
+ * creates an atlas for the new version with the same pages, followed by
+ * remove for the images that changed, and pack for the new ones.  The
+ * space of removed images is not reused, so when much of it has been
+ * removed, it is better to build a new atlas.
+ */
+public class SpriteAtlas {
+
+	/** Location of an image in the atlas. */
+	public static class Entry {
+		public String name;
+		/** the image copied into the atlas, platform dependent.  The platform
+		* may replace it with a view into the page. */
+		public Object img;
+		public int page;
+		public int x,y,width,height;
+		Entry(String name,Object img,int width,int height) {
+			this.name=name;
+			this.img=img;
+			this.width=width;
+			this.height=height;
+		}
+	}
+
+	/** A row of images on a page */
+	static class Shelf {
+		int y,height,used_width;
+		Shelf(int y,int height) { this.y=y; this.height=height; }
+	}
+
+	/** width and height of a page */
+	public final int page_size;
+	/** version of the image definitions this atlas was built for */
+	public final int version;
+
+	Hashtable<String,Entry> entries = new Hashtable<String,Entry>();
+	/** entries by image handle, null = not in atlas */
+	Entry [] handle_entries = new Entry[0];
+	/** the shelves of each page */
+	Vector<Vector<Shelf>> page_shelves = new Vector<Vector<Shelf>>(4,4);
+	/** platform page images, per page */
+	Vector<Object> pages = new Vector<Object>(4,4);
+	long used_area=0;
+	/** area of removed images, which is not reused */
+	long removed_area=0;
+
+	public SpriteAtlas(int page_size,int version) {
+		this.page_size=page_size;
+		this.version=version;
+	}
+
+	/** Create an atlas for a new version of the image definitions, with the
+	* same pages and entries as this one.  Packing images into the copy, or
+	* removing them from it, does not change this atlas, so that this one
+	* can still be used while the copy is being filled.  The page images
+	* and entries themselves are shared. */
+	public SpriteAtlas copy(int version) {
+		SpriteAtlas c = new SpriteAtlas(page_size,version);
+		// the entries are copied too, as the platform may change their img
+		c.handle_entries = new Entry[handle_entries.length];
+		for (Enumeration<Entry> e=entries.elements(); e.hasMoreElements(); ) {
+			Entry entry = e.nextElement();
+			Entry entry_copy = new Entry(entry.name,entry.img,
+				entry.width,entry.height);
+			entry_copy.page = entry.page;
+			entry_copy.x = entry.x;
+			entry_copy.y = entry.y;
+			c.entries.put(entry.name,entry_copy);
+		}
+		for (int h=0; h<handle_entries.length; h++) {
+			if (handle_entries[h]!=null)
+				c.handle_entries[h] = c.entries.get(handle_entries[h].name);
+		}
+		for (int p=0; p<page_shelves.size(); p++) {
+			Vector<Shelf> shelves = page_shelves.elementAt(p);
+			Vector<Shelf> shelves_copy = new Vector<Shelf>(shelves.size()+8,8);
+			for (int s=0; s<shelves.size(); s++) {
+				Shelf shelf = shelves.elementAt(s);
+				Shelf shelf_copy = new Shelf(shelf.y,shelf.height);
+				shelf_copy.used_width = shelf.used_width;
+				shelves_copy.addElement(shelf_copy);
+			}
+			c.page_shelves.addElement(shelves_copy);
+		}
+		c.pages = new Vector<Object>(pages);
+		c.used_area = used_area;
+		c.removed_area = removed_area;
+		return c;
+	}
+
+	/** Remove the entry of an image, if it is in the atlas.  Its space on
+	* the page is not reused. */
+	public void remove(String name) {
+		Entry e = entries.remove(name);
+		if (e==null) return;
+		for (int h=0; h<handle_entries.length; h++) {
+			if (handle_entries[h]==e) handle_entries[h]=null;
+		}
+		used_area -= e.width*e.height;
+		removed_area += e.width*e.height;
+	}
+
+	/** Pack the given images, in the free space of the existing pages first.
+	* Images that are already in the atlas are removed first.  An image that
+	* does not fit on a page gets no entry.
+	* @param names  image names
+	* @param imgs  the platform images, stored in the entries
+	* @param widths  image widths
+	* @param heights  image heights
+	* @return the entries of the packed images, in page order */
+	public Entry [] pack(String [] names,Object [] imgs,
+	int [] widths,int [] heights) {
+		for (int i=0; i<names.length; i++) remove(names[i]);
+		Vector<Entry> sorted = new Vector<Entry>(names.length);
+		for (int i=0; i<names.length; i++) {
+			if (widths[i]<=0 || heights[i]<=0
+			||  widths[i]>page_size || heights[i]>page_size) continue;
+			sorted.addElement(new Entry(names[i],imgs[i],widths[i],heights[i]));
+		}
+		Entry [] packed = new Entry[sorted.size()];
+		sorted.copyInto(packed);
+		// highest first, then widest first
+		java.util.Arrays.sort(packed,new java.util.Comparator<Entry>() {
+			public int compare(Entry e1,Entry e2) {
+				if (e1.height!=e2.height) return e2.height - e1.height;
+				return e2.width - e1.width;
+			}
+		} );
+		for (int i=0; i<packed.length; i++) {
+			place(packed[i]);
+			entries.put(packed[i].name,packed[i]);
+			used_area += packed[i].width*packed[i].height;
+		}
+		// group by page, keeping the height order within a page
+		Vector<Vector<Entry>> bypage = new Vector<Vector<Entry>>();
+		for (int p=0; p<getNrPages(); p++)
+			bypage.addElement(new Vector<Entry>());
+		for (int i=0; i<packed.length; i++)
+			bypage.elementAt(packed[i].page).addElement(packed[i]);
+		int i=0;
+		for (int p=0; p<bypage.size(); p++) {
+			Vector<Entry> onpage = bypage.elementAt(p);
+			for (int j=0; j<onpage.size(); j++)
+				packed[i++] = onpage.elementAt(j);
+		}
+		return packed;
+	}
+
+	/** put entry on the first shelf that fits, or on a new shelf */
+	void place(Entry e) {
+		for (int p=0; p<page_shelves.size(); p++) {
+			Vector<Shelf> shelves = page_shelves.elementAt(p);
+			int free_y=0;
+			for (int s=0; s<shelves.size(); s++) {
+				Shelf shelf = shelves.elementAt(s);
+				if (e.height <= shelf.height
+				&&  e.width <= page_size - shelf.used_width) {
+					placeOnShelf(e,p,shelf);
+					return;
+				}
+				free_y = shelf.y + shelf.height;
+			}
+			if (e.height <= page_size - free_y) {
+				Shelf shelf = new Shelf(free_y,e.height);
+				shelves.addElement(shelf);
+				placeOnShelf(e,p,shelf);
+				return;
+			}
+		}
+		Vector<Shelf> shelves = new Vector<Shelf>(8,8);
+		page_shelves.addElement(shelves);
+		pages.addElement(null);
+		Shelf shelf = new Shelf(0,e.height);
+		shelves.addElement(shelf);
+		placeOnShelf(e,page_shelves.size()-1,shelf);
+	}
+
+	void placeOnShelf(Entry e,int page,Shelf shelf) {
+		e.page = page;
+		e.x = shelf.used_width;
+		e.y = shelf.y;
+		shelf.used_width += e.width;
+	}
+
+	/** Get entry of image, null means the image is not in the atlas. */
+	public Entry get(String name) {
+		return entries.get(name);
+	}
+
+	/** Get entry by image handle, null means the image is not in the atlas.
+	* Only works for handles that were set with setHandle. */
+	public Entry get(int handle) {
+		if (handle<0 || handle>=handle_entries.length) return null;
+		return handle_entries[handle];
+	}
+
+	/** Associate an image handle with an entry, so that it can be found
+	* without looking up the name. */
+	public void setHandle(int handle,Entry e) {
+		if (handle >= handle_entries.length) {
+			Entry [] grown = new Entry[Math.max(handle+1,
+				2*handle_entries.length)];
+			System.arraycopy(handle_entries,0,grown,0,handle_entries.length);
+			handle_entries = grown;
+		}
+		handle_entries[handle] = e;
+	}
+
+	public int getNrPages() { return page_shelves.size(); }
+
+	public int getNrEntries() { return entries.size(); }
+
+	/** Get all entries, in no particular order. */
+	public Enumeration<Entry> getEntries() { return entries.elements(); }
+
+	/** Area taken by the images in the atlas. */
+	public long getUsedArea() { return used_area; }
+
+	/** Area of the images removed from the atlas, which is not reused. */
+	public long getRemovedArea() { return removed_area; }
+
+	/** Get the platform image of a page. */
+	public Object getPage(int page) { return pages.elementAt(page); }
+
+	public void setPage(int page,Object img) { pages.setElementAt(img,page); }
+
+	/** Fraction of the page area that is used by images. */
+	public double getFill() {
+		if (getNrPages()==0) return 0;
+		return (double)used_area / ((double)page_size*page_size*getNrPages());
+	}
+
+	public String toString() {
+		return "SpriteAtlas: "+getNrEntries()+" images on "+getNrPages()
+			+" pages of "+page_size+"x"+page_size+", "
+			+Math.round(getFill()*100)+"% used";
+	}
+
+
+	/** test method: pack random images and check that they are within their
+	* page and do not overlap. */
+	public static void main(String [] args) {
+		System.out.println("Testing SpriteAtlas ...");
+		Random random = new Random();
+		for (int n=0; n<20; n++) {
+			int nr = 1+random.nextInt(400);
+			String [] names = new String[nr];
+			int [] widths = new int[nr];
+			int [] heights = new int[nr];
+			for (int i=0; i<nr; i++) {
+				names[i] = "img"+i;
+				widths[i] = 1+random.nextInt(random.nextInt(4)==0 ? 300 : 48);
+				heights[i] = 1+random.nextInt(random.nextInt(4)==0 ? 300 : 48);
+			}
+			SpriteAtlas atlas = new SpriteAtlas(256,n);
+			Entry [] packed = atlas.pack(names,new Object[nr],widths,heights);
+			int expected=0;
+			for (int i=0; i<nr; i++)
+				if (widths[i]<=256 && heights[i]<=256) expected++;
+			if (packed.length!=expected || atlas.getNrEntries()!=expected)
+				throw new Error("Assertion failure: nr packed");
+			for (int i=0; i<packed.length; i++) {
+				Entry a = packed[i];
+				if (i>0 && a.page < packed[i-1].page)
+					throw new Error("Assertion failure: page order");
+				if (a.x<0 || a.y<0 || a.x+a.width>256 || a.y+a.height>256)
+					throw new Error("Assertion failure: outside page");
+				for (int j=i+1; j<packed.length; j++) {
+					Entry b = packed[j];
+					if (a.page==b.page
+					&&  a.x < b.x+b.width  && b.x < a.x+a.width
+					&&  a.y < b.y+b.height && b.y < a.y+a.height)
+						throw new Error("Assertion failure: overlap");
+				}
+			}
+			if (n==0) System.out.println(atlas);
+		}
+		// typical case: many small sprites
+		String [] names = new String[500];
+		int [] widths = new int[500], heights = new int[500];
+		for (int i=0; i<500; i++) {
+			names[i] = "spr"+i;
+			widths[i] = 16+16*random.nextInt(3);
+			heights[i] = 16+16*random.nextInt(3);
+		}
+		SpriteAtlas atlas = new SpriteAtlas(1024,0);
+		atlas.pack(names,new Object[500],widths,heights);
+		System.out.println(atlas);
+		// extending a copy: redefine some sprites, add new ones
+		SpriteAtlas ext = atlas.copy(1);
+		for (int i=0; i<100; i++) ext.remove("spr"+(5*i));
+		String [] newnames = new String[200];
+		int [] newwidths = new int[200], newheights = new int[200];
+		for (int i=0; i<200; i++) {
+			newnames[i] = i<50 ? "spr"+(10*i+1) : "new"+i;
+			newwidths[i] = 16+16*random.nextInt(3);
+			newheights[i] = 16+16*random.nextInt(3);
+		}
+		Entry [] added = ext.pack(newnames,new Object[200],newwidths,
+			newheights);
+		if (added.length!=200 || ext.getNrEntries()!=550
+		||  atlas.getNrEntries()!=500 || atlas.get("spr0")==null
+		||  ext.get("spr0")!=null || ext.get("spr1")==atlas.get("spr1"))
+			throw new Error("Assertion failure: copy");
+		Vector<Entry> all = new Vector<Entry>();
+		for (Enumeration<Entry> e=ext.getEntries(); e.hasMoreElements(); )
+			all.addElement(e.nextElement());
+		for (int i=0; i<all.size(); i++) {
+			Entry a = all.elementAt(i);
+			for (int j=i+1; j<all.size(); j++) {
+				Entry b = all.elementAt(j);
+				if (a.page==b.page
+				&&  a.x < b.x+b.width  && b.x < a.x+a.width
+				&&  a.y < b.y+b.height && b.y < a.y+a.height)
+					throw new Error("Assertion failure: overlap after copy");
+			}
+		}
+		System.out.println(ext);
+	}
+
+}
@@ -0,0 +1,252 @@
+package jgame.impl;
+
+import java.util.Random;
+
+/** Tile map that stores the tile ids and tile cids of the playfield in
+ * chunks of CHUNK_SIZE x CHUNK_SIZE tiles.  Each chunk is a pair of flat int
+ * arrays, so that neighbouring tiles are close together in memory.  Chunks
+ * are created lazily: a chunk that was never written to is not stored, and
+ * reads as the fill tile.  Filling the map only drops the stored chunks, so
+ * creating a large playfield takes no time and no memory until tiles are
+ * set.
+
+ * <p>Coordinates are not checked; the engine takes care of wrapping and
+ * out of bounds handling.  See MappedTileMap for a version that keeps the
+ * chunks in a memory-mapped file.
+ */
+public class TileMap {
+
+	public static final int CHUNK_SHIFT=5;
+	/** width and height of a chunk in tiles */
+	public static final int CHUNK_SIZE=1<<CHUNK_SHIFT;
+	static final int CHUNK_MASK=CHUNK_SIZE-1;
+	static final int CHUNK_AREA=CHUNK_SIZE*CHUNK_SIZE;
+
+	public final int nrtilesx,nrtilesy;
+	final int nrchunksx,nrchunksy;
+
+	/** tile ids and cids per chunk, null = chunk not stored */
+	int [][] chunk_ids;
+	int [][] chunk_cids;
+	int nr_stored=0;
+
+	/** value of tiles in chunks that are not stored */
+	int default_id=0, default_cid=0;
+
+	public TileMap(int nrtilesx,int nrtilesy) {
+		this(nrtilesx,nrtilesy,true);
+	}
+
+	TileMap(int nrtilesx,int nrtilesy,boolean on_heap) {
+		this.nrtilesx=nrtilesx;
+		this.nrtilesy=nrtilesy;
+		nrchunksx = (nrtilesx+CHUNK_MASK) >> CHUNK_SHIFT;
+		nrchunksy = (nrtilesy+CHUNK_MASK) >> CHUNK_SHIFT;
+		if (on_heap) {
+			chunk_ids = new int [nrchunksx*nrchunksy] [];
+			chunk_cids = new int [nrchunksx*nrchunksy] [];
+		}
+	}
+
+	final int chunkIndex(int x,int y) {
+		return (y>>CHUNK_SHIFT)*nrchunksx + (x>>CHUNK_SHIFT);
+	}
+
+	static final int tileIndex(int x,int y) {
+		return ((y&CHUNK_MASK)<<CHUNK_SHIFT) | (x&CHUNK_MASK);
+	}
+
+	public int get(int x,int y) {
+		int [] ids = chunk_ids[chunkIndex(x,y)];
+		if (ids==null) return default_id;
+		return ids[tileIndex(x,y)];
+	}
+
+	public int getCid(int x,int y) {
+		int [] cids = chunk_cids[chunkIndex(x,y)];
+		if (cids==null) return default_cid;
+		return cids[tileIndex(x,y)];
+	}
+
+	public void set(int x,int y,int id,int cid) {
+		int ci = chunkIndex(x,y);
+		if (chunk_ids[ci]==null) storeChunk(ci);
+		int ti = tileIndex(x,y);
+		chunk_ids[ci][ti] = id;
+		chunk_cids[ci][ti] = cid;
+	}
+
+	/** Set cid to (cid &amp; and_mask) | or_mask. */
+	public void setCid(int x,int y,int and_mask,int or_mask) {
+		int ci = chunkIndex(x,y);
+		if (chunk_ids[ci]==null) storeChunk(ci);
+		int ti = tileIndex(x,y);
+		chunk_cids[ci][ti] = (chunk_cids[ci][ti]&and_mask) | or_mask;
+	}
+
+	void storeChunk(int ci) {
+		int [] ids = new int[CHUNK_AREA];
+		int [] cids = new int[CHUNK_AREA];
+		if (default_id!=0) java.util.Arrays.fill(ids,default_id);
+		if (default_cid!=0) java.util.Arrays.fill(cids,default_cid);
+		chunk_ids[ci]=ids;
+		chunk_cids[ci]=cids;
+		nr_stored++;
+	}
+
+	/** Set all tiles to id, and their cids to (cid &amp; preserve_cids) |
+	* new_cid.  Chunks whose cids are all the same afterwards are dropped.*/
+	public void fill(int id,int new_cid,int preserve_cids) {
+		for (int ci=0; ci<chunk_ids.length; ci++) {
+			int [] cids = chunk_cids[ci];
+			if (cids==null) continue;
+			int [] ids = chunk_ids[ci];
+			int first = (cids[0]&preserve_cids) | new_cid;
+			boolean uniform=true;
+			for (int i=0; i<CHUNK_AREA; i++) {
+				ids[i] = id;
+				cids[i] = (cids[i]&preserve_cids) | new_cid;
+				if (cids[i]!=first) uniform=false;
+			}
+			if (uniform && first==((default_cid&preserve_cids)|new_cid)) {
+				chunk_ids[ci]=null;
+				chunk_cids[ci]=null;
+				nr_stored--;
+			}
+		}
+		default_id = id;
+		default_cid = (default_cid&preserve_cids) | new_cid;
+	}
+
+	/** Count tiles with (cid &amp; cidmask) != 0. */
+	public int countCid(int cidmask) {
+		int count=0;
+		for (int cy=0; cy<nrchunksy; cy++) {
+			for (int cx=0; cx<nrchunksx; cx++) {
+				int [] cids = chunk_cids[cy*nrchunksx+cx];
+				// edge chunks extend beyond the map
+				int w = Math.min(CHUNK_SIZE,nrtilesx-(cx<<CHUNK_SHIFT));
+				int h = Math.min(CHUNK_SIZE,nrtilesy-(cy<<CHUNK_SHIFT));
+				if (cids==null) {
+					if ((default_cid&cidmask)!=0) count += w*h;
+					continue;
+				}
+				for (int y=0; y<h; y++) {
+					for (int x=0; x<w; x++) {
+						if ((cids[(y<<CHUNK_SHIFT)|x]&cidmask)!=0) count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/** Number of chunks that are stored. */
+	public int getNrStoredChunks() { return nr_stored; }
+
+	/** Release any resources held by the map. */
+	public void close() { }
+
+
+	/** test method: compare TileMap and MappedTileMap with a dense map. */
+	public static void main(String [] args) throws java.io.IOException {
+		System.out.println("Testing TileMap ...");
+		java.io.File file = java.io.File.createTempFile("tilemap",".map");
+		file.deleteOnExit();
+		Random random = new Random();
+		for (int n=0; n<20; n++) {
+			int w = 1+random.nextInt(100), h = 1+random.nextInt(100);
+			int preserve = random.nextInt(16);
+			int [][] ids = new int[w][h];
+			int [][] cids = new int[w][h];
+			TileMap [] maps = new TileMap[] {
+				new TileMap(w,h),
+				new MappedTileMap(w,h,file.getPath(),false) };
+			for (int i=0; i<2000; i++) {
+				int x=random.nextInt(w), y=random.nextInt(h);
+				int id=random.nextInt(5), cid=random.nextInt(256);
+				double op = random.nextDouble();
+				for (int m=0; m<maps.length; m++) {
+					if (op < 0.6) {
+						maps[m].set(x,y,id,cid);
+					} else if (op < 0.99) {
+						maps[m].setCid(x,y,~(1<<id),cid&3);
+					} else {
+						maps[m].fill(id,cid&~preserve,preserve);
+					}
+				}
+				if (op < 0.6) {
+					ids[x][y]=id;
+					cids[x][y]=cid;
+				} else if (op < 0.99) {
+					cids[x][y] = (cids[x][y]&~(1<<id)) | (cid&3);
+				} else {
+					for (int xx=0; xx<w; xx++) {
+						for (int yy=0; yy<h; yy++) {
+							ids[xx][yy] = id;
+							cids[xx][yy] = (cids[xx][yy]&preserve) | (cid&~preserve);
+						}
+					}
+				}
+			}
+			for (int m=0; m<maps.length; m++) {
+				int count=0;
+				for (int x=0; x<w; x++) {
+					for (int y=0; y<h; y++) {
+						if (maps[m].get(x,y)!=ids[x][y]
+						||  maps[m].getCid(x,y)!=cids[x][y])
+							throw new Error("Assertion failure: tile "+m);
+						if ((cids[x][y]&5)!=0) count++;
+					}
+				}
+				if (maps[m].countCid(5)!=count)
+					throw new Error("Assertion failure: count "+m);
+			}
+			// reopen the file and check that it is kept
+			maps[1].close();
+			MappedTileMap reopened = new MappedTileMap(w,h,file.getPath(),true);
+			if (!reopened.contentsKept())
+				throw new Error("Assertion failure: contents not kept");
+			for (int x=0; x<w; x++)
+				for (int y=0; y<h; y++)
+					if (reopened.get(x,y)!=ids[x][y]
+					||  reopened.getCid(x,y)!=cids[x][y])
+						throw new Error("Assertion failure: reopen");
+			reopened.close();
+			// a different size clears the file, and is not reported as kept
+			MappedTileMap resized = new MappedTileMap(w+CHUNK_SIZE,h,
+				file.getPath(),true);
+			if (resized.contentsKept())
+				throw new Error("Assertion failure: resized contents kept");
+			resized.close();
+		}
+		// creation and fill time of a large map
+		long start = System.currentTimeMillis();
+		TileMap map = new TileMap(10000,10000);
+		map.fill(1,2,0);
+		for (int i=0; i<1000; i++) map.set(i,i,3,4);
+		System.out.println("10000x10000 map: "
+			+(System.currentTimeMillis()-start)+" ms, "
+			+map.getNrStoredChunks()+" chunks stored");
+		// a mapped map of 65x65 chunks, which is just over one segment of
+		// MappedTileMap.SEG_CHUNKS chunks, so that the file stays small
+		int size = 65*CHUNK_SIZE;
+		start = System.currentTimeMillis();
+		map = new MappedTileMap(size,size,file.getPath(),false);
+		map.fill(1,2,0);
+		for (int i=0; i<size; i++) map.set(i,i,3,4);
+		map.close();
+		System.out.println(size+"x"+size+" mapped map: "
+			+(System.currentTimeMillis()-start)+" ms, file size "
+			+(file.length()>>20)+" MB");
+		// the diagonal runs through the chunks of both segments
+		map = new MappedTileMap(size,size,file.getPath(),true);
+		for (int i=0; i<size; i++) {
+			if (map.get(i,i)!=3 || map.getCid(i,i)!=4
+			||  map.get(size-1-i,i)!=1 || map.getCid(size-1-i,i)!=2)
+				throw new Error("Assertion failure: segments");
+		}
+		map.close();
+	}
+
+}
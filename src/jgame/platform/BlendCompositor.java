@@ -0,0 +1,298 @@
+package jgame.platform;
+
+import jgame.JGColor;
+import java.awt.*;
+import java.awt.image.*;
+import java.util.Random;
+
+/** Java2D compositor.  Alpha is applied with an AlphaComposite, blend
+ * colour, rotation and scaling are applied by drawing a transformed copy of
+ * the image from a SpriteCache.  The default blend mode (1,-1) is plain
+ * Java2D source-over drawing.  Other blend modes, such as additive (1,0),
+ * have no Java2D equivalent, and are done pixel by pixel in software by a
+ * FuncComposite, which is a lot slower.
+ */
+public class BlendCompositor implements Compositor {
+
+	/** transformed images, null = transform each image when it is drawn */
+	SpriteCache cache = new SpriteCache(4<<20,64,16);
+
+	int src_func=1, dst_func=-1;
+	/** composite for the blend mode at alpha 1, null = default blend mode */
+	FuncComposite blend_composite=null;
+
+	public void setBlendMode(int src_func,int dst_func) {
+		this.src_func=src_func;
+		this.dst_func=dst_func;
+		if (src_func==1 && dst_func==-1) {
+			blend_composite=null;
+		} else {
+			blend_composite = new FuncComposite(src_func,dst_func,1f);
+		}
+	}
+
+	/** Configure the sprite cache, see
+	* JGEngineInterface.setSpriteCache. */
+	public void setSpriteCache(long budget,int angle_steps,int scale_steps) {
+		if (budget <= 0) {
+			cache=null;
+		} else if (cache==null) {
+			cache = new SpriteCache(budget,angle_steps,scale_steps);
+		} else {
+			cache.configure(budget,angle_steps,scale_steps);
+		}
+	}
+
+	/** Get the sprite cache, which has the hit and miss statistics.
+	* Returns null if the cache is disabled. */
+	public SpriteCache getSpriteCache() { return cache; }
+
+	/** AlphaComposites by alpha*255, created when needed.  Java2D uses
+	* 8-bit alpha, so this is as precise as creating them per draw. */
+	static AlphaComposite [] alpha_composites = new AlphaComposite[256];
+
+	static AlphaComposite getAlphaComposite(double alpha) {
+		int a = (int)(alpha*255 + 0.5);
+		AlphaComposite comp = alpha_composites[a];
+		if (comp==null) {
+			comp = AlphaComposite.getInstance(AlphaComposite.SRC_OVER,a/255f);
+			alpha_composites[a] = comp;
+		}
+		return comp;
+	}
+
+	/** Colours by hash of the ARGB value, so that drawing many particles
+	* of a few colours does not create a Color for each. */
+	Color [] colors = new Color[256];
+
+	Color getColor(int argb) {
+		int h = (argb ^ (argb>>>8) ^ (argb>>>16) ^ (argb>>>24)) & 255;
+		Color col = colors[h];
+		if (col==null || col.getRGB()!=argb) {
+			col = new Color(argb,true);
+			colors[h] = col;
+		}
+		return col;
+	}
+
+	public void fillRect(Graphics g,int x,int y,int width,int height,
+	int argb) {
+		g.setColor(getColor(argb));
+		if (blend_composite==null) {
+			g.fillRect(x,y,width,height);
+			return;
+		}
+		Graphics2D g2 = (Graphics2D)g;
+		Composite comp = g2.getComposite();
+		g2.setComposite(blend_composite);
+		g2.fillRect(x,y,width,height);
+		g2.setComposite(comp);
+	}
+
+	public void drawImage(Graphics g,String name,Image img,int x,int y,
+	JGColor blend_col,double alpha,double rot,double scale,
+	ImageObserver observer) {
+		if (blend_col!=null || rot!=0.0 || scale!=1.0) {
+			SpriteCache.Entry e;
+			if (cache!=null) {
+				e = cache.get(name,img,blend_col,rot,scale);
+			} else {
+				e = scale > 0.0 ? SpriteCache.transform(img,blend_col,rot,scale)
+					: null;
+			}
+			if (e==null) return;
+			img = e.img;
+			x += e.xofs;
+			y += e.yofs;
+		}
+		Graphics2D g2 = (Graphics2D)g;
+		Composite comp = g2.getComposite();
+		if (blend_composite==null) {
+			if (alpha >= 1.0) {
+				g2.drawImage(img,x,y,observer);
+				return;
+			}
+			if (alpha <= 0.0) return;
+			g2.setComposite(getAlphaComposite(alpha));
+		} else {
+			if (alpha >= 1.0) {
+				g2.setComposite(blend_composite);
+			} else {
+				g2.setComposite(new FuncComposite(src_func,dst_func,
+					(float)Math.max(0.0,alpha)));
+			}
+		}
+		g2.drawImage(img,x,y,observer);
+		g2.setComposite(comp);
+	}
+
+	/** Composite that implements the OpenGL-style blend functions of
+	* setBlendMode: result = src*src_factor + dst*dst_factor, where the
+	* factors are 1, the source alpha, or 1 - the source alpha.  The source
+	* alpha is multiplied by extra_alpha. */
+	public static class FuncComposite implements Composite {
+		int src_func,dst_func;
+		float extra_alpha;
+		public FuncComposite(int src_func,int dst_func,float extra_alpha) {
+			this.src_func=src_func;
+			this.dst_func=dst_func;
+			this.extra_alpha=extra_alpha;
+		}
+		public CompositeContext createContext(final ColorModel srcCM,
+		final ColorModel dstCM, RenderingHints hints) {
+			return new CompositeContext() {
+				public void dispose() {}
+				public void compose(Raster src,Raster dstIn,
+				WritableRaster dstOut) {
+					int w = Math.min(src.getWidth(),dstIn.getWidth());
+					int h = Math.min(src.getHeight(),dstIn.getHeight());
+					Object srcpix=null, dstpix=null;
+					for (int y=0; y<h; y++) {
+						for (int x=0; x<w; x++) {
+							srcpix = src.getDataElements(src.getMinX()+x,
+								src.getMinY()+y,srcpix);
+							dstpix = dstIn.getDataElements(dstIn.getMinX()+x,
+								dstIn.getMinY()+y,dstpix);
+							int rgb = blend(srcCM.getRGB(srcpix),
+								dstCM.getRGB(dstpix));
+							dstpix = dstCM.getDataElements(rgb,dstpix);
+							dstOut.setDataElements(dstOut.getMinX()+x,
+								dstOut.getMinY()+y,dstpix);
+						}
+					}
+				}
+			};
+		}
+		/** blend two non-premultiplied ARGB pixels */
+		int blend(int s,int d) {
+			int sa = (int)((s>>>24)*extra_alpha + 0.5f);
+			int sf = factor(src_func,sa), df = factor(dst_func,sa);
+			int a = clamp(sa*sf + (d>>>24)*df);
+			int r = clamp(((s>>16)&255)*sf + ((d>>16)&255)*df);
+			int g = clamp(((s>>8)&255)*sf + ((d>>8)&255)*df);
+			int b = clamp((s&255)*sf + (d&255)*df);
+			return (a<<24) | (r<<16) | (g<<8) | b;
+		}
+		/** factor in 0..255 */
+		static int factor(int func,int alpha) {
+			if (func==1) return alpha;
+			if (func==-1) return 255-alpha;
+			return 255;
+		}
+		/** divide by 255 and clamp */
+		static int clamp(int v) {
+			v = (v+127)/255;
+			return v > 255 ? 255 : v;
+		}
+	}
+
+
+	/** test method: check the compositor by itself.  Plain and alpha
+	* drawing are compared with the equivalent Java2D calls, the software
+	* blend with Java2D source-over, and the additive mode, rotation and
+	* blend colour with the expected pixels.  This does not go through
+	* JGEngine, so it does not check that the engine's drawImage variants
+	* pass the compositor the same arguments as the fork did. */
+	public static void main(String [] args) {
+		System.out.println("Testing BlendCompositor ...");
+		Random random = new Random();
+		BufferedImage src = new BufferedImage(17,13,BufferedImage.TYPE_INT_ARGB);
+		for (int y=0; y<13; y++)
+			for (int x=0; x<17; x++)
+				src.setRGB(x,y,random.nextInt());
+		BlendCompositor comp = new BlendCompositor();
+		// plain drawImage
+		long seed = random.nextLong();
+		BufferedImage expected = background(seed);
+		expected.getGraphics().drawImage(src,5,3,null);
+		BufferedImage actual = background(seed);
+		comp.drawImage(actual.getGraphics(),"img",src,5,3,null,1.0,0.0,1.0,null);
+		compare(expected,actual,0,"plain");
+		// fork's JGObject.alpha drawing
+		for (int i=0; i<10; i++) {
+			float alpha = random.nextFloat();
+			seed = random.nextLong();
+			expected = background(seed);
+			Graphics2D g = (Graphics2D)expected.getGraphics();
+			g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+				alpha));
+			g.drawImage(src,2,7,null);
+			actual = background(seed);
+			comp.drawImage(actual.getGraphics(),"img",src,2,7,null,alpha,
+				0.0,1.0,null);
+			compare(expected,actual,0,"alpha");
+			// software blend with the default functions
+			actual = background(seed);
+			g = (Graphics2D)actual.getGraphics();
+			g.setComposite(new FuncComposite(1,-1,alpha));
+			g.drawImage(src,2,7,null);
+			compare(expected,actual,2,"source over");
+		}
+		// additive
+		comp.setBlendMode(1,0);
+		seed = random.nextLong();
+		actual = background(seed);
+		comp.drawImage(actual.getGraphics(),"img",src,0,0,null,1.0,0.0,1.0,
+			null);
+		expected = background(seed);
+		for (int y=0; y<13; y++) {
+			for (int x=0; x<17; x++) {
+				int s = src.getRGB(x,y), d = expected.getRGB(x,y);
+				int sa = s>>>24, rgb = 0xff000000;
+				for (int sh=0; sh<24; sh+=8) {
+					int c = ((d>>sh)&255) + (((s>>sh)&255)*sa + 127)/255;
+					rgb |= Math.min(255,c)<<sh;
+				}
+				expected.setRGB(x,y,rgb);
+			}
+		}
+		compare(expected,actual,1,"additive");
+		// rotated a quarter turn around the center
+		comp.setBlendMode(1,-1);
+		BufferedImage sq = new BufferedImage(8,8,BufferedImage.TYPE_INT_ARGB);
+		sq.setRGB(0,0,0xffff0000);
+		actual = new BufferedImage(8,8,BufferedImage.TYPE_INT_RGB);
+		comp.drawImage(actual.getGraphics(),"sq",sq,0,0,null,1.0,Math.PI/2,
+			1.0,null);
+		if ((actual.getRGB(7,0)&0xff0000) < 0x800000)
+			throw new Error("Assertion failure: rotation");
+		System.out.println(comp.getSpriteCache());
+		// without cache, images are still transformed
+		comp.setSpriteCache(0,64,16);
+		actual = new BufferedImage(8,8,BufferedImage.TYPE_INT_RGB);
+		comp.drawImage(actual.getGraphics(),"sq",sq,0,0,null,1.0,Math.PI/2,
+			1.0,null);
+		if ((actual.getRGB(7,0)&0xff0000) < 0x800000)
+			throw new Error("Assertion failure: uncached rotation");
+		actual = new BufferedImage(8,8,BufferedImage.TYPE_INT_RGB);
+		comp.drawImage(actual.getGraphics(),"sq",sq,0,0,
+			new JGColor(0,255,255),1.0,0.0,1.0,null);
+		if ((actual.getRGB(0,0)&0xff0000) != 0)
+			throw new Error("Assertion failure: uncached blend colour");
+	}
+
+	static BufferedImage background(long seed) {
+		Random random = new Random(seed);
+		BufferedImage img = new BufferedImage(24,24,BufferedImage.TYPE_INT_RGB);
+		for (int y=0; y<24; y++)
+			for (int x=0; x<24; x++)
+				img.setRGB(x,y,random.nextInt());
+		return img;
+	}
+
+	static void compare(BufferedImage a,BufferedImage b,int tolerance,
+	String test) {
+		for (int y=0; y<a.getHeight(); y++) {
+			for (int x=0; x<a.getWidth(); x++) {
+				int p=a.getRGB(x,y), q=b.getRGB(x,y);
+				for (int sh=0; sh<32; sh+=8) {
+					if (Math.abs(((p>>sh)&255) - ((q>>sh)&255)) > tolerance)
+						throw new Error("Assertion failure: "+test+" at "
+							+x+","+y+": "+Integer.toHexString(p)+" != "
+							+Integer.toHexString(q));
+				}
+			}
+		}
+	}
+
+}
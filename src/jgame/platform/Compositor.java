@@ -0,0 +1,39 @@
+package jgame.platform;
+
+import jgame.JGColor;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.image.ImageObserver;
+
+/** Compositing stage of JGEngine: draws images that are translucent,
+ * colour blended, rotated or scaled, images drawn with a blend mode other
+ * than the default, and particles.  Plain images are drawn by the engine directly,
+ * so games that draw only plain images never go through the compositor, and
+ * do not even create one.
+ *
+ * <p>The default compositor is BlendCompositor.  Another one can be
+ * installed with JGEngine.setCompositor.
+ */
+public interface Compositor {
+
+	/** Set blend mode, see JGEngineInterface.setBlendMode.  The engine calls
+	* this when the compositor is installed and when the blend mode
+	* changes. */
+	public void setBlendMode(int src_func,int dst_func);
+
+	/** Draw image with its top-left at x,y, in screen coordinates.  Rotation
+	* and scaling are around the image center.
+	* @param name  image name, may be used as cache key
+	* @param blend_col  colour to multiply image with, null=none
+	* @param alpha  0=transparent, 1=opaque
+	* @param rot  rotation in radians
+	* @param scale  1 = normal size */
+	public void drawImage(Graphics g,String name,Image img,int x,int y,
+	JGColor blend_col,double alpha,double rot,double scale,
+	ImageObserver observer);
+
+	/** Fill rectangle with an ARGB colour, in screen coordinates, using the
+	* blend mode.  The colour of g may be changed. */
+	public void fillRect(Graphics g,int x,int y,int width,int height,int argb);
+
+}
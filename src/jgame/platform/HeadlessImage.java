@@ -0,0 +1,128 @@
+package jgame.platform;
+import jgame.impl.*;
+import jgame.*;
+import java.net.*;
+import java.util.*;
+import java.io.*;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/** Image that only knows its size, used by JGHeadlessEngine.  Loading an
+ * image only reads the image header to find its dimensions, and the image
+ * operations only compute the dimensions of the result.  This is all that
+ * is needed to determine the bounding boxes of objects and tiles.  No AWT
+ * classes are used, so this works on machines without a display. */
+public class HeadlessImage implements JGImage {
+
+	/** image file -&gt; JGPoint, the sizes of the images loaded so far */
+	static Hashtable<String,JGPoint> loadedsizes
+		= new Hashtable<String,JGPoint>();
+
+	JGPoint size;
+
+	/** Create image util object. */
+	public HeadlessImage() {
+		size = new JGPoint(0,0);
+	}
+
+	public HeadlessImage(int width,int height) {
+		size = new JGPoint(width,height);
+	}
+
+	/* static in spirit */
+
+	public JGImage loadImage(String imgfile) {
+		JGPoint imgsize = loadedsizes.get(imgfile);
+		if (imgsize==null) {
+			URL imgurl = getClass().getResource(imgfile);
+			try {
+				if (imgurl==null) {
+					File imgf = new File(imgfile);
+					if (imgf.canRead()) {
+						imgurl = imgf.toURI().toURL();
+					} else {
+						imgurl = new URL(imgfile);
+					}
+				}
+			} catch (MalformedURLException e) {
+				throw new JGameError(
+					"File not found or malformed path or URL '"+imgfile+"'.",
+					true);
+			}
+			imgsize = readSize(imgurl);
+			if (imgsize==null)
+				throw new JGameError("Error loading image "+imgfile );
+			loadedsizes.put(imgfile,imgsize);
+		}
+		return new HeadlessImage(imgsize.x,imgsize.y);
+	}
+
+	/** Read the image dimensions from the header of the image, without
+	* decoding the pixels.  Returns null if the image could not be read. */
+	static JGPoint readSize(URL imgurl) {
+		ImageInputStream in=null;
+		try {
+			in = ImageIO.createImageInputStream(imgurl.openStream());
+			if (in==null) return null;
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext()) return null;
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in);
+				return new JGPoint(reader.getWidth(0),reader.getHeight(0));
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException e) {
+			return null;
+		} finally {
+			if (in!=null) try { in.close(); } catch (IOException e) {}
+		}
+	}
+
+	public JGImage createImageFromData(int imgwidth, int imgheight,
+	int[] imgdata, int imgdataofs,int linewidth) {
+		return new HeadlessImage(imgwidth,imgheight);
+	}
+
+	public void purgeImage(String imgfile) {
+		loadedsizes.remove(imgfile);
+	}
+
+	/* object-related methods */
+
+	public JGPoint getSize() { return size; }
+
+	/** Always false, as the pixels are not known. */
+	public boolean isOpaque(int alpha_thresh) { return false; }
+
+	public JGImage rotate(int angle) {
+		if (angle==90 || angle==270) return new HeadlessImage(size.y,size.x);
+		return new HeadlessImage(size.x,size.y);
+	}
+
+	public JGImage rotateAny(double angle) {
+		int dim = Math.max(Math.max(size.x,size.y),
+			(int)(0.75*(size.x+size.y)));
+		return new HeadlessImage(dim,dim);
+	}
+
+	public JGImage flip(boolean horiz,boolean vert) {
+		return new HeadlessImage(size.x,size.y);
+	}
+
+	public JGImage scale(int width, int height) {
+		return new HeadlessImage(width,height);
+	}
+
+	public JGImage crop(int x,int y, int width,int height) {
+		return new HeadlessImage(width,height);
+	}
+
+	public JGImage toDisplayCompatible(int thresh,JGColor bg_col,
+	boolean fast, boolean bitmask) {
+		return this;
+	}
+
+}
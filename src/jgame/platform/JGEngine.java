@@ -214,6 +214,210 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 
 	Graphics bgg=null;
 
+	/** true = render with page flipping from the engine thread, see
+	* setAcceleratedRender */
+	boolean accelerated_render=false;
+
+	/** Enable or disable the accelerated render path.  When enabled, the
+	* engine thread renders each frame directly on the back buffer of a
+	* page-flipping BufferStrategy and flips it, instead of asking AWT to
+	* repaint the canvas.  The background is kept in a VolatileImage, and the
+	* display-compatible sprites are drawn from managed images, so that
+	* everything stays in video memory on the accelerated Java2D pipelines
+	* (for example -Dsun.java2d.opengl=true or -Dsun.java2d.xrender=true).
+	* Lost surfaces are detected and redrawn.  In dirty rectangle mode,
+	* unchanged frames are still skipped, but changed frames are drawn
+	* completely, since the contents of a flipped back buffer are undefined.
+	* Default is disabled.  StdGame lets the user select it with its
+	* appconfig. */
+	public void setAcceleratedRender(boolean enabled) {
+		if (enabled==accelerated_render) return;
+		accelerated_render=enabled;
+		JREImage.managed_images=enabled;
+		if (canvas!=null) canvas.setAccelerated(enabled);
+		el.markDirtyFull();
+	}
+
+	public boolean isAcceleratedRender() { return accelerated_render; }
+
+	/** page size of the sprite atlas, 0 = no atlas */
+	int atlas_page_size=0;
+	/** the sprite atlas, null = not built yet or disabled.  It is replaced
+	* as a whole when it changes, so the paint thread can read it without
+	* locking. */
+	volatile SpriteAtlas atlas=null;
+
+	public void setSpriteAtlas(int page_size) {
+		synchronized (el.objects_lock) {
+			atlas_page_size = Math.max(0,page_size);
+			atlas=null;
+			el.markDirtyFull();
+		}
+		updateSpriteAtlas();
+	}
+
+	/** Get the sprite atlas, or null if there is none (yet). */
+	public SpriteAtlas getSpriteAtlas() { return atlas; }
+
+	/** Bring the sprite atlas up to date with the image definitions, if it
+	* is enabled.  New and redefined images are packed into the free space
+	* of the existing pages, which grow as needed; only when more space has
+	* been freed by redefined images than is in use, the atlas is built
+	* anew.  The new atlas is built on a copy, so the paint thread can use
+	* the old one in the meantime.  The packed images are replaced by views
+	* into their page, so that they are not kept in memory twice.  Called
+	* after images are defined. */
+	synchronized void updateSpriteAtlas() {
+		if (atlas_page_size<=0) return;
+		SpriteAtlas cur = atlas;
+		int version = el.images_version;
+		if (cur!=null && cur.version==version) return;
+		Vector<String> names = new Vector<String>();
+		Vector<JGImage> imgs = new Vector<JGImage>();
+		SpriteAtlas newatlas = null;
+		if (cur!=null && cur.page_size==atlas_page_size) {
+			newatlas = cur.copy(version);
+			collectAtlasImages(newatlas,names,imgs);
+			if (newatlas.getRemovedArea() > newatlas.getUsedArea())
+				newatlas=null;
+		}
+		if (newatlas==null) {
+			newatlas = new SpriteAtlas(atlas_page_size,version);
+			names.removeAllElements();
+			imgs.removeAllElements();
+			collectAtlasImages(newatlas,names,imgs);
+		}
+		String [] namearr = new String[names.size()];
+		Object [] imgarr = new Object[names.size()];
+		int [] widths = new int[names.size()];
+		int [] heights = new int[names.size()];
+		for (int i=0; i<namearr.length; i++) {
+			namearr[i] = names.elementAt(i);
+			imgarr[i] = imgs.elementAt(i);
+			JGPoint size = imgs.elementAt(i).getSize();
+			widths[i] = size.x;
+			heights[i] = size.y;
+		}
+		SpriteAtlas.Entry [] entries =
+			newatlas.pack(namearr,imgarr,widths,heights);
+		// page height and transparency are determined by its images
+		int nr_pages = newatlas.getNrPages();
+		int [] page_height = new int[nr_pages];
+		int [] page_transp = new int[nr_pages];
+		for (int i=0; i<entries.length; i++) {
+			SpriteAtlas.Entry e = entries[i];
+			page_height[e.page] = Math.max(page_height[e.page],e.y+e.height);
+			page_transp[e.page] = Math.max(page_transp[e.page],
+				((JREImage)e.img).transparency);
+		}
+		// create the pages that are new, or too small for the new images
+		GraphicsConfiguration gc = canvas==null ? null
+			: canvas.getGraphicsConfiguration();
+		boolean [] page_replaced = new boolean[nr_pages];
+		for (int p=0; p<nr_pages; p++) {
+			if (page_height[p]==0) continue;
+			BufferedImage page = (BufferedImage)newatlas.getPage(p);
+			int height = page_height[p];
+			int transp = page_transp[p];
+			if (page!=null) {
+				if (page.getHeight() >= height
+				&&  page.getTransparency() >= transp) continue;
+				// leave room, so that the page is not copied every time
+				height = Math.min(atlas_page_size,
+					Math.max(height,2*page.getHeight()));
+				transp = Math.max(transp,page.getTransparency());
+			}
+			BufferedImage newpage;
+			if (gc!=null) {
+				newpage = gc.createCompatibleImage(atlas_page_size,height,
+					transp);
+			} else {
+				newpage = new BufferedImage(atlas_page_size,height,
+					BufferedImage.TYPE_INT_ARGB);
+			}
+			if (page!=null) {
+				Graphics2D g = newpage.createGraphics();
+				g.setComposite(AlphaComposite.Src);
+				g.drawImage(page,0,0,null);
+				g.dispose();
+				page_replaced[p] = true;
+			}
+			newatlas.setPage(p,newpage);
+		}
+		for (int i=0; i<entries.length; i++) {
+			SpriteAtlas.Entry e = entries[i];
+			BufferedImage page = (BufferedImage)newatlas.getPage(e.page);
+			// getPixels waits until the image is produced, unlike drawImage
+			page.setRGB(e.x,e.y,e.width,e.height,
+				((JREImage)e.img).getPixels(), 0,e.width);
+		}
+		// the packed images, and the images on replaced pages, are replaced
+		// by views into their page
+		Vector<SpriteAtlas.Entry> viewed = new Vector<SpriteAtlas.Entry>();
+		for (Enumeration<SpriteAtlas.Entry> en=newatlas.getEntries();
+		en.hasMoreElements(); ) {
+			SpriteAtlas.Entry e = en.nextElement();
+			if (page_replaced[e.page]) viewed.addElement(e);
+		}
+		for (int i=0; i<entries.length; i++) {
+			if (!page_replaced[entries[i].page]) viewed.addElement(entries[i]);
+		}
+		ImageRegistry reg = el.image_registry;
+		int [] handles = new int[viewed.size()];
+		JGImage [] old_imgs = new JGImage[viewed.size()];
+		JGImage [] views = new JGImage[viewed.size()];
+		for (int i=0; i<handles.length; i++) {
+			SpriteAtlas.Entry e = viewed.elementAt(i);
+			BufferedImage page = (BufferedImage)newatlas.getPage(e.page);
+			JREImage view = new JREImage(page.getSubimage(e.x,e.y,
+				e.width,e.height));
+			view.transparency = ((JREImage)e.img).transparency;
+			handles[i] = reg.getHandle(e.name);
+			old_imgs[i] = (JGImage)e.img;
+			views[i] = view;
+			e.img = view;
+			newatlas.setHandle(handles[i],e);
+		}
+		el.replaceImages(handles,old_imgs,views);
+		atlas = newatlas;
+	}
+
+	/** Remove the images that were redefined or undefined from atlas, and
+	* add the defined images that are not in atlas to names and imgs.  The
+	* images are scaled if necessary. */
+	void collectAtlasImages(SpriteAtlas atlas,Vector<String> names,
+	Vector<JGImage> imgs) {
+		ImageRegistry reg = el.image_registry;
+		for (int h=0; h<reg.size(); h++) {
+			SpriteAtlas.Entry e = atlas.get(h);
+			if (e!=null) {
+				// the registry holds the view of an image that is unchanged
+				if (reg.isDefined(h) && reg.isResolved(h)
+				&& reg.getImage(h)==e.img) continue;
+				atlas.remove(e.name);
+			}
+			if (!reg.isDefined(h)) continue;
+			JGImage img = el.getImage(h);
+			if (img==null) continue;
+			names.addElement(reg.getName(h));
+			imgs.addElement(img);
+		}
+	}
+
+	/** Draw image from the sprite atlas, if it is there and up to date.
+	* @return false = image not in atlas */
+	boolean drawAtlasImage(Graphics g,int handle,int x,int y,
+	ImageObserver observer) {
+		SpriteAtlas atlas = this.atlas;
+		if (atlas==null || atlas.version!=el.images_version) return false;
+		SpriteAtlas.Entry e = atlas.get(handle);
+		if (e==null) return false;
+		g.drawImage((Image)atlas.getPage(e.page),
+			x, y, x+e.width, y+e.height,
+			e.x, e.y, e.x+e.width, e.y+e.height, observer);
+		return true;
+	}
+
 
 	/*====== images ======*/
 
@@ -223,6 +427,10 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		return el.getImage(imgname);
 	}
 
+	public int getImageHandle(String imgname) {
+		return el.getImageHandle(imgname);
+	}
+
 
 	public JGPoint getImageSize(String imgname) {
 		return el.getImageSize(imgname);
@@ -233,11 +441,20 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 	int top,int left, int width,int height) {
 		el.defineImage(this,name,tilename,collisionid,imgfile,img_op,
 			top,left, width,height);
+		updateSpriteAtlas();
+	}
+
+	public void defineImage(String name, String tilename, int collisionid,
+	String imgfile, String img_op, int dimx, int dimy) {
+		el.defineImage(this,name,tilename,collisionid,imgfile,img_op,
+			dimx,dimy);
+		updateSpriteAtlas();
 	}
 
 	public void defineImage(String imgname, String tilename, int collisionid,
 	String imgfile, String img_op) {
 		el.defineImage(this,imgname,tilename,collisionid,imgfile, img_op);
+		updateSpriteAtlas();
 	}
 
 	public void defineImage(String imgname, String tilename, int collisionid,
@@ -245,16 +462,19 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 	int top,int left, int width,int height) {
 		el.defineImage(imgname,tilename,collisionid,  imgmap, mapidx,
 			img_op, top,left,width,height );
+		updateSpriteAtlas();
 	}
 
 	public void defineImage(String imgname, String tilename, int collisionid,
 	String imgmap, int mapidx, String img_op) {
 		el.defineImage(imgname,tilename,collisionid, imgmap, mapidx, img_op);
+		updateSpriteAtlas();
 	}
 
 	public void defineImageRotated(String name, String tilename,
 	int collisionid, String srcname, double angle) {
 		el.defineImageRotated(this,name,tilename,collisionid, srcname, angle);
+		updateSpriteAtlas();
 	}
 
 	public void defineImageFromData(String name, String tilename,
@@ -263,6 +483,7 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 	String img_op, int top,int left, int width,int height) {
 		el.defineImageFromData(name,tilename,collisionid,imgwidth,imgheight,
 		imgdata,imgdataofs,linewidth,img_op, top,left,width,height);
+		updateSpriteAtlas();
 	}
 
 	public void defineImageMap(String mapname, String imgfile,
@@ -277,6 +498,17 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 
 	public void defineMedia(String filename) {
 		el.defineMedia(this,filename);
+		updateSpriteAtlas();
+	}
+
+	public void defineMedia(String filename,int nr_threads) {
+		el.defineMedia(this,filename,nr_threads);
+		updateSpriteAtlas();
+	}
+
+	public void preloadImages(int nr_threads) {
+		el.preloadImages(this,nr_threads);
+		updateSpriteAtlas();
 	}
 
 
@@ -289,6 +521,10 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		el.markAddObject(obj);
 	}
 
+	public void markColIdChanged(JGObject obj) {
+		el.markColIdChanged(obj);
+	}
+
 	public boolean existsObject(String index) {
 		return el.existsObject(index);
 	}
@@ -313,6 +549,22 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		return el.checkCollision(cidmask,obj);
 	}
 
+	public void setCollisionGrid(boolean enabled) {
+		el.setCollisionGrid(enabled);
+	}
+
+	public void setCidBuckets(boolean enabled) {
+		el.setCidBuckets(enabled);
+	}
+
+	public void setSkipListStore(boolean enabled) {
+		el.setSkipListStore(enabled);
+	}
+
+	public void setParallelMove(int nr_threads) {
+		el.setParallelMove(nr_threads);
+	}
+
 	public int checkBGCollision(JGRectangle r) {
 		return el.checkBGCollision(r);
 	}
@@ -329,6 +581,27 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 			bbox);
 	}
 
+	@SuppressWarnings("rawtypes")
+	public int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj,JGRectangle bbox) {
+		return el.getObjects(result,prefix,cidmask,suspended_obj,bbox);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj,double x,double y,double radius) {
+		return el.getObjects(result,prefix,cidmask,suspended_obj,
+			x,y,radius);
+	}
+
+	public void setObjectIndex(boolean enabled) {
+		el.setObjectIndex(enabled);
+	}
+
+	public void invalidateObjectIndex() {
+		el.invalidateObjectIndex();
+	}
+
 	public void removeObject(JGObject obj) {
 		el.removeObject(obj);
 	}
@@ -352,7 +625,12 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 	void drawObject(Graphics g, JGObject o) {
 		if (!o.is_suspended) {
 			//o.prepareForFrame();
-			drawImage(g,(int)o.x,(int)o.y,o.getImageName(),true);
+			if (el.render_fps > 0 && !el.dirty_rect_mode) {
+				drawObjectImage(g,o,(int)o.getInterpolatedX(),
+					(int)o.getInterpolatedY());
+			} else {
+				drawObjectImage(g,o,(int)o.x,(int)o.y);
+			}
 			try {
 				o.paint();
 			} catch (JGameError ex) {
@@ -460,7 +738,8 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 			} else {
 				int xtile = el.moduloFloor(xi,bg_image.tiles.x);
 				int ytile = el.moduloFloor(yi,bg_image.tiles.y);
-				bgg.drawImage(((JREImage)el.getImage(bg_image.imgname)).img,
+				bgg.drawImage(
+					((JREImage)el.getImage(bg_image.imgname)).getDrawImage(),
 					x, y, x+el.scaledtilex, y+el.scaledtiley,
 					xtile*el.scaledtilex, ytile*el.scaledtiley, 
 					(xtile+1)*el.scaledtilex, (ytile+1)*el.scaledtiley,
@@ -468,7 +747,10 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 					null);
 			}
 		}
-		if (img!=null) bgg.drawImage(img.img,x,y,this);
+		if (img!=null
+		&& !drawAtlasImage(bgg,el.getImageHandle(
+			(String)el.images_tile.get(tileid_obj) ),x,y,this))
+			bgg.drawImage(img.getDrawImage(),x,y,this);
 		//System.out.println("Drawn tile"+tileid);
 	}
 
@@ -549,6 +831,18 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 
 
 
+	/** Get the dirty rectangles as an area in canvas coordinates. */
+	Area getDirtyArea() {
+		Area area = new Area();
+		for (int i=0; i<el.dirty_rects.size(); i++) {
+			JGRectangle r = el.scalePos(el.dirty_rects.elementAt(i), false);
+			// margin of one pixel for rounding
+			area.add(new Area(new Rectangle(r.x-1,r.y-1,
+				r.width+3,r.height+3)));
+		}
+		return area;
+	}
+
 	void copyBGToBuf(Graphics bufg, int sx1,int sy1,int sx2,int sy2,
 	int dx1,int dy1) {
 		//System.out.println("("+sx1+","+sy1+")-("+sx2+","+sy2+")");
@@ -648,7 +942,84 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 
 		/** Don't call directly. Use repaint().
 		*/
-		public void update(Graphics g) { paint(g); }
+		public void update(Graphics g) {
+			repaint_update=true;
+			try {
+				paint(g);
+			} finally {
+				repaint_update=false;
+			}
+		}
+
+		/** true while painting because of repaint(), rather than because
+		* the system asked to repaint an exposed area */
+		boolean repaint_update=false;
+
+		/** Draw background, objects, and status on bufg, which is the
+		* buffer or the back buffer.  Only the dirty area is drawn if it is not
+		* null. */
+		void composeBuffer(Graphics bufg,Area dirty) {
+			Rectangle bounds = null;
+			if (dirty!=null) {
+				bufg.setClip(dirty);
+				bounds = dirty.getBounds();
+			}
+			buf_gfx = bufg; // enable objects to draw on buffer gfx.
+			//bufg.setColor(getBackground());
+			//draw background to buffer
+			//bufg.drawImage(background,-scaledtilex,-scaledtiley,this);
+			int tilexshift=el.moduloFloor(el.tilexofs+1,el.viewnrtilesx+3);
+			int tileyshift=el.moduloFloor(el.tileyofs+1,el.viewnrtilesy+3);
+			int sx1 = tilexshift+1;
+			int sy1 = tileyshift+1;
+			int sx2 = el.viewnrtilesx+3;
+			int sy2 = el.viewnrtilesy+3;
+			if (sx2-sx1 > el.viewnrtilesx) sx2 = sx1 + el.viewnrtilesx;
+			if (sy2-sy1 > el.viewnrtilesy) sy2 = sy1 + el.viewnrtilesy;
+			int bufmidx = sx2-sx1;
+			int bufmidy = sy2-sy1;
+			copyBGToBuf(bufg,sx1,sy1, sx2,sy2, 0,0);
+			sx1 = 0;
+			sy1 = 0;
+			sx2 = tilexshift-1;
+			sy2 = tileyshift-1;
+			copyBGToBuf(bufg,sx1,sy1, sx2,sy2, bufmidx,bufmidy);
+			sx1 = 0;
+			sy1 = tileyshift+1;
+			sx2 = tilexshift-1;
+			sy2 = el.viewnrtilesy+3;
+			if (sy2-sy1 > el.viewnrtilesy) sy2 = sy1 + el.viewnrtilesy;
+			copyBGToBuf(bufg,sx1,sy1, sx2,sy2, bufmidx,0);
+			sx1 = tilexshift+1;
+			sy1 = 0;
+			sx2 = el.viewnrtilesx+3;
+			sy2 = tileyshift-1;
+			if (sx2-sx1 > el.viewnrtilesx) sx2 = sx1 + el.viewnrtilesx;
+			copyBGToBuf(bufg,sx1,sy1, sx2,sy2, 0,bufmidy);
+			//Color defaultcolour=g.getColor();
+			///* sort objects */
+			//ArrayList sortedkeys = new ArrayList(el.objects.keySet());
+			//Collections.sort(sortedkeys);
+			//for (Iterator i=sortedkeys.iterator(); i.hasNext(); ) {
+			el.objects.updateArrays();
+			for (int i=0; i<el.objects.size; i++) {
+				JGObject o = (JGObject)el.objects.values[i];
+				// skip objects that are known to be outside the clip
+				if (bounds!=null && o.drawn_rect!=null) {
+					JGRectangle r = o.drawn_rect;
+					int ox = el.scaleXPos(r.x,true), oy = el.scaleYPos(r.y,true);
+					if (!bounds.intersects(ox,oy,
+					el.scaleXPos(r.x+r.width,true)-ox+1,
+					el.scaleYPos(r.y+r.height,true)-oy+1) ) continue;
+				}
+				drawObject(bufg,o);
+			}
+			for (int i=0; i<el.particle_systems.size(); i++)
+				drawParticles(bufg,el.particle_systems.elementAt(i));
+			buf_gfx = null; // we're finished with the object drawing
+			/* draw status */
+			if (bufg!=null) paintFrame(bufg);
+		}
 
 		/** Don't call directly. Use repaint().
 		*/
@@ -682,77 +1053,165 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 			 * course of doFrames and paints.  If the buffer to be rendered to
 			 * screen is invalid when we render it to screen, we give up for this
 			 * frame and don't retry until the next frame. */
+			if (accelerated_render) {
+				// the engine thread renders, let it know it has to redraw
+				el.markDirtyFull();
+				expose_pending=true;
+				return;
+			}
 			if (background==null||!JREImage.isScratchImageValid(background)) {
 				background=JREImage.createScratchImage(
 					el.width+3*el.scaledtilex,el.height+3*el.scaledtiley );
+				bgg=null;
 				el.invalidateBGTiles();
 			}
 			if (buffer==null||!JREImage.isScratchImageValid(buffer)) {
 				buffer=JREImage.createScratchImage(el.width,el.height);
+				el.markDirtyFull();
 			}
 			if (buffer!=null && background!=null) {
+				long render_start = el.scheduler.now();
 				// block update thread
-				synchronized (el.objects) {
+				synchronized (el.objects_lock) {
+					FrameProfiler profiler = el.profiler;
+					if (profiler!=null) profiler.begin(FrameProfiler.RENDER);
 					// paint any part of bg which is not yet defined
+					if (profiler!=null) profiler.begin(FrameProfiler.REPAINTBG);
 					el.repaintBG(JGEngine.this);
-					/* clear buffer */
-					Graphics bufg = buffer.getGraphics();
-					buf_gfx = bufg; // enable objects to draw on buffer gfx.
-					//bufg.setColor(getBackground());
-					//draw background to buffer
-					//bufg.drawImage(background,-scaledtilex,-scaledtiley,this);
-					int tilexshift=el.moduloFloor(el.tilexofs+1,el.viewnrtilesx+3);
-					int tileyshift=el.moduloFloor(el.tileyofs+1,el.viewnrtilesy+3);
-					int sx1 = tilexshift+1;
-					int sy1 = tileyshift+1;
-					int sx2 = el.viewnrtilesx+3;
-					int sy2 = el.viewnrtilesy+3;
-					if (sx2-sx1 > el.viewnrtilesx) sx2 = sx1 + el.viewnrtilesx;
-					if (sy2-sy1 > el.viewnrtilesy) sy2 = sy1 + el.viewnrtilesy;
-					int bufmidx = sx2-sx1;
-					int bufmidy = sy2-sy1;
-					copyBGToBuf(bufg,sx1,sy1, sx2,sy2, 0,0);
-					sx1 = 0;
-					sy1 = 0;
-					sx2 = tilexshift-1;
-					sy2 = tileyshift-1;
-					copyBGToBuf(bufg,sx1,sy1, sx2,sy2, bufmidx,bufmidy);
-					sx1 = 0;
-					sy1 = tileyshift+1;
-					sx2 = tilexshift-1;
-					sy2 = el.viewnrtilesy+3;
-					if (sy2-sy1 > el.viewnrtilesy) sy2 = sy1 + el.viewnrtilesy;
-					copyBGToBuf(bufg,sx1,sy1, sx2,sy2, bufmidx,0);
-					sx1 = tilexshift+1;
-					sy1 = 0;
-					sx2 = el.viewnrtilesx+3;
-					sy2 = tileyshift-1;
-					if (sx2-sx1 > el.viewnrtilesx) sx2 = sx1 + el.viewnrtilesx;
-					copyBGToBuf(bufg,sx1,sy1, sx2,sy2, 0,bufmidy);
-					//Color defaultcolour=g.getColor();
-					///* sort objects */
-					//ArrayList sortedkeys = new ArrayList(el.objects.keySet());
-					//Collections.sort(sortedkeys);
-					//for (Iterator i=sortedkeys.iterator(); i.hasNext(); ) {
-					for (int i=0; i<el.objects.size; i++) {
-						drawObject(bufg, (JGObject)el.objects.values[i]);
+					if (profiler!=null) profiler.end(FrameProfiler.REPAINTBG);
+					// in dirty rectangle mode, only compose the changed areas
+					Area dirty = null;
+					boolean compose = true;
+					if (el.dirty_rect_mode && !el.dirty_full
+					&& !el.pf_wrapx && !el.pf_wrapy && !dbgOverlayShown()) {
+						dirty = getDirtyArea();
+						compose = !dirty.isEmpty();
 					}
-					buf_gfx = null; // we're finished with the object drawing
-					/* draw status */
-					if (bufg!=null) paintFrame(bufg);
+					el.dirty_rects.removeAllElements();
+					el.dirty_full=false;
+					if (compose) composeBuffer(buffer.getGraphics(),dirty);
 					//}/*synchronized */
-					/* draw buffer */
-					g.drawImage(buffer,0,0,this);
+					/* draw buffer; a system paint needs the whole buffer */
+					if (dirty!=null && repaint_update) {
+						if (compose) {
+							((Graphics2D)g).clip(dirty);
+							g.drawImage(buffer,0,0,this);
+						}
+					} else {
+						g.drawImage(buffer,0,0,this);
+					}
+					if (profiler!=null) profiler.end(FrameProfiler.RENDER);
 					//g.setColor(defaultcolour);
 				}
 				// don't block the update thread while waiting for sync
 				Toolkit.getDefaultToolkit().sync();
+				el.scheduler.recordRender(el.scheduler.now()-render_start);
 			}
 		} catch (JGameError e) {
 			exitEngine("Error during paint:\n"
 					+dbgExceptionToString(e) );
 		} }
 
+		/*====== accelerated paint ======*/
+
+		/** page flipping strategy, null = not created yet */
+		BufferStrategy strategy=null;
+
+		/** set by paint in accelerated mode, the engine thread renders a
+		* frame even when paused */
+		boolean expose_pending=false;
+
+		void setAccelerated(boolean enabled) {
+			if (!enabled && strategy!=null) {
+				strategy.dispose();
+				strategy=null;
+				repaint();
+			}
+		}
+
+		/** Render the current frame: paint directly in accelerated mode,
+		* repaint otherwise.  Called by the engine thread. */
+		void render() {
+			expose_pending=false;
+			if (accelerated_render && is_initialised && !el.is_exited) {
+				paintAccelerated();
+			} else {
+				repaint();
+			}
+		}
+
+		/** Compose the frame on the back buffer and flip it, drawing it again
+		* as long as the back buffer is lost in the process. */
+		void paintAccelerated() { try {
+			if (strategy==null) {
+				if (!isDisplayable()) return;
+				try {
+					createBufferStrategy(2);
+				} catch (Exception e) {
+					System.err.println("Accelerated render not available: "+e);
+					setAcceleratedRender(false);
+					return;
+				}
+				strategy = getBufferStrategy();
+			}
+			long render_start = el.scheduler.now();
+			do {
+				do {
+					Graphics g = strategy.getDrawGraphics();
+					try {
+						paintBackBuffer(g);
+					} finally {
+						g.dispose();
+					}
+				} while (strategy.contentsRestored());
+				strategy.show();
+			} while (strategy.contentsLost());
+			Toolkit.getDefaultToolkit().sync();
+			el.scheduler.recordRender(el.scheduler.now()-render_start);
+		} catch (JGameError e) {
+			exitEngine("Error during paint:\n"
+					+dbgExceptionToString(e) );
+		} }
+
+		void paintBackBuffer(Graphics g) {
+			/* Unlike in paint, the volatile bg is validated every frame.
+			 * When restored, its contents are gone and all tiles are drawn
+			 * again.  When incompatible, for example because the window moved
+			 * to another screen, it is recreated. */
+			int valid = JREImage.validateScratchImage(background,this);
+			if (background==null || valid==VolatileImage.IMAGE_INCOMPATIBLE) {
+				int bgwidth = el.width+3*el.scaledtilex;
+				int bgheight = el.height+3*el.scaledtiley;
+				background = createVolatileImage(bgwidth,bgheight);
+				if (background==null)
+					background=JREImage.createScratchImage(bgwidth,bgheight);
+				bgg=null;
+				el.invalidateBGTiles();
+			} else if (valid==VolatileImage.IMAGE_RESTORED) {
+				el.invalidateBGTiles();
+			}
+			// clear the padding around the view
+			if (getWidth() > el.width || getHeight() > el.height) {
+				g.setColor(getBackground());
+				g.fillRect(0,0,getWidth(),getHeight());
+			}
+			// block update thread
+			synchronized (el.objects_lock) {
+				FrameProfiler profiler = el.profiler;
+				if (profiler!=null) profiler.begin(FrameProfiler.RENDER);
+				if (profiler!=null) profiler.begin(FrameProfiler.REPAINTBG);
+				el.repaintBG(JGEngine.this);
+				if (profiler!=null) profiler.end(FrameProfiler.REPAINTBG);
+				el.dirty_rects.removeAllElements();
+				el.dirty_full=false;
+				composeBuffer(g,null);
+				if (profiler!=null) profiler.end(FrameProfiler.RENDER);
+			}
+			// bg lost while we were drawing: draw it again next frame
+			if (!JREImage.isScratchImageValid(background))
+				el.invalidateBGTiles();
+		}
+
 	}
 
 
@@ -768,6 +1227,7 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 	static final int GAMESTATE_DEBUG = 2;
 	static final int FULLSTACKTRACE_DEBUG = 4;
 	static final int MSGSINPF_DEBUG= 8;
+	static final int PROFILE_DEBUG = 16;
 
 	private static int dbgframelog_expiry=80;
 	private JGFont debugmessage_font = new JGFont("Arial",0,12);
@@ -877,11 +1337,45 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		else         debugflags &= ~FULLSTACKTRACE_DEBUG;
 	}
 
+	/** True if debug info is shown that dirty rectangle repaint does not
+	* keep track of. */
+	boolean dbgOverlayShown() {
+		return (debugflags&(BBOX_DEBUG|GAMESTATE_DEBUG|PROFILE_DEBUG))!=0
+		|| ((debugflags&MSGSINPF_DEBUG)!=0 && !dbgframelogs.isEmpty());
+	}
+
 	public void dbgShowMessagesInPf(boolean enabled) {
 		if (enabled) debugflags |=  MSGSINPF_DEBUG;
 		else         debugflags &= ~MSGSINPF_DEBUG;
 	}
 
+	public void dbgShowProfile(boolean enabled) {
+		if (enabled) debugflags |=  PROFILE_DEBUG;
+		else         debugflags &= ~PROFILE_DEBUG;
+		if (enabled && el.profiler==null) el.setProfiling(200);
+	}
+
+	public void setProfiling(int nr_frames) { el.setProfiling(nr_frames); }
+
+	public FrameProfiler getProfiler() { return el.profiler; }
+
+	/** paint the profile summary */
+	void paintDbgProfile(Graphics g) {
+		FrameProfiler profiler = el.profiler;
+		if (profiler==null) return;
+		g.setFont(new Font(debugmessage_font.name,debugmessage_font.style,
+			(int)debugmessage_font.size));
+		setColor(g,el.fg_color);
+		int lineheight = debugmessage_font.getSize()+1;
+		int ypos = lineheight;
+		g.drawString("p50 / p95 / max ms",0,ypos);
+		String [] lines = profiler.getSummary();
+		for (int i=0; i<lines.length; i++) {
+			ypos += lineheight;
+			g.drawString(lines[i],0,ypos);
+		}
+	}
+
 	public void dbgSetMessageExpiry(int ticks) {dbgframelog_expiry = ticks;}
 
 	public void dbgSetMessageFont(JGFont font) { debugmessage_font=font; }
@@ -1080,6 +1574,10 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 
 	public double getFrameSkip() { return el.maxframeskip; }
 
+	public double getFrameAlpha() { return el.frame_alpha; }
+
+	public String getFrameTimings() { return el.scheduler.getTimings(); }
+
 	public boolean getVideoSyncedUpdate() { return false; }
 
 	public int getOffscreenMarginX() { return el.offscreen_margin_x; }
@@ -1107,6 +1605,7 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		}
 
 		el.initPF();
+		updateSpriteAtlas();
 
 		if (!i_am_applet && jre.create_frame) {
 			jre.createWindow(this,jre.win_decoration);
@@ -1283,6 +1782,10 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		el.setPFSize(nrtilesx,nrtilesy);
 	}
 
+	public void setTileMapFile(String filename,boolean keep_contents) {
+		el.setTileMapFile(filename,keep_contents);
+	}
+
 	public void setPFWrap(boolean wrapx,boolean wrapy,int shiftx,int shifty) {
 		el.setPFWrap(wrapx,wrapy,shiftx,shifty);
 	}
@@ -1292,6 +1795,21 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		el.setFrameRate(fps, maxframeskip);
 	}
 
+	public void setRenderRate(double render_fps) {
+		el.setRenderRate(render_fps);
+	}
+
+	public void setDirtyRectRepaint(boolean enabled) {
+		synchronized (el.objects_lock) {
+			el.setDirtyRectRepaint(enabled);
+		}
+	}
+
+	public void markDirty(double x,double y,double width,double height,
+	boolean pf_relative) {
+		el.markDirty(x,y,width,height,pf_relative);
+	}
+
 	public void setVideoSyncedUpdate(boolean value) {}
 
 	public void setGameSpeed(double gamespeed) {
@@ -1411,46 +1929,13 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 	/** Do some administration, call doFrame. */
 	private void doFrameAll() {
 		jre.audioNewFrame();
-		// the first flush is needed to remove any objects that were created
-		// in the main routine after the last moveObjects or checkCollision
-		el.flushRemoveList();
-		el.flushAddList();
-		// tick timers before doing state transitions, because timers may
-		// initiate new transitions.
-		el.tickTimers();
-		el.flushRemoveList();
-		el.flushAddList();
-		// the game state transition starts here
-		el.gamestate = el.gamestate_nextframe;
-		el.gamestate_nextframe = new Vector(10,20);
-		el.gamestate_nextframe.addAll(el.gamestate);
-		// we assume that state transitions will not initiate new state
-		// transitions!
-		invokeGameStateMethods("start",el.gamestate_new);
-		el.gamestate_new.clear();
-		el.flushRemoveList();
-		el.flushAddList();
-		try {
-			doFrame();
-		} catch (JGameError ex) {
-			exitEngine(dbgExceptionToString(ex));
-		} catch (Exception ex) {
-			dbgShowException("MAIN",ex);
-		}
-		invokeGameStateMethods("doFrame",el.gamestate);
-		el.frameFinished();
-	}
-
-	private void invokeGameStateMethods(String prefix,Vector states) {
-		for (Enumeration e=states.elements(); e.hasMoreElements(); ) {
-			String state = (String) e.nextElement();
-			jre.tryMethod(this,prefix+state,new Object[]{});
-		}
+		el.doFrameAll(this);
 	}
 
 	public void doFrame() {}
 
 	void paintFrame(Graphics g) {
+		if (el.profiler!=null) el.profiler.begin(FrameProfiler.PAINTFRAME);
 		buf_gfx=g;
 		setColor(g,el.fg_color);
 		setFont(el.msg_font);
@@ -1461,7 +1946,8 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		} catch (Exception ex) {
 			dbgShowException("MAIN",ex);
 		}
-		invokeGameStateMethods("paintFrame",el.gamestate);
+		el.invokeGameStateMethods(this,"paintFrame",el.gamestate);
+		if (el.profiler!=null) el.profiler.end(FrameProfiler.PAINTFRAME);
 		if ((debugflags&GAMESTATE_DEBUG)!=0) {
 			String state="{";
 			for (Enumeration e=el.gamestate.elements(); e.hasMoreElements(); ) {
@@ -1475,6 +1961,7 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 					el.viewHeight()-(int)getFontHeight(g,el.msg_font), 1);
 		}
 		if ((debugflags&MSGSINPF_DEBUG)!=0) paintDbgFrameLogs(buf_gfx);
+		if ((debugflags&PROFILE_DEBUG)!=0) paintDbgProfile(buf_gfx);
 		buf_gfx=null;
 	}
 
@@ -1510,7 +1997,47 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 		g.setStroke(new BasicStroke((float)(thickness*el.min_scale_fac)));
 	}
 
-	public void setBlendMode(int src_func, int dst_func) { }
+	public void setBlendMode(int src_func, int dst_func) {
+		blend_src_func=src_func;
+		blend_dst_func=dst_func;
+		blend_mode_set = !(src_func==1 && dst_func==-1);
+		// the default mode needs no compositor, so do not create one for it
+		if (compositor!=null || blend_mode_set)
+			getCompositor().setBlendMode(src_func,dst_func);
+	}
+
+	/* compositing */
+
+	/** Draws blended, translucent, rotated and scaled images, null = not
+	* created yet, because nothing of the kind was drawn so far. */
+	Compositor compositor=null;
+	int blend_src_func=1, blend_dst_func=-1;
+	/** true = blend mode is not the default, so that all images are drawn
+	* through the compositor */
+	boolean blend_mode_set=false;
+
+	/** Install a compositing stage, which draws the images that are not
+	* plain opaque images. The current blend mode is passed to it.
+	* @param compositor  null = use a BlendCompositor when needed */
+	public void setCompositor(Compositor compositor) {
+		this.compositor=compositor;
+		if (compositor!=null)
+			compositor.setBlendMode(blend_src_func,blend_dst_func);
+	}
+
+	/** Get the compositing stage, a BlendCompositor is created if none was
+	* set. */
+	public Compositor getCompositor() {
+		if (compositor==null) setCompositor(new BlendCompositor());
+		return compositor;
+	}
+
+	public void setSpriteCache(long budget,int angle_steps,int scale_steps) {
+		Compositor comp = getCompositor();
+		if (comp instanceof BlendCompositor)
+			((BlendCompositor)comp).setSpriteCache(budget,angle_steps,
+				scale_steps);
+	}
 
 	public double getFontHeight(JGFont jgfont) {
 		if (buf_gfx!=null) return getFontHeight(buf_gfx,jgfont);
@@ -1533,10 +2060,122 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 	void drawImage(Graphics g,double x,double y,String imgname,
 	boolean pf_relative) {
 		if (imgname==null) return;
+		if (blend_mode_set) {
+			drawImage(g,x,y,imgname,pf_relative,null,1.0,0.0,1.0);
+			return;
+		}
 		x = el.scaleXPos(x,pf_relative);
 		y = el.scaleYPos(y,pf_relative);
+		if (drawAtlasImage(g,el.getImageHandle(imgname),(int)x,(int)y,this))
+			return;
 		JREImage img = (JREImage)el.getImage(imgname);
-		if (img!=null) g.drawImage(img.img,(int)x,(int)y,this);
+		if (img!=null) g.drawImage(img.getDrawImage(),(int)x,(int)y,this);
+	}
+
+	/** Draw the object's image by handle, which avoids looking up its
+	* name. */
+	void drawObjectImage(Graphics g,JGObject o,double x,double y) {
+		if (o.alpha < 1f || blend_mode_set) {
+			drawImage(g,x,y,o.getImageName(),true,null,o.alpha,0.0,1.0);
+			return;
+		}
+		int handle = o.getImageHandle();
+		if (handle < 0) {
+			// no image, or undefined image: let drawImage handle it
+			drawImage(g,x,y,o.getImageName(),true);
+			return;
+		}
+		int ix = el.scaleXPos(x,true);
+		int iy = el.scaleYPos(y,true);
+		if (drawAtlasImage(g,handle,ix,iy,this)) return;
+		JREImage img = (JREImage)el.getImage(handle);
+		if (img!=null) g.drawImage(img.getDrawImage(),ix,iy,this);
+	}
+
+	/** frame images of the particle system being drawn */
+	Image [] particle_frames = new Image[4];
+
+	/** Draw the live particles of a particle system, with its blend mode.
+	* Particles are centered on their position. */
+	void drawParticles(Graphics g,ParticleSystem ps) {
+		if (ps.size==0) return;
+		int src_func=blend_src_func, dst_func=blend_dst_func;
+		boolean set_mode = ps.blend_src_func!=src_func
+			|| ps.blend_dst_func!=dst_func;
+		if (set_mode) setBlendMode(ps.blend_src_func,ps.blend_dst_func);
+		Color color = g.getColor();
+		try {
+			if (ps.images==null || ps.images.length==0) {
+				drawParticleRects(g,ps);
+			} else {
+				drawParticleImages(g,ps);
+			}
+		} finally {
+			g.setColor(color);
+			if (set_mode) setBlendMode(src_func,dst_func);
+		}
+	}
+
+	void drawParticleRects(Graphics g,ParticleSystem ps) {
+		Compositor comp = getCompositor();
+		int w = Math.max(1,(int)Math.round(ps.width*el.x_scale_fac));
+		int h = Math.max(1,(int)Math.round(ps.height*el.y_scale_fac));
+		for (int i=0; i<ps.size; i++) {
+			int alpha = ps.getAlpha(i);
+			if (alpha==0) continue;
+			comp.fillRect(g, el.scaleXPos(ps.x[i],ps.pf_relative) - w/2,
+				el.scaleYPos(ps.y[i],ps.pf_relative) - h/2, w, h,
+				(alpha<<24) | (ps.color[i]&0xffffff) );
+		}
+	}
+
+	void drawParticleImages(Graphics g,ParticleSystem ps) {
+		int nr_frames = ps.images.length;
+		if (particle_frames.length < nr_frames)
+			particle_frames = new Image[nr_frames];
+		for (int f=0; f<nr_frames; f++) {
+			JREImage img = (JREImage)el.getImage(ps.images[f]);
+			particle_frames[f] = img==null ? null : img.getDrawImage();
+		}
+		boolean plain = !blend_mode_set;
+		Compositor comp = plain ? null : getCompositor();
+		for (int i=0; i<ps.size; i++) {
+			int f = ((int)ps.frame[i]) % nr_frames;
+			Image img = particle_frames[f];
+			if (img==null) continue;
+			int alpha = ps.getAlpha(i);
+			if (alpha==0) continue;
+			int x = el.scaleXPos(ps.x[i],ps.pf_relative) - img.getWidth(this)/2;
+			int y = el.scaleYPos(ps.y[i],ps.pf_relative) - img.getHeight(this)/2;
+			if (plain && alpha==255) {
+				g.drawImage(img,x,y,this);
+			} else {
+				if (comp==null) comp = getCompositor();
+				comp.drawImage(g,ps.images[f],img,x,y,null,alpha/255.0,0.0,1.0,
+					this);
+			}
+		}
+		for (int f=0; f<nr_frames; f++) particle_frames[f]=null;
+	}
+
+	public void addParticleSystem(ParticleSystem ps) {
+		el.addParticleSystem(ps);
+	}
+
+	public void removeParticleSystem(ParticleSystem ps) {
+		el.removeParticleSystem(ps);
+	}
+
+	/** Draw image through the compositor. */
+	void drawImage(Graphics g,double x,double y,String imgname,
+	boolean pf_relative,JGColor blend_col,double alpha,double rot,
+	double scale) {
+		if (imgname==null) return;
+		JREImage img = (JREImage)el.getImage(imgname);
+		if (img==null) return;
+		getCompositor().drawImage(g,imgname,img.getDrawImage(),
+			el.scaleXPos(x,pf_relative),el.scaleYPos(y,pf_relative),
+			blend_col,alpha,rot,scale,this);
 	}
 
 
@@ -1687,7 +2326,12 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 	public void drawImage(double x,double y,String imgname, JGColor blend_col,
 	double alpha, double rot, double scale, boolean pf_relative) {
 		if (buf_gfx==null) return;
-		drawImage(buf_gfx,x,y,imgname,pf_relative);
+		if (blend_col==null && alpha>=1.0 && rot==0.0 && scale==1.0) {
+			drawImage(buf_gfx,x,y,imgname,pf_relative);
+		} else {
+			drawImage(buf_gfx,x,y,imgname,pf_relative,blend_col,alpha,rot,
+				scale);
+		}
 	}
 
 	/* new versions of drawImage */
@@ -2039,8 +2683,6 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 
 	/** Engine thread, executing game action. */
 	class JGEngineThread implements Runnable {
-		private long target_time=0; /* time at which next frame should start */
-		private int frames_skipped=0;
 		public JGEngineThread () {}
 		public void run() { try {
 			try {
@@ -2050,63 +2692,44 @@ public abstract class JGEngine extends Applet implements JGEngineInterface {
 				throw new JGameError("Exception during initGame(): "+e);
 			}
 			canvas.setInitialised();
-			target_time = System.currentTimeMillis()+(long)(1000.0/el.fps);
+			FrameScheduler sched = el.scheduler;
+			sched.start(el.fps,el.maxframeskip);
 			while (!el.is_exited) {
 				if ((debugflags&MSGSINPF_DEBUG)!=0) refreshDbgFrameLogs();
-				long cur_time = System.currentTimeMillis();
 				if (!running) {
 					// wait in portions of 1/2 sec until running is set;
-					// reset target time
+					// restart the scheduler so we don't catch up afterwards
 					Thread.sleep(500);
-					target_time = cur_time+(long)(1000.0/el.fps);
-				} else if (cur_time < target_time+(long)(500.0/el.fps)) {
-					// we lag behind less than 1/2 frame -> do full frame.
-					// This empirically produces the smoothest animation
-					synchronized (el.objects) {
-						doFrameAll();
-						el.updateViewOffset();
-					}
-					canvas.repaint();
-					frames_skipped=0;
-					if (cur_time+3 < target_time) {
-						//we even have some time left -> sleep it away
-						Thread.sleep(target_time-cur_time);
-					} else {
-						// we don't, just yield to give input handler and
-						// painter some time
-						Thread.yield();
-					}
-					target_time += (1000.0/el.fps);
-				//} else if (cur_time >
-				//target_time + (long)(1000.0*el.maxframeskip/el.fps)) {
-				//	// we lag behind more than the max # frames ->
-				//	// draw full frame and reset target time
-				//	synchronized (el.objects) {
-				//		doFrameAll();
-				//		el.updateViewOffset();
-				//	}
-				//	canvas.repaint();
-				//	frames_skipped=0;
-				//	// yield to give input handler + painter some time
-				//	Thread.yield();
-				//	target_time=cur_time + (long)(1000.0/el.fps);
-				} else {
-					// we lag behind a little -> frame skip
-					synchronized (el.objects) {
-						doFrameAll();
-						el.updateViewOffset();
-					}
-					// if we skip too many frames in succession, draw a frame
-					if ((++frames_skipped) > el.maxframeskip) {
-						canvas.repaint();
-						frames_skipped=0;
-						target_time=cur_time + (long)(1000.0/el.fps);
-					} else {
-						target_time += (long)(1000.0/el.fps);
+					if (canvas.expose_pending) canvas.render();
+					sched.start(el.fps,el.maxframeskip);
+					continue;
+				}
+				// do the frames that are due, at most 1+maxframeskip, then
+				// render once
+				int steps = sched.stepsDue();
+				if (steps > 0) {
+					long start = sched.now();
+					for (int i=0; i<steps && !el.is_exited; i++) {
+						synchronized (el.objects_lock) {
+							doFrameAll();
+							el.updateViewOffset();
+						}
 					}
-					// yield to give input handler some time
-					Thread.yield();
+					sched.recordLogic(sched.now()-start);
+					if (el.profiler!=null && el.render_fps <= 0)
+						el.profiler.addSkipped(steps-1);
+				}
+				if (el.dirty_rect_mode) {
+					// only repaint when something changed
+					if (steps > 0 && el.isDirty()) canvas.render();
+				} else if (el.render_fps > 0) {
+					el.frame_alpha = sched.getAlpha();
+					canvas.render();
+				} else if (steps > 0) {
+					canvas.render();
 				}
+				// sleep until the next frame or render is due
+				sched.waitForNextFrame(el.render_fps);
 			}
 		} catch (InterruptedException e) {
 			/* exit thread when interrupted */
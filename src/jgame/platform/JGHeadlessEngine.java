@@ -0,0 +1,1102 @@
+package jgame.platform;
+import jgame.impl.*;
+import jgame.*;
+import java.util.*;
+import java.io.*;
+
+/** Engine that runs a game without a display, for simulating games as fast
+ * as possible, for example for server-side bots and automated tests.
+ * Subclass it like JGEngine, implementing initCanvas and initGame, and
+ * call initEngineHeadless() to initialise.  Unlike JGEngine, no engine
+ * thread is started: the caller advances the game explicitly by calling
+ * advanceFrames(), which runs the given number of frames in a tight loop,
+ * without sleeping or painting.
+
+ * <p>Each frame is handled by the same EngineLogic.doFrameAll as in
+ * JGEngine: timers are ticked, game state transitions are done, and doFrame
+ * and the doFrame... methods of the game states are called.  paintFrame is never called.  All drawing methods
+ * do nothing, and audio is ignored.  Images are not loaded; only their
+ * sizes are read (see HeadlessImage), which is all that is needed for the
+ * bounding boxes of objects and tiles.  Keyboard and mouse input can be
+ * simulated with setKey and setMouseButton.  Store values are kept in
+ * memory only.
+
+ * <p>JGEngine cannot be used for this, because it is an Applet, which
+ * cannot be created on a machine without a display.  Only one engine can be
+ * active in a VM at a time, as for JGEngine.  Call destroy() before
+ * creating the next one.
+
+ * <p>Debug messages and exceptions are printed to stdout.
+ */
+public abstract class JGHeadlessEngine implements JGEngineInterface {
+
+	HeadlessImage imageutil = new HeadlessImage();
+
+	EngineLogic el = new EngineLogic(imageutil,false,false);
+
+	JREEngine jre = new JREEngine(el,this);
+
+	/** Should frames be advanced? Set by start() / stop()*/
+	boolean running=true;
+
+	/** Number of frames advanced since initialisation. */
+	long framecount=0;
+
+	/** Construct engine, but do not initialise it yet.  Call
+	* initEngineHeadless to initialise the engine. */
+	public JGHeadlessEngine() { }
+
+	/** Initialise engine: calls initCanvas and initGame.  Since there is no
+	* window, the display size is the same as the view size given to
+	* setCanvasSettings, and no scaling is done.
+	*/
+	public void initEngineHeadless() {
+		initCanvas();
+		if (!el.view_initialised) {
+			exitEngine("Canvas settings not initialised, use setCanvasSettings().");
+			return;
+		}
+		el.winwidth = el.viewnrtilesx*el.tilex;
+		el.winheight = el.viewnrtilesy*el.tiley;
+		el.initPF();
+		if (!JGObject.setEngine(this)) {
+			exitEngine("JGame is already running in this VM");
+			return;
+		}
+		el.is_inited=true;
+		try {
+			initGame();
+		} catch (Exception e) {
+			e.printStackTrace();
+			throw new JGameError("Exception during initGame(): "+e);
+		}
+	}
+
+	/** Same as initEngineHeadless, the window size is ignored.  This enables
+	* games written for JGEngine to run headless unchanged. */
+	public void initEngine(int width,int height) {
+		initEngineHeadless();
+	}
+
+	/** Same as initEngineHeadless, the component size is ignored. */
+	public void initEngineComponent(int width,int height) {
+		initEngineHeadless();
+	}
+
+	/** Does nothing; call startApp or initEngineHeadless to initialise. */
+	public void initEngineApplet() { }
+
+	/** Advance the game by nr_frames frames, as fast as possible.  Does not
+	* advance any frames if the engine is stopped (see stop()), and stops
+	* when the engine exits.
+	* @return number of frames actually advanced */
+	public int advanceFrames(int nr_frames) {
+		if (!el.is_inited) throw new JGameError(
+			"Engine not initialised, use initEngineHeadless().",true);
+		int nr=0;
+		while (nr<nr_frames && running && !el.is_exited) {
+			long start = el.scheduler.now();
+			synchronized (el.objects_lock) {
+				el.doFrameAll(this);
+				el.updateViewOffset();
+			}
+			el.scheduler.recordLogic(el.scheduler.now()-start);
+			nr++;
+			framecount++;
+		}
+		return nr;
+	}
+
+	/** Get the number of frames advanced since initialisation. */
+	public long getFrameCount() { return framecount; }
+
+	/** Get the EngineLogic of this engine, for tools that drive parts of the
+	* frame directly, like FrameBenchmark. */
+	public EngineLogic getEngineLogic() { return el; }
+
+	abstract public void initCanvas();
+
+	abstract public void initGame();
+
+	public void startApp() {
+		if (!el.is_inited) {
+			initEngineHeadless();
+		} else {
+			start();
+		}
+	}
+
+	public void pauseApp() { stop(); }
+
+	public void destroyApp(boolean unconditional) { destroy(); }
+
+	public void wakeUpOnKey(int key) { jre.wakeUpOnKey(key); }
+
+	public void destroy() {
+		el.is_exited=true;
+		if (el.is_inited) {
+			JGObject.setEngine(null);
+		}
+	}
+
+	/** Print the message and stop the engine.  Unlike JGEngine, does not
+	* exit the VM, so that the caller can continue with another game. */
+	public void exitEngine(String msg) {
+		if (msg!=null) {
+			System.err.println(msg);
+			el.exit_message=msg;
+		}
+		System.err.println("Exiting JGHeadlessEngine.");
+		destroy();
+	}
+
+	public boolean isApplet() { return false; }
+
+	public void requestGameFocus() { }
+
+
+	/*====== images ======*/
+
+
+
+	public JGImage getImage(String imgname) {
+		return el.getImage(imgname);
+	}
+
+	public int getImageHandle(String imgname) {
+		return el.getImageHandle(imgname);
+	}
+
+	public JGPoint getImageSize(String imgname) {
+		return el.getImageSize(imgname);
+	}
+
+	public void defineImage(String name, String tilename, int collisionid,
+	String imgfile, String img_op,
+	int top,int left, int width,int height) {
+		el.defineImage(this,name,tilename,collisionid,imgfile,img_op,
+			top,left, width,height);
+	}
+
+	public void defineImage(String name, String tilename, int collisionid,
+	String imgfile, String img_op, int dimx, int dimy) {
+		el.defineImage(this,name,tilename,collisionid,imgfile,img_op,
+			dimx,dimy);
+	}
+
+	public void defineImage(String imgname, String tilename, int collisionid,
+	String imgfile, String img_op) {
+		el.defineImage(this,imgname,tilename,collisionid,imgfile, img_op);
+	}
+
+	public void defineImage(String imgname, String tilename, int collisionid,
+	String imgmap, int mapidx, String img_op,
+	int top,int left, int width,int height) {
+		el.defineImage(imgname,tilename,collisionid,  imgmap, mapidx,
+			img_op, top,left,width,height );
+	}
+
+	public void defineImage(String imgname, String tilename, int collisionid,
+	String imgmap, int mapidx, String img_op) {
+		el.defineImage(imgname,tilename,collisionid, imgmap, mapidx, img_op);
+	}
+
+	public void defineImageRotated(String name, String tilename,
+	int collisionid, String srcname, double angle) {
+		el.defineImageRotated(this,name,tilename,collisionid, srcname, angle);
+	}
+
+	public void defineImageFromData(String name, String tilename,
+	int collisionid, int imgwidth, int imgheight,
+	int[] imgdata, int imgdataofs, int linewidth,
+	String img_op, int top,int left, int width,int height) {
+		el.defineImageFromData(name,tilename,collisionid,imgwidth,imgheight,
+		imgdata,imgdataofs,linewidth,img_op, top,left,width,height);
+	}
+
+	public void defineImageMap(String mapname, String imgfile,
+	int xofs,int yofs, int tilex,int tiley, int skipx,int skipy) {
+		el.defineImageMap(this,mapname,imgfile, xofs,yofs, tilex,tiley,
+			skipx,skipy);
+	}
+
+	public JGRectangle getImageBBox(String imgname) {
+		return el.getImageBBox(imgname);
+	}
+
+	/** Has no effect, as nothing is rendered. */
+	public void setSpriteAtlas(int page_size) { }
+
+	public void defineMedia(String filename) {
+		el.defineMedia(this,filename);
+	}
+
+	public void defineMedia(String filename,int nr_threads) {
+		el.defineMedia(this,filename,nr_threads);
+	}
+
+	public void preloadImages(int nr_threads) {
+		el.preloadImages(this,nr_threads);
+	}
+
+	/*====== objects from canvas ======*/
+
+	public void markAddObject(JGObject obj) {
+		el.markAddObject(obj);
+	}
+
+	public void markColIdChanged(JGObject obj) {
+		el.markColIdChanged(obj);
+	}
+
+	public boolean existsObject(String index) {
+		return el.existsObject(index);
+	}
+
+	public JGObject getObject(String index) {
+		return el.getObject(index);
+	}
+
+	public void moveObjects(String prefix, int cidmask) {
+		el.moveObjects(this,prefix, cidmask);
+	}
+
+	public void moveObjects() {
+		el.moveObjects(this);
+	}
+
+	public void checkCollision(int srccid,int dstcid) {
+		el.checkCollision(this,srccid,dstcid);
+	}
+
+	public int checkCollision(int cidmask, JGObject obj) {
+		return el.checkCollision(cidmask,obj);
+	}
+
+	public void setCollisionGrid(boolean enabled) {
+		el.setCollisionGrid(enabled);
+	}
+
+	public void setCidBuckets(boolean enabled) {
+		el.setCidBuckets(enabled);
+	}
+
+	public void setSkipListStore(boolean enabled) {
+		el.setSkipListStore(enabled);
+	}
+
+	public void setParallelMove(int nr_threads) {
+		el.setParallelMove(nr_threads);
+	}
+
+	public int checkBGCollision(JGRectangle r) {
+		return el.checkBGCollision(r);
+	}
+
+	public void checkBGCollision(int tilecid,int objcid) {
+		el.checkBGCollision(this,tilecid,objcid);
+	}
+
+	/* objects from engine */
+
+	@SuppressWarnings("rawtypes")
+	public Vector getObjects(String prefix,int cidmask,boolean suspended_obj,
+	JGRectangle bbox) {
+		return el.getObjects(prefix,cidmask,suspended_obj,
+			bbox);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj,JGRectangle bbox) {
+		return el.getObjects(result,prefix,cidmask,suspended_obj,bbox);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public int getObjects(Vector result,String prefix,int cidmask,
+	boolean suspended_obj,double x,double y,double radius) {
+		return el.getObjects(result,prefix,cidmask,suspended_obj,
+			x,y,radius);
+	}
+
+	public void setObjectIndex(boolean enabled) {
+		el.setObjectIndex(enabled);
+	}
+
+	public void invalidateObjectIndex() {
+		el.invalidateObjectIndex();
+	}
+
+	public void removeObject(JGObject obj) {
+		el.removeObject(obj);
+	}
+
+	public void removeObjects(String prefix,int cidmask) {
+		el.removeObjects(prefix,cidmask);
+	}
+
+	public void removeObjects(String prefix,int cidmask,boolean suspended_obj) {
+		el.removeObjects(prefix,cidmask,suspended_obj);
+	}
+
+	public int countObjects(String prefix,int cidmask) {
+		return el.countObjects(prefix,cidmask);
+	}
+
+	public int countObjects(String prefix,int cidmask,boolean suspended_obj) {
+		return el.countObjects(prefix,cidmask,suspended_obj);
+	}
+
+	/*====== BG/tiles ======*/
+
+	public void setBGImage(String bgimg) {
+		el.setBGImage(bgimg,0,true,true);
+	}
+
+	public void setBGImage(int depth, String bgimg,boolean wrapx,boolean wrapy){
+		el.setBGImage(bgimg,depth,wrapx,wrapy);
+	}
+
+	public void setTileSettings(String out_of_bounds_tile,
+	int out_of_bounds_cid,int preserve_cids) {
+		el.setTileSettings(out_of_bounds_tile,out_of_bounds_cid,preserve_cids);
+	}
+
+	public void fillBG(String filltile) {
+		el.fillBG(filltile);
+	}
+
+	public void setTileCid(int x,int y,int and_mask,int or_mask) {
+		el.setTileCid(x,y,and_mask,or_mask);
+	}
+
+	public void setTile(int x,int y,String tilestr) {
+		el.setTile(x,y,tilestr);
+	}
+
+	public int countTiles(int tilecidmask) {
+		return el.countTiles(tilecidmask);
+	}
+
+	public int getTileCid(int xidx,int yidx) {
+		return el.getTileCid(xidx,yidx);
+	}
+
+	public String getTileStr(int xidx,int yidx) {
+		return el.getTileStr(xidx,yidx);
+	}
+
+	public int getTileCid(JGRectangle tiler) {
+		return el.getTileCid(tiler);
+	}
+
+	public JGRectangle getTiles(JGRectangle r) {
+		return el.getTiles(r);
+	}
+
+	public boolean getTiles(JGRectangle dest,JGRectangle r) {
+		return el.getTiles(dest,r);
+	}
+
+	public void setTileCid(int x,int y,int value) {
+		el.setTileCid(x,y,value);
+	}
+
+	public void orTileCid(int x,int y,int or_mask) {
+		el.orTileCid(x,y,or_mask);
+	}
+
+	public void andTileCid(int x,int y,int and_mask) {
+		el.andTileCid(x,y,and_mask);
+	}
+
+	public void setTile(JGPoint tileidx,String tilename) {
+		el.setTile(tileidx,tilename);
+	}
+
+	public void setTiles(int xofs,int yofs,String [] tilemap) {
+		el.setTiles(xofs,yofs,tilemap);
+	}
+
+	public void setTilesMulti(int xofs,int yofs,String [] tilemap) {
+		el.setTilesMulti(xofs,yofs,tilemap);
+	}
+
+	public int getTileCidAtCoord(double x,double y) {
+		return el.getTileCidAtCoord(x,y);
+	}
+
+	public int getTileCid(JGPoint center, int xofs, int yofs) {
+		return el.getTileCid(center, xofs, yofs);
+	}
+
+	public String getTileStrAtCoord(double x,double y) {
+		return el.getTileStrAtCoord(x,y);
+	}
+
+	public String getTileStr(JGPoint center, int xofs, int yofs) {
+		return el.getTileStr(center, xofs,yofs);
+	}
+
+	public int tileStrToID(String tilestr) {
+		return el.tileStrToID(tilestr);
+	}
+
+	public String tileIDToStr(int tileid) {
+		return el.tileIDToStr(tileid);
+	}
+
+	/*====== math ======*/
+
+	public double moduloXPos(double x) {
+		return el.moduloXPos(x);
+	}
+
+	public double moduloYPos(double y) {
+		return el.moduloYPos(y);
+	}
+
+	public void setCanvasSettings(int nrtilesx,int nrtilesy,int tilex,int tiley,
+	JGColor fgcolor, JGColor bgcolor, JGFont msgfont) {
+		el.nrtilesx=nrtilesx;
+		el.nrtilesy=nrtilesy;
+		el.viewnrtilesx=nrtilesx;
+		el.viewnrtilesy=nrtilesy;
+		el.tilex=tilex;
+		el.tiley=tiley;
+		setColorsFont(fgcolor,bgcolor,msgfont);
+		el.view_initialised=true;
+	}
+
+	public void setScalingPreferences(double min_aspect_ratio, double
+	max_aspect_ratio,int crop_top,int crop_left,int crop_bottom,int crop_right){
+		el.min_aspect = min_aspect_ratio;
+		el.max_aspect = max_aspect_ratio;
+		el.crop_top = crop_top;
+		el.crop_left= crop_left;
+		el.crop_bottom = crop_bottom;
+		el.crop_right = crop_right;
+	}
+
+	public void setSmoothing(boolean smooth_magnify) {
+		el.smooth_magnify = smooth_magnify;
+	}
+
+	public boolean isMidlet() { return false; }
+
+	public boolean isOpenGL() { return false; }
+
+	public boolean isAndroid() { return false; }
+
+	public int viewWidth() { return el.viewnrtilesx*el.tilex; }
+
+	public int viewHeight() { return el.viewnrtilesy*el.tiley; }
+
+	public int viewTilesX() { return el.viewnrtilesx; }
+
+	public int viewTilesY() { return el.viewnrtilesy; }
+
+	public int viewXOfs() { return el.pendingxofs; }
+
+	public int viewYOfs() { return el.pendingyofs; }
+
+	public int pfWidth() { return el.nrtilesx*el.tilex; }
+
+	public int pfHeight() { return el.nrtilesy*el.tiley; }
+
+	public int pfTilesX() { return el.nrtilesx; }
+
+	public int pfTilesY() { return el.nrtilesy; }
+
+	public boolean pfWrapX() { return el.pf_wrapx; }
+
+	public boolean pfWrapY() { return el.pf_wrapy; }
+
+	public int tileWidth()  { return el.tilex; }
+
+	public int tileHeight() { return el.tiley; }
+
+	public int displayWidth() { return el.winwidth; }
+
+	public int displayHeight() { return el.winheight; }
+
+	public double getFrameRate() { return el.fps; }
+
+	public double getGameSpeed() { return el.gamespeed; }
+
+	public double getFrameSkip() { return el.maxframeskip; }
+
+	/** Always 1, as nothing is rendered. */
+	public double getFrameAlpha() { return 1.0; }
+
+	/** Only the logic time is measured. */
+	public String getFrameTimings() { return el.scheduler.getTimings(); }
+
+	public boolean getVideoSyncedUpdate() { return false; }
+
+	public int getOffscreenMarginX() { return el.offscreen_margin_x; }
+
+	public int getOffscreenMarginY() { return el.offscreen_margin_y; }
+
+	public double getXScaleFactor() { return el.x_scale_fac; }
+
+	public double getYScaleFactor() { return el.y_scale_fac; }
+
+	public double getMinScaleFactor() { return el.min_scale_fac; }
+
+	public void start() { running=true; }
+
+	public void stop() { running=false; }
+
+	public boolean isRunning() { return running; }
+
+	public void setViewOffset(int xofs,int yofs,boolean centered) {
+		el.setViewOffset(xofs,yofs,centered);
+	}
+
+	public void setBGImgOffset(int depth, double xofs, double yofs,
+	boolean centered) { }
+
+	public void setViewZoomRotate(double zoom, double rotate) { }
+
+	public void setPFSize(int nrtilesx,int nrtilesy) {
+		el.setPFSize(nrtilesx,nrtilesy);
+	}
+
+	public void setTileMapFile(String filename,boolean keep_contents) {
+		el.setTileMapFile(filename,keep_contents);
+	}
+
+	public void setPFWrap(boolean wrapx,boolean wrapy,int shiftx,int shifty) {
+		el.setPFWrap(wrapx,wrapy,shiftx,shifty);
+	}
+
+	public void setFrameRate(double fps, double maxframeskip) {
+		el.setFrameRate(fps, maxframeskip);
+	}
+
+	/** Has no effect, as nothing is rendered. */
+	public void setRenderRate(double render_fps) { }
+
+	/** Has no effect, as nothing is rendered. */
+	public void setDirtyRectRepaint(boolean enabled) { }
+
+	public void markDirty(double x,double y,double width,double height,
+	boolean pf_relative) { }
+
+	public void setVideoSyncedUpdate(boolean value) {}
+
+	public void setGameSpeed(double gamespeed) {
+		el.setGameSpeed(gamespeed);
+	}
+
+	public void setRenderSettings(int alpha_thresh,JGColor render_bg_col) {
+		el.setRenderSettings(alpha_thresh,render_bg_col);
+	}
+
+	public void setOffscreenMargin(int xmargin,int ymargin) {
+		el.setOffscreenMargin(xmargin,ymargin);
+	}
+
+	/** Set global foreground colour, used for printing text and status
+	 * messages.  It is also the default colour for painting */
+	public void setFGColor(JGColor fgcolor) { el.fg_color=fgcolor;  }
+
+	/** Set the (unscaled) message font, used for displaying status messages.
+	* It is also the default font for painting.  */
+	public void setMsgFont(JGFont msgfont) { el.msg_font = msgfont; }
+
+	/** Set foreground and background colour, and message font in one go;
+	* passing a null means ignore that argument. */
+	public void setColorsFont(JGColor fgcolor,JGColor bgcolor,JGFont msgfont) {
+		if (msgfont!=null) el.msg_font = msgfont;
+		if (fgcolor!=null) el.fg_color = fgcolor;
+		if (bgcolor!=null) setBGColor(bgcolor);
+	}
+
+	/** Set parameters of outline surrounding text (for example, used to
+	 *  increase contrast).
+	 * @param thickness 0 = turn off outline */
+	public void setTextOutline(int thickness,JGColor colour) {
+		// curiously, I've seen the init screen draw in-between these two
+		// statements.  Check of if that's what really happened
+		el.outline_colour=colour;
+		el.outline_thickness=thickness;
+	}
+
+	/* timers */
+
+	public void removeAllTimers() {
+		el.removeAllTimers();
+	}
+
+	public void registerTimer(JGTimer timer) {
+		el.registerTimer(timer);
+	}
+
+	/* game state */
+
+	public void setGameState(String state) {
+		el.setGameState(state);
+	}
+
+	public void addGameState(String state) {
+		el.addGameState(state);
+	}
+
+	public void removeGameState(String state) {
+		el.removeGameState(state);
+	}
+
+	public void clearGameState() {
+		el.clearGameState();
+	}
+
+	public boolean inGameState(String state) {
+		return el.inGameState(state);
+	}
+
+	public boolean inGameStateNextFrame(String state) {
+		return el.inGameStateNextFrame(state);
+	}
+
+	public void doFrame() {}
+
+	public void paintFrame() {}
+
+	public void setBlendMode(int src_func, int dst_func) { }
+
+	/** Has no effect, as nothing is rendered. */
+	public void setSpriteCache(long budget,int angle_steps,int scale_steps) {}
+
+	/** The particles are updated, but not drawn, as nothing is rendered. */
+	public void addParticleSystem(ParticleSystem ps) {
+		el.addParticleSystem(ps);
+	}
+
+	public void removeParticleSystem(ParticleSystem ps) {
+		el.removeParticleSystem(ps);
+	}
+
+	public void drawLine(double x1,double y1,double x2,double y2,
+	double thickness, JGColor color) {
+		if (color!=null) setColor(color);
+		setStroke(thickness);
+		drawLine(x1,y1,x2,y2,true);
+	}
+
+	public void drawLine(double x1,double y1,double x2,double y2) {
+		drawLine(x1,y1,x2,y2,true);
+	}
+
+	public void drawRect(double x,double y,double width,double height, boolean filled,
+	boolean centered, double thickness, JGColor color) {
+		if (color!=null) setColor(color);
+		setStroke(thickness);
+		drawRect(x,y,width,height,filled,centered,true);
+	}
+
+	public void drawRect(double x,double y,double width,double height, boolean filled,
+	boolean centered) {
+		drawRect(x,y,width,height,filled,centered,true);
+	}
+
+	public void drawOval(double x,double y,double width,double height, boolean filled,
+	boolean centered, double thickness, JGColor color) {
+		if (color!=null) setColor(color);
+		setStroke(thickness);
+		drawOval(x,y,width,height,filled,centered,true);
+	}
+
+	public void drawOval(double x,double y, double width,double height,boolean filled,
+	boolean centered) {
+		drawOval(x,y,width,height,filled,centered,true);
+	}
+
+	/* new versions of drawImage */
+
+	public void drawImage(String imgname,double x,double y) {
+		drawImage(x,y,imgname);
+	}
+
+	public void drawImage(String imgname,double x,double y,boolean pf_relative){
+		drawImage(x,y,imgname,pf_relative);
+	}
+
+	public void drawImage(String imgname, double x,double y,
+	boolean pf_relative,JGColor blend_col,
+	double alpha, double rot, double scale) {
+		drawImage(x,y,imgname,blend_col,alpha,rot,scale,pf_relative);
+	}
+
+	public void drawImageString(String string, double x, double y, int align,
+	String imgmap, int char_offset, int spacing) {
+		el.drawImageString(this,string,x,y,align,imgmap,char_offset,spacing,false);
+	}
+
+	public boolean hasMultitouch() { return false; }
+
+	public int [] touchGetIDs() { return null; }
+
+	public double touchGetX(int id) { return 0; }
+
+	public double touchGetY(int id) { return 0; }
+
+	public boolean touchIDExists(int id) { return false; }
+
+	public boolean hasAccelerometer() { return false; }
+
+	public double getAccelX() {
+		return 0;
+	}
+
+	public double getAccelY() {
+		return 0;
+	}
+
+	public double getAccelZ() {
+		return 1;
+	}
+
+	public double [] getAccelVec() {
+		return new double[] { 0,0,1 };
+	}
+
+	/*====== animation ======*/
+
+	public void defineAnimation (String id,
+	String [] frames, double speed) {
+		el.defineAnimation(id,frames,speed);
+	}
+
+	public void defineAnimation (String id,
+	String [] frames, double speed, boolean pingpong) {
+		el.defineAnimation(id,frames, speed, pingpong);
+	}
+
+	public Animation getAnimation(String id) {
+		return el.getAnimation(id);
+	}
+
+	/* computation */
+
+	public boolean and(int value, int mask) {
+		return el.and(value, mask);
+	}
+
+	public double random(double min, double max) {
+		return el.random(min, max);
+	}
+
+	public double random(double min, double max, double interval) {
+		return el.random(min, max, interval);
+	}
+
+	public int random(int min, int max, int interval) {
+		return el.random(min, max, interval);
+	}
+
+	public double atan2(double y,double x) {
+		return Math.atan2(y,x);
+	}
+
+	public JGPoint getTileIndex(double x, double y) {
+		return el.getTileIndex(x, y);
+	}
+
+	public JGPoint getTileCoord(int tilex, int tiley) {
+		return el.getTileCoord(tilex, tiley);
+	}
+
+	public JGPoint getTileCoord(JGPoint tileidx) {
+		return el.getTileCoord(tileidx);
+	}
+
+	public double snapToGridX(double x, double gridsnapx) {
+		return el.snapToGridX(x, gridsnapx);
+	}
+
+	public double snapToGridY(double y, double gridsnapy) {
+		return el.snapToGridY(y, gridsnapy);
+	}
+
+	public void snapToGrid(JGPoint p,int gridsnapx,int gridsnapy) {
+		el.snapToGrid(p,gridsnapx,gridsnapy);
+	}
+
+	public boolean isXAligned(double x,double margin) {
+		return el.isXAligned(x,margin);
+	}
+
+	public boolean isYAligned(double y,double margin) {
+		return el.isYAligned(y,margin);
+	}
+
+	public double getXAlignOfs(double x) {
+		return el.getXAlignOfs(x);
+	}
+
+	public double getYAlignOfs(double y) {
+		return el.getYAlignOfs(y);
+	}
+
+	public double getXDist(double x1, double x2) {
+		return el.getXDist(x1, x2);
+	}
+
+	public double getYDist(double y1, double y2) {
+		return el.getYDist(y1, y2);
+	}
+
+	public void defineAudioClip(String clipid,String filename) {
+		el.defineAudioClip(this,clipid,filename);
+	}
+
+	/*===== audio =====*/
+
+	public void enableAudio() { }
+
+	public void disableAudio() { }
+
+	/** Always null, audio is ignored. */
+	public String lastPlayedAudio(String channel) { return null; }
+
+	public void playAudio(String clipid) { }
+
+	public void playAudio(String channel,String clipid,boolean loop) { }
+
+	public void stopAudio(String channel) { }
+
+	public void stopAudio() { }
+
+
+	/*====== drawing ======*/
+
+	/* all drawing is ignored */
+
+	public void drawTile(int xi,int yi,int tileid) { }
+
+	public void setProgressBar(double pos) { }
+
+	public void setProgressMessage(String msg) { }
+
+	public void setAuthorMessage(String msg) { }
+
+	public void setBGColor(JGColor bgcolor) { el.bg_color=bgcolor; }
+
+	public void setMouseCursor(int cursor) { }
+
+	public void setMouseCursor(Object cursor) { }
+
+	public void setColor(JGColor col) { }
+
+	public void setFont(JGFont font) { }
+
+	public void setStroke(double thickness) { }
+
+	/** Always 0, as in JGEngine outside of paintFrame. */
+	public double getFontHeight(JGFont jgfont) { return 0.0; }
+
+	public void drawLine(double x1,double y1,double x2,double y2,
+	boolean pf_relative) { }
+
+	public void drawPolygon(double [] x,double [] y, JGColor [] col,int len,
+	boolean filled, boolean pf_relative) { }
+
+	public void drawRect(double x,double y,double width,double height,
+	boolean filled, boolean centered, boolean pf_relative) { }
+
+	public void drawRect(double x,double y,double width,double height,
+	boolean filled, boolean centered,boolean pf_relative,
+	JGColor [] shadecol) { }
+
+	public void drawRect(double x,double y,double width,double height,
+	boolean filled, boolean centered,boolean pf_relative,
+	JGColor [] shadecol,String tileimage) { }
+
+	public void drawOval(double x,double y, double width,double height,
+	boolean filled, boolean centered, boolean pf_relative) { }
+
+	public void drawImage(double x,double y,String imgname) { }
+
+	public void drawImage(double x,double y,String imgname,
+	boolean pf_relative) { }
+
+	public void drawImage(double x,double y,String imgname, JGColor blend_col,
+	double alpha, double rot, double scale, boolean pf_relative) { }
+
+	public void drawString(String str, double x, double y, int align,
+	JGFont font, JGColor color) { }
+
+	public void drawString(String str, double x, double y, int align) { }
+
+	public void drawString(String str, double x, double y, int align,
+	boolean pf_relative) { }
+
+	public void drawImageString(String string, double x, double y, int align,
+	String imgmap, int char_offset, int spacing,boolean pf_relative) { }
+
+
+	/*====== input ======*/
+
+	/* input can be simulated with setKey, setMouseButton */
+
+	public JGPoint getMousePos() { return new JGPoint(jre.mousepos.x,jre.mousepos.y); }
+	public int getMouseX() { return jre.mousepos.x; }
+	public int getMouseY() { return jre.mousepos.y; }
+
+	public boolean getMouseButton(int nr) { return jre.mousebutton[nr]; }
+	public void clearMouseButton(int nr) { jre.mousebutton[nr]=false; }
+	public void setMouseButton(int nr) { jre.mousebutton[nr]=true; }
+	public boolean getMouseInside() { return jre.mouseinside; }
+
+	public boolean getKey(int key) { return jre.keymap[key]; }
+	public void clearKey(int key) { jre.keymap[key]=false; }
+	public void setKey(int key) { jre.keymap[key]=true; }
+
+	public int getLastKey() { return jre.lastkey; }
+	public char getLastKeyChar() { return jre.lastkeychar; }
+	public void clearLastKey() { jre.clearLastKey(); }
+
+	public String getKeyDesc(int key) { return JREEngine.getKeyDescStatic(key); }
+
+	public int getKeyCode(String keydesc) { return JREEngine.getKeyCodeStatic(keydesc); }
+
+
+	/*====== debug ======*/
+
+	int debugflags = 0;
+	static final int FULLSTACKTRACE_DEBUG = 4;
+
+	/* debug display is ignored, except for stack traces */
+
+	public void dbgShowBoundingBox(boolean enabled) { }
+
+	public void dbgShowGameState(boolean enabled) { }
+
+	public void dbgShowFullStackTrace(boolean enabled) {
+		if (enabled) debugflags |=  FULLSTACKTRACE_DEBUG;
+		else         debugflags &= ~FULLSTACKTRACE_DEBUG;
+	}
+
+	public void dbgShowMessagesInPf(boolean enabled) { }
+
+	/** Only enables profiling, as nothing is shown.  Use getProfiler to
+	* read the profile. */
+	public void dbgShowProfile(boolean enabled) {
+		if (enabled && el.profiler==null) el.setProfiling(200);
+	}
+
+	public void setProfiling(int nr_frames) { el.setProfiling(nr_frames); }
+
+	public FrameProfiler getProfiler() { return el.profiler; }
+
+	public void dbgSetMessageExpiry(int ticks) { }
+
+	public void dbgSetMessageFont(JGFont font) { }
+
+	public void dbgSetDebugColor1(JGColor col) { }
+
+	public void dbgSetDebugColor2(JGColor col) { }
+
+	public void dbgPrint(String msg) { dbgPrint("MAIN",msg); }
+
+	public void dbgPrint(String source,String msg) {
+		System.out.println(source+": "+msg);
+	}
+
+	public void dbgShowException(String source, Throwable e) {
+		ByteArrayOutputStream st = new ByteArrayOutputStream();
+		e.printStackTrace(new PrintStream(st));
+		if ((debugflags&FULLSTACKTRACE_DEBUG)!=0) {
+			dbgPrint(source,st.toString());
+		} else {
+			StringTokenizer toker = new StringTokenizer(st.toString(),"\n");
+			if (toker.hasMoreTokens())
+				dbgPrint(source,toker.nextToken());
+			if (toker.hasMoreTokens())
+				dbgPrint(source,toker.nextToken());
+			if (toker.hasMoreTokens())
+				dbgPrint(source,toker.nextToken());
+		}
+	}
+
+	public String dbgExceptionToString(Throwable e) {
+		ByteArrayOutputStream st = new ByteArrayOutputStream();
+		e.printStackTrace(new PrintStream(st));
+		if ((debugflags&FULLSTACKTRACE_DEBUG)!=0) {
+			return st.toString();
+		} else {
+			StringTokenizer toker = new StringTokenizer(st.toString(),"\n");
+			String ret = toker.nextToken()+"\n";
+			ret       += toker.nextToken()+"\n";
+			if (toker.hasMoreTokens())
+				ret   += toker.nextToken();
+			return ret;
+		}
+	}
+
+
+	/*===== store =====*/
+
+	/* the store is kept in memory only, as storeInit is never called */
+
+	public void storeWriteInt(String id,int value) {
+		jre.storeWriteInt(id,value);
+	}
+
+	public void storeWriteDouble(String id,double value) {
+		jre.storeWriteDouble(id,value);
+	}
+
+	public void storeWriteString(String id,String value) {
+		jre.storeWriteString(id,value);
+	}
+
+	public void storeRemove(String id) {
+		jre.storeRemove(id);
+	}
+
+	public boolean storeExists(String id) {
+		return jre.storeExists(id);
+	}
+
+	public int storeReadInt(String id,int undef) {
+		return jre.storeReadInt(id,undef);
+	}
+
+	public double storeReadDouble(String id,double undef) {
+		return jre.storeReadDouble(id,undef);
+	}
+
+	public String storeReadString(String id,String undef) {
+		return jre.storeReadString(id,undef);
+	}
+
+	/** Always null, no files are written. */
+	public String getConfigPath(String filename) { return null; }
+
+	public int invokeUrl(String url,String target) { return 0; }
+
+	/*====== options ======*/
+
+	public void optsAddTitle(String title) { }
+
+	public void optsAddNumber(String varname,String title,String desc,
+	int decimals, double lower,double upper,double step, double initial) { }
+
+	public void optsAddBoolean(String varname,String title,String desc,
+	boolean initial) { }
+
+	public void optsAddEnum(String varname,String title,String desc,
+	String [] values, int initial) { }
+
+	public void optsAddKey(String varname,String title,String desc,int initial){
+	}
+
+	public void optsAddString(String varname,String title,String desc,
+	int maxlen, boolean isPassword, String initial) { }
+
+	public void optsClear() { }
+
+}
@@ -39,6 +39,18 @@ class JREImage implements JGImage {
 	/** used only for platforms using textures, otherwise null */
 	public Object texture=null, stretched_texture=null;
 
+	/** When true, display-compatible images are drawn from a managed copy,
+	 * see getDrawImage.  Set by the engine in accelerated render mode. */
+	static boolean managed_images=false;
+
+	/** true if image was produced by toDisplayCompatible, or by scaling
+	 * such an image */
+	boolean display_compatible=false;
+	/** transparency of a display-compatible image */
+	int transparency=Transparency.TRANSLUCENT;
+	/** managed copy of img, created on first draw, null = none yet */
+	Image managed=null;
+
 	/** Create new image */
 	JREImage (Image img) { this.img=img; }
 	/** Create handle to image functions. */
@@ -287,24 +299,34 @@ class JREImage implements JGImage {
 		} catch (Exception e) {
 			System.err.println("Error scaling image.");
 		}
-		return new JREImage(scaledimg);
+		JREImage scaled = new JREImage(scaledimg);
+		scaled.display_compatible = display_compatible;
+		scaled.transparency = transparency;
+		return scaled;
 	}
 	public static void ensureLoaded(Image img) throws Exception {
 		//System.err.println("In ensureloaded");
-		mediatracker.addImage(img,0);
+		// each call has its own id, so that images can be loaded by several
+		// threads at once without waiting for or failing on each other
+		int id = nextTrackerId();
+		mediatracker.addImage(img,id);
 		try {
-			mediatracker.waitForAll();
-			if (mediatracker.getErrorsAny()!=null) {
-				mediatracker.removeImage(img);
+			mediatracker.waitForID(id);
+			if (mediatracker.isErrorID(id)) {
+				mediatracker.removeImage(img,id);
 				throw new Exception("Error loading image");
 			}
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
-		mediatracker.removeImage(img);
+		mediatracker.removeImage(img,id);
 		//System.err.println("Out ensureloaded");
 	}
 
+	static int next_tracker_id=0;
+
+	static synchronized int nextTrackerId() { return next_tracker_id++; }
+
 	public JGImage crop(int x,int y, int width,int height) {
 		JGPoint size = getSize();
 		int [] buffer = getPixels(x,y, width,height);
@@ -405,11 +427,43 @@ class JREImage implements JGImage {
 				}
 			}
 		}
-		return new JREImage( output_comp.createImage(
+		JREImage compatible = new JREImage( output_comp.createImage(
 			new MemoryImageSource(size.x,size.y,
 				//rgb_bitmask,
 				img_bg.getColorModel(), // display compatible bitmask
 				bitmask ? thrsbuf : bg_buf, 0, size.x) ) );
+		compatible.display_compatible=true;
+		compatible.transparency = bitmask ? Transparency.BITMASK
+		                                  : Transparency.TRANSLUCENT;
+		return compatible;
+	}
+
+	/** Get the image to draw.  This is img, unless managed images are
+	* enabled and this is a display-compatible image.  Then, a copy of img in
+	* a compatible BufferedImage is made on the first call, and returned
+	* from then on.  Such an image is managed by Java2D: it is cached in
+	* video memory after a few draws, and restored automatically when the
+	* video memory copy is lost.  The images made by MemoryImageSource are
+	* not accelerated this way. */
+	public Image getDrawImage() {
+		if (!managed_images || !display_compatible) return img;
+		if (managed==null) {
+			JGPoint size = getSize();
+			if (size.x<=0 || size.y<=0) return img;
+			GraphicsConfiguration gc = output_comp.getGraphicsConfiguration();
+			BufferedImage copy;
+			if (gc!=null) {
+				copy = gc.createCompatibleImage(size.x,size.y,transparency);
+			} else {
+				copy = createCompatibleImage(size.x,size.y,transparency);
+			}
+			Graphics2D g = copy.createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(img,0,0,null);
+			g.dispose();
+			managed = copy;
+		}
+		return managed;
 	}
 
 	/** Create empty image with given alpha mode that should be efficient on
@@ -480,6 +534,18 @@ class JREImage implements JGImage {
 		}
 	}
 
+	/** Validate a scratch image before drawing on it, for use with
+	 * VolatileImages.  Returns VolatileImage.IMAGE_OK if the image can be used
+	 * as is, IMAGE_RESTORED if its contents were lost and have to be drawn
+	 * again, and IMAGE_INCOMPATIBLE if it has to be recreated.  Other images
+	 * are always OK. */
+	public static int validateScratchImage(Image img,Component comp) {
+		if (!(img instanceof VolatileImage)) return VolatileImage.IMAGE_OK;
+		GraphicsConfiguration gc = comp.getGraphicsConfiguration();
+		if (gc==null) return VolatileImage.IMAGE_OK;
+		return ((VolatileImage)img).validate(gc);
+	}
+
 	public static boolean isScratchImageValid(Image img) {
 		try {
 			Boolean lost=(Boolean)tryMethod(img,"contentsLost",new Object[]{});
@@ -0,0 +1,243 @@
+package jgame.platform;
+
+import jgame.*;
+import jgame.impl.JGameError;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.*;
+
+/** Bounded LRU cache of rotated, scaled and colour blended versions of
+ * images.  Rotation angles and scale factors are rounded to a fixed number
+ * of steps, so that a game that draws many sprites at slightly different
+ * angles and sizes only needs a limited number of transformed versions,
+ * which can then be drawn as plain images.  When the cached images take more
+ * than the memory budget, the least recently used ones are dropped.
+ *
+ * <p>Alpha is not cached, as it typically changes every frame (fades).  The
+ * compositor applies it when drawing.  The cache is only used by the
+ * painting thread, and is not synchronized.
+ */
+public class SpriteCache {
+
+	/** Transformed image, with its position relative to the top-left of the
+	* original. */
+	public static class Entry {
+		/** the original image, used to detect images that were redefined */
+		Image src;
+		public BufferedImage img;
+		public int xofs,yofs;
+		int bytes;
+	}
+
+	/** Cache key; one instance is reused for lookups */
+	static class Key {
+		String name;
+		int angle,scale,blend;
+		Key set(String name,int angle,int scale,int blend) {
+			this.name=name;
+			this.angle=angle;
+			this.scale=scale;
+			this.blend=blend;
+			return this;
+		}
+		public boolean equals(Object o) {
+			Key k = (Key)o;
+			return angle==k.angle && scale==k.scale && blend==k.blend
+				&& name.equals(k.name);
+		}
+		public int hashCode() {
+			return ((name.hashCode()*31 + angle)*31 + scale)*31 + blend;
+		}
+	}
+
+	/** Key -&gt; Entry, in access order */
+	LinkedHashMap<Key,Entry> entries
+		= new LinkedHashMap<Key,Entry>(64,0.75f,true);
+	Key lookup = new Key();
+
+	long budget;
+	int angle_steps,scale_steps;
+	long used_bytes=0;
+
+	long hits=0, misses=0, evictions=0;
+
+	/** @param budget  max bytes taken by the cached images
+	* @param angle_steps  nr of rotation steps in a full circle
+	* @param scale_steps  nr of scale steps per unit of scale */
+	public SpriteCache(long budget,int angle_steps,int scale_steps) {
+		configure(budget,angle_steps,scale_steps);
+	}
+
+	/** Change settings.  Clears the cache if the quantization changes. */
+	public void configure(long budget,int angle_steps,int scale_steps) {
+		if (angle_steps < 1 || scale_steps < 1)
+			throw new JGameError("Sprite cache steps should be at least 1",true);
+		if (angle_steps!=this.angle_steps || scale_steps!=this.scale_steps)
+			clear();
+		this.budget = Math.max(0,budget);
+		this.angle_steps=angle_steps;
+		this.scale_steps=scale_steps;
+		evict();
+	}
+
+	/** Get transformed version of an image, creating it if it is not
+	* cached.  Rotation and scaling are around the image center.
+	* @param name  name of the image, used as key
+	* @param src  original image
+	* @param blend_col  colour to multiply image with, null=none
+	* @param rot  rotation in radians
+	* @param scale  scale factor, 1 = original size
+	* @return null if the scaled image is empty */
+	public Entry get(String name,Image src,JGColor blend_col,double rot,
+	double scale) {
+		double turn = rot/(2*Math.PI);
+		int angle = (int)Math.round((turn-Math.floor(turn))*angle_steps);
+		if (angle==angle_steps) angle=0;
+		int sc = (int)Math.round(scale*scale_steps);
+		int blend = blend_col==null ? 0 : (blend_col.alpha<<24)
+			| (blend_col.r<<16) | (blend_col.g<<8) | blend_col.b;
+		Entry e = entries.get(lookup.set(name,angle,sc,blend));
+		if (e!=null && e.src==src) {
+			hits++;
+			return e;
+		}
+		misses++;
+		if (e!=null) remove(lookup);
+		if (sc <= 0) return null;
+		e = transform(src,blend_col,2*Math.PI*angle/angle_steps,
+			(double)sc/scale_steps);
+		if (e==null) return null;
+		if (e.bytes <= budget) {
+			entries.put(new Key().set(name,angle,sc,blend),e);
+			used_bytes += e.bytes;
+			evict();
+		}
+		return e;
+	}
+
+	/** Create a transformed version of an image, without caching it.  Used
+	* by get, and by the compositor when the cache is disabled.
+	* @return null if the transformed image is empty */
+	static Entry transform(Image src,JGColor blend_col,double rot,
+	double scale) {
+		int sw = src.getWidth(null);
+		int sh = src.getHeight(null);
+		if (sw<=0 || sh<=0) return null;
+		AffineTransform tr = AffineTransform.getRotateInstance(rot,sw/2.0,sh/2.0);
+		tr.concatenate(AffineTransform.getScaleInstance(scale,scale));
+		tr.concatenate(AffineTransform.getTranslateInstance(
+			sw*(1-scale)/(2*scale), sh*(1-scale)/(2*scale) ));
+		Rectangle bounds = tr.createTransformedShape(
+			new Rectangle(0,0,sw,sh)).getBounds();
+		if (bounds.width<=0 || bounds.height<=0) return null;
+		Entry e = new Entry();
+		e.src = src;
+		e.xofs = bounds.x;
+		e.yofs = bounds.y;
+		e.img = new BufferedImage(bounds.width,bounds.height,
+			BufferedImage.TYPE_INT_ARGB_PRE);
+		e.bytes = 4*bounds.width*bounds.height;
+		Graphics2D g = e.img.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+			RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.translate(-bounds.x,-bounds.y);
+		g.drawImage(src,tr,null);
+		g.dispose();
+		if (blend_col!=null) blend(e.img,blend_col);
+		return e;
+	}
+
+	/** multiply the colour components of img with blend_col */
+	static void blend(BufferedImage img,JGColor blend_col) {
+		int w=img.getWidth(), h=img.getHeight();
+		int [] pix = img.getRGB(0,0,w,h,null,0,w);
+		int br=blend_col.r, bg=blend_col.g, bb=blend_col.b;
+		int ba=blend_col.alpha;
+		for (int i=0; i<pix.length; i++) {
+			int p = pix[i];
+			pix[i] = ((((p>>>24)     *ba)/255)<<24)
+			       | (((((p>>16)&255)*br)/255)<<16)
+			       | (((((p>> 8)&255)*bg)/255)<< 8)
+			       |  ((( p     &255)*bb)/255);
+		}
+		img.setRGB(0,0,w,h,pix,0,w);
+	}
+
+	void remove(Key key) {
+		Entry e = entries.remove(key);
+		if (e!=null) used_bytes -= e.bytes;
+	}
+
+	/** drop least recently used entries until within budget */
+	void evict() {
+		Iterator<Entry> it = entries.values().iterator();
+		while (used_bytes > budget && it.hasNext()) {
+			Entry e = it.next();
+			it.remove();
+			used_bytes -= e.bytes;
+			evictions++;
+		}
+	}
+
+	/** Remove all cached images; statistics are kept. */
+	public void clear() {
+		entries.clear();
+		used_bytes=0;
+	}
+
+	/** Reset hit, miss and eviction counts. */
+	public void resetStats() {
+		hits=0;
+		misses=0;
+		evictions=0;
+	}
+
+	public long getHits() { return hits; }
+	public long getMisses() { return misses; }
+	public long getEvictions() { return evictions; }
+	public int getNrEntries() { return entries.size(); }
+	public long getUsedBytes() { return used_bytes; }
+	public long getBudget() { return budget; }
+
+	/** Fraction of lookups that were hits, 0 if there were no lookups. */
+	public double getHitRatio() {
+		if (hits+misses==0) return 0;
+		return (double)hits/(hits+misses);
+	}
+
+	public String toString() {
+		return "SpriteCache: "+entries.size()+" images, "+(used_bytes>>10)
+			+"K of "+(budget>>10)+"K, hits "+hits+" misses "+misses
+			+" evictions "+evictions;
+	}
+
+
+	/** test method: check bucketing, eviction and budget */
+	public static void main(String [] args) {
+		System.out.println("Testing SpriteCache ...");
+		BufferedImage img = new BufferedImage(16,16,BufferedImage.TYPE_INT_ARGB);
+		BufferedImage img2 = new BufferedImage(16,16,BufferedImage.TYPE_INT_ARGB);
+		SpriteCache cache = new SpriteCache(64*1024,32,8);
+		Entry e1 = cache.get("a",img,null,0.01,1.0);
+		Entry e2 = cache.get("a",img,null,0.02+2*Math.PI,1.01);
+		if (e1!=e2 || cache.getHits()!=1 || cache.getMisses()!=1)
+			throw new Error("Assertion failure: bucket");
+		if (e1.img.getWidth()!=16 || e1.xofs!=0 || e1.yofs!=0)
+			throw new Error("Assertion failure: identity transform");
+		Entry e3 = cache.get("a",img,null,0,2.0);
+		if (e3.img.getWidth()!=32 || e3.xofs!=-8)
+			throw new Error("Assertion failure: scale around center");
+		if (cache.get("a",img2,null,0,1.0)==e1)
+			throw new Error("Assertion failure: redefined image");
+		for (int i=0; i<1000; i++) {
+			cache.get("a",img,new JGColor(i&255,0,0),i*0.1,1+(i%5));
+			if (cache.getUsedBytes() > cache.getBudget())
+				throw new Error("Assertion failure: budget");
+		}
+		if (cache.getEvictions()==0)
+			throw new Error("Assertion failure: no evictions");
+		System.out.println(cache);
+	}
+
+}
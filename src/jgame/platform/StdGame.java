@@ -78,6 +78,14 @@ public abstract class StdGame extends JGEngine {
 	/** Flag indicating that audio is enabled */
 	public boolean audioenabled=true;
 
+	/** Setting indicating that the accelerated render path should be used,
+	 * see setAcceleratedRender.  It is passed to the engine only when it
+	 * changes, so a fallback to the plain render path sticks until the user
+	 * changes the setting again. */
+	public boolean accel_graphics=false;
+	/** accel_graphics value last passed to the engine */
+	private boolean accel_graphics_applied=false;
+
 	/** Flag indicating that sound enable dialog should be shown at startup */
 	public boolean audio_dialog_at_startup=true;
 	/** flag indicating that accelerometer set zero point menu should be
@@ -500,6 +508,8 @@ public abstract class StdGame extends JGEngine {
 			getClass().getName().indexOf('.')+1 )+" settings",  this,
 			getConfigPath(getClass().getName()+".cfg") );
 		appconfig.defineField("audioenabled","Enable Sound","boolean");
+		appconfig.defineField("accel_graphics","Accelerated Graphics",
+			"boolean");
 		appconfig.defineFields("key_","","","","key");
 		appconfig.loadFromFile();
 		appconfig.saveToObject();
@@ -512,10 +522,15 @@ public abstract class StdGame extends JGEngine {
 	* press the key_startgame, then sets gametime to 0, calls initNewGame,
 	* defineLevel, and goes to StartLevel. It also handles the continue_game
 	* key inside the sequences, and the gamesettings and quitprogram keys in
-	* Title.  It also ensures the audioenabled flag is passed to engine. */
+	* Title.  It also ensures the audioenabled flag is passed to engine, and
+	* passes accel_graphics whenever it changes. */
 	public void doFrame() {
 		// pass audioenabled
 		if (audioenabled) { enableAudio(); } else { disableAudio(); }
+		if (accel_graphics!=accel_graphics_applied) {
+			accel_graphics_applied=accel_graphics;
+			setAcceleratedRender(accel_graphics);
+		}
 		// handle pause mode
 		if (inGameState("Paused")) {
 			clearKey(key_pausegame);
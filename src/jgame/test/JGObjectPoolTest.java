@@ -0,0 +1,97 @@
+package jgame.test;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.Vector;
+import jgame.JGObject;
+import jgame.JGObjectPool;
+import jgame.platform.JGHeadlessEngine;
+
+/** Spawns pooled objects from move() methods that run in parallel. */
+public class JGObjectPoolTest {
+
+	static final int NR_OBJECTS = 2048;
+	static final int NR_FRAMES = 40;
+
+	PoolEngine eng;
+
+	/** Object that removes itself every few frames, and spawns a
+	* replacement from the pool, in a parallel move. */
+	class Bullet extends JGObject {
+		int age=0;
+		Bullet(JGObjectPool pool) {
+			super(pool,0,0,1,null);
+			parallel_move=true;
+		}
+		public void move() {
+			age++;
+			if ((age+getId())%3 == 0) {
+				remove();
+				JGObjectPoolTest.this.eng.spawn();
+			}
+		}
+	}
+
+	class PoolEngine extends JGHeadlessEngine {
+		JGObjectPool pool = new JGObjectPool("bullet",2*NR_OBJECTS);
+		Vector errors = new Vector();
+		public void initCanvas() {
+			setCanvasSettings(20,15,16,16,null,null,null);
+		}
+		public void initGame() {
+			setParallelMove(4);
+			for (int i=0; i<NR_OBJECTS; i++) spawn();
+		}
+		void spawn() {
+			Bullet b = (Bullet)pool.obtain();
+			if (b==null) {
+				new Bullet(pool);
+			} else {
+				b.age=0;
+				b.respawn(0,0,1,null,JGObject.expire_never,0,0);
+			}
+		}
+		public void doFrame() {
+			// the replacements of last frame's removed objects are added now
+			Vector objs = getObjects("bullet",0,true,null);
+			if (objs.size() != NR_OBJECTS)
+				errors.addElement(objs.size()+" objects");
+			for (int i=0; i<objs.size(); i++) {
+				if (!((JGObject)objs.elementAt(i)).isAlive())
+					errors.addElement("removed object in engine");
+			}
+			if (pool.getNrFree()+NR_OBJECTS != pool.getNrCreated())
+				errors.addElement(pool.getNrFree()+" free objects, "
+					+pool.getNrCreated()+" created");
+			moveObjects(null,0);
+		}
+	}
+
+	@Before
+	public void setUp () {
+		eng = new PoolEngine();
+		eng.initEngineHeadless();
+	}
+
+	@After
+	public void tearDown () {
+		eng.setParallelMove(0);
+		eng.destroy();
+	}
+
+	@Test
+	public void testSpawnFromParallelMove () {
+		assertEquals(NR_FRAMES, eng.advanceFrames(NR_FRAMES));
+		assertEquals("[]", eng.errors.toString());
+		JGObjectPool pool = eng.pool;
+		assertTrue(pool.getHits() > 0);
+		// a new object is created for every obtain that found none
+		assertEquals(pool.getNrCreated(), pool.getMisses());
+		// about a third of the objects is replaced every frame
+		long spawned = pool.getHits()+pool.getMisses()-NR_OBJECTS;
+		assertTrue(spawned >= (long)NR_FRAMES*NR_OBJECTS/4);
+	}
+
+}
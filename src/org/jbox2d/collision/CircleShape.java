@@ -107,19 +107,31 @@ public class CircleShape extends Shape {
  }*/
     
     public void computeAABB(AABB aabb, XForm transform) {
-    	Vec2 p = transform.position.add(Mat22.mul(transform.R, m_localPosition));
-    	aabb.lowerBound.set(p.x - m_radius, p.y - m_radius);
-    	aabb.upperBound.set(p.x + m_radius, p.y + m_radius);
+    	//Vec2 p = transform.position.add(Mat22.mul(transform.R, m_localPosition));
+    	Mat22 R = transform.R;
+    	Vec2 v = m_localPosition;
+    	float px = transform.position.x + (R.col1.x * v.x + R.col2.x * v.y);
+    	float py = transform.position.y + (R.col1.y * v.x + R.col2.y * v.y);
+    	aabb.lowerBound.set(px - m_radius, py - m_radius);
+    	aabb.upperBound.set(px + m_radius, py + m_radius);
     }
 
     public void computeSweptAABB(AABB aabb, XForm transform1, XForm transform2) {
-    	Vec2 p1 = transform1.position.add(Mat22.mul(transform1.R, m_localPosition));
-    	Vec2 p2 = transform2.position.add(Mat22.mul(transform2.R, m_localPosition));
-    	Vec2 lower = Vec2.min(p1, p2);
-    	Vec2 upper = Vec2.max(p1, p2);
-
-    	aabb.lowerBound.set(lower.x - m_radius, lower.y - m_radius);
-    	aabb.upperBound.set(upper.x + m_radius, upper.y + m_radius);
+    	Vec2 v = m_localPosition;
+    	Mat22 R = transform1.R;
+    	float p1x = transform1.position.x + (R.col1.x * v.x + R.col2.x * v.y);
+    	float p1y = transform1.position.y + (R.col1.y * v.x + R.col2.y * v.y);
+    	R = transform2.R;
+    	float p2x = transform2.position.x + (R.col1.x * v.x + R.col2.x * v.y);
+    	float p2y = transform2.position.y + (R.col1.y * v.x + R.col2.y * v.y);
+    	// Vec2.min and Vec2.max of p1 and p2
+    	float lowerx = p1x < p2x ? p1x : p2x;
+    	float lowery = p1y < p2y ? p1y : p2y;
+    	float upperx = p1x > p2x ? p1x : p2x;
+    	float uppery = p1y > p2y ? p1y : p2y;
+
+    	aabb.lowerBound.set(lowerx - m_radius, lowery - m_radius);
+    	aabb.upperBound.set(upperx + m_radius, uppery + m_radius);
     	//System.out.println("Circle swept AABB: " + aabb.lowerBound + " " + aabb.upperBound);
     	//System.out.println("Transforms: "+transform1.position+ " " + transform2.position+"\n");
     	
@@ -30,23 +30,49 @@ import org.jbox2d.common.*;
 /**
  * Circle/circle and circle/polygon overlap solver -
  * for internal use only.
+ * <BR><BR>
+ * An instance holds the scratch vectors of the solver, so collide does
+ * not allocate. The static methods use a new instance for each call.
  */
 public class CollideCircle {
 
+    final Vec2 p1 = new Vec2();
+
+    final Vec2 p2 = new Vec2();
+
+    final Vec2 p = new Vec2();
+
+    final Vec2 e = new Vec2();
+
+    final Vec2 d = new Vec2();
+
     public static void collideCircles(Manifold manifold, 
     		CircleShape circle1, XForm xf1,
             CircleShape circle2, XForm xf2) {
+        new CollideCircle().collide(manifold, circle1, xf1, circle2, xf2);
+    }
+
+    public static void collidePolygonAndCircle(Manifold manifold, 
+    		PolygonShape polygon, XForm xf1,
+            CircleShape circle, XForm xf2) {
+        new CollideCircle().collide(manifold, polygon, xf1, circle, xf2);
+    }
+
+    /** Compute the manifold of two circles. */
+    public void collide(Manifold manifold, 
+    		CircleShape circle1, XForm xf1,
+            CircleShape circle2, XForm xf2) {
         manifold.pointCount = 0;
 
-    	Vec2 p1 = XForm.mul(xf1, circle1.getLocalPosition());
-    	Vec2 p2 = XForm.mul(xf2, circle2.getLocalPosition());
+    	XForm.mulToOut(xf1, circle1.m_localPosition, p1);
+    	XForm.mulToOut(xf2, circle2.m_localPosition, p2);
 
-    	Vec2 d = p2.sub(p1);
+    	d.set(p2.x - p1.x, p2.y - p1.y);
         
     	float distSqr = Vec2.dot(d, d);
 
-    	float r1 = circle1.getRadius();
-    	float r2 = circle2.getRadius();
+    	float r1 = circle1.m_radius;
+    	float r2 = circle2.m_radius;
     	float radiusSum = r1+r2;
         if (distSqr > radiusSum * radiusSum) {
             return;
@@ -70,36 +96,43 @@ public class CollideCircle {
         manifold.points[0].id.zero(); //use this instead of zeroing through key
         manifold.points[0].separation = separation;
 
-    	p1.addLocal(manifold.normal.mul(r1));
-    	p2.subLocal(manifold.normal.mul(r2));
+    	p1.x += manifold.normal.x * r1;
+    	p1.y += manifold.normal.y * r1;
+    	p2.x -= manifold.normal.x * r2;
+    	p2.y -= manifold.normal.y * r2;
 
-    	Vec2 p = new Vec2(0.5f * (p1.x + p2.x), 0.5f * (p1.y + p2.y));
+    	p.set(0.5f * (p1.x + p2.x), 0.5f * (p1.y + p2.y));
 
-    	manifold.points[0].localPoint1 = XForm.mulT(xf1, p);
-    	manifold.points[0].localPoint2 = XForm.mulT(xf2, p);
+    	XForm.mulTToOut(xf1, p, manifold.points[0].localPoint1);
+    	XForm.mulTToOut(xf2, p, manifold.points[0].localPoint2);
 
     }
 
-    public static void collidePolygonAndCircle(Manifold manifold, 
+    /** Compute the manifold of a polygon and a circle. */
+    public void collide(Manifold manifold, 
     		PolygonShape polygon, XForm xf1,
             CircleShape circle, XForm xf2) {
     	
         manifold.pointCount = 0;
 
         // Compute circle position in the frame of the polygon.
-        Vec2 c = XForm.mul(xf2, circle.getLocalPosition());
-    	Vec2 cLocal = XForm.mulT(xf1, c);
+        Vec2 c = p1;
+        Vec2 cLocal = p2;
+        XForm.mulToOut(xf2, circle.m_localPosition, c);
+    	XForm.mulTToOut(xf1, c, cLocal);
 
         // Find edge with maximum separation.
         int normalIndex = 0;
         float separation = -Float.MAX_VALUE;
-        float radius = circle.getRadius();
-        int vertexCount = polygon.getVertexCount();
-        Vec2[] vertices = polygon.getVertices();
-        Vec2[] normals = polygon.getNormals();
+        float radius = circle.m_radius;
+        int vertexCount = polygon.m_vertexCount;
+        Vec2[] vertices = polygon.m_vertices;
+        Vec2[] normals = polygon.m_normals;
         for (int i = 0; i < vertexCount; ++i) {
 
-            float s = Vec2.dot(normals[i], cLocal.sub(vertices[i]));
+            //float s = Vec2.dot(normals[i], cLocal.sub(vertices[i]));
+            float s = normals[i].x * (cLocal.x - vertices[i].x)
+                    + normals[i].y * (cLocal.y - vertices[i].y);
             if (s > circle.m_radius) {
                 // Early out.
                 return;
@@ -113,14 +146,14 @@ public class CollideCircle {
         // If the center is inside the polygon ...
         if (separation < Settings.EPSILON) {
             manifold.pointCount = 1;
-            manifold.normal = Mat22.mul(xf1.R, normals[normalIndex]);
+            Mat22.mulToOut(xf1.R, normals[normalIndex], manifold.normal);
             manifold.points[0].id.features.incidentEdge = normalIndex;
             manifold.points[0].id.features.incidentVertex = Collision.NULL_FEATURE;
             manifold.points[0].id.features.referenceEdge = 0;
             manifold.points[0].id.features.flip = 0;
-    		Vec2 position = c.sub(manifold.normal.mul(radius));
-    		manifold.points[0].localPoint1 = XForm.mulT(xf1, position);
-    		manifold.points[0].localPoint2 = XForm.mulT(xf2, position);
+    		p.set(c.x - manifold.normal.x * radius, c.y - manifold.normal.y * radius);
+    		XForm.mulTToOut(xf1, p, manifold.points[0].localPoint1);
+    		XForm.mulTToOut(xf2, p, manifold.points[0].localPoint2);
             manifold.points[0].separation = separation - radius;
             return;
         }
@@ -128,14 +161,16 @@ public class CollideCircle {
         // Project the circle center onto the edge segment.
         int vertIndex1 = normalIndex;
         int vertIndex2 = vertIndex1 + 1 < vertexCount ? vertIndex1 + 1 : 0;
-        Vec2 e = vertices[vertIndex2].sub(vertices[vertIndex1]);
+        e.set(vertices[vertIndex2].x - vertices[vertIndex1].x,
+                vertices[vertIndex2].y - vertices[vertIndex1].y);
         float length = e.normalize();
         //assert(length > Settings.EPSILON);
 
         // Project the center onto the edge.
-        float u = Vec2.dot(cLocal.sub(vertices[vertIndex1]), e);
+        //float u = Vec2.dot(cLocal.sub(vertices[vertIndex1]), e);
+        float u = (cLocal.x - vertices[vertIndex1].x) * e.x
+                + (cLocal.y - vertices[vertIndex1].y) * e.y;
 
-        Vec2 p = new Vec2();
         if (u <= 0.0f) {
             p.set(vertices[vertIndex1]);
             manifold.points[0].id.features.incidentEdge = Collision.NULL_FEATURE;
@@ -154,7 +189,7 @@ public class CollideCircle {
             manifold.points[0].id.features.incidentVertex = 0;
         }
 
-        Vec2 d = cLocal.sub(p);
+        d.set(cLocal.x - p.x, cLocal.y - p.y);
         float dist = d.normalize();
         if (dist > radius) {
             return;
@@ -162,10 +197,10 @@ public class CollideCircle {
 
         manifold.pointCount = 1;
         
-    	manifold.normal = Mat22.mul(xf1.R, d);
-    	Vec2 position = c.sub(manifold.normal.mul(radius));
-    	manifold.points[0].localPoint1 = XForm.mulT(xf1, position);
-    	manifold.points[0].localPoint2 = XForm.mulT(xf2, position);
+    	Mat22.mulToOut(xf1.R, d, manifold.normal);
+    	p.set(c.x - manifold.normal.x * radius, c.y - manifold.normal.y * radius);
+    	XForm.mulTToOut(xf1, p, manifold.points[0].localPoint1);
+    	XForm.mulTToOut(xf2, p, manifold.points[0].localPoint2);
         manifold.points[0].separation = dist - radius;
         manifold.points[0].id.features.referenceEdge = 0;
         manifold.points[0].id.features.flip = 0;
@@ -27,7 +27,12 @@ import org.jbox2d.common.*;
 
 //Updated to rev 55->108->139 of b2CollidePoly.cpp 
 
-/** Polygon overlap solver - for internal use. */
+/**
+ * Polygon overlap solver - for internal use.
+ * <BR><BR>
+ * An instance holds the scratch objects of the solver, so collide does
+ * not allocate. collidePolygons uses a new instance for each call.
+ */
 public class CollidePoly {
     static class ClipVertex {
         Vec2 v;
@@ -44,6 +49,22 @@ public class CollidePoly {
 		}
     }
 
+    final ClipVertex[] incidentEdge = { new ClipVertex(), new ClipVertex() };
+
+    final ClipVertex[] clipPoints1 = { new ClipVertex(), new ClipVertex() };
+
+    final ClipVertex[] clipPoints2 = { new ClipVertex(), new ClipVertex() };
+
+    final MaxSeparation sepA = new MaxSeparation();
+
+    final MaxSeparation sepB = new MaxSeparation();
+
+    final Vec2 sideNormal = new Vec2();
+
+    final Vec2 negSideNormal = new Vec2();
+
+    final Vec2 frontNormal = new Vec2();
+
     static int clipSegmentToLine(ClipVertex vOut[], ClipVertex vIn[],
             Vec2 normal, float offset) {
         // Start with no output points
@@ -53,24 +74,18 @@ public class CollidePoly {
         float distance0 = Vec2.dot(normal, vIn[0].v) - offset;
         float distance1 = Vec2.dot(normal, vIn[1].v) - offset;
 
-		// Clipvertex constructors are optimised
+		// The output clip vertices are reused, vOut and vIn must differ.
 
         // If the points are behind the plane
         if (distance0 <= 0.0f) {
-            vOut[numOut] = new ClipVertex(new ContactID(vIn[0].id));
-            //vOut[numOut] = new ClipVertex();
-            //vOut[numOut].id = new ContactID(vIn[0].id);
+            vOut[numOut].id.set(vIn[0].id);
             vOut[numOut].v.x = vIn[0].v.x;
             vOut[numOut++].v.y = vIn[0].v.y;
-            //vOut[numOut++].v = vIn[0].v.clone();
         }
         if (distance1 <= 0.0f) {
-            vOut[numOut] = new ClipVertex(new ContactID(vIn[1].id));
-            //vOut[numOut] = new ClipVertex();
-            //vOut[numOut].id = new ContactID(vIn[1].id);
+            vOut[numOut].id.set(vIn[1].id);
             vOut[numOut].v.x = vIn[1].v.x;
             vOut[numOut++].v.y = vIn[1].v.y;
-            //vOut[numOut++].v = vIn[1].v.clone();
         }
 
         // If the points are on different sides of the plane
@@ -78,10 +93,10 @@ public class CollidePoly {
             // Find intersection point of edge and plane
             float interp = distance0 / (distance0 - distance1);
             if (distance0 > 0.0f) {
-            	vOut[numOut] = new ClipVertex(new ContactID(vIn[0].id));
+            	vOut[numOut].id.set(vIn[0].id);
             }
             else {
-            	vOut[numOut] = new ClipVertex(new ContactID(vIn[1].id));
+            	vOut[numOut].id.set(vIn[1].id);
             }
             vOut[numOut].v.x = vIn[0].v.x + interp * (vIn[1].v.x - vIn[0].v.x);
             vOut[numOut].v.y = vIn[0].v.y + interp * (vIn[1].v.y - vIn[0].v.y);
@@ -103,19 +118,15 @@ public class CollidePoly {
     	int count2 = poly2.m_vertexCount;
     	Vec2[] vertices2 = poly2.m_vertices;
 
-        //int count1 = poly1.getVertexCount();
-    	//Vec2[] vertices1 = poly1.getVertices();
-    	//Vec2[] normals1 = poly1.getNormals();
-
-    	//int count2 = poly2.getVertexCount();
-    	//Vec2[] vertices2 = poly2.getVertices();
-
     	//assert(0 <= edge1 && edge1 < count1);
 
     	// Convert normal from poly1's frame into poly2's frame.
-    	Vec2 normal1World = Mat22.mul(xf1.R, normals1[edge1]);
-    	float normal1x = Vec2.dot(normal1World, xf2.R.col1);
-    	float normal1y = Vec2.dot(normal1World, xf2.R.col2);
+    	//Vec2 normal1World = Mat22.mul(xf1.R, normals1[edge1]);
+    	Vec2 n = normals1[edge1];
+    	float normal1Worldx = xf1.R.col1.x * n.x + xf1.R.col2.x * n.y;
+    	float normal1Worldy = xf1.R.col1.y * n.x + xf1.R.col2.y * n.y;
+    	float normal1x = normal1Worldx * xf2.R.col1.x + normal1Worldy * xf2.R.col1.y;
+    	float normal1y = normal1Worldx * xf2.R.col2.x + normal1Worldy * xf2.R.col2.y;
 
         // Find support vertex on poly2 for -normal.
         int index = 0;
@@ -138,22 +149,23 @@ public class CollidePoly {
     	float v2x = xf2.position.x + xf2.R.col1.x * v3.x + xf2.R.col2.x * v3.y;
     	float v2y = xf2.position.y + xf2.R.col1.y * v3.x + xf2.R.col2.y * v3.y;
 		//float separation = Vec2.dot(v2.sub(v1), normal1World);
-    	float separation = (v2x-v1x) * normal1World.x + (v2y-v1y) * normal1World.y;
+    	float separation = (v2x-v1x) * normal1Worldx + (v2y-v1y) * normal1Worldy;
         
         return separation;
     }
 
     // Find the max separation between poly1 and poly2 using face normals
     // from poly1.
-    static MaxSeparation findMaxSeparation(PolygonShape poly1, XForm xf1,
-    									   PolygonShape poly2, XForm xf2) {
-        MaxSeparation separation = new MaxSeparation();
+    static void findMaxSeparation(MaxSeparation separation,
+    							  PolygonShape poly1, XForm xf1,
+    							  PolygonShape poly2, XForm xf2) {
+        separation.bestFaceIndex = 0;
 
-        int count1 = poly1.getVertexCount();
-        Vec2[] normals1 = poly1.getNormals();
+        int count1 = poly1.m_vertexCount;
+        Vec2[] normals1 = poly1.m_normals;
         
-		Vec2 v = poly1.getCentroid();
-		Vec2 v1 = poly2.getCentroid();
+		Vec2 v = poly1.m_centroid;
+		Vec2 v1 = poly2.m_centroid;
         
         // Vector pointing from the centroid of poly1 to the centroid of poly2.
         //Vec2 d = XForm.mul(xf2, poly2.m_centroid).subLocal(XForm.mul(xf1, poly1.m_centroid));
@@ -164,13 +176,14 @@ public class CollidePoly {
     			 - (xf1.position.y + xf1.R.col1.y * v.x + xf1.R.col2.y * v.y);
 		Vec2 b = xf1.R.col1;
 		Vec2 b1 = xf1.R.col2;
-    	Vec2 dLocal1 = new Vec2((dx * b.x + dy * b.y), (dx * b1.x + dy * b1.y));
+    	float dLocal1x = (dx * b.x + dy * b.y);
+    	float dLocal1y = (dx * b1.x + dy * b1.y);
 
     	// Find edge normal on poly1 that has the largest projection onto d.
         int edge = 0;
         float maxDot = -Float.MAX_VALUE;
         for (int i = 0; i < count1; ++i) {
-            float dot = Vec2.dot(normals1[i], dLocal1);
+            float dot = normals1[i].x * dLocal1x + normals1[i].y * dLocal1y;
             if (dot > maxDot) {
                 maxDot = dot;
                 edge = i;
@@ -181,7 +194,7 @@ public class CollidePoly {
         float s = edgeSeparation(poly1, xf1, edge, poly2, xf2);
         if (s > 0.0f){
             separation.bestSeparation = s;
-            return separation;
+            return;
         }
 
         // Check the separation for the previous edge normal.
@@ -189,14 +202,14 @@ public class CollidePoly {
         float sPrev = edgeSeparation(poly1, xf1, prevEdge, poly2, xf2);
         if (sPrev > 0.0f) {
             separation.bestSeparation = sPrev;
-            return separation;
+            return;
         }
 
         int nextEdge = edge + 1 < count1 ? edge + 1 : 0;
         float sNext = edgeSeparation(poly1, xf1, nextEdge, poly2, xf2);
         if (sNext > 0.0f){
             separation.bestSeparation = sNext;
-            return separation;
+            return;
         }
 
         // Find the best edge and the search direction.
@@ -215,7 +228,7 @@ public class CollidePoly {
         } else {
             separation.bestFaceIndex = edge;
             separation.bestSeparation = s;
-            return separation;
+            return;
         }
 
         // Perform a local search for the best edge normal.
@@ -228,7 +241,7 @@ public class CollidePoly {
             s = edgeSeparation(poly1, xf1, edge, poly2, xf2);
             if (s > 0.0f) {
                 separation.bestSeparation = s;
-                return separation;
+                return;
             }
 
             if (s > bestSeparation){
@@ -241,31 +254,34 @@ public class CollidePoly {
 
         separation.bestFaceIndex = bestEdge;
         separation.bestSeparation = bestSeparation;
-
-        return separation;
     }
 
     static void findIncidentEdge(ClipVertex c[], 
     							 PolygonShape poly1, XForm xf1, int edge1,
     							 PolygonShape poly2, XForm xf2) {
     	
-    	int count1 = poly1.getVertexCount();
-    	Vec2[] normals1 = poly1.getNormals();
+    	int count1 = poly1.m_vertexCount;
+    	Vec2[] normals1 = poly1.m_normals;
 
-    	int count2 = poly2.getVertexCount();
-    	Vec2[] vertices2 = poly2.getVertices();
-    	Vec2[] normals2 = poly2.getNormals();
+    	int count2 = poly2.m_vertexCount;
+    	Vec2[] vertices2 = poly2.m_vertices;
+    	Vec2[] normals2 = poly2.m_normals;
 
     	//assert(0 <= edge1 && edge1 < count1);
 
     	// Get the normal of the reference edge in poly2's frame.
-    	Vec2 normal1 = Mat22.mulT(xf2.R, Mat22.mul(xf1.R, normals1[edge1]));
+    	//Vec2 normal1 = Mat22.mulT(xf2.R, Mat22.mul(xf1.R, normals1[edge1]));
+    	Vec2 n = normals1[edge1];
+    	float nx = xf1.R.col1.x * n.x + xf1.R.col2.x * n.y;
+    	float ny = xf1.R.col1.y * n.x + xf1.R.col2.y * n.y;
+    	float normal1x = nx * xf2.R.col1.x + ny * xf2.R.col1.y;
+    	float normal1y = nx * xf2.R.col2.x + ny * xf2.R.col2.y;
 
     	// Find the incident edge on poly2.
     	int index = 0;
     	float minDot = Float.MAX_VALUE;
     	for (int i = 0; i < count2; ++i) {
-    		float dot = Vec2.dot(normal1, normals2[i]);
+    		float dot = normal1x * normals2[i].x + normal1y * normals2[i].y;
     		if (dot < minDot) {
     			minDot = dot;
     			index = i;
@@ -275,24 +291,28 @@ public class CollidePoly {
     	// Build the clip vertices for the incident edge.
     	int i1 = index;
     	int i2 = i1 + 1 < count2 ? i1 + 1 : 0;
-    	
-    	c[0] = new ClipVertex();
-    	c[1] = new ClipVertex();
 
-    	c[0].v = XForm.mul(xf2, vertices2[i1]);
+    	XForm.mulToOut(xf2, vertices2[i1], c[0].v);
+    	c[0].id.zero();
     	c[0].id.features.referenceEdge = edge1;
     	c[0].id.features.incidentEdge = i1;
     	c[0].id.features.incidentVertex = 0;
-    	
-    	
 
-    	c[1].v = XForm.mul(xf2, vertices2[i2]);
+    	XForm.mulToOut(xf2, vertices2[i2], c[1].v);
+    	c[1].id.zero();
     	c[1].id.features.referenceEdge = edge1;
     	c[1].id.features.incidentEdge = i2;
     	c[1].id.features.incidentVertex = 1;
     	
     }
 
+    /** Collide two polygons with a new solver, see collide. */
+    public static void collidePolygons(Manifold manif, 
+    		PolygonShape polyA, XForm xfA,
+            PolygonShape polyB, XForm xfB) {
+        new CollidePoly().collide(manif, polyA, xfA, polyB, xfB);
+    }
+
     // Find edge normal of max separation on A - return if separating axis is
     // found
     // Find edge normal of max separation on B - return if separation axis is
@@ -301,27 +321,27 @@ public class CollidePoly {
     // Find incident edge
     // Clip
 
-    // The normal points from 1 to 2
-    public static void collidePolygons(Manifold manif, 
+    /** Compute the manifold of two polygons. The normal points from 1 to 2. */
+    public void collide(Manifold manif, 
     		PolygonShape polyA, XForm xfA,
             PolygonShape polyB, XForm xfB) {
 
         //testbed.PTest.debugCount++;
         manif.pointCount = 0; // Fixed a problem with contacts
-        MaxSeparation sepA = findMaxSeparation(polyA, xfA, polyB, xfB);
+        findMaxSeparation(sepA, polyA, xfA, polyB, xfB);
         if (sepA.bestSeparation > 0.0f) {
             return;
         }
 
-        MaxSeparation sepB = findMaxSeparation(polyB, xfB, polyA, xfA);
+        findMaxSeparation(sepB, polyB, xfB, polyA, xfA);
         if (sepB.bestSeparation > 0.0f) {
             return;
         }
 
         PolygonShape poly1; // reference poly
         PolygonShape poly2; // incident poly
-        XForm xf1 = new XForm();
-        XForm xf2 = new XForm();
+        XForm xf1;
+        XForm xf2;
         int edge1; // reference edge
         byte flip;
         float k_relativeTol = 0.98f;
@@ -332,32 +352,36 @@ public class CollidePoly {
                 + k_absoluteTol) {
             poly1 = polyB;
             poly2 = polyA;
-            xf1.set(xfB);
-    		xf2.set(xfA);
+            xf1 = xfB;
+    		xf2 = xfA;
             edge1 = sepB.bestFaceIndex;
             flip = 1;
         }
         else {
             poly1 = polyA;
             poly2 = polyB;
-            xf1.set(xfA);
-    		xf2.set(xfB);
+            xf1 = xfA;
+    		xf2 = xfB;
             edge1 = sepA.bestFaceIndex;
             flip = 0;
         }
 
-        ClipVertex incidentEdge[] = new ClipVertex[2];
         findIncidentEdge(incidentEdge, poly1, xf1, edge1, poly2, xf2);
 
-        int count1 = poly1.getVertexCount();
-        Vec2[] vertices1 = poly1.getVertices();
+        int count1 = poly1.m_vertexCount;
+        Vec2[] vertices1 = poly1.m_vertices;
 
         Vec2 v11 = vertices1[edge1];
         Vec2 v12 = edge1 + 1 < count1 ? vertices1[edge1 + 1] : vertices1[0];
 
-        Vec2 sideNormal = Mat22.mul(xf1.R, v12.sub(v11));
+        //Vec2 sideNormal = Mat22.mul(xf1.R, v12.sub(v11));
+        float ex = v12.x - v11.x;
+        float ey = v12.y - v11.y;
+        sideNormal.x = xf1.R.col1.x * ex + xf1.R.col2.x * ey;
+        sideNormal.y = xf1.R.col1.y * ex + xf1.R.col2.y * ey;
         sideNormal.normalize();
-        Vec2 frontNormal = Vec2.cross(sideNormal, 1.0f);
+        //Vec2 frontNormal = Vec2.cross(sideNormal, 1.0f);
+        frontNormal.set(sideNormal.y, -sideNormal.x);
 
         //v11 = XForm.mul(xf1, v11);
     	//v12 = XForm.mul(xf1, v12);
@@ -371,12 +395,11 @@ public class CollidePoly {
         float sideOffset2 = sideNormal.x * v12x + sideNormal.y * v12y;
 
         // Clip incident edge against extruded edge1 side edges.
-        ClipVertex clipPoints1[] = new ClipVertex[2];
-        ClipVertex clipPoints2[] = new ClipVertex[2];
         int np;
 
         // Clip to box side 1
-        np = clipSegmentToLine(clipPoints1, incidentEdge, sideNormal.negate(), sideOffset1);
+        negSideNormal.set(-sideNormal.x, -sideNormal.y);
+        np = clipSegmentToLine(clipPoints1, incidentEdge, negSideNormal, sideOffset1);
 
         if (np < 2) {
             return;
@@ -391,7 +414,11 @@ public class CollidePoly {
         }
 
         // Now clipPoints2 contains the clipped points.
-        manif.normal = (flip != 0) ? frontNormal.negate() : frontNormal.clone();
+        if (flip != 0) {
+            manif.normal.set(-frontNormal.x, -frontNormal.y);
+        } else {
+            manif.normal.set(frontNormal);
+        }
 
         int pointCount = 0;
         for (int i = 0; i < Settings.maxManifoldPoints; ++i) {
@@ -414,7 +441,7 @@ public class CollidePoly {
 				cp.localPoint2.x = (v1x * xfB.R.col1.x + v1y * xfB.R.col1.y);
     			cp.localPoint2.y = (v1x * xfB.R.col2.x + v1y * xfB.R.col2.y);
     			
-    			cp.id = new ContactID(clipPoints2[i].id);
+    			cp.id.set(clipPoints2[i].id);
                 cp.id.features.flip = flip;
                 ++pointCount;
             }
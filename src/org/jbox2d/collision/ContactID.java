@@ -111,4 +111,10 @@ public class ContactID {
         features = new Features(c.features);
     }
 
+    /** Set this to a copy of another id. */
+    public void set(ContactID c) {
+        key = c.key;
+        features.set(c.features);
+    }
+
 }
@@ -45,10 +45,56 @@ import org.jbox2d.common.*;
 
 //updated to rev 108->139 of b2Distance.cpp
 
-/** Implements the GJK algorithm for computing distance between shapes. */
+/**
+ * Implements the GJK algorithm for computing distance between shapes.
+ * <BR><BR>
+ * An instance holds the scratch vectors of the algorithm, so compute does
+ * not allocate. The static methods use a new instance for each call.
+ */
 public class Distance{
 	public static int g_GJK_Iterations = 0;
 
+	final Vec2[] p1s = { new Vec2(), new Vec2(), new Vec2() };
+
+	final Vec2[] p2s = { new Vec2(), new Vec2(), new Vec2() };
+
+	final Vec2[] points = { new Vec2(), new Vec2(), new Vec2() };
+
+	final Vec2 v = new Vec2();
+
+	final Vec2 vNeg = new Vec2();
+
+	final Vec2 w = new Vec2();
+
+	final Vec2 w1 = new Vec2();
+
+	final Vec2 w2 = new Vec2();
+
+	final Vec2 d = new Vec2();
+
+	final Vec2 p1 = new Vec2();
+
+	final Vec2 p2 = new Vec2();
+
+	final Point point = new Point(new Vec2(0.0f, 0.0f));
+
+	/**
+	 * If set, computeGeneric starts from the closest points of the previous
+	 * call, moved along with the shapes, instead of from their first
+	 * vertices. This gives a better first search direction when the
+	 * shapes moved little. Only set it for calls on the same pair of shapes,
+	 * as TOI does for its iterations.
+	 */
+	public boolean warmStart;
+
+	/** Number of computeGeneric calls that were warm started. */
+	public static int g_GJK_WarmStarts = 0;
+
+	// The closest points of the previous computeGeneric, in shape frames.
+	final Vec2 localX1 = new Vec2();
+
+	final Vec2 localX2 = new Vec2();
+
 	// GJK using Voronoi regions (Christer Ericson) and region selection
 	// optimizations (Casey Muratori).
 
@@ -56,10 +102,20 @@ public class Distance{
 	// not in region of points[0] because that is the old point.
 	protected static int ProcessTwo(Vec2 x1, Vec2 x2, Vec2[] p1s, Vec2[] p2s, Vec2[] points) {
 		// If in point[1] region
-		Vec2 r = new Vec2(-points[1].x,-points[1].y);
-		Vec2 d = new Vec2(points[0].x - points[1].x,points[0].y - points[1].y);
-		float length = d.normalize();
-		float lambda = Vec2.dot(r, d);
+		float rx = -points[1].x;
+		float ry = -points[1].y;
+		float dx = points[0].x - points[1].x;
+		float dy = points[0].y - points[1].y;
+		// d.normalize()
+		float length = (float) Math.sqrt(dx * dx + dy * dy);
+		if (length < Settings.EPSILON) {
+			length = 0f;
+		} else {
+			float invLength = 1.0f / length;
+			dx *= invLength;
+			dy *= invLength;
+		}
+		float lambda = rx * dx + ry * dy;
 		if (lambda <= 0.0f || length < Settings.EPSILON) {
 			// The simplex is reduced to a point.
 			x1.set(p1s[1]);
@@ -89,13 +145,13 @@ public class Distance{
 		Vec2 b = points[1];
 		Vec2 c = points[2];
 
-		Vec2 ab = b.sub(a);
-		Vec2 ac = c.sub(a);
-		Vec2 bc = c.sub(b);
+		float abx = b.x - a.x, aby = b.y - a.y;
+		float acx = c.x - a.x, acy = c.y - a.y;
+		float bcx = c.x - b.x, bcy = c.y - b.y;
 
-		float sn = -Vec2.dot(a, ab), sd = Vec2.dot(b, ab);
-		float tn = -Vec2.dot(a, ac), td = Vec2.dot(c, ac);
-		float un = -Vec2.dot(b, bc), ud = Vec2.dot(c, bc);
+		float sn = -(a.x * abx + a.y * aby), sd = b.x * abx + b.y * aby;
+		float tn = -(a.x * acx + a.y * acy), td = c.x * acx + c.y * acy;
+		float un = -(b.x * bcx + b.y * bcy), ud = c.x * bcx + c.y * bcy;
 
 		// In vertex c region?
 		if (td <= 0.0f && ud <= 0.0f) {
@@ -114,7 +170,7 @@ public class Distance{
 		//assert(sn > 0.0f || tn > 0.0f);
 		//assert(sd > 0.0f || un > 0.0f);
 
-		float n = Vec2.cross(ab, ac);
+		float n = abx * acy - aby * acx;
 
 		// Should not be in edge ab region.
 		float vc = n * Vec2.cross(a, b);
@@ -166,33 +222,27 @@ public class Distance{
 
 	protected static boolean InPoints(Vec2 w, Vec2[] points, int pointCount) {
 		float k_tolerance = 100.0f * Settings.EPSILON;
-		Vec2 d=new Vec2(0,0);
-		Vec2 m=new Vec2(0,0);
-		Vec2 abs_pi = new Vec2(0,0);
-		Vec2 wsubp = new Vec2(0,0);
+		float dx = 0, dy = 0;
+		float mx = 0, my = 0;
 		for (int i = 0; i < pointCount; ++i) {
 			// Vec2.abs, Vec2.max, Vec2.sub inlined (midp)
-    		//implementation Vec2.abs:
-			//    return new Vec2(Math.abs(a.x), Math.abs(a.y));
 			Vec2 pi = points[i];
-			wsubp.x = w.x-pi.x;
-			wsubp.y = w.y-pi.y;
-			d.x = wsubp.x > 0f ? d.x : -d.x;
-			d.y = wsubp.y > 0f ? d.y : -d.y;
-			m.x = w.x > 0 ? w.x : -w.x;
-			m.y = w.y > 0 ? w.y : -w.y;
-			abs_pi.x = pi.x > 0 ? pi.x : -pi.x;
-			abs_pi.y = pi.y > 0 ? pi.y : -pi.y;
-			if (abs_pi.x > m.x) m.x = abs_pi.x;
-			if (abs_pi.y > m.y) m.y = abs_pi.y;
+			float wsubpx = w.x-pi.x;
+			float wsubpy = w.y-pi.y;
+			dx = wsubpx > 0f ? wsubpx : -wsubpx;
+			dy = wsubpy > 0f ? wsubpy : -wsubpy;
+			mx = w.x > 0 ? w.x : -w.x;
+			my = w.y > 0 ? w.y : -w.y;
+			float abs_pix = pi.x > 0 ? pi.x : -pi.x;
+			float abs_piy = pi.y > 0 ? pi.y : -pi.y;
+			if (abs_pix > mx) mx = abs_pix;
+			if (abs_piy > my) my = abs_piy;
 			// the original code:
 			//Vec2 d =Vec2.abs(w.sub(points[i])); 
 			//Vec2 m = Vec2.max(Vec2.abs(w), Vec2.abs(points[i]));
 
-//				new Vec2( Math.abs(w.x-points[i].x), Math.abs(w.y-points[i].y));//Vec2.abs(w - points[i]);
-			
-			if (d.x < k_tolerance * (m.x + 1.0f) &&
-				d.y < k_tolerance * (m.y + 1.0f)) {
+			if (dx < k_tolerance * (mx + 1.0f) &&
+				dy < k_tolerance * (my + 1.0f)) {
 				return true;
 			}
 		}
@@ -217,34 +267,51 @@ public class Distance{
 	public static float DistanceGeneric(Vec2 x1, Vec2 x2,
 						  SupportsGenericDistance shape1, XForm xf1,
 						  SupportsGenericDistance shape2, XForm xf2) {
-		Vec2 p1s[] = new Vec2[3];
-		Vec2 p2s[] = new Vec2[3];
-		Vec2 points[] = new Vec2[3];
-		
-		for (int i=0; i<3; ++i) {
-			p1s[i] = new Vec2();
-			p2s[i] = new Vec2();
-			points[i] = new Vec2();
+		return new Distance().computeGeneric(x1, x2, shape1, xf1, shape2, xf2);
+	}
+
+	/** Like DistanceGeneric, using the scratch vectors of this instance. */
+	public float computeGeneric(Vec2 x1, Vec2 x2,
+						  SupportsGenericDistance shape1, XForm xf1,
+						  SupportsGenericDistance shape2, XForm xf2) {
+		if (warmStart) {
+			++g_GJK_WarmStarts;
+			XForm.mulToOut(xf1, localX1, x1);
+			XForm.mulToOut(xf2, localX2, x2);
+		} else {
+			shape1.getFirstVertexToOut(xf1, x1);
+			shape2.getFirstVertexToOut(xf2, x2);
 		}
-		
-		int pointCount = 0;
 
-		x1.set(shape1.getFirstVertex(xf1));
-		x2.set(shape2.getFirstVertex(xf2));
+		float distance = iterate(x1, x2, shape1, xf1, shape2, xf2);
+
+		XForm.mulTToOut(xf1, x1, localX1);
+		XForm.mulTToOut(xf2, x2, localX2);
+		return distance;
+	}
+
+	/** The GJK iterations, starting from x1 and x2. */
+	private float iterate(Vec2 x1, Vec2 x2,
+						  SupportsGenericDistance shape1, XForm xf1,
+						  SupportsGenericDistance shape2, XForm xf2) {
+		int pointCount = 0;
 
 		float vSqr = 0.0f;
 		int maxIterations = 20;
 		for (int iter = 0; iter < maxIterations; ++iter) {
-			Vec2 v = x2.sub(x1);
-			Vec2 w1 = shape1.support(xf1, v);
-			Vec2 w2 = shape2.support(xf2, v.negate());
+			v.set(x2.x - x1.x, x2.y - x1.y);
+			shape1.supportToOut(xf1, v, w1);
+			vNeg.set(-v.x, -v.y);
+			shape2.supportToOut(xf2, vNeg, w2);
 
 			vSqr = Vec2.dot(v, v);
-			Vec2 w = w2.sub(w1);
+			w.set(w2.x - w1.x, w2.y - w1.y);
 			float vw = Vec2.dot(v, w);
 			if (vSqr - vw <= 0.01f * vSqr || InPoints(w, points, pointCount)) // or w in points
 			{
-				if (pointCount == 0) {
+				// When warm started, x1 and x2 are already points at the
+				// distance found, and w1 and w2 need not be.
+				if (pointCount == 0 && !warmStart) {
 					x1.set(w1);
 					x2.set(w2);
 				}
@@ -289,10 +356,12 @@ public class Distance{
 				maxSqr = Math.max(maxSqr, Vec2.dot(points[i], points[i]));
 			}
 
+			// Test the new closest points: the vSqr of the old ones can be
+			// tiny when warm started, while the new ones are far apart.
+			v.set(x2.x - x1.x, x2.y - x1.y);// x2 - x1
+			vSqr = Vec2.dot(v, v);
 			if (pointCount == 3 || vSqr <= 100.0f * Settings.EPSILON * maxSqr) {
 				g_GJK_Iterations = iter;
-				v.set(x2.x - x1.x, x2.y - x1.y);// x2 - x1
-				vSqr = Vec2.dot(v, v);
 
 				return (float)Math.sqrt(vSqr);
 				//
@@ -308,14 +377,21 @@ public class Distance{
 		Vec2 x1, Vec2 x2,
 		CircleShape circle1, XForm xf1,
 		CircleShape circle2, XForm xf2) {
+		return new Distance().computeCC(x1, x2, circle1, xf1, circle2, xf2);
+	}
+
+	protected float computeCC(
+		Vec2 x1, Vec2 x2,
+		CircleShape circle1, XForm xf1,
+		CircleShape circle2, XForm xf2) {
 		
-		Vec2 p1 = XForm.mul(xf1, circle1.getLocalPosition());
-		Vec2 p2 = XForm.mul(xf2, circle2.getLocalPosition());
+		XForm.mulToOut(xf1, circle1.m_localPosition, p1);
+		XForm.mulToOut(xf2, circle2.m_localPosition, p2);
 
-		Vec2 d = new Vec2(p2.x - p1.x, p2.y - p1.y);
+		d.set(p2.x - p1.x, p2.y - p1.y);
 		float dSqr = Vec2.dot(d, d);
-		float r1 = circle1.getRadius() - Settings.toiSlop;
-		float r2 = circle2.getRadius() - Settings.toiSlop;
+		float r1 = circle1.m_radius - Settings.toiSlop;
+		float r2 = circle2.m_radius - Settings.toiSlop;
 		float r = r1 + r2;
 		if (dSqr > r * r){
 			float dLen = d.normalize();
@@ -345,16 +421,24 @@ public class Distance{
 		Vec2 x1, Vec2 x2,
 		PolygonShape polygon, XForm xf1,
 		CircleShape circle,   XForm xf2) {
-		Point point = new Point(new Vec2(0.0f, 0.0f));
-		point.p = XForm.mul(xf2, circle.getLocalPosition());
+		return new Distance().computePC(x1, x2, polygon, xf1, circle, xf2);
+	}
 
-		float distance = DistanceGeneric(x1, x2, polygon, xf1, point, XForm.identity);
+	protected float computePC(
+		Vec2 x1, Vec2 x2,
+		PolygonShape polygon, XForm xf1,
+		CircleShape circle,   XForm xf2) {
+		// The point is the circle center in the frame of the circle, so
+		// warm starting moves it along with the circle.
+		point.p.set(circle.m_localPosition);
 
-		float r = circle.getRadius() - Settings.toiSlop;
+		float distance = computeGeneric(x1, x2, polygon, xf1, point, xf2);
+
+		float r = circle.m_radius - Settings.toiSlop;
 
 		if (distance > r) {
 			distance -= r;
-			Vec2 d = x2.sub(x1);
+			d.set(x2.x - x1.x, x2.y - x1.y);
 			d.normalize();
 			x2.x -= r * d.x;
 			x2.y -= r * d.y;
@@ -382,24 +466,31 @@ public class Distance{
 	public static float distance(Vec2 x1, Vec2 x2,
 					 Shape shape1, XForm xf1,
 					 Shape shape2, XForm xf2) {
+		return new Distance().compute(x1, x2, shape1, xf1, shape2, xf2);
+	}
+
+	/** Like distance, using the scratch vectors of this instance. */
+	public float compute(Vec2 x1, Vec2 x2,
+					 Shape shape1, XForm xf1,
+					 Shape shape2, XForm xf2) {
 		
 		int type1 = shape1.getType();
 		int type2 = shape2.getType();
 
 		if (type1 == ShapeType.CIRCLE_SHAPE && type2 == ShapeType.CIRCLE_SHAPE) {
-			return DistanceCC(x1, x2, (CircleShape)shape1, xf1, (CircleShape)shape2, xf2);
+			return computeCC(x1, x2, (CircleShape)shape1, xf1, (CircleShape)shape2, xf2);
 		}
 		
 		if (type1 == ShapeType.POLYGON_SHAPE && type2 == ShapeType.CIRCLE_SHAPE) {
-			return DistancePC(x1, x2, (PolygonShape)shape1, xf1, (CircleShape)shape2, xf2);
+			return computePC(x1, x2, (PolygonShape)shape1, xf1, (CircleShape)shape2, xf2);
 		}
 
 		if (type1 == ShapeType.CIRCLE_SHAPE && type2 == ShapeType.POLYGON_SHAPE) {
-			return DistancePC(x2, x1, (PolygonShape)shape2, xf2, (CircleShape)shape1, xf1);
+			return computePC(x2, x1, (PolygonShape)shape2, xf2, (CircleShape)shape1, xf1);
 		}
 
 		if (type1 == ShapeType.POLYGON_SHAPE && type2 == ShapeType.POLYGON_SHAPE) {
-			return DistanceGeneric(x1, x2, (PolygonShape)shape1, xf1, (PolygonShape)shape2, xf2);
+			return computeGeneric(x1, x2, (PolygonShape)shape1, xf1, (PolygonShape)shape2, xf2);
 		}
 
 		return 0.0f;
@@ -409,6 +500,7 @@ public class Distance{
 
 // This is used for polygon-vs-circle distance.
 class Point implements SupportsGenericDistance{
+	/** The point, in the frame of the XForms passed in. */
 	public Vec2 p;
 	
 	public Point(Vec2 _p) {
@@ -416,11 +508,19 @@ class Point implements SupportsGenericDistance{
 	}
 	
 	public Vec2 support(XForm xf, Vec2 v) {
-		return p;
+		return XForm.mul(xf, p);
 	}
 
 	public Vec2 getFirstVertex(XForm xf) {
-		return p;
+		return XForm.mul(xf, p);
+	}
+
+	public void supportToOut(XForm xf, Vec2 v, Vec2 out) {
+		XForm.mulToOut(xf, p, out);
+	}
+
+	public void getFirstVertexToOut(XForm xf, Vec2 out) {
+		XForm.mulToOut(xf, p, out);
 	}
 	
 }
@@ -0,0 +1,616 @@
+/*
+ * JBox2D - A Java Port of Erin Catto's Box2D
+ *
+ * JBox2D homepage: http://jbox2d.sourceforge.net/
+ * Box2D homepage: http://www.box2d.org
+ *
+ * This software is provided 'as-is', without any express or implied
+ * warranty.  In no event will the authors be held liable for any damages
+ * arising from the use of this software.
+ *
+ * Permission is granted to anyone to use this software for any purpose,
+ * including commercial applications, and to alter it and redistribute it
+ * freely, subject to the following restrictions:
+ *
+ * 1. The origin of this software must not be misrepresented; you must not
+ * claim that you wrote the original software. If you use this software
+ * in a product, an acknowledgment in the product documentation would be
+ * appreciated but is not required.
+ * 2. Altered source versions must be plainly marked as such, and must not be
+ * misrepresented as being the original software.
+ * 3. This notice may not be removed or altered from any source distribution.
+ */
+
+package org.jbox2d.collision;
+
+import org.jbox2d.common.Settings;
+
+//Based on b2DynamicTree.h/.cpp of Box2D 2.2
+
+/**
+ * A dynamic AABB tree broad-phase, inspired by Nathanael Presson's btDbvt.
+ * A dynamic tree arranges data in a binary tree to accelerate
+ * queries such as volume queries and ray casts. Leafs are proxies
+ * with an AABB. In the tree we expand the proxy AABB by Settings.aabbExtension
+ * so that the proxy AABB is bigger than the client object. This allows the client
+ * object to move by small amounts without triggering a tree update.
+ * <p>
+ * Nodes are pooled and relocatable, so we use node indices rather than references.
+ * The pool doubles when it is full. The tree is kept balanced with AVL
+ * rotations, so updates and queries are O(log n).
+ */
+public class DynamicTree {
+    public static final int NULL_NODE = -1;
+
+    public int m_root;
+
+    public DynamicTreeNode m_nodes[];
+
+    public int m_nodeCount;
+
+    public int m_nodeCapacity;
+
+    int m_freeList;
+
+    /** Number of leaf reinsertions, for profiling. */
+    public int m_insertionCount;
+
+    int m_stack[];
+
+    /** Results of the last query, valid up to the returned count. */
+    public int m_queryResults[];
+
+    public DynamicTree() {
+        this(16);
+    }
+
+    public DynamicTree(int initialCapacity) {
+        m_root = NULL_NODE;
+        m_nodeCount = 0;
+        m_nodeCapacity = 0;
+        m_nodes = new DynamicTreeNode[0];
+        m_freeList = NULL_NODE;
+        m_insertionCount = 0;
+        m_stack = new int[64];
+        m_queryResults = new int[64];
+        grow(Math.max(initialCapacity, 1));
+    }
+
+    /**
+     * Create a proxy in the tree as a leaf node. We return the index
+     * of the node instead of a reference so that we can grow
+     * the node pool.
+     */
+    public int createProxy(AABB aabb, Object userData) {
+        int proxyId = allocateNode();
+
+        // Fatten the aabb.
+        DynamicTreeNode node = m_nodes[proxyId];
+        setFat(node.aabb, aabb);
+        node.userData = userData;
+        node.height = 0;
+
+        insertLeaf(proxyId);
+
+        return proxyId;
+    }
+
+    /** Destroy a proxy. This asserts if the id is invalid. */
+    public void destroyProxy(int proxyId) {
+        //assert(0 <= proxyId && proxyId < m_nodeCapacity);
+        //assert(m_nodes[proxyId].isLeaf());
+
+        removeLeaf(proxyId);
+        freeNode(proxyId);
+    }
+
+    /**
+     * Move a proxy. If the proxy has moved outside of its fattened AABB,
+     * then the proxy is removed from the tree and re-inserted. Otherwise
+     * the function returns immediately.
+     * @return true if the proxy was re-inserted.
+     */
+    public boolean moveProxy(int proxyId, AABB aabb) {
+        //assert(0 <= proxyId && proxyId < m_nodeCapacity);
+        //assert(m_nodes[proxyId].isLeaf());
+
+        DynamicTreeNode node = m_nodes[proxyId];
+        if (contains(node.aabb, aabb)) {
+            return false;
+        }
+
+        removeLeaf(proxyId);
+        setFat(node.aabb, aabb);
+        insertLeaf(proxyId);
+        return true;
+    }
+
+    public Object getUserData(int proxyId) {
+        return m_nodes[proxyId].userData;
+    }
+
+    /** Get the fat AABB for a proxy. Do not modify it. */
+    public AABB getFatAABB(int proxyId) {
+        return m_nodes[proxyId].aabb;
+    }
+
+    /**
+     * Find the proxies whose fat AABB overlaps the query box. The ids are
+     * stored in m_queryResults, which is reused by the next query.
+     * @return the number of proxies found.
+     */
+    public int query(AABB aabb) {
+        return query(aabb.lowerBound.x, aabb.lowerBound.y,
+                aabb.upperBound.x, aabb.upperBound.y);
+    }
+
+    public int query(float lowerX, float lowerY, float upperX, float upperY) {
+        int count = 0;
+        if (m_root == NULL_NODE) {
+            return 0;
+        }
+
+        int stackCount = 0;
+        m_stack[stackCount++] = m_root;
+
+        while (stackCount > 0) {
+            int nodeId = m_stack[--stackCount];
+            DynamicTreeNode node = m_nodes[nodeId];
+            AABB b = node.aabb;
+
+            if (b.lowerBound.x > upperX || b.lowerBound.y > upperY
+                    || lowerX > b.upperBound.x || lowerY > b.upperBound.y) {
+                continue;
+            }
+
+            if (node.isLeaf()) {
+                if (count == m_queryResults.length) {
+                    int[] results = new int[2 * count];
+                    System.arraycopy(m_queryResults, 0, results, 0, count);
+                    m_queryResults = results;
+                }
+                m_queryResults[count++] = nodeId;
+            }
+            else {
+                if (stackCount + 2 > m_stack.length) {
+                    int[] stack = new int[2 * m_stack.length];
+                    System.arraycopy(m_stack, 0, stack, 0, stackCount);
+                    m_stack = stack;
+                }
+                m_stack[stackCount++] = node.child1;
+                m_stack[stackCount++] = node.child2;
+            }
+        }
+
+        return count;
+    }
+
+    /** Compute the height of the tree. O(1). */
+    public int getHeight() {
+        if (m_root == NULL_NODE) {
+            return 0;
+        }
+        return m_nodes[m_root].height;
+    }
+
+    /** Get the maximum balance of an internal node in the tree. */
+    public int getMaxBalance() {
+        int maxBalance = 0;
+        for (int i = 0; i < m_nodeCapacity; ++i) {
+            DynamicTreeNode node = m_nodes[i];
+            if (node.height <= 1) {
+                continue;
+            }
+
+            int balance = Math.abs(m_nodes[node.child2].height
+                    - m_nodes[node.child1].height);
+            maxBalance = Math.max(maxBalance, balance);
+        }
+        return maxBalance;
+    }
+
+    /** Validate this tree. For testing. */
+    public void validate() {
+        validateStructure(m_root);
+        validateMetrics(m_root);
+
+        int freeCount = 0;
+        int freeIndex = m_freeList;
+        while (freeIndex != NULL_NODE) {
+            check(0 <= freeIndex && freeIndex < m_nodeCapacity);
+            freeIndex = m_nodes[freeIndex].parent;
+            ++freeCount;
+        }
+
+        check(getHeight() == computeHeight(m_root));
+        check(m_nodeCount + freeCount == m_nodeCapacity);
+    }
+
+    private int allocateNode() {
+        // Expand the node pool as needed.
+        if (m_freeList == NULL_NODE) {
+            //assert(m_nodeCount == m_nodeCapacity);
+            grow(2 * m_nodeCapacity);
+        }
+
+        // Peel a node off the free list.
+        int nodeId = m_freeList;
+        DynamicTreeNode node = m_nodes[nodeId];
+        m_freeList = node.parent;
+        node.parent = NULL_NODE;
+        node.child1 = NULL_NODE;
+        node.child2 = NULL_NODE;
+        node.height = 0;
+        node.userData = null;
+        ++m_nodeCount;
+        return nodeId;
+    }
+
+    /** Return a node to the pool. */
+    private void freeNode(int nodeId) {
+        //assert(0 <= nodeId && nodeId < m_nodeCapacity);
+        //assert(0 < m_nodeCount);
+        DynamicTreeNode node = m_nodes[nodeId];
+        node.parent = m_freeList;
+        node.height = -1;
+        node.userData = null;
+        m_freeList = nodeId;
+        --m_nodeCount;
+    }
+
+    /** Grow the node pool and put the new nodes in the free list. */
+    private void grow(int capacity) {
+        DynamicTreeNode[] nodes = new DynamicTreeNode[capacity];
+        System.arraycopy(m_nodes, 0, nodes, 0, m_nodeCapacity);
+        for (int i = m_nodeCapacity; i < capacity; ++i) {
+            nodes[i] = new DynamicTreeNode();
+            nodes[i].parent = i + 1 < capacity ? i + 1 : m_freeList;
+            nodes[i].height = -1;
+        }
+        m_freeList = m_nodeCapacity;
+        m_nodes = nodes;
+        m_nodeCapacity = capacity;
+    }
+
+    private void insertLeaf(int leaf) {
+        ++m_insertionCount;
+
+        if (m_root == NULL_NODE) {
+            m_root = leaf;
+            m_nodes[m_root].parent = NULL_NODE;
+            return;
+        }
+
+        // Find the best sibling for this node.
+        AABB leafAABB = m_nodes[leaf].aabb;
+        int index = m_root;
+        while (m_nodes[index].isLeaf() == false) {
+            DynamicTreeNode node = m_nodes[index];
+            int child1 = node.child1;
+            int child2 = node.child2;
+
+            float area = perimeter(node.aabb);
+            float combinedArea = combinedPerimeter(node.aabb, leafAABB);
+
+            // Cost of creating a new parent for this node and the new leaf.
+            float cost = 2.0f * combinedArea;
+
+            // Minimum cost of pushing the leaf further down the tree.
+            float inheritanceCost = 2.0f * (combinedArea - area);
+
+            // Cost of descending into child1 and child2.
+            float cost1 = descendCost(m_nodes[child1], leafAABB) + inheritanceCost;
+            float cost2 = descendCost(m_nodes[child2], leafAABB) + inheritanceCost;
+
+            // Descend according to the minimum cost.
+            if (cost < cost1 && cost < cost2) {
+                break;
+            }
+
+            index = cost1 < cost2 ? child1 : child2;
+        }
+
+        int sibling = index;
+
+        // Create a new parent.
+        int oldParent = m_nodes[sibling].parent;
+        int newParent = allocateNode();
+        DynamicTreeNode parent = m_nodes[newParent];
+        parent.parent = oldParent;
+        parent.userData = null;
+        combine(parent.aabb, leafAABB, m_nodes[sibling].aabb);
+        parent.height = m_nodes[sibling].height + 1;
+
+        if (oldParent != NULL_NODE) {
+            // The sibling was not the root.
+            if (m_nodes[oldParent].child1 == sibling) {
+                m_nodes[oldParent].child1 = newParent;
+            }
+            else {
+                m_nodes[oldParent].child2 = newParent;
+            }
+        }
+        else {
+            // The sibling was the root.
+            m_root = newParent;
+        }
+        parent.child1 = sibling;
+        parent.child2 = leaf;
+        m_nodes[sibling].parent = newParent;
+        m_nodes[leaf].parent = newParent;
+
+        // Walk back up the tree fixing heights and AABBs.
+        fixUpwards(m_nodes[leaf].parent);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == m_root) {
+            m_root = NULL_NODE;
+            return;
+        }
+
+        int parent = m_nodes[leaf].parent;
+        int grandParent = m_nodes[parent].parent;
+        int sibling = m_nodes[parent].child1 == leaf
+                ? m_nodes[parent].child2 : m_nodes[parent].child1;
+
+        if (grandParent != NULL_NODE) {
+            // Destroy parent and connect sibling to grandParent.
+            if (m_nodes[grandParent].child1 == parent) {
+                m_nodes[grandParent].child1 = sibling;
+            }
+            else {
+                m_nodes[grandParent].child2 = sibling;
+            }
+            m_nodes[sibling].parent = grandParent;
+            freeNode(parent);
+
+            // Adjust ancestor bounds.
+            fixUpwards(grandParent);
+        }
+        else {
+            m_root = sibling;
+            m_nodes[sibling].parent = NULL_NODE;
+            freeNode(parent);
+        }
+    }
+
+    private void fixUpwards(int index) {
+        while (index != NULL_NODE) {
+            index = balance(index);
+
+            DynamicTreeNode node = m_nodes[index];
+            DynamicTreeNode child1 = m_nodes[node.child1];
+            DynamicTreeNode child2 = m_nodes[node.child2];
+
+            //assert(child1 != null && child2 != null);
+
+            node.height = 1 + Math.max(child1.height, child2.height);
+            combine(node.aabb, child1.aabb, child2.aabb);
+
+            index = node.parent;
+        }
+    }
+
+    /**
+     * Perform a left or right rotation if node A is imbalanced.
+     * @return the new root index.
+     */
+    private int balance(int iA) {
+        //assert(iA != NULL_NODE);
+
+        DynamicTreeNode A = m_nodes[iA];
+        if (A.isLeaf() || A.height < 2) {
+            return iA;
+        }
+
+        int iB = A.child1;
+        int iC = A.child2;
+        //assert(0 <= iB && iB < m_nodeCapacity);
+        //assert(0 <= iC && iC < m_nodeCapacity);
+
+        DynamicTreeNode B = m_nodes[iB];
+        DynamicTreeNode C = m_nodes[iC];
+
+        int balance = C.height - B.height;
+
+        // Rotate C up
+        if (balance > 1) {
+            int iF = C.child1;
+            int iG = C.child2;
+            DynamicTreeNode F = m_nodes[iF];
+            DynamicTreeNode G = m_nodes[iG];
+
+            // Swap A and C
+            C.child1 = iA;
+            C.parent = A.parent;
+            A.parent = iC;
+
+            // A's old parent should point to C
+            replaceChild(C.parent, iA, iC);
+
+            // Rotate
+            if (F.height > G.height) {
+                C.child2 = iF;
+                A.child2 = iG;
+                G.parent = iA;
+                combine(A.aabb, B.aabb, G.aabb);
+                combine(C.aabb, A.aabb, F.aabb);
+
+                A.height = 1 + Math.max(B.height, G.height);
+                C.height = 1 + Math.max(A.height, F.height);
+            }
+            else {
+                C.child2 = iG;
+                A.child2 = iF;
+                F.parent = iA;
+                combine(A.aabb, B.aabb, F.aabb);
+                combine(C.aabb, A.aabb, G.aabb);
+
+                A.height = 1 + Math.max(B.height, F.height);
+                C.height = 1 + Math.max(A.height, G.height);
+            }
+
+            return iC;
+        }
+
+        // Rotate B up
+        if (balance < -1) {
+            int iD = B.child1;
+            int iE = B.child2;
+            DynamicTreeNode D = m_nodes[iD];
+            DynamicTreeNode E = m_nodes[iE];
+
+            // Swap A and B
+            B.child1 = iA;
+            B.parent = A.parent;
+            A.parent = iB;
+
+            // A's old parent should point to B
+            replaceChild(B.parent, iA, iB);
+
+            // Rotate
+            if (D.height > E.height) {
+                B.child2 = iD;
+                A.child1 = iE;
+                E.parent = iA;
+                combine(A.aabb, C.aabb, E.aabb);
+                combine(B.aabb, A.aabb, D.aabb);
+
+                A.height = 1 + Math.max(C.height, E.height);
+                B.height = 1 + Math.max(A.height, D.height);
+            }
+            else {
+                B.child2 = iE;
+                A.child1 = iD;
+                D.parent = iA;
+                combine(A.aabb, C.aabb, D.aabb);
+                combine(B.aabb, A.aabb, E.aabb);
+
+                A.height = 1 + Math.max(C.height, D.height);
+                B.height = 1 + Math.max(A.height, E.height);
+            }
+
+            return iB;
+        }
+
+        return iA;
+    }
+
+    private void replaceChild(int parent, int oldChild, int newChild) {
+        if (parent == NULL_NODE) {
+            m_root = newChild;
+        }
+        else if (m_nodes[parent].child1 == oldChild) {
+            m_nodes[parent].child1 = newChild;
+        }
+        else {
+            //assert(m_nodes[parent].child2 == oldChild);
+            m_nodes[parent].child2 = newChild;
+        }
+    }
+
+    private int computeHeight(int nodeId) {
+        if (nodeId == NULL_NODE) {
+            return 0;
+        }
+        DynamicTreeNode node = m_nodes[nodeId];
+        if (node.isLeaf()) {
+            return 0;
+        }
+        return 1 + Math.max(computeHeight(node.child1), computeHeight(node.child2));
+    }
+
+    private void validateStructure(int index) {
+        if (index == NULL_NODE) {
+            return;
+        }
+
+        if (index == m_root) {
+            check(m_nodes[index].parent == NULL_NODE);
+        }
+
+        DynamicTreeNode node = m_nodes[index];
+        int child1 = node.child1;
+        int child2 = node.child2;
+
+        if (node.isLeaf()) {
+            check(child2 == NULL_NODE);
+            check(node.height == 0);
+            return;
+        }
+
+        check(0 <= child1 && child1 < m_nodeCapacity);
+        check(0 <= child2 && child2 < m_nodeCapacity);
+        check(m_nodes[child1].parent == index);
+        check(m_nodes[child2].parent == index);
+
+        validateStructure(child1);
+        validateStructure(child2);
+    }
+
+    private void validateMetrics(int index) {
+        if (index == NULL_NODE) {
+            return;
+        }
+
+        DynamicTreeNode node = m_nodes[index];
+        if (node.isLeaf()) {
+            return;
+        }
+
+        DynamicTreeNode child1 = m_nodes[node.child1];
+        DynamicTreeNode child2 = m_nodes[node.child2];
+        check(node.height == 1 + Math.max(child1.height, child2.height));
+        check(contains(node.aabb, child1.aabb) && contains(node.aabb, child2.aabb));
+
+        validateMetrics(node.child1);
+        validateMetrics(node.child2);
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("DynamicTree is corrupt");
+        }
+    }
+
+    private static void setFat(AABB fat, AABB aabb) {
+        float r = Settings.aabbExtension;
+        fat.lowerBound.set(aabb.lowerBound.x - r, aabb.lowerBound.y - r);
+        fat.upperBound.set(aabb.upperBound.x + r, aabb.upperBound.y + r);
+    }
+
+    /** Does a contain b? */
+    static boolean contains(AABB a, AABB b) {
+        return a.lowerBound.x <= b.lowerBound.x && a.lowerBound.y <= b.lowerBound.y
+                && b.upperBound.x <= a.upperBound.x && b.upperBound.y <= a.upperBound.y;
+    }
+
+    private static void combine(AABB out, AABB a, AABB b) {
+        out.lowerBound.set(Math.min(a.lowerBound.x, b.lowerBound.x),
+                Math.min(a.lowerBound.y, b.lowerBound.y));
+        out.upperBound.set(Math.max(a.upperBound.x, b.upperBound.x),
+                Math.max(a.upperBound.y, b.upperBound.y));
+    }
+
+    private static float perimeter(AABB a) {
+        return 2.0f * ((a.upperBound.x - a.lowerBound.x)
+                + (a.upperBound.y - a.lowerBound.y));
+    }
+
+    private static float combinedPerimeter(AABB a, AABB b) {
+        float wx = Math.max(a.upperBound.x, b.upperBound.x)
+                - Math.min(a.lowerBound.x, b.lowerBound.x);
+        float wy = Math.max(a.upperBound.y, b.upperBound.y)
+                - Math.min(a.lowerBound.y, b.lowerBound.y);
+        return 2.0f * (wx + wy);
+    }
+
+    /** Cost of descending into child with the leaf, without inheritance cost. */
+    private static float descendCost(DynamicTreeNode child, AABB leafAABB) {
+        if (child.isLeaf()) {
+            return combinedPerimeter(leafAABB, child.aabb);
+        }
+        return combinedPerimeter(leafAABB, child.aabb) - perimeter(child.aabb);
+    }
+}
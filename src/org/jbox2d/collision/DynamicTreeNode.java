@@ -1,17 +1,17 @@
 /*
  * JBox2D - A Java Port of Erin Catto's Box2D
- * 
- * JBox2D homepage: http://jbox2d.sourceforge.net/ 
+ *
+ * JBox2D homepage: http://jbox2d.sourceforge.net/
  * Box2D homepage: http://www.box2d.org
- * 
+ *
  * This software is provided 'as-is', without any express or implied
  * warranty.  In no event will the authors be held liable for any damages
  * arising from the use of this software.
- * 
+ *
  * Permission is granted to anyone to use this software for any purpose,
  * including commercial applications, and to alter it and redistribute it
  * freely, subject to the following restrictions:
- * 
+ *
  * 1. The origin of this software must not be misrepresented; you must not
  * claim that you wrote the original software. If you use this software
  * in a product, an acknowledgment in the product documentation would be
@@ -23,42 +23,24 @@
 
 package org.jbox2d.collision;
 
-//Updated to rev 139 of b2Broadphase.h
-public class Proxy {
-    public int lowerBounds[];
+/** A node in the dynamic tree. The client does not interact with this directly. */
+public class DynamicTreeNode {
+    /** This is the fattened AABB. */
+    public final AABB aabb = new AABB();
 
-    public int upperBounds[];
+    public Object userData;
 
-    int overlapCount;
+    /** Parent node, or the next free node when the node is in the free list. */
+    public int parent;
 
-    int timeStamp;
+    public int child1;
 
-    int categoryBits;
+    public int child2;
 
-    int maskBits;
+    /** leaf = 0, free node = -1 */
+    public int height;
 
-    int groupIndex;
-
-    Object userData;
-
-    public Proxy() {
-        lowerBounds = new int[2];
-        upperBounds = new int[2];
-        lowerBounds[0] = lowerBounds[1] = 0;
-        upperBounds[0] = upperBounds[1] = 0;
-        overlapCount = BroadPhase.INVALID;
-        timeStamp = 0;
-    }
-
-    int getNext() {
-        return lowerBounds[0];
-    }
-
-    void setNext(int next) {
-        lowerBounds[0] = next;
-    }
-
-    public boolean isValid() {
-        return overlapCount != BroadPhase.INVALID;
+    public boolean isLeaf() {
+        return child1 == DynamicTree.NULL_NODE;
     }
 }
@@ -69,4 +69,17 @@ public class Manifold {
         normal = other.normal.clone();
         pointCount = other.pointCount;// points.length;
     }
+
+    /**
+     * Set this to a copy of another manifold. Unlike the copy constructor,
+     * this copies the points into the points of this manifold, which must
+     * not be shared with the other one.
+     */
+    public void set(Manifold other) {
+        for (int i = 0; i < other.pointCount; i++) {
+            points[i].set(other.points[i]);
+        }
+        normal.set(other.normal);
+        pointCount = other.pointCount;
+    }
 }
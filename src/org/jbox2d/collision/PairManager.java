@@ -34,10 +34,11 @@ public class PairManager {
 
     static final int NULL_PROXY = Integer.MAX_VALUE;
 
-    public static final int TABLE_CAPACITY = Settings.maxPairs; // must be a power
+    /** Size of the pair pool and the hash table, a power of two. Doubles
+     * when the pool is full. */
+    public int m_tableCapacity;
 
-    // of two
-    static final int TABLE_MASK = TABLE_CAPACITY - 1;
+    int m_tableMask;
 
     public Pair m_pairs[];
 
@@ -56,33 +57,68 @@ public class PairManager {
     public BufferedPair[] m_pairBuffer;
     public int m_pairBufferCount;
 
+    /** High-water marks of m_pairCount and m_pairBufferCount. */
+    public int m_peakPairCount;
+    public int m_peakPairBufferCount;
+
     public PairManager() {
-        m_pairs = new Pair[Settings.maxPairs];
-        m_hashTable = new int[TABLE_CAPACITY];
-        //m_next = new int[Settings.maxPairs];
-        m_pairBuffer = new BufferedPair[Settings.maxPairs];
+        this(Settings.maxPairs);
+    }
+
+    /** @param capacity initial size of the pair pool, rounded up to a power of two. */
+    public PairManager(int capacity) {
+        m_pairs = new Pair[0];
+        m_pairBuffer = new BufferedPair[0];
+        m_tableCapacity = 0;
+        m_freePair = NULL_PAIR;
+        m_pairCount = 0;
+        m_pairBufferCount = 0;
+        m_peakPairCount = 0;
+        m_peakPairBufferCount = 0;
+        capacity = Math.max(capacity, 1);
+        grow(MathUtils.isPowerOfTwo(capacity) ? capacity : MathUtils.nextPowerOfTwo(capacity));
+    }
 
-        //assert MathUtils.isPowerOfTwo(TABLE_CAPACITY) == true;
-        //assert TABLE_CAPACITY >= Settings.maxPairs;
+    /**
+     * Grow the pair pool and the pair buffer to the given capacity, a power
+     * of two, and rehash the pairs. This is only done when the pool is full,
+     * so the new pairs become the free list.
+     */
+    private void grow(int capacity) {
+        //assert MathUtils.isPowerOfTwo(capacity) == true;
+        //assert m_freePair == NULL_PAIR;
+        Pair[] pairs = new Pair[capacity];
+        BufferedPair[] pairBuffer = new BufferedPair[capacity];
+        System.arraycopy(m_pairs, 0, pairs, 0, m_tableCapacity);
+        System.arraycopy(m_pairBuffer, 0, pairBuffer, 0, m_tableCapacity);
+        for (int i = m_tableCapacity; i < capacity; ++i) {
+            pairs[i] = new Pair();
+            pairs[i].proxyId1 = NULL_PROXY;
+            pairs[i].proxyId2 = NULL_PROXY;
+            pairs[i].userData = null;
+            pairs[i].status = 0;
+            pairs[i].next = i + 1 < capacity ? i + 1 : NULL_PAIR;
+
+            pairBuffer[i] = new BufferedPair();
+        }
+        m_freePair = m_tableCapacity;
 
-        for (int i = 0; i < TABLE_CAPACITY; ++i) {
+        m_hashTable = new int[capacity];
+        m_tableMask = capacity - 1;
+        for (int i = 0; i < capacity; ++i) {
             m_hashTable[i] = NULL_PAIR;
         }
-        m_freePair = 0;
-        for (int i = 0; i < Settings.maxPairs; ++i) {
-            //m_next[i] = NULL_PAIR;
-            m_pairs[i] = new Pair();
-            m_pairs[i].proxyId1 = NULL_PROXY;
-            m_pairs[i].proxyId2 = NULL_PROXY;
-            m_pairs[i].userData = null;
-            m_pairs[i].status = 0;
-            m_pairs[i].next = i+1;
-
-            m_pairBuffer[i] = new BufferedPair();
+        // All the old pairs are in use.
+        for (int i = 0; i < m_tableCapacity; ++i) {
+            Pair pair = pairs[i];
+            int hash = hash(pair.proxyId1, pair.proxyId2) & m_tableMask;
+            pair.next = m_hashTable[hash];
+            m_hashTable[hash] = i;
         }
-        m_pairs[Settings.maxPairs-1].next = NULL_PAIR;
-        m_pairCount = 0;
-        m_pairBufferCount = 0;
+
+        m_pairs = pairs;
+        m_pairBuffer = pairBuffer;
+        m_tableCapacity = capacity;
     }
     
     public void initialize(BroadPhase broadPhase, PairCallback callback) {
@@ -101,15 +137,17 @@ public class PairManager {
             proxyId1 -= proxyId2;
         }
 
-        int hash = hash(proxyId1, proxyId2) & TABLE_MASK;
+        int hash = hash(proxyId1, proxyId2) & m_tableMask;
 
         Pair pair = find(proxyId1, proxyId2, hash);
         if (pair != null) {
             return pair;
         }
 
-        //assert(m_pairCount < Settings.maxPairs):"Too many pairs (shape AABB overlaps) - this usually means you have too many bodies, or you need to increase Settings.maxPairs.";
-        //assert(m_freePair != NULL_PAIR);
+        if (m_freePair == NULL_PAIR) {
+            grow(2 * m_tableCapacity);
+            hash = hash(proxyId1, proxyId2) & m_tableMask;
+        }
 
         int pairIndex = m_freePair;
         pair = m_pairs[pairIndex];
@@ -123,7 +161,9 @@ public class PairManager {
 
         m_hashTable[hash] = pairIndex;
 
-        ++m_pairCount;
+        if (++m_pairCount > m_peakPairCount) {
+            m_peakPairCount = m_pairCount;
+        }
 
         return pair;
     }
@@ -139,7 +179,7 @@ public class PairManager {
             proxyId1 -= proxyId2;
         }
 
-        int hash = hash(proxyId1, proxyId2) & TABLE_MASK;
+        int hash = hash(proxyId1, proxyId2) & m_tableMask;
         //int* node = &m_hashTable[hash];
         int derefnode = m_hashTable[hash];
         boolean isHash = true;
@@ -199,7 +239,7 @@ public class PairManager {
     */
     public void addBufferedPair(int id1, int id2) {
         //assert(id1 != NULL_PROXY && id2 != NULL_PROXY);
-        //assert(m_pairBufferCount < Settings.maxPairs);
+        //assert(m_pairBufferCount < m_tableCapacity);
 
         Pair pair = addPair(id1, id2);
 
@@ -212,7 +252,9 @@ public class PairManager {
             pair.setBuffered();
             m_pairBuffer[m_pairBufferCount].proxyId1 = pair.proxyId1;
             m_pairBuffer[m_pairBufferCount].proxyId2 = pair.proxyId2;
-            ++m_pairBufferCount;
+            if (++m_pairBufferCount > m_peakPairBufferCount) {
+                m_peakPairBufferCount = m_pairBufferCount;
+            }
 
             //assert(m_pairBufferCount <= m_pairCount);
         }
@@ -228,7 +270,7 @@ public class PairManager {
     // Buffer a pair for removal.
     public void removeBufferedPair(int id1, int id2) {
         //assert(id1 != NULL_PROXY && id2 != NULL_PROXY);
-        //assert(m_pairBufferCount < Settings.maxPairs);
+        //assert(m_pairBufferCount < m_tableCapacity);
 
         Pair pair = find(id1, id2);
 
@@ -245,7 +287,9 @@ public class PairManager {
             pair.setBuffered();
             m_pairBuffer[m_pairBufferCount].proxyId1 = pair.proxyId1;
             m_pairBuffer[m_pairBufferCount].proxyId2 = pair.proxyId2;
-            ++m_pairBufferCount;
+            if (++m_pairBufferCount > m_peakPairBufferCount) {
+                m_peakPairBufferCount = m_pairBufferCount;
+            }
 
             //assert(m_pairBufferCount <= m_pairCount);
         }
@@ -261,27 +305,20 @@ public class PairManager {
         //System.out.println("Entering commit");
         int removeCount = 0;
 
-        Proxy[] proxies = m_broadPhase.m_proxyPool;
-
         for (int i = 0; i < m_pairBufferCount; ++i) {
             Pair pair = find(m_pairBuffer[i].proxyId1, m_pairBuffer[i].proxyId2);
             //assert(pair.isBuffered());
             pair.clearBuffered();
 
-            //assert(pair.proxyId1 < Settings.maxProxies && pair.proxyId2 < Settings.maxProxies);
-
-            Proxy proxy1 = proxies[pair.proxyId1];
-            Proxy proxy2 = proxies[pair.proxyId2];
-
-            //assert(proxy1.isValid());
-            //assert(proxy2.isValid());
+            Object userData1 = m_broadPhase.getUserData(pair.proxyId1);
+            Object userData2 = m_broadPhase.getUserData(pair.proxyId2);
 
             if (pair.isRemoved()) {
                 // It is possible a pair was added then removed before a commit. Therefore,
                 // we should be careful not to tell the user the pair was removed when the
                 // the user didn't receive a matching add.
                 if (pair.isFinal() == true) {
-                    m_callback.pairRemoved(proxy1.userData, proxy2.userData, pair.userData);
+                    m_callback.pairRemoved(userData1, userData2, pair.userData);
                 }
 
                 // Store the ids so we can actually remove the pair below.
@@ -290,10 +327,10 @@ public class PairManager {
                 //System.out.println("Buffering "+pair.proxyId1 + ", "+pair.proxyId2 + " for removal");
                 ++removeCount;
             } else {
-                //assert(m_broadPhase.testOverlap(proxy1, proxy2) == true);
+                //assert(m_broadPhase.testOverlap(pair.proxyId1, pair.proxyId2) == true);
 
                 if (pair.isFinal() == false) {
-                    pair.userData = m_callback.pairAdded(proxy1.userData, proxy2.userData);
+                    pair.userData = m_callback.pairAdded(userData1, userData2);
                     pair.setFinal();
                 }
             }
@@ -338,11 +375,8 @@ public class PairManager {
 //            b2Assert(pair->proxyId1 < b2_maxProxies);
 //            b2Assert(pair->proxyId2 < b2_maxProxies);
 //
-//            b2Proxy* proxy1 = m_broadPhase->m_proxyPool + pair->proxyId1;
-//            b2Proxy* proxy2 = m_broadPhase->m_proxyPool + pair->proxyId2;
-//
-//            b2Assert(proxy1->IsValid() == true);
-//            b2Assert(proxy2->IsValid() == true);
+//            b2Assert(m_broadPhase->GetUserData(pair->proxyId1) != NULL);
+//            b2Assert(m_broadPhase->GetUserData(pair->proxyId2) != NULL);
 //        }
     //#endif
     }
@@ -352,7 +386,7 @@ public class PairManager {
      */
     public void validateTable() {
 //    #ifdef _DEBUG
-        for (int i = 0; i < TABLE_CAPACITY; ++i) {
+        for (int i = 0; i < m_tableCapacity; ++i) {
             int index = m_hashTable[i];
             while (index != NULL_PAIR) {
                 Pair pair = m_pairs[index];
@@ -361,16 +395,7 @@ public class PairManager {
                 //assert(pair.isRemoved() == false);
 
                 //assert(pair.proxyId1 != pair.proxyId2);
-                //assert(pair.proxyId1 < Settings.maxProxies);
-                //assert(pair.proxyId2 < Settings.maxProxies);
-
-                Proxy proxy1 = m_broadPhase.m_proxyPool[pair.proxyId1];
-                Proxy proxy2 = m_broadPhase.m_proxyPool[pair.proxyId2];
-
-                //assert(proxy1.isValid() == true);
-                //assert(proxy2.isValid() == true);
-
-                //assert(m_broadPhase.testOverlap(proxy1, proxy2) == true);
+                //assert(m_broadPhase.testOverlap(pair.proxyId1, pair.proxyId2) == true);
 
                 index = pair.next;
             }
@@ -404,7 +429,7 @@ public class PairManager {
             proxyId2 = tmp;
         }
 
-        int hash = hash(proxyId1, proxyId2) & TABLE_MASK;
+        int hash = hash(proxyId1, proxyId2) & m_tableMask;
 
         return find(proxyId1, proxyId2, hash);
     }
@@ -359,6 +359,24 @@ public class PolygonShape extends Shape implements SupportsGenericDistance{
         return XForm.mul(xf, m_coreVertices[bestIndex]); 
     }
 
+    public void supportToOut(XForm xf, Vec2 d, Vec2 out) {
+        //Vec2 dLocal = Mat22.mulT(xf.R, d);
+        float dLocalx = Vec2.dot(d, xf.R.col1);
+        float dLocaly = Vec2.dot(d, xf.R.col2);
+
+        int bestIndex = 0;
+        float bestValue = m_coreVertices[0].x * dLocalx + m_coreVertices[0].y * dLocaly;
+        for (int i = 1; i < m_vertexCount; ++i) {
+            float value = m_coreVertices[i].x * dLocalx + m_coreVertices[i].y * dLocaly;
+            if (value > bestValue) {
+                bestIndex = i;
+                bestValue = value;
+            }
+        }
+
+        XForm.mulToOut(xf, m_coreVertices[bestIndex], out);
+    }
+
 	public static Vec2 computeCentroid(Vector vs) {
 			int count = vs.size();
 	        //assert(count >= 3);
@@ -453,22 +471,37 @@ public class PolygonShape extends Shape implements SupportsGenericDistance{
 	}
 	
 	public void computeAABB(AABB aabb, XForm xf) {
-		Mat22 R = Mat22.mul(xf.R, m_obb.R);
-		Mat22 absR = Mat22.abs(R);
-		Vec2 h = Mat22.mul(absR, m_obb.extents);
-		Vec2 position = xf.position.add(Mat22.mul(xf.R, m_obb.center));
-		aabb.lowerBound = position.sub(h);
-		aabb.upperBound = position.add(h);//save a Vec2 creation, reuse temp
+		// Written out to avoid temporaries, this is
+		//Mat22 R = Mat22.mul(xf.R, m_obb.R);
+		//Mat22 absR = Mat22.abs(R);
+		//Vec2 h = Mat22.mul(absR, m_obb.extents);
+		//Vec2 position = xf.position.add(Mat22.mul(xf.R, m_obb.center));
+		Mat22 A = xf.R;
+		Mat22 B = m_obb.R;
+		float absR11 = Math.abs(A.col1.x * B.col1.x + A.col2.x * B.col1.y);
+		float absR21 = Math.abs(A.col1.y * B.col1.x + A.col2.y * B.col1.y);
+		float absR12 = Math.abs(A.col1.x * B.col2.x + A.col2.x * B.col2.y);
+		float absR22 = Math.abs(A.col1.y * B.col2.x + A.col2.y * B.col2.y);
+		Vec2 e = m_obb.extents;
+		float hx = absR11 * e.x + absR12 * e.y;
+		float hy = absR21 * e.x + absR22 * e.y;
+		Vec2 c = m_obb.center;
+		float px = xf.position.x + (A.col1.x * c.x + A.col2.x * c.y);
+		float py = xf.position.y + (A.col1.y * c.x + A.col2.y * c.y);
+		aabb.lowerBound.set(px - hx, py - hy);
+		aabb.upperBound.set(px + hx, py + hy);
 	}
 	
 	public void computeSweptAABB(AABB aabb, XForm transform1, XForm transform2) {
-		
-		AABB aabb1 = new AABB();
-		AABB aabb2 = new AABB();
-		computeAABB(aabb1, transform1);
-		computeAABB(aabb2, transform2);
-		aabb.lowerBound = Vec2.min(aabb1.lowerBound, aabb2.lowerBound);
-		aabb.upperBound = Vec2.max(aabb1.upperBound, aabb2.upperBound);
+		computeAABB(aabb, transform1);
+		float lowerx = aabb.lowerBound.x, lowery = aabb.lowerBound.y;
+		float upperx = aabb.upperBound.x, uppery = aabb.upperBound.y;
+		computeAABB(aabb, transform2);
+		// Vec2.min of the first and second box, and Vec2.max
+		aabb.lowerBound.x = lowerx < aabb.lowerBound.x ? lowerx : aabb.lowerBound.x;
+		aabb.lowerBound.y = lowery < aabb.lowerBound.y ? lowery : aabb.lowerBound.y;
+		aabb.upperBound.x = upperx > aabb.upperBound.x ? upperx : aabb.upperBound.x;
+		aabb.upperBound.y = uppery > aabb.upperBound.y ? uppery : aabb.upperBound.y;
 		//System.out.println("poly sweepaabb: "+aabb.lowerBound+" "+aabb.upperBound);
 	}
 	
@@ -554,6 +587,10 @@ public class PolygonShape extends Shape implements SupportsGenericDistance{
 		return XForm.mul(xf, m_coreVertices[0]);
 	}
 
+	public void getFirstVertexToOut(XForm xf, Vec2 out) {
+		XForm.mulToOut(xf, m_coreVertices[0], out);
+	}
+
 	/** Get the oriented bounding box relative to the parent body. */
 	public OBB getOBB() {
 		return m_obb.clone();
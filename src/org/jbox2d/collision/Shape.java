@@ -229,7 +229,8 @@ public abstract class Shape {
     	}
 
     	// Compute an AABB that covers the swept shape (may miss some rotation effect).
-    	AABB aabb = new AABB();
+    	// The pooled AABB is copied by moveProxy.
+    	AABB aabb = m_body.m_world.m_pool.aabb;
     	computeSweptAABB(aabb, transform1, transform2);
     	//if (this.getType() == ShapeType.CIRCLE_SHAPE){
     	//	System.out.println("Sweeping: "+transform1+" " +transform2);
@@ -40,4 +40,9 @@ public interface SupportsGenericDistance {
 	public Vec2 support(XForm xf, Vec2 v);
 	public Vec2 getFirstVertex(XForm xf);
 
+	/** Like support, but puts the result in out. */
+	public void supportToOut(XForm xf, Vec2 v, Vec2 out);
+	/** Like getFirstVertex, but puts the result in out. */
+	public void getFirstVertexToOut(XForm xf, Vec2 out);
+
 }
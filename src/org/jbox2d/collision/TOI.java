@@ -27,11 +27,28 @@ import org.jbox2d.common.*;
 
 //updated to rev 142 of b2TimeOfImpact.cpp
 
-/** Handles conservative advancement to compute time of impact between shapes. */
+/**
+ * Handles conservative advancement to compute time of impact between shapes.
+ * <BR><BR>
+ * An instance holds the scratch objects of the algorithm, so compute does
+ * not allocate. timeOfImpact uses a new instance for each call.
+ */
 public class TOI {
 	// This algorithm uses conservative advancement to compute the time of
 	// impact (TOI) of two shapes.
 	// Refs: Bullet, Young Kim
+
+	final Distance distance = new Distance();
+
+	final XForm xf1 = new XForm();
+
+	final XForm xf2 = new XForm();
+
+	final Vec2 p1 = new Vec2();
+
+	final Vec2 p2 = new Vec2();
+
+	final Vec2 normal = new Vec2();
 	
 	/**
 	 * Compute the time when two shapes begin to touch or touch at a closer distance.
@@ -41,6 +58,12 @@ public class TOI {
 	 */
 	public static float timeOfImpact(Shape shape1, Sweep sweep1,
 						   			 Shape shape2, Sweep sweep2) {
+		return new TOI().compute(shape1, sweep1, shape2, sweep2);
+	}
+
+	/** Like timeOfImpact, using the scratch objects of this instance. */
+	public float compute(Shape shape1, Sweep sweep1,
+						 Shape shape2, Sweep sweep2) {
 		
 		float r1 = shape1.getSweepRadius();
 		float r2 = shape2.getSweepRadius();
@@ -49,29 +72,29 @@ public class TOI {
 		//assert(1.0f - sweep1.t0 > Settings.EPSILON);
 
 		float t0 = sweep1.t0;
-		Vec2 v1 = sweep1.c.sub(sweep1.c0);
-		Vec2 v2 = sweep2.c.sub(sweep2.c0);
+		float v1x = sweep1.c.x - sweep1.c0.x;
+		float v1y = sweep1.c.y - sweep1.c0.y;
+		float v2x = sweep2.c.x - sweep2.c0.x;
+		float v2y = sweep2.c.y - sweep2.c0.y;
 		float omega1 = sweep1.a - sweep1.a0;
 		float omega2 = sweep2.a - sweep2.a0;
 
 		float alpha = 0.0f;
 
-		Vec2 p1 = new Vec2();
-		Vec2 p2 = new Vec2();
 		final int k_maxIterations = 20;	// TODO_ERIN b2Settings
 		int iter = 0;
-		Vec2 normal = new Vec2(0.0f, 0.0f);
+		normal.setZero();
 		float distance = 0.0f;
 		float targetDistance = 0.0f;
 		while(true){
 			float t = (1.0f - alpha) * t0 + alpha;
-			XForm xf1 = new XForm();
-			XForm xf2 = new XForm();
 			sweep1.getXForm(xf1, t);
 			sweep2.getXForm(xf2, t);
 
-			// Get the distance between shapes.
-			distance = Distance.distance(p1, p2, shape1, xf1, shape2, xf2);
+			// Get the distance between shapes. After the first iteration,
+			// GJK starts from the closest points of the previous one.
+			this.distance.warmStart = iter > 0;
+			distance = this.distance.compute(p1, p2, shape1, xf1, shape2, xf2);
 			//System.out.println(distance);
 			
 			if (iter == 0) {
@@ -89,11 +112,12 @@ public class TOI {
 				break;
 			}
 
-			normal = p2.sub(p1);
+			normal.set(p2.x - p1.x, p2.y - p1.y);
 			normal.normalize();
 
 			// Compute upper bound on remaining movement.
-			float approachVelocityBound = Vec2.dot(normal, v1.sub(v2)) + Math.abs(omega1) * r1 + Math.abs(omega2) * r2;
+			//float approachVelocityBound = Vec2.dot(normal, v1.sub(v2)) + ...
+			float approachVelocityBound = normal.x * (v1x - v2x) + normal.y * (v1y - v2y) + Math.abs(omega1) * r1 + Math.abs(omega2) * r2;
 			if (Math.abs(approachVelocityBound) < Settings.EPSILON) {
 				alpha = 1.0f;
 				break;
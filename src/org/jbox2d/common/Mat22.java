@@ -304,6 +304,13 @@ public class Mat22 {
     public static Vec2 mul(Mat22 R, Vec2 v) {
     	return R.mul(v);
     }
+
+    /** Multiply a vector by a matrix into out, which may be v. */
+    public static void mulToOut(Mat22 R, Vec2 v, Vec2 out) {
+    	float x = R.col1.x * v.x + R.col2.x * v.y;
+    	out.y = R.col1.y * v.x + R.col2.y * v.y;
+    	out.x = x;
+    }
     
     public static Mat22 mul(Mat22 A, Mat22 B){
     	return A.mul(B);
@@ -312,6 +319,13 @@ public class Mat22 {
     public static Vec2 mulT(Mat22 R, Vec2 v) {
     	return R.mulT(v);
     }
+
+    /** Multiply a vector by the transpose of a matrix into out, which may be v. */
+    public static void mulTToOut(Mat22 R, Vec2 v, Vec2 out) {
+    	float x = Vec2.dot(v, R.col1);
+    	out.y = Vec2.dot(v, R.col2);
+    	out.x = x;
+    }
     
     public static Mat22 mulT(Mat22 A, Mat22 B){
     	return A.mulT(B);
@@ -50,13 +50,22 @@ public class Settings {
     // Collision
     
     public static final int maxManifoldPoints = 2;
+    /** Not a limit: bodies keep their shapes in a list and can have any number. */
     public static final int maxShapesPerBody = 64;
     public static final int maxPolygonVertices = 8;
 
-    /** Must be a power of two. */
+    /** Default initial number of broad-phase proxies, see the World
+     * constructor. The pools grow as needed. */
     public static final int maxProxies = 256; // orig 2048
-    /** Must be a power of two. */
+    /** Default initial number of broad-phase pairs, see the World
+     * constructor. The pools grow as needed. */
     public static final int maxPairs = 8 * maxProxies;
+
+    /**
+     * This is used to fatten AABBs in the dynamic tree. This allows proxies
+     * to move by a small amount without triggering a tree adjustment.
+     */
+    public static final float aabbExtension = 0.1f * lengthUnitsPerMeter;
     
     // Dynamics
 
@@ -129,7 +138,8 @@ public class Settings {
     public static final float maxAngularVelocity = 250.0f;
     public static final float maxAngularVelocitySquared = maxAngularVelocity * maxAngularVelocity;
 
-    /** Maximum number of contacts to be handled to solve a TOI island. */
+    /** Default maximum number of contacts to be handled to solve a TOI island,
+     * see World.setMaxTOIContactsPerIsland. */
     public static int maxTOIContactsPerIsland = 32;
 
 
@@ -79,6 +79,13 @@ public class XForm {
 		//return T.position.add(T.R.mul(v));
 	}
 
+	/** Transform a vector into out, which may be v. */
+	public static void mulToOut(XForm T, Vec2 v, Vec2 out){
+		float x = T.position.x + T.R.col1.x * v.x + T.R.col2.x * v.y;
+		out.y = T.position.y + T.R.col1.y * v.x + T.R.col2.y * v.y;
+		out.x = x;
+	}
+
 	public static Vec2 mulT(XForm T, Vec2 v){
 		float v1x = v.x-T.position.x;
 		float v1y = v.y-T.position.y;
@@ -87,6 +94,16 @@ public class XForm {
 		return new Vec2((v1x * b.x + v1y * b.y), (v1x * b1.x + v1y * b1.y));
 		//return T.R.mulT(v.sub(T.position));
 	}
+
+	/** Inverse transform a vector into out, which may be v. */
+	public static void mulTToOut(XForm T, Vec2 v, Vec2 out){
+		float v1x = v.x-T.position.x;
+		float v1y = v.y-T.position.y;
+		Vec2 b = T.R.col1;
+		Vec2 b1 = T.R.col2;
+		out.x = (v1x * b.x + v1y * b.y);
+		out.y = (v1x * b1.x + v1y * b1.y);
+	}
 	
 	public String toString() {
 		String s = "XForm:\n";
@@ -701,9 +701,13 @@ public class Body {
 
 	/** For internal use only. */
 	public boolean synchronizeShapes(){
-		XForm xf1 = new XForm();
+		XForm xf1 = m_world.m_pool.xf;
 		xf1.R.set(m_sweep.a0);
-		xf1.position.set(m_sweep.c0.sub(Mat22.mul(xf1.R, m_sweep.localCenter)));
+		//xf1.position.set(m_sweep.c0.sub(Mat22.mul(xf1.R, m_sweep.localCenter)));
+		Mat22 R = xf1.R;
+		Vec2 v = m_sweep.localCenter;
+		xf1.position.x = m_sweep.c0.x - (R.col1.x * v.x + R.col2.x * v.y);
+		xf1.position.y = m_sweep.c0.y - (R.col1.y * v.x + R.col2.y * v.y);
 		
 		boolean inRange = true;
 		for (Shape s = m_shapeList; s != null; s = s.m_next) {
@@ -63,12 +63,21 @@ public class Island {
 
     public int m_jointCapacity;
 
-    public static int m_positionIterationCount = 0;
+    public int m_positionIterationCount;
 
     public float m_positionError;
     
     public ContactListener m_listener;
 
+    /** Solver to reuse, so that the islands solved by one thread share their
+     * scratch constraints. Null means a new solver is made for each solve. */
+    public ContactSolver m_contactSolver;
+
+    /** If set, solve does not report the contact results. They are reported
+     * by reportDeferred, so that islands solved on other threads report
+     * in island order. */
+    public boolean m_deferReport;
+
     //begin .h methods
     public void clear() {
 		m_bodyCount = 0;
@@ -76,18 +85,34 @@ public class Island {
 		m_jointCount = 0;
 	}
     
+    // The arrays double when they are full, so the capacities are only hints.
     void add(Body body) {
-        //assert m_bodyCount < m_bodyCapacity;
+        if (m_bodyCount == m_bodyCapacity) {
+            m_bodyCapacity = Math.max(2 * m_bodyCapacity, 16);
+            Body[] bodies = new Body[m_bodyCapacity];
+            System.arraycopy(m_bodies, 0, bodies, 0, m_bodyCount);
+            m_bodies = bodies;
+        }
         m_bodies[m_bodyCount++] = body;
     }
 
     void add(Contact contact) {
-        //assert (m_contactCount < m_contactCapacity);
+        if (m_contactCount == m_contactCapacity) {
+            m_contactCapacity = Math.max(2 * m_contactCapacity, 16);
+            Contact[] contacts = new Contact[m_contactCapacity];
+            System.arraycopy(m_contacts, 0, contacts, 0, m_contactCount);
+            m_contacts = contacts;
+        }
         m_contacts[m_contactCount++] = contact; //no clone, botches CCD if cloned!
     }
 
     void add(Joint joint) {
-        //assert (m_jointCount < m_jointCapacity);
+        if (m_jointCount == m_jointCapacity) {
+            m_jointCapacity = Math.max(2 * m_jointCapacity, 16);
+            Joint[] joints = new Joint[m_jointCapacity];
+            System.arraycopy(m_joints, 0, joints, 0, m_jointCount);
+            m_joints = joints;
+        }
         m_joints[m_jointCount++] = joint;
     }
     //end .h methods
@@ -157,7 +182,12 @@ public class Island {
     		}
     	}
     	
-    	ContactSolver contactSolver = new ContactSolver(step, m_contacts, m_contactCount);
+    	ContactSolver contactSolver = m_contactSolver;
+    	if (contactSolver == null) {
+    		contactSolver = new ContactSolver(step, m_contacts, m_contactCount);
+    	} else {
+    		contactSolver.init(step, m_contacts, m_contactCount);
+    	}
 
     	// Initialize velocity constraints.
     	contactSolver.initVelocityConstraints(step);
@@ -223,7 +253,9 @@ public class Island {
     		}
     	}
 
-    	report(contactSolver.m_constraints);
+    	if (m_deferReport == false) {
+    		report(contactSolver.m_constraints);
+    	}
 
     	if (allowSleep) {
     		float minSleepTime = Float.MAX_VALUE;
@@ -257,7 +289,7 @@ public class Island {
     			for (int i = 0; i < m_bodyCount; ++i) {
     				Body b = m_bodies[i];
     				b.m_flags |= Body.e_sleepFlag;
-    				b.m_linearVelocity = new Vec2(0.0f, 0.0f);
+    				b.m_linearVelocity.setZero();
     				b.m_angularVelocity = 0.0f;
     			}
     		}
@@ -265,7 +297,12 @@ public class Island {
     }
 
     public void solveTOI(TimeStep subStep) {
-    	ContactSolver contactSolver = new ContactSolver(subStep, m_contacts, m_contactCount);
+    	ContactSolver contactSolver = m_contactSolver;
+    	if (contactSolver == null) {
+    		contactSolver = new ContactSolver(subStep, m_contacts, m_contactCount);
+    	} else {
+    		contactSolver.init(subStep, m_contacts, m_contactCount);
+    	}
 
     	// No warm starting needed for TOI events.
 
@@ -323,6 +360,15 @@ public class Island {
     	report(cc);
     }*/
 
+    /**
+     * Report the contact results of the last solve. The impulses are taken
+     * from the manifolds, where finalizeVelocityConstraints stored them.
+     */
+    public void reportDeferred() {
+    	report(null);
+    }
+
+    /** Report contact results; null constraints means use the manifolds. */
     public void report(ContactConstraint[] constraints) {
     	if (m_listener == null) {
     		return;
@@ -330,7 +376,7 @@ public class Island {
 
     	for (int i = 0; i < m_contactCount; ++i) {
     		Contact c = m_contacts[i];
-    		ContactConstraint cc = constraints[i];
+    		ContactConstraint cc = constraints == null ? null : constraints[i];
     		ContactResult cr = new ContactResult();
     		cr.shape1 = c.getShape1();
     		cr.shape2 = c.getShape2();
@@ -346,13 +392,18 @@ public class Island {
     			cr.normal.set(manifold.normal);
     			for (int k = 0; k < manifold.pointCount; ++k) {
     				ManifoldPoint point = manifold.points[k];
-    				ContactConstraintPoint ccp = cc.points[k];
     				cr.position = XForm.mul(b1.getXForm(), point.localPoint1);
     				
     				// TOI constraint results are not stored, so get
     				// the result from the constraint.
-    				cr.normalImpulse = ccp.normalImpulse;
-    				cr.tangentImpulse = ccp.tangentImpulse;
+    				if (cc != null) {
+    					ContactConstraintPoint ccp = cc.points[k];
+    					cr.normalImpulse = ccp.normalImpulse;
+    					cr.tangentImpulse = ccp.tangentImpulse;
+    				} else {
+    					cr.normalImpulse = point.normalImpulse;
+    					cr.tangentImpulse = point.tangentImpulse;
+    				}
     				cr.id = new ContactID(point.id);
 
     				m_listener.result(cr);
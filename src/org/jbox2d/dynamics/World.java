@@ -25,24 +25,29 @@ package org.jbox2d.dynamics;
 
 //import java.util.ArrayList;
 import java.util.Vector;
-import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.jbox2d.common.Color3f;
 
 import org.jbox2d.collision.AABB;
 import org.jbox2d.collision.BroadPhase;
+import org.jbox2d.collision.DynamicTree;
+import org.jbox2d.collision.DynamicTreeNode;
 import org.jbox2d.collision.CircleShape;
 import org.jbox2d.collision.OBB;
 import org.jbox2d.collision.Pair;
 import org.jbox2d.collision.PairManager;
 import org.jbox2d.collision.PolygonShape;
-import org.jbox2d.collision.Proxy;
 import org.jbox2d.collision.Shape;
 import org.jbox2d.collision.ShapeType;
-import org.jbox2d.collision.TOI;
 import org.jbox2d.common.*;
 import org.jbox2d.dynamics.contacts.Contact;
 import org.jbox2d.dynamics.contacts.ContactEdge;
+import org.jbox2d.dynamics.contacts.ContactSolver;
 import org.jbox2d.dynamics.joints.*;
 
 
@@ -93,6 +98,12 @@ public class World {
     boolean m_warmStarting;
     /** Should we enable continuous collision detection? */
     boolean m_continuousPhysics;
+    /** Should contacts reuse their manifold while their bodies hardly move
+     * relative to each other? */
+    public boolean m_contactCaching;
+
+    public long m_contactCacheHits;
+    public long m_contactCacheMisses;
     
 	DestructionListener m_destructionListener;
 	BoundaryListener m_boundaryListener;
@@ -104,6 +115,27 @@ public class World {
 
 	private Vector postStepList;
 
+	/** Max number of contacts in a TOI island, which bounds the work per TOI event. */
+	int m_maxTOIContactsPerIsland;
+
+	int m_peakTOIContactCount;
+
+	int m_droppedTOIContactCount;
+
+	/** Pool the islands are solved on, null means they are solved serially. */
+	ForkJoinPool m_solvePool;
+
+	SolveChunk[] m_solveChunks;
+
+	/** The SolveChunks to invoke, with one chunk per task. */
+	Vector<SolveChunk> m_solveTasks = new Vector<SolveChunk>();
+
+	/** Islands of the parallel solve, reused from step to step. */
+	Vector<Island> m_islands = new Vector<Island>();
+
+	/** Scratch objects of step, so that it does not create garbage. */
+	public final WorldPool m_pool = new WorldPool();
+
 	/** Get the number of bodies. */
 	public int getBodyCount() {
 		return m_bodyCount;
@@ -163,6 +195,22 @@ public class World {
 	 * @param doSleep improve performance by not simulating inactive bodies.
      */
 	public World(AABB worldAABB, Vec2 gravity, boolean doSleep) {
+		this(worldAABB, gravity, doSleep, Settings.maxProxies, Settings.maxPairs);
+	}
+
+    /**
+     * Construct a world object, with initial sizes for the broad-phase pools.
+     * The pools grow when they are full, so these are only hints; use
+     * getPeakProxyCount and getPeakPairCount to find good values.
+     * @param worldAABB a bounding box that completely encompasses all your shapes.
+	 * @param gravity the world gravity vector.
+	 * @param doSleep improve performance by not simulating inactive bodies.
+	 * @param proxyCapacity initial number of shapes the broad-phase has room for.
+	 * @param pairCapacity initial number of overlapping shape pairs the
+	 * broad-phase has room for.
+     */
+	public World(AABB worldAABB, Vec2 gravity, boolean doSleep,
+			int proxyCapacity, int pairCapacity) {
 		m_positionCorrection = true;
 		m_warmStarting = true;
 		m_continuousPhysics = true;
@@ -190,7 +238,9 @@ public class World {
 
         m_contactManager = new ContactManager();
         m_contactManager.m_world = this;
-        m_broadPhase = new BroadPhase(worldAABB, m_contactManager);
+        m_broadPhase = new BroadPhase(worldAABB, m_contactManager,
+        		proxyCapacity, pairCapacity);
+        m_maxTOIContactsPerIsland = Settings.maxTOIContactsPerIsland;
 
         BodyDef bd = new BodyDef();
         m_groundBody = createBody(bd);
@@ -451,7 +501,7 @@ public class World {
     public void step(float dt, int iterations) {
     	m_lock = true;
 
-    	TimeStep step = new TimeStep();
+    	TimeStep step = m_pool.step;
     	step.dt = dt;
     	step.maxIterations	= iterations;
     	if (dt > 0.0f) {
@@ -490,8 +540,9 @@ public class World {
     
     /** Goes through the registered postStep functions and calls them. */
     private void postStep(float dt, int iterations) {
-		for (Enumeration e=postStepList.elements(); e.hasMoreElements(); ) {
-    		Steppable s = (Steppable)e.nextElement();
+		// Indexed, as an Enumeration would be garbage.
+		for (int i=0; i<postStepList.size(); i++) {
+    		Steppable s = (Steppable)postStepList.elementAt(i);
     		s.step(dt,iterations);
     	}
     }
@@ -550,8 +601,10 @@ public class World {
     public void solve(TimeStep step) {
     	m_positionIterationCount = 0;
     	
-        // Size the island for the worst case.
-    	Island island = new Island(m_bodyCount, m_contactCount, m_jointCount, m_contactListener);
+        // The island grows as needed.
+    	Island island = m_pool.island;
+    	island.m_listener = m_contactListener;
+    	island.m_contactSolver = m_pool.contactSolver;
 
         // Clear all the island flags.
         for (Body b = m_bodyList; b != null; b = b.m_next) {
@@ -566,8 +619,11 @@ public class World {
 
         // Build and simulate all awake islands.
         int stackSize = m_bodyCount;
-        Body[] stack = new Body[stackSize];
-        for (Body seed = m_bodyList; seed != null; seed = seed.m_next) {
+        Body[] stack = m_pool.getStack(stackSize);
+        if (m_solvePool != null) {
+        	solveParallel(step, stack);
+        }
+        else for (Body seed = m_bodyList; seed != null; seed = seed.m_next) {
             if ( (seed.m_flags & (Body.e_islandFlag | Body.e_sleepFlag | Body.e_frozenFlag)) > 0){
                 continue;
             }
@@ -578,74 +634,11 @@ public class World {
 
             // Reset island and stack.
             island.clear();
-            int stackCount = 0;
-            stack[stackCount++] = seed;
-            seed.m_flags |= Body.e_islandFlag;
-
-            // Perform a depth first search (DFS) on the constraint graph.
-            while (stackCount > 0) {
-                // Grab the next body off the stack and add it to the island.
-                Body b = stack[--stackCount];
-                island.add(b);
-
-                // Make sure the body is awake.
-                b.m_flags &= ~Body.e_sleepFlag;
-
-                // To keep islands as small as possible, we don't
-                // propagate islands across static bodies.
-                if (b.isStatic()) {
-                    continue;
-                }
-
-                // Search all contacts connected to this body.
-                for ( ContactEdge cn = b.m_contactList; cn != null; cn = cn.next) {
-                    // Has this contact already been added to an island?
-                	if ( (cn.contact.m_flags & (Contact.e_islandFlag | Contact.e_nonSolidFlag)) > 0) {
-                        continue;
-                    }
-                	
-                	// Is this contact touching?
-    				if (cn.contact.getManifoldCount() == 0) {
-    					continue;
-    				}
-    				
-                    island.add(cn.contact);
-                    cn.contact.m_flags |= Contact.e_islandFlag;
-
-                    // Was the other body already added to this island?
-    				Body other = cn.other;
-                    if ((other.m_flags & Body.e_islandFlag) > 0) {
-                        continue;
-                    }
-
-                    //assert stackCount < stackSize;
-                    stack[stackCount++] = other;
-                    other.m_flags |= Body.e_islandFlag;
-                }
-
-                // Search all joints connect to this body.
-                for ( JointEdge jn = b.m_jointList; jn != null; jn = jn.next) {
-                    if (jn.joint.m_islandFlag == true) {
-                        continue;
-                    }
-
-                    island.add(jn.joint);
-                    jn.joint.m_islandFlag = true;
-
-                    Body other = jn.other;
-                    if ((other.m_flags & Body.e_islandFlag) > 0) {
-                        continue;
-                    }
-
-                    //assert (stackCount < stackSize);
-                    stack[stackCount++] = other;
-                    other.m_flags |= Body.e_islandFlag;
-                }
-            }
+            buildIsland(island, seed, stack);
 
             island.solve(step, m_gravity, m_positionCorrection, m_allowSleep);
     		
-            m_positionIterationCount = Math.max(m_positionIterationCount, Island.m_positionIterationCount); 
+            m_positionIterationCount = Math.max(m_positionIterationCount, island.m_positionIterationCount); 
 
             // Post solve cleanup.
     		for (int i = 0; i < island.m_bodyCount; ++i) {
@@ -687,12 +680,235 @@ public class World {
     }
     
     
+    /**
+     * Add the island of seed to island, by a depth first search on the
+     * constraint graph from seed.
+     */
+    void buildIsland(Island island, Body seed, Body[] stack) {
+        int stackCount = 0;
+        stack[stackCount++] = seed;
+        seed.m_flags |= Body.e_islandFlag;
+
+        // Perform a depth first search (DFS) on the constraint graph.
+        while (stackCount > 0) {
+            // Grab the next body off the stack and add it to the island.
+            Body b = stack[--stackCount];
+            island.add(b);
+
+            // Make sure the body is awake.
+            b.m_flags &= ~Body.e_sleepFlag;
+
+            // To keep islands as small as possible, we don't
+            // propagate islands across static bodies.
+            if (b.isStatic()) {
+                continue;
+            }
+
+            // Search all contacts connected to this body.
+            for ( ContactEdge cn = b.m_contactList; cn != null; cn = cn.next) {
+                // Has this contact already been added to an island?
+            	if ( (cn.contact.m_flags & (Contact.e_islandFlag | Contact.e_nonSolidFlag)) > 0) {
+                    continue;
+                }
+            	
+            	// Is this contact touching?
+				if (cn.contact.getManifoldCount() == 0) {
+					continue;
+				}
+				
+                island.add(cn.contact);
+                cn.contact.m_flags |= Contact.e_islandFlag;
+
+                // Was the other body already added to this island?
+				Body other = cn.other;
+                if ((other.m_flags & Body.e_islandFlag) > 0) {
+                    continue;
+                }
+
+                //assert stackCount < stackSize;
+                stack[stackCount++] = other;
+                other.m_flags |= Body.e_islandFlag;
+            }
+
+            // Search all joints connect to this body.
+            for ( JointEdge jn = b.m_jointList; jn != null; jn = jn.next) {
+                if (jn.joint.m_islandFlag == true) {
+                    continue;
+                }
+
+                island.add(jn.joint);
+                jn.joint.m_islandFlag = true;
+
+                Body other = jn.other;
+                if ((other.m_flags & Body.e_islandFlag) > 0) {
+                    continue;
+                }
+
+                //assert (stackCount < stackSize);
+                stack[stackCount++] = other;
+                other.m_flags |= Body.e_islandFlag;
+            }
+        }
+
+    }
+
+    /**
+     * Build all awake islands, as solve does, then solve them on m_solvePool.
+     * Islands do not share dynamic bodies, contacts or joints, so they can be
+     * solved in any order. The static bodies they share are not changed by
+     * the solver, except for their sleep flag, which is set afterwards in
+     * island order, as are the contact results. So the result is the same
+     * as that of the serial solve.
+     */
+    void solveParallel(TimeStep step, Body[] stack) {
+    	int islandCount = 0;
+    	int work = 0;
+    	for (Body seed = m_bodyList; seed != null; seed = seed.m_next) {
+    		if ( (seed.m_flags & (Body.e_islandFlag | Body.e_sleepFlag | Body.e_frozenFlag)) > 0){
+    			continue;
+    		}
+
+    		if (seed.isStatic()) {
+    			continue;
+    		}
+
+    		if (islandCount == m_islands.size()) {
+    			m_islands.addElement(new Island(0, 0, 0, null));
+    		}
+    		Island island = m_islands.elementAt(islandCount++);
+    		island.clear();
+    		island.m_listener = m_contactListener;
+    		island.m_deferReport = true;
+    		buildIsland(island, seed, stack);
+    		work += island.m_bodyCount + island.m_contactCount + island.m_jointCount;
+
+    		// Allow static bodies to participate in other islands.
+    		for (int i = 0; i < island.m_bodyCount; ++i) {
+    			Body b = island.m_bodies[i];
+    			if (b.isStatic()) {
+    				b.m_flags &= ~Body.e_islandFlag;
+    			}
+    		}
+    	}
+
+    	// Split the islands into consecutive runs of about equal work.
+    	int chunkCount = Math.min(m_solveChunks.length, islandCount);
+    	int chunkWork = work / Math.max(1, chunkCount) + 1;
+    	int first = 0;
+    	m_solveTasks.removeAllElements();
+    	for (int c = 0; c < chunkCount && first < islandCount; ++c) {
+    		SolveChunk chunk = m_solveChunks[c];
+    		chunk.m_step = step;
+    		chunk.m_first = first;
+    		int w = 0;
+    		while (first < islandCount && (w < chunkWork || c == chunkCount - 1)) {
+    			Island island = m_islands.elementAt(first++);
+    			island.m_contactSolver = chunk.m_contactSolver;
+    			w += island.m_bodyCount + island.m_contactCount + island.m_jointCount;
+    		}
+    		chunk.m_last = first;
+    		m_solveTasks.addElement(chunk);
+    	}
+
+    	if (m_solveTasks.size() == 1) {
+    		m_solveTasks.elementAt(0).call();
+    	} else if (m_solveTasks.size() > 1) {
+    		List<Future<Object>> results = m_solvePool.invokeAll(m_solveTasks);
+    		for (int i = 0; i < results.size(); ++i) {
+    			try {
+    				results.get(i).get();
+    			} catch (InterruptedException e) {
+    				Thread.currentThread().interrupt();
+    				throw new RuntimeException(e);
+    			} catch (ExecutionException e) {
+    				Throwable cause = e.getCause();
+    				if (cause instanceof RuntimeException) {
+    					throw (RuntimeException) cause;
+    				}
+    				if (cause instanceof Error) {
+    					throw (Error) cause;
+    				}
+    				throw new RuntimeException(cause);
+    			}
+    		}
+    	}
+
+    	// Merge in island order. A static body that is in several islands
+    	// ends up with the sleep flag of the last of them.
+    	for (int k = 0; k < islandCount; ++k) {
+    		Island island = m_islands.elementAt(k);
+    		m_positionIterationCount = Math.max(m_positionIterationCount, island.m_positionIterationCount);
+    		island.reportDeferred();
+
+    		boolean sleeping = island.m_bodies[0].isSleeping();
+    		for (int i = 0; i < island.m_bodyCount; ++i) {
+    			Body b = island.m_bodies[i];
+    			if (b.isStatic()) {
+    				if (sleeping) {
+    					b.m_flags |= Body.e_sleepFlag;
+    				} else {
+    					b.m_flags &= ~Body.e_sleepFlag;
+    				}
+    			}
+    		}
+    	}
+    }
+
+    /** A run of consecutive islands, solved by one task of m_solvePool. */
+    class SolveChunk implements Callable<Object> {
+    	TimeStep m_step;
+
+    	int m_first;
+
+    	int m_last;
+
+    	/** Scratch solver of the islands of this chunk. */
+    	ContactSolver m_contactSolver = new ContactSolver();
+
+    	public Object call() {
+    		for (int i = m_first; i < m_last; ++i) {
+    			Island island = m_islands.elementAt(i);
+    			island.solve(m_step, m_gravity, m_positionCorrection, m_allowSleep);
+    		}
+    		return null;
+    	}
+    }
+
+    /**
+     * Solve the islands of each step on nrThreads threads. With nrThreads
+     * less than 2 (the default) the islands are solved on the calling thread.
+     * The result is the same either way, and contact results are still
+     * reported on the calling thread, after all islands are solved.
+     * ContactListener.result must not change bodies, and joints must only
+     * change their own bodies. Ignored during a step.
+     */
+    public void setParallelSolve(int nrThreads) {
+    	if (m_lock == true) {
+    		return;
+    	}
+    	if (m_solvePool != null) {
+    		m_solvePool.shutdown();
+    		m_solvePool = null;
+    		m_solveChunks = null;
+    	}
+    	if (nrThreads < 2) {
+    		return;
+    	}
+    	m_solvePool = new ForkJoinPool(nrThreads);
+    	m_solveChunks = new SolveChunk[4 * nrThreads];
+    	for (int i = 0; i < m_solveChunks.length; ++i) {
+    		m_solveChunks[i] = new SolveChunk();
+    	}
+    }
+
     /** For internal use: find TOI contacts and solve them. */
     public void solveTOI(TimeStep step) {
     	// Reserve an island and a stack for TOI island solution.
-    	Island island = new Island(m_bodyCount, Settings.maxTOIContactsPerIsland, 0, m_contactListener);
+    	Island island = m_pool.toiIsland;
+    	island.m_listener = m_contactListener;
+    	island.m_contactSolver = m_pool.contactSolver;
     	int stackSize = m_bodyCount;
-    	Body[] stack = new Body[stackSize];
+    	Body[] stack = m_pool.getStack(stackSize);
 
     	for (Body b = m_bodyList; b != null; b = b.m_next) {
     		b.m_flags &= ~Body.e_islandFlag;
@@ -744,7 +960,7 @@ public class World {
     				//assert(t0 < 1.0f);
 
     				// Compute the time of impact.
-    				toi = TOI.timeOfImpact(c.m_shape1, b1.m_sweep, c.m_shape2, b2.m_sweep);
+    				toi = m_pool.toi.compute(c.m_shape1, b1.m_sweep, c.m_shape2, b2.m_sweep);
     				//assert(0.0f <= toi && toi <= 1.0f);
     				
     				if (toi > 0.0f && toi < 1.0f) {
@@ -778,6 +994,7 @@ public class World {
     		b2.advance(minTOI);
 
     		// The TOI contact likely has some new contact points.
+    		minContact.m_flags &= ~Contact.e_cachedFlag;
     		minContact.update(m_contactListener);
     		minContact.m_flags &= ~Contact.e_toiFlag;
 
@@ -816,11 +1033,6 @@ public class World {
 
     			// Search all contacts connected to this body.
     			for (ContactEdge cn = b.m_contactList; cn != null; cn = cn.next) {
-    				// Does the TOI island still have space for contacts?
-    				if (island.m_contactCount == island.m_contactCapacity) {
-    					continue;
-    				}
-
     				// Has this contact already been added to an island? Skip slow or non-solid contacts.
     				if ( (cn.contact.m_flags & (Contact.e_islandFlag | Contact.e_slowFlag | Contact.e_nonSolidFlag)) != 0) {
     					continue;
@@ -831,6 +1043,12 @@ public class World {
     					continue;
     				}
 
+    				// Does the TOI island still have space for contacts?
+    				if (island.m_contactCount >= m_maxTOIContactsPerIsland) {
+    					++m_droppedTOIContactCount;
+    					continue;
+    				}
+
     				island.add(cn.contact);
     				cn.contact.m_flags |= Contact.e_islandFlag;
     				// Update other body.
@@ -854,7 +1072,11 @@ public class World {
     			}
     		}
 
-    		TimeStep subStep = new TimeStep();
+    		if (island.m_contactCount > m_peakTOIContactCount) {
+    			m_peakTOIContactCount = island.m_contactCount;
+    		}
+
+    		TimeStep subStep = m_pool.subStep;
     		subStep.dt = (1.0f - minTOI) * step.dt;
     		//assert(subStep.dt > Settings.EPSILON);
     		subStep.inv_dt = 1.0f / subStep.dt;
@@ -1019,27 +1241,14 @@ public class World {
 
     	if ( (flags & DebugDraw.e_pairBit) != 0) {
     		BroadPhase bp = m_broadPhase;
-    		Vec2 invQ = new Vec2(0.0f, 0.0f);
-    		invQ.set(1.0f / bp.m_quantizationFactor.x, 1.0f / bp.m_quantizationFactor.y);
     		Color3f color = new Color3f(255f*0.9f, 255f*0.9f, 255f*0.3f);
 
-    		for (int i = 0; i < PairManager.TABLE_CAPACITY; ++i) {
+    		for (int i = 0; i < bp.m_pairManager.m_tableCapacity; ++i) {
     			int index = bp.m_pairManager.m_hashTable[i];
     			while (index != PairManager.NULL_PAIR) {
     				Pair pair = bp.m_pairManager.m_pairs[index];
-    				Proxy p1 = bp.m_proxyPool[pair.proxyId1];
-    				Proxy p2 = bp.m_proxyPool[pair.proxyId2];
-
-    				AABB b1 = new AABB();
-    				AABB b2 = new AABB();
-    				b1.lowerBound.x = bp.m_worldAABB.lowerBound.x + invQ.x * bp.m_bounds[0][p1.lowerBounds[0]].value;
-    				b1.lowerBound.y = bp.m_worldAABB.lowerBound.y + invQ.y * bp.m_bounds[1][p1.lowerBounds[1]].value;
-    				b1.upperBound.x = bp.m_worldAABB.lowerBound.x + invQ.x * bp.m_bounds[0][p1.upperBounds[0]].value;
-    				b1.upperBound.y = bp.m_worldAABB.lowerBound.y + invQ.y * bp.m_bounds[1][p1.upperBounds[1]].value;
-    				b2.lowerBound.x = bp.m_worldAABB.lowerBound.x + invQ.x * bp.m_bounds[0][p2.lowerBounds[0]].value;
-    				b2.lowerBound.y = bp.m_worldAABB.lowerBound.y + invQ.y * bp.m_bounds[1][p2.lowerBounds[1]].value;
-    				b2.upperBound.x = bp.m_worldAABB.lowerBound.x + invQ.x * bp.m_bounds[0][p2.upperBounds[0]].value;
-    				b2.upperBound.y = bp.m_worldAABB.lowerBound.y + invQ.y * bp.m_bounds[1][p2.upperBounds[1]].value;
+    				AABB b1 = bp.getFatAABB(pair.proxyId1);
+    				AABB b2 = bp.getFatAABB(pair.proxyId2);
 
     				Vec2 x1 = new Vec2(0.5f * (b1.lowerBound.x + b1.upperBound.x),
     								   0.5f * (b1.lowerBound.y + b1.upperBound.y));
@@ -1060,20 +1269,15 @@ public class World {
 		
     	if ( (flags & DebugDraw.e_aabbBit) != 0) {
 
-    		Vec2 invQ = new Vec2();
-    		invQ.set(1.0f / bp.m_quantizationFactor.x, 1.0f / bp.m_quantizationFactor.y);
     		Color3f color = new Color3f(255f*0.9f, 255f*0.3f,255f* 0.9f);
-    		for (int i = 0; i < Settings.maxProxies; ++i) {
-    			Proxy p = bp.m_proxyPool[i];
-    			if (p.isValid() == false) {
+    		DynamicTree tree = bp.m_tree;
+    		for (int i = 0; i < tree.m_nodeCapacity; ++i) {
+    			DynamicTreeNode node = tree.m_nodes[i];
+    			if (node.height != 0) {
     				continue;
     			}
 
-    			AABB b = new AABB();
-    			b.lowerBound.x = worldLower.x + invQ.x * bp.m_bounds[0][p.lowerBounds[0]].value;
-    			b.lowerBound.y = worldLower.y + invQ.y * bp.m_bounds[1][p.lowerBounds[1]].value;
-    			b.upperBound.x = worldLower.x + invQ.x * bp.m_bounds[0][p.upperBounds[0]].value;
-    			b.upperBound.y = worldLower.y + invQ.y * bp.m_bounds[1][p.upperBounds[1]].value;
+    			AABB b = node.aabb;
 
     			Vec2[] vs = new Vec2[4];
     			vs[0] = new Vec2(b.lowerBound.x, b.lowerBound.y);
@@ -1140,6 +1344,31 @@ public class World {
 
 	/** Enable/disable continuous physics. For testing. */
 	public void setContinuousPhysics(boolean flag) { m_continuousPhysics = flag; }
+
+	/** Enable/disable the narrow-phase contact cache. When enabled, a
+	 * contact whose bodies moved less than Settings.linearSlop and
+	 * Settings.angularSlop relative to each other since its manifold was
+	 * computed reuses that manifold, which saves most of the collision work
+	 * in resting stacks. The results are then within the slop of the exact
+	 * ones, but not the same. Default is disabled. */
+	public void setContactCaching(boolean flag) { m_contactCaching = flag; }
+
+	/** Get the number of contact evaluations that reused the manifold. */
+	public long getContactCacheHits() {
+		return m_contactCacheHits;
+	}
+
+	/** Get the number of contact evaluations that computed the manifold
+	 * while the contact cache was enabled. */
+	public long getContactCacheMisses() {
+		return m_contactCacheMisses;
+	}
+
+	/** Fraction of contact evaluations that reused the manifold, 0 if none. */
+	public double getContactCacheHitRate() {
+		if (m_contactCacheHits + m_contactCacheMisses == 0) return 0;
+		return (double)m_contactCacheHits / (m_contactCacheHits + m_contactCacheMisses);
+	}
 	
 	/** Perform validation of internal data structures. */
 	public void validate() {
@@ -1155,6 +1384,53 @@ public class World {
 	public int getPairCount() {
 		return m_broadPhase.m_pairManager.m_pairCount;
 	}
+
+	/** Get the highest number of broad-phase proxies so far.
+	 * Use it as proxyCapacity when constructing the world. */
+	public int getPeakProxyCount() {
+		return m_broadPhase.m_peakProxyCount;
+	}
+
+	/** Get the highest number of broad-phase pairs so far.
+	 * Use it as pairCapacity when constructing the world. */
+	public int getPeakPairCount() {
+		return m_broadPhase.m_pairManager.m_peakPairCount;
+	}
+
+	/** Get the highest number of pair changes buffered between commits. */
+	public int getPeakPairBufferCount() {
+		return m_broadPhase.m_pairManager.m_peakPairBufferCount;
+	}
+
+	/** Set the max number of contacts in a TOI island. This bounds the
+	 * work done for each time of impact event; contacts beyond it are not
+	 * solved in the TOI sub-step. Default is Settings.maxTOIContactsPerIsland. */
+	public void setMaxTOIContactsPerIsland(int maxContacts) {
+		m_maxTOIContactsPerIsland = maxContacts;
+	}
+
+	/** Get the highest number of contacts in a TOI island so far. */
+	public int getPeakTOIContactCount() {
+		return m_peakTOIContactCount;
+	}
+
+	/** Get the number of contacts that were left out of TOI islands
+	 * because of the max set by setMaxTOIContactsPerIsland. */
+	public int getDroppedTOIContactCount() {
+		return m_droppedTOIContactCount;
+	}
+
+	/** Reset the peak counts and the contact cache counts, for example
+	 * when starting a new level. */
+	public void resetPeakCounts() {
+		m_broadPhase.m_peakProxyCount = m_broadPhase.m_proxyCount;
+		m_broadPhase.m_pairManager.m_peakPairCount = m_broadPhase.m_pairManager.m_pairCount;
+		m_broadPhase.m_pairManager.m_peakPairBufferCount = 0;
+		m_peakTOIContactCount = 0;
+		m_droppedTOIContactCount = 0;
+		m_contactCacheHits = 0;
+		m_contactCacheMisses = 0;
+	}
 	
 	/** Get the world bounding box. */
 	public AABB getWorldAABB() {
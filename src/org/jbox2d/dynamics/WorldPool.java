@@ -0,0 +1,88 @@
+/*
+ * JBox2D - A Java Port of Erin Catto's Box2D
+ * 
+ * JBox2D homepage: http://jbox2d.sourceforge.net/ 
+ * Box2D homepage: http://www.box2d.org
+ * 
+ * This software is provided 'as-is', without any express or implied
+ * warranty.  In no event will the authors be held liable for any damages
+ * arising from the use of this software.
+ * 
+ * Permission is granted to anyone to use this software for any purpose,
+ * including commercial applications, and to alter it and redistribute it
+ * freely, subject to the following restrictions:
+ * 
+ * 1. The origin of this software must not be misrepresented; you must not
+ * claim that you wrote the original software. If you use this software
+ * in a product, an acknowledgment in the product documentation would be
+ * appreciated but is not required.
+ * 2. Altered source versions must be plainly marked as such, and must not be
+ * misrepresented as being the original software.
+ * 3. This notice may not be removed or altered from any source distribution.
+ */
+
+
+package org.jbox2d.dynamics;
+
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.CollideCircle;
+import org.jbox2d.collision.CollidePoly;
+import org.jbox2d.collision.Manifold;
+import org.jbox2d.collision.TOI;
+import org.jbox2d.common.Settings;
+import org.jbox2d.common.XForm;
+import org.jbox2d.dynamics.contacts.ContactSolver;
+
+/**
+ * Scratch objects of a World, which are reused from step to step so that
+ * a step does not create garbage once the world has settled. Only the
+ * step itself may use them: they are overwritten by the next use, and
+ * they are not shared between threads.
+ * <p>
+ * What still allocates: contact listener, boundary listener and debug
+ * draw callbacks, joints, the parallel solve, and the creation of new
+ * contacts and broad-phase pairs.
+ */
+public class WorldPool {
+	/** The time step of World.step. */
+	public final TimeStep step = new TimeStep();
+
+	/** The time step of a TOI island. */
+	public final TimeStep subStep = new TimeStep();
+
+	/** The island of the serial solve. It grows as needed. */
+	public final Island island = new Island(0, 0, 0, null);
+
+	/** The island of the TOI solve. It grows as needed. */
+	public final Island toiIsland = new Island(0, 0, 0, null);
+
+	/** The solver of both islands. */
+	public final ContactSolver contactSolver = new ContactSolver();
+
+	// Narrow-phase scratch of the contacts.
+	public final CollidePoly collidePoly = new CollidePoly();
+	public final CollideCircle collideCircle = new CollideCircle();
+	public final TOI toi = new TOI();
+
+	/** The old manifold of a contact being evaluated. */
+	public final Manifold manifold = new Manifold();
+
+	/** Which old manifold points persisted. */
+	public final boolean[] persisted = new boolean[Settings.maxManifoldPoints];
+
+	/** The start transform of Body.synchronizeShapes. */
+	public final XForm xf = new XForm();
+
+	/** The swept AABB of Shape.synchronize. */
+	public final AABB aabb = new AABB();
+
+	private Body[] m_stack = new Body[0];
+
+	/** Get the DFS stack of the island builders, with room for size bodies. */
+	public Body[] getStack(int size) {
+		if (m_stack.length < size) {
+			m_stack = new Body[Math.max(size, 2 * m_stack.length)];
+		}
+		return m_stack;
+	}
+}
@@ -27,7 +27,6 @@ package org.jbox2d.dynamics.contacts;
 //import java.util.List;
 
 import org.jbox2d.collision.CircleShape;
-import org.jbox2d.collision.CollideCircle;
 import org.jbox2d.collision.Collision;
 import org.jbox2d.collision.ContactID;
 import org.jbox2d.collision.Manifold;
@@ -38,6 +37,7 @@ import org.jbox2d.common.Vec2;
 import org.jbox2d.common.XForm;
 import org.jbox2d.dynamics.Body;
 import org.jbox2d.dynamics.ContactListener;
+import org.jbox2d.dynamics.WorldPool;
 
 // Updated to rev 142 of b2CircleContact.h/cpp
 
@@ -86,26 +86,25 @@ public class CircleContact extends Contact implements ContactCreateFcn {
         //        (CircleShape) m_shape2, false);
         Body b1 = m_shape1.getBody();
     	Body b2 = m_shape2.getBody();
+    	WorldPool pool = b1.m_world.m_pool;
 
-    	Manifold m0 = new Manifold(m_manifold);
-        for (int k = 0; k < m_manifold.pointCount; k++) {
-            m0.points[k] = new ManifoldPoint(m_manifold.points[k]);
-            m0.points[k].normalImpulse = m_manifold.points[k].normalImpulse;
-            m0.points[k].tangentImpulse = m_manifold.points[k].tangentImpulse;
-            m0.points[k].separation = m_manifold.points[k].separation;
-            //m0.points[k].id.key = m_manifold.points[k].id.key;
-            m0.points[k].id.features.set(m_manifold.points[k].id.features);
-            //System.out.println(m_manifold.points[k].id.key);
-        }
-        m0.pointCount = m_manifold.pointCount;
+    	// Copied into the world's pool manifold, which is not garbage.
+    	Manifold m0 = pool.manifold;
+    	m0.set(m_manifold);
     	
-    	CollideCircle.collideCircles(m_manifold, (CircleShape)m_shape1, b1.m_xf, (CircleShape)m_shape2, b2.m_xf);
-
-    	ContactPoint cp = new ContactPoint();
-    	cp.shape1 = m_shape1;
-    	cp.shape2 = m_shape2;
-    	cp.friction = m_friction;
-    	cp.restitution = m_restitution;
+    	if (updateCachedManifold(m_manifold) == false) {
+    		pool.collideCircle.collide(m_manifold, (CircleShape)m_shape1, b1.m_xf, (CircleShape)m_shape2, b2.m_xf);
+    		cacheManifold(m_manifold);
+    	}
+
+    	ContactPoint cp = null;
+    	if (listener != null) {
+    		cp = new ContactPoint();
+    		cp.shape1 = m_shape1;
+    		cp.shape2 = m_shape2;
+    		cp.friction = m_friction;
+    		cp.restitution = m_restitution;
+    	}
 
     	
         if (m_manifold.pointCount > 0) {
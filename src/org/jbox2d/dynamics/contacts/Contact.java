@@ -31,7 +31,10 @@ import java.util.Enumeration;
 import org.jbox2d.collision.Manifold;
 import org.jbox2d.collision.Shape;
 import org.jbox2d.collision.ShapeType;
+import org.jbox2d.common.Mat22;
 import org.jbox2d.common.MathUtils;
+import org.jbox2d.common.Settings;
+import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.Body;
 import org.jbox2d.dynamics.ContactListener;
 import org.jbox2d.dynamics.World;
@@ -49,6 +52,8 @@ public abstract class Contact {
 	public static final int e_slowFlag		= 0x0002;
 	public static final int e_islandFlag	= 0x0004;
 	public static final int e_toiFlag		= 0x0008;
+	/** The manifold was computed at the m_cache relative transform. */
+	public static final int e_cachedFlag	= 0x0010;
 
 	static Vector s_registers;
 
@@ -79,6 +84,12 @@ public abstract class Contact {
     public int m_manifoldCount;
     
     public float m_toi;
+
+    // Narrow-phase cache: the relative transform of body2 in the frame of
+    // body1, and the manifold normal in the frame of body1, at the time the
+    // manifold was computed.
+    float m_cacheX, m_cacheY, m_cacheAngle;
+    float m_cacheNormalX, m_cacheNormalY;
 	
     public abstract void evaluate(ContactListener listener);
     
@@ -266,5 +277,65 @@ public abstract class Contact {
     	}
     }
 
+    /**
+     * Narrow-phase cache, see World.setContactCaching. Returns true if the
+     * bodies moved less than Settings.linearSlop and Settings.angularSlop
+     * relative to each other since the manifold was computed. The manifold
+     * is then reused: its points are in the frames of the bodies, so only
+     * its normal is rotated along with body1. Otherwise returns false, and
+     * the caller should compute the manifold and then call cacheManifold.
+     */
+    protected boolean updateCachedManifold(Manifold manifold) {
+    	Body b1 = m_shape1.m_body;
+    	Body b2 = m_shape2.m_body;
+    	World world = b1.m_world;
+    	if (world.m_contactCaching == false) {
+    		m_flags &= ~e_cachedFlag;
+    		return false;
+    	}
+
+    	// Relative transform, MulT(xf1, xf2) without the rotation matrix.
+    	Mat22 R = b1.m_xf.R;
+    	float dx = b2.m_xf.position.x - b1.m_xf.position.x;
+    	float dy = b2.m_xf.position.y - b1.m_xf.position.y;
+    	float x = dx * R.col1.x + dy * R.col1.y;
+    	float y = dx * R.col2.x + dy * R.col2.y;
+    	float angle = b2.m_sweep.a - b1.m_sweep.a;
+
+    	if ((m_flags & e_cachedFlag) != 0) {
+    		float ex = x - m_cacheX;
+    		float ey = y - m_cacheY;
+    		if (ex * ex + ey * ey < Settings.linearSlop * Settings.linearSlop
+    		&& Math.abs(angle - m_cacheAngle) < Settings.angularSlop) {
+    			++world.m_contactCacheHits;
+    			float nx = m_cacheNormalX;
+    			float ny = m_cacheNormalY;
+    			manifold.normal.set(R.col1.x * nx + R.col2.x * ny,
+    			                    R.col1.y * nx + R.col2.y * ny);
+    			return true;
+    		}
+    	}
+
+    	++world.m_contactCacheMisses;
+    	m_cacheX = x;
+    	m_cacheY = y;
+    	m_cacheAngle = angle;
+    	m_flags &= ~e_cachedFlag;
+    	return false;
+    }
+
+    /** Store the manifold normal for updateCachedManifold, after the
+     * manifold was computed. */
+    protected void cacheManifold(Manifold manifold) {
+    	if (m_shape1.m_body.m_world.m_contactCaching == false) {
+    		return;
+    	}
+    	Mat22 R = m_shape1.m_body.m_xf.R;
+    	Vec2 n = manifold.normal;
+    	m_cacheNormalX = n.x * R.col1.x + n.y * R.col1.y;
+    	m_cacheNormalY = n.x * R.col2.x + n.y * R.col2.y;
+    	m_flags |= e_cachedFlag;
+    }
+
     public abstract Contact clone();
 }
@@ -54,7 +54,26 @@ public class ContactSolver {
 
     public int m_constraintCount;
 
+    // Scratch vectors of solveVelocityConstraints.
+    private final Vec2 v1 = new Vec2();
+    private final Vec2 v2 = new Vec2();
+    private final Vec2 tangent = new Vec2();
+
+    /** An empty solver, to be set up with init. */
+    public ContactSolver() {
+    	m_constraints = new ContactConstraint[0];
+    	m_constraintCount = 0;
+    }
+
     public ContactSolver(TimeStep step, Contact[] contacts, int contactCount) {
+    	init(step, contacts, contactCount);
+    }
+
+    /**
+     * Set up the constraints for the contacts of an island. The constraint
+     * objects are reused, so one solver can solve many islands in turn.
+     */
+    public void init(TimeStep step, Contact[] contacts, int contactCount) {
     	m_step = step;
     	
         m_constraintCount = 0;
@@ -63,17 +82,17 @@ public class ContactSolver {
             m_constraintCount += contacts[i].getManifoldCount();
         }
 
-        //*
-        m_constraints = new ContactConstraint[m_constraintCount];
-        /*/
-        m_constraints = new ArrayList<ContactConstraint>(m_constraintCount);
-        //*/
-        for (int i = 0; i < m_constraintCount; i++) {
-        	//*
-        	m_constraints[i] = new ContactConstraint();
-            /*/
-        	m_constraints.add(new ContactConstraint());
-        	//*/
+        if (m_constraints == null || m_constraints.length < m_constraintCount) {
+        	ContactConstraint[] constraints = new ContactConstraint[m_constraintCount];
+        	int reused = 0;
+        	if (m_constraints != null) {
+        		reused = m_constraints.length;
+        		System.arraycopy(m_constraints, 0, constraints, 0, reused);
+        	}
+        	for (int i = reused; i < m_constraintCount; i++) {
+        		constraints[i] = new ContactConstraint();
+        	}
+        	m_constraints = constraints;
         }
 
         int count = 0;
@@ -91,8 +110,10 @@ public class ContactSolver {
             float friction = contact.m_friction;
             float restitution = contact.m_restitution;
 
-            Vec2 v1 = b1.m_linearVelocity.clone();
-            Vec2 v2 = b2.m_linearVelocity.clone();
+            float v1x = b1.m_linearVelocity.x;
+            float v1y = b1.m_linearVelocity.y;
+            float v2x = b2.m_linearVelocity.x;
+            float v2y = b2.m_linearVelocity.y;
             float w1 = b1.m_angularVelocity;
             float w2 = b2.m_angularVelocity;
 
@@ -105,8 +126,6 @@ public class ContactSolver {
                 //assert (manifold.pointCount > 0) : "Manifold " + j
                 //        + " has length 0";
 
-                Vec2 normal = manifold.normal.clone();
-
                 //assert (count < m_constraintCount);
                 
                 //*
@@ -118,7 +137,8 @@ public class ContactSolver {
                 c.body1 = b1;
                 c.body2 = b2;
                 c.manifold = manifold; //no copy here!
-                c.normal = normal.clone();
+                c.normal.set(manifold.normal);
+                Vec2 normal = c.normal;
                 c.pointCount = manifold.pointCount;
                 
                 c.friction = friction;
@@ -142,8 +162,17 @@ public class ContactSolver {
 					//   XForm xf = new XForm();
 					//   xf.set(m_xf);
 					//   return xf;
-    				ccp.r1 = Mat22.mul(b1.m_xf.R, cp.localPoint1.sub(b1.m_sweep.localCenter));
-    				ccp.r2 = Mat22.mul(b2.m_xf.R, cp.localPoint2.sub(b2.m_sweep.localCenter));
+    				//ccp.r1 = Mat22.mul(b1.m_xf.R, cp.localPoint1.sub(b1.m_sweep.localCenter));
+    				//ccp.r2 = Mat22.mul(b2.m_xf.R, cp.localPoint2.sub(b2.m_sweep.localCenter));
+    				// written out to compute into the existing vectors
+    				Mat22 R = b1.m_xf.R;
+    				float lx = cp.localPoint1.x - b1.m_sweep.localCenter.x;
+    				float ly = cp.localPoint1.y - b1.m_sweep.localCenter.y;
+    				ccp.r1.set(R.col1.x * lx + R.col2.x * ly, R.col1.y * lx + R.col2.y * ly);
+    				R = b2.m_xf.R;
+    				lx = cp.localPoint2.x - b2.m_sweep.localCenter.x;
+    				ly = cp.localPoint2.y - b2.m_sweep.localCenter.y;
+    				ccp.r2.set(R.col1.x * lx + R.col2.x * ly, R.col1.y * lx + R.col2.y * ly);
     				//ccp.r1 = Mat22.mul(b1.getXForm().R, cp.localPoint1.sub(b1.getLocalCenter()));
     				//ccp.r2 = Mat22.mul(b2.getXForm().R, cp.localPoint2.sub(b2.getLocalCenter()));
 
@@ -164,10 +193,12 @@ public class ContactSolver {
     				//assert(kEqualized > Settings.EPSILON);
     				ccp.equalizedMass = 1.0f / kEqualized;
 
-                    Vec2 tangent = Vec2.cross(normal, 1.0f);
+                    //Vec2 tangent = Vec2.cross(normal, 1.0f);
+                    float tangentx = normal.y;
+                    float tangenty = -normal.x;
 
-                    float rt1 = Vec2.cross(ccp.r1, tangent);
-    				float rt2 = Vec2.cross(ccp.r2, tangent);
+                    float rt1 = ccp.r1.x * tangenty - ccp.r1.y * tangentx;
+    				float rt2 = ccp.r2.x * tangenty - ccp.r2.y * tangentx;
     				rt1 *= rt1;
     				rt2 *= rt2;
 
@@ -182,8 +213,10 @@ public class ContactSolver {
                     if (ccp.separation > 0.0f) {
                         ccp.velocityBias = -60.0f * ccp.separation; // TODO_ERIN b2TimeStep
                     }
-                    Vec2 buffer = Vec2.cross(w2, ccp.r2).subLocal(Vec2.cross(w1, ccp.r1)).addLocal(v2).subLocal(v1);
-                    float vRel = Vec2.dot(c.normal, buffer);
+                    //Vec2 buffer = Vec2.cross(w2, ccp.r2).subLocal(Vec2.cross(w1, ccp.r1)).addLocal(v2).subLocal(v1);
+                    float bufferx = (((-w2 * ccp.r2.y) - (-w1 * ccp.r1.y)) + v2x) - v1x;
+                    float buffery = (((w2 * ccp.r2.x) - (w1 * ccp.r1.x)) + v2y) - v1y;
+                    float vRel = normal.x * bufferx + normal.y * buffery;//Vec2.dot(c.normal, buffer);
                     if (vRel < -Settings.velocityThreshold) {
                     	ccp.velocityBias += -c.restitution * vRel;
                     }
@@ -251,10 +284,7 @@ public class ContactSolver {
     }
 
     public void solveVelocityConstraints() {
-    	// (4*constraints + 6*points) temp Vec2s - BOTTLENECK!
-    	Vec2 v1 = new Vec2(0,0);
-    	Vec2 v2 = new Vec2(0,0);
-		Vec2 tangent = new Vec2(0,0);
+    	// v1, v2 and tangent are fields, so no temp Vec2s are created
     	for (int i=0; i<this.m_constraintCount; ++i) {
     		
     		//*
@@ -560,9 +590,9 @@ public class ContactSolver {
 
                 ccp.tangentImpulse = newImpulse*intToFloatMul;
             }
-    		 b1.m_linearVelocity.set(new Vec2(v1_x*intToFloatMul,v1_y*intToFloatMul));
+    		 b1.m_linearVelocity.set(v1_x*intToFloatMul,v1_y*intToFloatMul);
     		 b1.m_angularVelocity = w1*intToFloatMul;
-    		 b2.m_linearVelocity.set(new Vec2(v2_x*intToFloatMul,v2_y*intToFloatMul));
+    		 b2.m_linearVelocity.set(v2_x*intToFloatMul,v2_y*intToFloatMul);
     		 b2.m_angularVelocity = w2*intToFloatMul;
         }
     }
@@ -617,16 +647,26 @@ public class ContactSolver {
 				//   xf.set(m_xf);
 				//   return xf;
 
-    			Vec2 r1 = Mat22.mul(b1.m_xf.R, ccp.localAnchor1.sub(b1.m_sweep.localCenter));
-    			Vec2 r2 = Mat22.mul(b2.m_xf.R, ccp.localAnchor2.sub(b2.m_sweep.localCenter));
+    			//Vec2 r1 = Mat22.mul(b1.m_xf.R, ccp.localAnchor1.sub(b1.m_sweep.localCenter));
+    			//Vec2 r2 = Mat22.mul(b2.m_xf.R, ccp.localAnchor2.sub(b2.m_sweep.localCenter));
+    			Mat22 R = b1.m_xf.R;
+    			float lx = ccp.localAnchor1.x - b1.m_sweep.localCenter.x;
+    			float ly = ccp.localAnchor1.y - b1.m_sweep.localCenter.y;
+    			float r1x = R.col1.x * lx + R.col2.x * ly;
+    			float r1y = R.col1.y * lx + R.col2.y * ly;
+    			R = b2.m_xf.R;
+    			lx = ccp.localAnchor2.x - b2.m_sweep.localCenter.x;
+    			ly = ccp.localAnchor2.y - b2.m_sweep.localCenter.y;
+    			float r2x = R.col1.x * lx + R.col2.x * ly;
+    			float r2y = R.col1.y * lx + R.col2.y * ly;
     			//Vec2 r1 = Mat22.mul(b1.getXForm().R, ccp.localAnchor1.sub(b1.getLocalCenter()));
     			//Vec2 r2 = Mat22.mul(b2.getXForm().R, ccp.localAnchor2.sub(b2.getLocalCenter()));
     			
     			//Vec2 p1 = b1.m_sweep.c + r1;
     			//Vec2 p2 = b2.m_sweep.c + r2;
     			//Vec2 dp = p2 - p1;
-    			float dpx = b2.m_sweep.c.x + r2.x - b1.m_sweep.c.x - r1.x;
-    			float dpy = b2.m_sweep.c.y + r2.y - b1.m_sweep.c.y - r1.y;
+    			float dpx = b2.m_sweep.c.x + r2x - b1.m_sweep.c.x - r1x;
+    			float dpy = b2.m_sweep.c.y + r2y - b1.m_sweep.c.y - r1y;
     			
 
     			// Approximate the current separation.
@@ -651,12 +691,12 @@ public class ContactSolver {
 
     			b1.m_sweep.c.x -= invMass1 * impulsex;
     			b1.m_sweep.c.y -= invMass1 * impulsey;
-    			b1.m_sweep.a -= invI1 * (r1.x*impulsey - r1.y*impulsex);//b2Cross(r1, impulse);
+    			b1.m_sweep.a -= invI1 * (r1x*impulsey - r1y*impulsex);//b2Cross(r1, impulse);
     			b1.synchronizeTransform();
 
     			b2.m_sweep.c.x += invMass2 * impulsex;
     			b2.m_sweep.c.y += invMass2 * impulsey;
-    			b2.m_sweep.a += invI2 * (r2.x*impulsey - r2.y*impulsex);//b2Cross(r2, impulse);
+    			b2.m_sweep.a += invI2 * (r2x*impulsey - r2y*impulsex);//b2Cross(r2, impulse);
     			b2.synchronizeTransform();
     		}
     	}
@@ -27,7 +27,6 @@ package org.jbox2d.dynamics.contacts;
 //import java.util.List;
 
 import org.jbox2d.collision.CircleShape;
-import org.jbox2d.collision.CollideCircle;
 import org.jbox2d.collision.Collision;
 import org.jbox2d.collision.ContactID;
 import org.jbox2d.collision.Manifold;
@@ -39,6 +38,7 @@ import org.jbox2d.common.Vec2;
 import org.jbox2d.common.XForm;
 import org.jbox2d.dynamics.Body;
 import org.jbox2d.dynamics.ContactListener;
+import org.jbox2d.dynamics.WorldPool;
 
 //Updated to rev 144 of b2PolyAndCircleContact.h/cpp
 class PolyAndCircleContact extends Contact implements ContactCreateFcn {
@@ -83,7 +83,8 @@ class PolyAndCircleContact extends Contact implements ContactCreateFcn {
         newC.m_friction = this.m_friction;
         newC.m_restitution = this.m_restitution;
 
-        newC.m_flags = this.m_flags;
+        // The clone has no cached relative transform.
+        newC.m_flags = this.m_flags & ~e_cachedFlag;
         return newC;
     }
 
@@ -110,29 +111,31 @@ class PolyAndCircleContact extends Contact implements ContactCreateFcn {
     	
     	Body b1 = m_shape1.getBody();
     	Body b2 = m_shape2.getBody();
+    	WorldPool pool = b1.m_world.m_pool;
 
     	//memcpy(&m0, &m_manifold, sizeof(b2Manifold));
-    	Manifold m0 = new Manifold(m_manifold);
-        for (int k = 0; k < m_manifold.pointCount; k++) {
-            m0.points[k] = new ManifoldPoint(m_manifold.points[k]);
-            m0.points[k].normalImpulse = m_manifold.points[k].normalImpulse;
-            m0.points[k].tangentImpulse = m_manifold.points[k].tangentImpulse;
-            m0.points[k].separation = m_manifold.points[k].separation;
-            //m0.points[k].id.key = m_manifold.points[k].id.key;
-            m0.points[k].id.features.set(m_manifold.points[k].id.features);
-            //System.out.println(m_manifold.points[k].id.key);
-        }
-        m0.pointCount = m_manifold.pointCount;
+    	// Copied into the world's pool manifold, which is not garbage.
+    	Manifold m0 = pool.manifold;
+    	m0.set(m_manifold);
     	
-    	CollideCircle.collidePolygonAndCircle(m_manifold, (PolygonShape)m_shape1, b1.getXForm(), (CircleShape)m_shape2, b2.getXForm());
-
-    	boolean[] persisted= {false, false};
+    	// The XForms are only read, so m_xf instead of getXForm copies.
+    	if (updateCachedManifold(m_manifold) == false) {
+    		pool.collideCircle.collide(m_manifold, (PolygonShape)m_shape1, b1.m_xf, (CircleShape)m_shape2, b2.m_xf);
+    		cacheManifold(m_manifold);
+    	}
 
-    	ContactPoint cp = new ContactPoint();
-    	cp.shape1 = m_shape1;
-    	cp.shape2 = m_shape2;
-    	cp.friction = m_friction;
-    	cp.restitution = m_restitution;
+    	boolean[] persisted = pool.persisted;
+    	persisted[0] = false;
+    	persisted[1] = false;
+
+    	ContactPoint cp = null;
+    	if (listener != null) {
+    		cp = new ContactPoint();
+    		cp.shape1 = m_shape1;
+    		cp.shape2 = m_shape2;
+    		cp.friction = m_friction;
+    		cp.restitution = m_restitution;
+    	}
     	
     	// Match contact ids to facilitate warm starting.
     	if (m_manifold.pointCount > 0) {
@@ -144,7 +147,7 @@ class PolyAndCircleContact extends Contact implements ContactCreateFcn {
     			mp.normalImpulse = 0.0f;
     			mp.tangentImpulse = 0.0f;
     			boolean found = false;
-    			ContactID id = new ContactID(mp.id);
+    			ContactID id = mp.id;
 
     			for (int j = 0; j < m0.pointCount; ++j) {
     				if (persisted[j] == true) {
@@ -26,7 +26,6 @@ package org.jbox2d.dynamics.contacts;
 //import java.util.ArrayList;
 //import java.util.List;
 
-import org.jbox2d.collision.CollidePoly;
 import org.jbox2d.collision.ContactID;
 import org.jbox2d.collision.ManifoldPoint;
 import org.jbox2d.collision.Manifold;
@@ -36,6 +35,7 @@ import org.jbox2d.collision.ShapeType;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.Body;
 import org.jbox2d.dynamics.ContactListener;
+import org.jbox2d.dynamics.WorldPool;
 
 //Updated to rev 142 of b2PolyContact.h/cpp
 public class PolyContact extends Contact implements ContactCreateFcn {
@@ -78,7 +78,8 @@ public class PolyContact extends Contact implements ContactCreateFcn {
         newC.m_friction = this.m_friction;
         newC.m_restitution = this.m_restitution;
 
-        newC.m_flags = this.m_flags;
+        // The clone has no cached relative transform.
+        newC.m_flags = this.m_flags & ~e_cachedFlag;
         
         return newC;
     }
@@ -115,37 +116,49 @@ public class PolyContact extends Contact implements ContactCreateFcn {
     public void evaluate(ContactListener listener) {
     	Body b1 = m_shape1.getBody();
     	Body b2 = m_shape2.getBody();
+    	WorldPool pool = b1.m_world.m_pool;
         // Manifold m0 = m_manifold;
 		// midp optimization:
 		//  m0's fields were copied 2-3 times in some cases. I optimised it so
 		//  everything is copied only once.
 		//  Manifold does not clone properly, but ManifoldField does clone
 		//  everything properly (as do ContactID and Features)
-        Manifold m0 = new Manifold(m_manifold.pointCount);
+		//  The copy goes into the world's pool manifold now, so it is
+		//  not garbage either.
+        Manifold m0 = pool.manifold;
+        m0.set(m_manifold);
         //This next stuff might be unnecessary now [ewj: nope, we need it]
-        for (int k = 0; k < m_manifold.pointCount; k++) {
-            m0.points[k] = new ManifoldPoint(m_manifold.points[k]);
+        //for (int k = 0; k < m_manifold.pointCount; k++) {
+            //m0.points[k] = new ManifoldPoint(m_manifold.points[k]);
             //m0.points[k].normalImpulse = m_manifold.points[k].normalImpulse;
             //m0.points[k].tangentImpulse = m_manifold.points[k].tangentImpulse;
             //m0.points[k].separation = m_manifold.points[k].separation;
             ////m0.points[k].id.key = m_manifold.points[k].id.key;
             //m0.points[k].id.features.set(m_manifold.points[k].id.features);
             ////System.out.println(m_manifold.points[k].normalForce);
-        }
+        //}
         //m0.pointCount = m_manifold.pointCount;
 
 		// AFAIK the XForms passed into this method are used as read-only.
 		// so, getXForm has been replaced by m_xf
-        CollidePoly.collidePolygons(m_manifold, (PolygonShape) m_shape1,b1.m_xf,(PolygonShape) m_shape2, b2.m_xf);
+        if (updateCachedManifold(m_manifold) == false) {
+        	pool.collidePoly.collide(m_manifold, (PolygonShape) m_shape1,b1.m_xf,(PolygonShape) m_shape2, b2.m_xf);
+        	cacheManifold(m_manifold);
+        }
         //CollidePoly.collidePolygons(m_manifold, (PolygonShape) m_shape1,b1.getXForm(),(PolygonShape) m_shape2, b2.getXForm());
 
-        boolean[] persisted = {false, false};
-
-    	ContactPoint cp = new ContactPoint();
-    	cp.shape1 = m_shape1;
-    	cp.shape2 = m_shape2;
-    	cp.friction = m_friction;
-    	cp.restitution = m_restitution;
+        boolean[] persisted = pool.persisted;
+        persisted[0] = false;
+        persisted[1] = false;
+
+    	ContactPoint cp = null;
+    	if (listener != null) {
+    		cp = new ContactPoint();
+    		cp.shape1 = m_shape1;
+    		cp.shape2 = m_shape2;
+    		cp.friction = m_friction;
+    		cp.restitution = m_restitution;
+    	}
     	
         // Match contact ids to facilitate warm starting.
         // Watch out (Java note):
@@ -160,7 +173,7 @@ public class PolyContact extends Contact implements ContactCreateFcn {
     			mp.normalImpulse = 0.0f;
     			mp.tangentImpulse = 0.0f;
     			boolean found = false;
-    			ContactID id = new ContactID(mp.id);
+    			ContactID id = mp.id;
 
     			for (int j = 0; j < m0.pointCount; ++j) {
     				if (persisted[j] == true) {
@@ -0,0 +1,129 @@
+package org.jbox2d.test;
+
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.Random;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.BroadPhase;
+import org.jbox2d.collision.DynamicTree;
+import org.jbox2d.collision.PairCallback;
+import org.jbox2d.common.Vec2;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Proxies are created, moved and destroyed at random. After each commit,
+ * the reported pairs and the pairs in the PairManager must be exactly the
+ * pairs of proxies whose fat AABBs overlap, and the tree must be valid.
+ */
+public class BroadPhaseTest {
+    private static final int PROXY_COUNT = 300;
+
+    private static final int STEP_COUNT = 1000;
+
+    /** "i/j" -> "i/j", the pairs reported and not removed yet */
+    private HashMap<String, String> myPairs;
+
+    private BroadPhase myBroadPhase;
+
+    @Before
+    public void setUp () throws Exception {
+        myPairs = new HashMap<String, String>();
+        PairCallback callback = new PairCallback() {
+            public Object pairAdded (Object proxyUserData1,
+                    Object proxyUserData2) {
+                String key = pairKey(proxyUserData1, proxyUserData2);
+                assertNull("pair " + key + " added twice",
+                        myPairs.put(key, key));
+                return key;
+            }
+
+            public void pairRemoved (Object proxyUserData1,
+                    Object proxyUserData2, Object pairUserData) {
+                String key = pairKey(proxyUserData1, proxyUserData2);
+                assertEquals(key, pairUserData);
+                assertNotNull("pair " + key + " removed but not added",
+                        myPairs.remove(key));
+            }
+        };
+        // Small initial capacities, so that the tree and the pair pool grow.
+        myBroadPhase = new BroadPhase(new AABB(new Vec2(-100, -100),
+                new Vec2(100, 100)), callback, 4, 4);
+    }
+
+    @Test
+    public void testRandomProxies () {
+        BroadPhase bp = myBroadPhase;
+        Random random = new Random(1);
+        int n = PROXY_COUNT;
+        int[] ids = new int[n];
+        float[] x = new float[n], y = new float[n];
+        float[] w = new float[n], h = new float[n];
+        for (int i = 0; i < n; ++i) {
+            ids[i] = DynamicTree.NULL_NODE;
+        }
+        AABB aabb = new AABB();
+        for (int step = 0; step < STEP_COUNT; ++step) {
+            for (int k = 0; k < 30; ++k) {
+                int i = random.nextInt(n);
+                if (ids[i] == DynamicTree.NULL_NODE) {
+                    x[i] = 40 * random.nextFloat();
+                    y[i] = 40 * random.nextFloat();
+                    w[i] = 0.1f + 3 * random.nextFloat();
+                    h[i] = 0.1f + 3 * random.nextFloat();
+                } else if (random.nextInt(10) == 0) {
+                    bp.destroyProxy(ids[i]);
+                    ids[i] = DynamicTree.NULL_NODE;
+                    continue;
+                } else if (random.nextInt(10) == 0) {
+                    // jump
+                    x[i] = 40 * random.nextFloat();
+                    y[i] = 40 * random.nextFloat();
+                } else {
+                    // move a little, sometimes within the fat AABB
+                    x[i] += 0.4f * (random.nextFloat() - 0.5f);
+                    y[i] += 0.4f * (random.nextFloat() - 0.5f);
+                }
+                aabb.lowerBound.set(x[i], y[i]);
+                aabb.upperBound.set(x[i] + w[i], y[i] + h[i]);
+                if (ids[i] == DynamicTree.NULL_NODE) {
+                    ids[i] = bp.createProxy(aabb, Integer.valueOf(i));
+                } else {
+                    bp.moveProxy(ids[i], aabb);
+                }
+            }
+            bp.commit();
+            bp.validate();
+            int count = 0;
+            for (int i = 0; i < n; ++i) {
+                if (ids[i] == DynamicTree.NULL_NODE) {
+                    continue;
+                }
+                for (int j = i + 1; j < n; ++j) {
+                    if (ids[j] == DynamicTree.NULL_NODE
+                            || !bp.testOverlap(ids[i], ids[j])) {
+                        continue;
+                    }
+                    String key = i + "/" + j;
+                    assertTrue("pair " + key + " not reported in step " + step,
+                            myPairs.containsKey(key));
+                    assertNotNull("pair " + key + " missing in step " + step,
+                            bp.m_pairManager.find(ids[i], ids[j]));
+                    ++count;
+                }
+            }
+            // All the overlapping pairs are there, so there must be no more.
+            assertEquals("reported pairs in step " + step, count,
+                    myPairs.size());
+            assertEquals("PairManager pairs in step " + step, count,
+                    bp.m_pairManager.m_pairCount);
+        }
+    }
+
+    private static String pairKey (Object proxyUserData1,
+            Object proxyUserData2) {
+        int i1 = ((Integer) proxyUserData1).intValue();
+        int i2 = ((Integer) proxyUserData2).intValue();
+        return Math.min(i1, i2) + "/" + Math.max(i1, i2);
+    }
+}
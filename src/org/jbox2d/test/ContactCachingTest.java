@@ -0,0 +1,96 @@
+package org.jbox2d.test;
+
+import static org.junit.Assert.*;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.PolygonDef;
+import org.jbox2d.common.Settings;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.World;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A settled pyramid of boxes stepped with the contact cache should stay
+ * within the slop of the same pyramid stepped without it, while the cache
+ * reuses manifolds.
+ */
+public class ContactCachingTest {
+    private static final int ROW_COUNT = 10;
+
+    private static final int SETTLE_STEP_COUNT = 300;
+
+    private static final int STEP_COUNT = 600;
+
+    private World myUncached;
+
+    private World myCached;
+
+    @Before
+    public void setUp () throws Exception {
+        myUncached = createWorld();
+        myCached = createWorld();
+        // Settle both the same way, then enable the cache on one of them.
+        for (int i = 0; i < SETTLE_STEP_COUNT; i++) {
+            myUncached.step(1f / 60, 10);
+            myCached.step(1f / 60, 10);
+        }
+        myCached.setContactCaching(true);
+    }
+
+    @Test
+    public void testCachedStaysWithinSlop () {
+        for (int i = 0; i < STEP_COUNT; i++) {
+            myUncached.step(1f / 60, 10);
+            myCached.step(1f / 60, 10);
+            Body c = myCached.getBodyList();
+            for (Body u = myUncached.getBodyList(); u != null; u = u.getNext()) {
+                String body = "body " + u.getUserData() + " in step " + i;
+                assertEquals(u.getUserData(), c.getUserData());
+                assertEquals(body, u.getPosition().x, c.getPosition().x,
+                        Settings.linearSlop);
+                assertEquals(body, u.getPosition().y, c.getPosition().y,
+                        Settings.linearSlop);
+                assertEquals(body, u.getAngle(), c.getAngle(),
+                        Settings.angularSlop);
+                c = c.getNext();
+            }
+        }
+        assertEquals(0, myUncached.getContactCacheHits());
+        assertTrue(myCached.getContactCacheHits() > 0);
+        assertTrue(myCached.getContactCacheHitRate() > 0);
+    }
+
+    /**
+     * Create a pyramid of boxes on a static ground. Sleeping is off, so that
+     * the contacts of the settled pyramid keep being evaluated.
+     */
+    private static World createWorld () {
+        World world = new World(new AABB(new Vec2(-50, -50),
+                new Vec2(50, 100)), new Vec2(0, -10), false);
+        BodyDef groundDef = new BodyDef();
+        groundDef.position.set(0, -10);
+        Body ground = world.createBody(groundDef);
+        PolygonDef groundShape = new PolygonDef();
+        groundShape.setAsBox(40, 10);
+        ground.createShape(groundShape);
+        PolygonDef box = new PolygonDef();
+        box.setAsBox(0.5f, 0.5f);
+        box.density = 1;
+        box.friction = 0.6f;
+        int n = 0;
+        for (int row = 0; row < ROW_COUNT; row++) {
+            for (int i = 0; i < ROW_COUNT - row; i++) {
+                BodyDef bd = new BodyDef();
+                bd.position.set(-ROW_COUNT * 0.5f + row * 0.5f + i * 1.0f,
+                        0.5f + row * 1.0f);
+                Body b = world.createBody(bd);
+                b.setUserData(Integer.valueOf(n++));
+                b.createShape(box);
+                b.setMassFromShapes();
+            }
+        }
+        return world;
+    }
+}
@@ -0,0 +1,130 @@
+package org.jbox2d.test;
+
+import static org.junit.Assert.*;
+import org.jbox2d.collision.CircleDef;
+import org.jbox2d.collision.Distance;
+import org.jbox2d.collision.PolygonDef;
+import org.jbox2d.collision.Shape;
+import org.jbox2d.common.Mat22;
+import org.jbox2d.common.Settings;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.common.XForm;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * GJK distances between boxes and circles, checked against distances
+ * worked out by hand. Polygons are measured by their core, which is the
+ * polygon shrunk by Settings.toiSlop, and circles by their radius less
+ * Settings.toiSlop, so two shapes that are gap apart are
+ * gap + 2 * toiSlop apart for GJK.
+ */
+public class DistanceTest {
+    private static final float SLOP = Settings.toiSlop;
+
+    /** Half width of the core of the unit boxes. */
+    private static final float CORE = 0.5f - SLOP;
+
+    private static final float TOLERANCE = 1e-4f;
+
+    private Shape myBox1;
+
+    private Shape myBox2;
+
+    private Shape myCircle;
+
+    private Distance myDistance;
+
+    private Vec2 myX1;
+
+    private Vec2 myX2;
+
+    @Before
+    public void setUp () throws Exception {
+        PolygonDef box = new PolygonDef();
+        box.setAsBox(0.5f, 0.5f);
+        myBox1 = Shape.create(box);
+        myBox2 = Shape.create(box);
+        CircleDef circle = new CircleDef();
+        circle.radius = 0.3f;
+        myCircle = Shape.create(circle);
+        myDistance = new Distance();
+        myX1 = new Vec2();
+        myX2 = new Vec2();
+    }
+
+    @Test
+    public void testBoxesSideBySide () {
+        // edge against edge, with the boxes offset vertically
+        assertDistance(1 + 2 * SLOP, myBox1, at(0, 0, 0), myBox2,
+                at(2, 0.3f, 0));
+        assertDistance(1 + 2 * SLOP, myBox1, at(0, 0, 0), myBox2,
+                at(-0.4f, -2, 0));
+    }
+
+    @Test
+    public void testCornerAboveEdge () {
+        // a box turned by 45 degrees, with a corner pointing down at the
+        // top edge of the other box
+        float y = 2;
+        float expected = y - CORE * (float) Math.sqrt(2) - CORE;
+        assertDistance(expected, myBox1, at(0, 0, 0), myBox2,
+                at(0.2f, y, (float) Math.PI / 4));
+    }
+
+    @Test
+    public void testCornerToCorner () {
+        float expected = (float) Math.sqrt(2) * (2 - 2 * CORE);
+        assertDistance(expected, myBox1, at(0, 0, 0), myBox2, at(2, 2, 0));
+    }
+
+    @Test
+    public void testBoxAndCircle () {
+        // circle next to an edge
+        assertDistance(0.5f + 2 * SLOP, myBox1, at(0, 0, 0), myCircle,
+                at(1.3f, 0.2f, 0));
+        // circle next to a corner
+        float expected = (float) Math.sqrt(2) * (1.5f - CORE) - (0.3f - SLOP);
+        assertDistance(expected, myBox1, at(0, 0, 0), myCircle,
+                at(1.5f, 1.5f, 0));
+        // circle first, polygon second
+        assertDistance(0.5f + 2 * SLOP, myCircle, at(0.2f, -1.3f, 0),
+                myBox1, at(0, 0, 0));
+    }
+
+    @Test
+    public void testOverlapping () {
+        assertDistance(0, myBox1, at(0, 0, 0), myBox2, at(0.5f, 0.3f, 1));
+    }
+
+    @Test
+    public void testWarmStart () {
+        // As in TOI: the same pair of shapes, moving a little between calls,
+        // until they overlap.
+        myDistance.compute(myX1, myX2, myBox1, at(0, 0, 0), myBox2,
+                at(2, 0.3f, 0.4f));
+        myDistance.warmStart = true;
+        float y = 1.6f;
+        for (int i = 0; i < 10; i++) {
+            y -= 0.05f;
+            float expected = Math.max(0,
+                    y - CORE * (float) Math.sqrt(2) - CORE);
+            assertDistance(expected, myBox1, at(0, 0, 0), myBox2,
+                    at(0.2f, y, (float) Math.PI / 4));
+        }
+        assertTrue(Distance.g_GJK_WarmStarts > 0);
+    }
+
+    private static XForm at (float x, float y, float angle) {
+        return new XForm(new Vec2(x, y), new Mat22(angle));
+    }
+
+    private void assertDistance (float expected, Shape shape1, XForm xf1,
+            Shape shape2, XForm xf2) {
+        float distance = myDistance.compute(myX1, myX2, shape1, xf1, shape2,
+                xf2);
+        assertEquals(expected, distance, TOLERANCE);
+        // the closest points are the distance apart
+        assertEquals(distance, myX2.sub(myX1).length(), TOLERANCE);
+    }
+}
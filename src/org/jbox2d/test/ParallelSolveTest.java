@@ -0,0 +1,165 @@
+package org.jbox2d.test;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.CircleDef;
+import org.jbox2d.collision.PolygonDef;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.ContactListener;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.contacts.ContactPoint;
+import org.jbox2d.dynamics.contacts.ContactResult;
+import org.jbox2d.dynamics.joints.RevoluteJointDef;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A world solved in parallel should give exactly the same bodies and
+ * contact results as the same world solved serially.
+ */
+public class ParallelSolveTest {
+    private static final int STEP_COUNT = 400;
+
+    private List<String> mySerialResults;
+
+    private List<String> myParallelResults;
+
+    private World mySerial;
+
+    private World myParallel;
+
+    @Before
+    public void setUp () throws Exception {
+        mySerialResults = new ArrayList<String>();
+        myParallelResults = new ArrayList<String>();
+        mySerial = createWorld(mySerialResults);
+        myParallel = createWorld(myParallelResults);
+        myParallel.setParallelSolve(4);
+    }
+
+    @After
+    public void tearDown () throws Exception {
+        myParallel.setParallelSolve(0);
+    }
+
+    @Test
+    public void testSameAsSerial () {
+        for (int i = 0; i < STEP_COUNT; i++) {
+            mySerial.step(1f / 60, 10);
+            myParallel.step(1f / 60, 10);
+            assertEquals("contact results in step " + i, mySerialResults,
+                    myParallelResults);
+            mySerialResults.clear();
+            myParallelResults.clear();
+            Body p = myParallel.getBodyList();
+            for (Body s = mySerial.getBodyList(); s != null; s = s.getNext()) {
+                assertNotNull("body lists differ", p);
+                assertEquals("body lists differ", s.getUserData(),
+                        p.getUserData());
+                String body = "body " + s.getUserData() + " in step " + i;
+                assertEquals(body, bits(s.getPosition().x),
+                        bits(p.getPosition().x));
+                assertEquals(body, bits(s.getPosition().y),
+                        bits(p.getPosition().y));
+                assertEquals(body, bits(s.getAngle()), bits(p.getAngle()));
+                assertEquals(body, bits(s.getLinearVelocity().x),
+                        bits(p.getLinearVelocity().x));
+                assertEquals(body, bits(s.getLinearVelocity().y),
+                        bits(p.getLinearVelocity().y));
+                assertEquals(body, bits(s.getAngularVelocity()),
+                        bits(p.getAngularVelocity()));
+                assertEquals(body, s.isSleeping(), p.isSleeping());
+                p = p.getNext();
+            }
+            assertNull("body lists differ", p);
+        }
+    }
+
+    private static int bits (float f) {
+        return Float.floatToRawIntBits(f);
+    }
+
+    /**
+     * Create piles of boxes and circles, each with a jointed chain hanging
+     * over it, on one static ground, so that the islands share the ground.
+     * The contact results are recorded in results, in the order in which
+     * they are reported.
+     */
+    private static World createWorld (final List<String> results) {
+        World world = new World(new AABB(new Vec2(-100, -50),
+                new Vec2(100, 100)), new Vec2(0, -10), true);
+        world.setContactListener(new ContactListener() {
+            public void add (ContactPoint point) {
+            }
+
+            public void persist (ContactPoint point) {
+            }
+
+            public void remove (ContactPoint point) {
+            }
+
+            public void result (ContactResult point) {
+                results.add(point.shape1.getBody().getUserData()
+                        + "/" + point.shape2.getBody().getUserData()
+                        + " " + bits(point.normalImpulse)
+                        + " " + bits(point.tangentImpulse)
+                        + " " + bits(point.position.x)
+                        + " " + bits(point.position.y));
+            }
+        });
+        int n = 0;
+        BodyDef groundDef = new BodyDef();
+        groundDef.position.set(0, -10);
+        Body ground = world.createBody(groundDef);
+        ground.setUserData(Integer.valueOf(n++));
+        PolygonDef groundShape = new PolygonDef();
+        groundShape.setAsBox(90, 10);
+        ground.createShape(groundShape);
+        PolygonDef box = new PolygonDef();
+        box.setAsBox(0.5f, 0.5f);
+        box.density = 1;
+        box.friction = 0.3f;
+        CircleDef circle = new CircleDef();
+        circle.radius = 0.5f;
+        circle.density = 1;
+        PolygonDef link = new PolygonDef();
+        link.setAsBox(0.6f, 0.125f);
+        link.density = 1;
+        for (int pile = 0; pile < 8; pile++) {
+            float x0 = -70 + 20 * pile;
+            for (int i = 0; i < 20; i++) {
+                BodyDef bd = new BodyDef();
+                bd.position.set(x0 + (i % 4) * 1.5f + (i / 4 % 2) * 0.3f,
+                        1 + (i / 4) * 1.5f);
+                Body b = world.createBody(bd);
+                b.setUserData(Integer.valueOf(n++));
+                if (i % 3 == 2) {
+                    b.createShape(circle);
+                } else {
+                    b.createShape(box);
+                }
+                b.setMassFromShapes();
+            }
+            // a chain fixed to the ground at one end, falling onto the pile
+            Body prev = ground;
+            for (int i = 0; i < 5; i++) {
+                BodyDef bd = new BodyDef();
+                bd.position.set(x0 - 3 + 1.2f * i + 0.6f, 12);
+                Body b = world.createBody(bd);
+                b.setUserData(Integer.valueOf(n++));
+                b.createShape(link);
+                b.setMassFromShapes();
+                RevoluteJointDef jd = new RevoluteJointDef();
+                jd.initialize(prev, b, new Vec2(x0 - 3 + 1.2f * i, 12));
+                world.createJoint(jd);
+                prev = b;
+            }
+        }
+        return world;
+    }
+}
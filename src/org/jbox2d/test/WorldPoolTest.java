@@ -0,0 +1,81 @@
+package org.jbox2d.test;
+
+import static org.junit.Assert.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.CircleDef;
+import org.jbox2d.collision.PolygonDef;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.World;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A settled pile of boxes and circles should step without allocating,
+ * because World.step takes its scratch objects from the WorldPool.
+ */
+public class WorldPoolTest {
+    private World myWorld;
+
+    @Before
+    public void setUp () throws Exception {
+        myWorld = new World(new AABB(new Vec2(-40, -50), new Vec2(40, 100)),
+                new Vec2(0, -10), false);
+        BodyDef groundDef = new BodyDef();
+        groundDef.position.set(0, -10);
+        Body ground = myWorld.createBody(groundDef);
+        PolygonDef groundShape = new PolygonDef();
+        groundShape.setAsBox(35, 10);
+        ground.createShape(groundShape);
+        PolygonDef box = new PolygonDef();
+        box.setAsBox(0.5f, 0.5f);
+        box.density = 1;
+        box.friction = 0.3f;
+        CircleDef circle = new CircleDef();
+        circle.radius = 0.5f;
+        circle.density = 1;
+        for (int i = 0; i < 200; i++) {
+            BodyDef bd = new BodyDef();
+            bd.position.set((i % 20) * 1.5f - 15 + (i / 20 % 2) * 0.3f,
+                    1 + (i / 20) * 1.5f);
+            Body b = myWorld.createBody(bd);
+            if (i % 3 == 2) {
+                b.createShape(circle);
+            } else {
+                b.createShape(box);
+            }
+            b.setMassFromShapes();
+        }
+        for (int i = 0; i < 600; i++) {
+            myWorld.step(1f / 60, 10);
+        }
+    }
+
+    @Test
+    public void testSettledStepDoesNotAllocate () {
+        // Allocation counts are a HotSpot extension; skip without them.
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        if (!(mx instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean tmx =
+                (com.sun.management.ThreadMXBean) mx;
+        if (!tmx.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        long id = Thread.currentThread().getId();
+        // the measurement itself allocates a little, so measure empty too
+        long before = tmx.getThreadAllocatedBytes(id);
+        long overhead = tmx.getThreadAllocatedBytes(id) - before;
+        before = tmx.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 100; i++) {
+            myWorld.step(1f / 60, 10);
+        }
+        long allocated = tmx.getThreadAllocatedBytes(id) - before - overhead;
+        assertTrue("allocated " + allocated + " bytes in 100 steps",
+                allocated <= 0);
+    }
+}